@@ -51,6 +51,10 @@ class ProductSearchRequest(BaseModel):
     min_rating: Optional[float] = None
     category_id: Optional[int] = None
 
+class BatchSearchRequest(BaseModel):
+    queries: List[str]
+    n_results: int = 10
+
 class ProductSyncRequest(BaseModel):
     products: List[dict]
 
@@ -193,7 +197,7 @@ async def sync_from_springboot():
     """
     try:
         async with httpx.AsyncClient() as client:
-            response = await client.get(f"{SPRING_BOOT_URL}/api/produits")
+            response = await client.get(f"{SPRING_BOOT_URL}/api/produits", params={"stream": "true"}, timeout=None)
             response.raise_for_status()
             products = response.json()
         
@@ -303,6 +307,38 @@ async def semantic_search_get(
     )
     return await semantic_search(request)
 
+@app.post("/search/batch")
+async def semantic_search_batch(request: BatchSearchRequest):
+    """
+    Semantic search for several queries in one call
+    (one encode + one ChromaDB query for the whole batch)
+    """
+    try:
+        queries = [q for q in request.queries if q and q.strip()]
+        if not queries:
+            return {"results": []}
+
+        collection = get_collection()
+        query_embeddings = embedding_model.encode(queries, convert_to_numpy=True).tolist()
+        results = collection.query(
+            query_embeddings=query_embeddings,
+            n_results=request.n_results
+        )
+
+        batch = []
+        for query, id_list in zip(queries, results.get("ids") or []):
+            product_ids = [
+                int(product_id_str.replace("product_", ""))
+                for product_id_str in id_list
+                if product_id_str.startswith("product_")
+            ]
+            batch.append({"query": query, "product_ids": product_ids})
+
+        return {"results": batch}
+
+    except Exception as e:
+        raise HTTPException(status_code=500, detail=f"Error performing batch search: {str(e)}")
+
 @app.delete("/clear-collection")
 async def clear_collection():
     """
@@ -13,7 +13,7 @@ def sync_products():
     """Fetch products from Spring Boot and sync to ChromaDB"""
     try:
         print("Fetching products from Spring Boot backend...")
-        response = requests.get(f"{SPRING_BOOT_URL}/api/produits")
+        response = requests.get(f"{SPRING_BOOT_URL}/api/produits", params={"stream": "true"})
         response.raise_for_status()
         products = response.json()
         
@@ -0,0 +1,45 @@
+package org.example.projectjee.config;
+
+import org.example.projectjee.model.Role;
+import org.example.projectjee.model.Utilisateur;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.annotation.RequestScope;
+
+import lombok.Getter;
+
+/**
+ * Utilisateur authentifié de la requête en cours (id, email, rôle).
+ *
+ * Rempli une seule fois par {@link JwtAuthenticationFilter}, qui charge déjà
+ * l'utilisateur pour valider le jeton : les contrôleurs l'injectent au lieu de
+ * relancer {@code findByEmail}. Pour rattacher une entité à l'utilisateur,
+ * utiliser {@code utilisateurRepository.getReferenceById(currentUser.requireId())}.
+ */
+@Getter
+@Component
+@RequestScope
+public class CurrentUser {
+
+    private Long id;
+    private String email;
+    private Role role;
+
+    // public : appelé à travers le proxy de portée requête
+    public void set(Utilisateur user) {
+        this.id = user.getId();
+        this.email = user.getEmail();
+        this.role = user.getRole();
+    }
+
+    public boolean isAuthenticated() {
+        return id != null;
+    }
+
+    /** Id de l'utilisateur connecté ; exception si la requête n'est pas authentifiée. */
+    public Long requireId() {
+        if (id == null) {
+            throw new RuntimeException("Utilisateur non authentifié");
+        }
+        return id;
+    }
+}
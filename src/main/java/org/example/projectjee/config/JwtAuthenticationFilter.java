@@ -25,6 +25,9 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     @Autowired 
     private UtilisateurRepository utilisateurRepository;
 
+    @Autowired
+    private CurrentUser currentUser;
+
     @Override
     protected void doFilterInternal(HttpServletRequest request,
                                     HttpServletResponse response,
@@ -60,6 +63,9 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
                 
                 SecurityContextHolder.getContext().setAuthentication(authToken);
+
+                // ✅ Utilisateur déjà chargé : les contrôleurs le lisent sans nouvelle requête
+                currentUser.set(user);
             }
         }
 
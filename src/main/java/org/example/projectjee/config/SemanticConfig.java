@@ -0,0 +1,20 @@
+package org.example.projectjee.config;
+
+import org.example.projectjee.services.EmbeddingProvider;
+import org.example.projectjee.services.HashingEmbeddingProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class SemanticConfig {
+
+    // ✅ Fournisseur par défaut : local et déterministe, remplacé par tout autre bean EmbeddingProvider
+    @Bean
+    @ConditionalOnMissingBean(EmbeddingProvider.class)
+    public EmbeddingProvider embeddingProvider(
+            @Value("${semantic.embedding.dimension:256}") int dimension) {
+        return new HashingEmbeddingProvider(dimension);
+    }
+}
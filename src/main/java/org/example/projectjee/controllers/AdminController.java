@@ -16,6 +16,8 @@ import org.example.projectjee.model.Utilisateur;
 import org.example.projectjee.repository.CategorieRepository;
 import org.example.projectjee.repository.ProduitRepository;
 import org.example.projectjee.repository.UtilisateurRepository;
+import org.example.projectjee.services.CatalogAggregateStore;
+import org.example.projectjee.services.CatalogVersion;
 import org.example.projectjee.services.VenteService;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -25,6 +27,7 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
 import lombok.RequiredArgsConstructor;
 
@@ -38,6 +41,8 @@ public class AdminController {
     private final ProduitRepository produitRepository;   // ⬅️ AJOUT
     private final CategorieRepository categorieRepository;   // ⬅️ AJOUT
     private final VenteService venteService;
+    private final CatalogVersion catalogVersion;
+    private final CatalogAggregateStore catalogAggregateStore;
 
 
     @GetMapping("/me")
@@ -71,7 +76,9 @@ public class AdminController {
         // 1️⃣ KPI : Total des Produits
     @GetMapping("/total-produits")
     public ResponseEntity<Long> getTotalProduits() {
-        long total = produitRepository.count();   // compte toutes les lignes de la table PRODUIT
+        long total = catalogAggregateStore.isReady()
+                ? catalogAggregateStore.totalProduits()   // compteur tenu à jour en mémoire
+                : produitRepository.count();   // compte toutes les lignes de la table PRODUIT
         System.out.println("TOTAL PRODUITS = " + total);
         return ResponseEntity.ok(total);
     }
@@ -79,14 +86,18 @@ public class AdminController {
     // 2️⃣ KPI : Total des Catégories
     @GetMapping("/total-categories")
     public ResponseEntity<Long> getTotalCategories() {
-        long total = categorieRepository.count();   // compte toutes les lignes dans la table categorie
+        long total = catalogAggregateStore.isReady()
+                ? catalogAggregateStore.totalCategories()
+                : categorieRepository.count();   // compte toutes les lignes dans la table categorie
         System.out.println("TOTAL CATEGORIES = " + total);
         return ResponseEntity.ok(total);
     }
     // 3️⃣ KPI : Note moyenne globale
     @GetMapping("/note-moyenne-globale")
     public ResponseEntity<Double> getNoteMoyenneGlobale() {
-        Double note = produitRepository.findNoteMoyenneGlobale();
+        Double note = catalogAggregateStore.isReady()
+                ? catalogAggregateStore.noteMoyenne()
+                : produitRepository.findNoteMoyenneGlobale();
         if (note == null) {
             note = 0.0;
         }
@@ -94,7 +105,10 @@ public class AdminController {
         return ResponseEntity.ok(note);
     }
     @GetMapping("/categories")
-    public ResponseEntity<List<CategorieDTO>> getAllCategories() {
+    public ResponseEntity<List<CategorieDTO>> getAllCategories(WebRequest request) {
+        if (request.checkNotModified(catalogVersion.etag())) {
+            return null;
+        }
         List<CategorieDTO> dtos = categorieRepository.findAll().stream()
             .map(c -> new CategorieDTO(
                     c.getId(),
@@ -145,7 +159,9 @@ public class AdminController {
 
     @GetMapping("/produits-par-categorie")
     public ResponseEntity<List<ProduitCategorieStatDTO>> getProduitsParCategorie() {
-        List<ProduitCategorieStatDTO> stats = produitRepository.countProduitsParCategorie();
+        List<ProduitCategorieStatDTO> stats = catalogAggregateStore.isReady()
+                ? catalogAggregateStore.produitsParCategorie()
+                : produitRepository.countProduitsParCategorie();
         return ResponseEntity.ok(stats);
     }
 
@@ -179,9 +195,10 @@ public class AdminController {
         Utilisateur admin = utilisateurRepository.findByEmail(email)
             .orElseThrow(() -> new RuntimeException("Utilisateur non trouvé"));
 
-        Long totalProducts = produitRepository.count();
-        Long totalCategories = categorieRepository.count();
-        Double note = produitRepository.findNoteMoyenneGlobale();
+        boolean aggregated = catalogAggregateStore.isReady();
+        Long totalProducts = aggregated ? catalogAggregateStore.totalProduits() : produitRepository.count();
+        Long totalCategories = aggregated ? catalogAggregateStore.totalCategories() : categorieRepository.count();
+        Double note = aggregated ? catalogAggregateStore.noteMoyenne() : produitRepository.findNoteMoyenneGlobale();
         if (note == null) note = 0.0;
 
         TopCategorieDTO topCat = venteService.getTopCategorie(); // {categorieNom, totalQte}
@@ -1,13 +1,12 @@
 package org.example.projectjee.controllers;
 
+import org.example.projectjee.config.CurrentUser;
 import org.example.projectjee.model.CartItem;
 import org.example.projectjee.model.Product;
 import org.example.projectjee.model.Utilisateur;
 import org.example.projectjee.repository.CartItemRepository;
 import org.example.projectjee.repository.ProduitRepository;
 import org.example.projectjee.repository.UtilisateurRepository;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
 import java.util.List;
 
@@ -19,33 +18,30 @@ public class CartController {
     private final CartItemRepository cartItemRepository;
     private final ProduitRepository productRepository;
     private final UtilisateurRepository utilisateurRepository;
+    private final CurrentUser currentUser;
 
     public CartController(CartItemRepository cartItemRepository,
                           ProduitRepository productRepository,
-                          UtilisateurRepository utilisateurRepository) {
+                          UtilisateurRepository utilisateurRepository,
+                          CurrentUser currentUser) {
         this.cartItemRepository = cartItemRepository;
         this.productRepository = productRepository;
         this.utilisateurRepository = utilisateurRepository;
+        this.currentUser = currentUser;
     }
 
     /**
-     * Récupère l'utilisateur actuellement connecté
+     * Récupère l'utilisateur actuellement connecté (référence, sans requête)
      */
     private Utilisateur getCurrentUser() {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        if (authentication == null || !authentication.isAuthenticated()) {
-            throw new RuntimeException("Utilisateur non authentifié");
-        }
-        String email = authentication.getName();
-        return utilisateurRepository.findByEmail(email)
-                .orElseThrow(() -> new RuntimeException("Utilisateur introuvable"));
+        return utilisateurRepository.getReferenceById(currentUser.requireId());
     }
 
     /**
      * Récupère l'ID de l'utilisateur actuellement connecté
      */
     private Long getCurrentUserId() {
-        return getCurrentUser().getId();
+        return currentUser.requireId();
     }
 
     // 1. AJOUTER produit au panier
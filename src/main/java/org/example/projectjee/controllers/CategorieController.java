@@ -4,11 +4,13 @@ import java.util.List;
 
 import org.example.projectjee.model.Categorie;
 import org.example.projectjee.repository.CategorieRepository;
+import org.example.projectjee.services.CatalogVersion;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
 @RestController
 @RequestMapping("/api/categories")
@@ -16,14 +18,19 @@ import org.springframework.web.bind.annotation.RestController;
 public class CategorieController {
 
     private final CategorieRepository categorieRepository;
+    private final CatalogVersion catalogVersion;
 
-    public CategorieController(CategorieRepository categorieRepository) {
+    public CategorieController(CategorieRepository categorieRepository, CatalogVersion catalogVersion) {
         this.categorieRepository = categorieRepository;
+        this.catalogVersion = catalogVersion;
     }
 
-    // 1) Liste de toutes les catégories
+    // 1) Liste de toutes les catégories (304 si le catalogue n'a pas changé)
     @GetMapping
-    public List<Categorie> getAllCategories() {
+    public List<Categorie> getAllCategories(WebRequest request) {
+        if (request.checkNotModified(catalogVersion.etag())) {
+            return null;
+        }
         return categorieRepository.findAll();
     }
 
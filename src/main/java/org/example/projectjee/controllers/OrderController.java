@@ -1,16 +1,19 @@
 package org.example.projectjee.controllers;
 
+import org.example.projectjee.config.CurrentUser;
+import org.example.projectjee.events.CatalogChangedEvent;
 import org.example.projectjee.model.*;
 import org.example.projectjee.repository.*;
+import org.example.projectjee.services.VenteRollupService;
 import jakarta.persistence.EntityManager;
 import jakarta.transaction.Transactional;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -26,39 +29,42 @@ public class OrderController {
     private final ProduitRepository productRepository;
     private final UtilisateurRepository utilisateurRepository;
     private final EntityManager entityManager;
+    private final ApplicationEventPublisher eventPublisher;
+    private final VenteRollupService venteRollupService;
+    private final CurrentUser currentUser;
 
     public OrderController(OrderRepository orderRepository,
                           OrderItemRepository orderItemRepository,
                           CartItemRepository cartItemRepository,
                           ProduitRepository productRepository,
                           UtilisateurRepository utilisateurRepository,
-                          EntityManager entityManager) {
+                          EntityManager entityManager,
+                          ApplicationEventPublisher eventPublisher,
+                          VenteRollupService venteRollupService,
+                          CurrentUser currentUser) {
         this.orderRepository = orderRepository;
         this.orderItemRepository = orderItemRepository;
         this.cartItemRepository = cartItemRepository;
         this.productRepository = productRepository;
         this.utilisateurRepository = utilisateurRepository;
         this.entityManager = entityManager;
+        this.eventPublisher = eventPublisher;
+        this.venteRollupService = venteRollupService;
+        this.currentUser = currentUser;
     }
 
     /**
-     * Récupère l'utilisateur actuellement connecté
+     * Récupère l'utilisateur actuellement connecté (référence, sans requête)
      */
     private Utilisateur getCurrentUser() {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        if (authentication == null || !authentication.isAuthenticated()) {
-            throw new RuntimeException("Utilisateur non authentifié");
-        }
-        String email = authentication.getName();
-        return utilisateurRepository.findByEmail(email)
-                .orElseThrow(() -> new RuntimeException("Utilisateur introuvable"));
+        return utilisateurRepository.getReferenceById(currentUser.requireId());
     }
 
     /**
      * Récupère l'ID de l'utilisateur actuellement connecté
      */
     private Long getCurrentUserId() {
-        return getCurrentUser().getId();
+        return currentUser.requireId();
     }
 
     /**
@@ -108,6 +114,7 @@ public class OrderController {
         order = orderRepository.save(order);
 
         // Créer les lignes de commande ET décrémenter le stock
+        List<OrderItem> orderItems = new ArrayList<>(cartItems.size());
         for (CartItem cartItem : cartItems) {
             // Recharger le produit pour obtenir la version la plus récente (éviter les conditions de concurrence)
             Product product = productRepository.findById(cartItem.getProduct().getId())
@@ -129,12 +136,18 @@ public class OrderController {
                     .quantity(cartItem.getQuantity())
                     .unitPrice(product.getPrice())
                     .build();
-            orderItemRepository.save(orderItem);
+            orderItems.add(orderItemRepository.save(orderItem));
         }
 
+        // ✅ Rollups journaliers des tableaux de bord vendeur, dans la même transaction
+        venteRollupService.record(order, orderItems);
+
         // Vider le panier
         cartItemRepository.deleteAll(cartItems);
 
+        // Stocks modifiés : les lectures du catalogue (ETag) sont périmées après le commit
+        eventPublisher.publishEvent(new CatalogChangedEvent("commande " + order.getId()));
+
         // Flush pour s'assurer que tout est persisté
         entityManager.flush();
         entityManager.clear();
@@ -1,26 +1,89 @@
 package org.example.projectjee.controllers;
 
+import org.example.projectjee.dto.ProductBatchDTO;
+import org.example.projectjee.dto.ProductSummaryDTO;
+import org.example.projectjee.dto.SuggestResponseDTO;
 import org.example.projectjee.model.Product;
 import org.example.projectjee.repository.ProduitRepository;
+import org.example.projectjee.services.AsinIndex;
+import org.example.projectjee.services.ProductPageService;
+import org.example.projectjee.services.ProductSuggestService;
+import org.example.projectjee.services.ProduitSearchService;
+import org.example.projectjee.services.TitleTrigramIndex;
+import org.example.projectjee.spec.ProduitSpecifications;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
 
 @RestController
 @RequestMapping("/api/products")
 @CrossOrigin(origins = "http://localhost:3000") // port Vite par défaut
 public class ProductController {
 
+    // taille max d'un lot /batch (une seule requête IN)
+    private static final int MAX_BATCH = 500;
+
     private final ProduitRepository productRepository;
+    private final ProduitSearchService produitSearchService;
+    private final ProductPageService productPageService;
+    private final ProductSuggestService productSuggestService;
+    private final TitleTrigramIndex titleTrigramIndex;
+    private final AsinIndex asinIndex;
 
-    public ProductController(ProduitRepository productRepository) {
+    public ProductController(ProduitRepository productRepository,
+                             ProduitSearchService produitSearchService,
+                             ProductPageService productPageService,
+                             ProductSuggestService productSuggestService,
+                             TitleTrigramIndex titleTrigramIndex,
+                             AsinIndex asinIndex) {
         this.productRepository = productRepository;
+        this.produitSearchService = produitSearchService;
+        this.productPageService = productPageService;
+        this.productSuggestService = productSuggestService;
+        this.titleTrigramIndex = titleTrigramIndex;
+        this.asinIndex = asinIndex;
+    }
+
+    // Les listes sont paginées par curseur : ?limit=&cursor=&sort=price,desc (tri sur rating, ratingCount,
+    // price ou id), page par défaut sans limit. L'ancienne liste complète reste accessible avec ?all=true
+    // (déprécié, en-tête Deprecation). ?view=summary ne sélectionne que les colonnes de ProductSummaryDTO.
+    private ResponseEntity<?> list(Specification<Product> spec, String sort, Integer limit, String cursor,
+                                   String view, boolean all, Supplier<List<Product>> legacy) {
+        ProductPageService.Keyset keyset = ProductPageService.Keyset.parse(sort, ProductPageService.Keyset.ID_ASC);
+        boolean unpaged = all && limit == null && cursor == null;
+        if ("summary".equals(view)) {
+            if (unpaged) {
+                return ResponseEntity.ok().header("Deprecation", "true")
+                        .body(productPageService.summaries(spec, Sort.by("id")));
+            }
+            return ResponseEntity.ok(productPageService.pageSummaries(spec, keyset, cursor, limit));
+        }
+        if (unpaged) {
+            return ResponseEntity.ok().header("Deprecation", "true").body(legacy.get());
+        }
+        return ResponseEntity.ok(productPageService.page(spec, keyset, cursor, limit));
     }
 
     // 1) Liste de tous les produits
     @GetMapping
-    public List<Product> getAllProducts() {
-        return productRepository.findAll();
+    public ResponseEntity<?> getAllProducts(
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) String sort,
+            @RequestParam(required = false) String view,
+            @RequestParam(required = false, defaultValue = "false") boolean all) {
+        return list(null, sort, limit, cursor, view, all, productRepository::findAll);
     }
 
     // 2) Détail d'un produit par id
@@ -30,59 +93,175 @@ public class ProductController {
                 .orElseThrow(() -> new RuntimeException("Produit introuvable"));
     }
 
+    // 2 bis) Plusieurs produits par ids en une requête (panier, commandes, résultats sémantiques)
+    // GET /batch?ids=3,1,2 ou POST /batch avec [3,1,2] pour les longues listes ; ordre de la demande conservé
+    @GetMapping("/batch")
+    public ProductBatchDTO<?> getProductsBatch(@RequestParam List<Long> ids,
+                                               @RequestParam(required = false) String view) {
+        return batch(ids, view);
+    }
+
+    @PostMapping("/batch")
+    public ProductBatchDTO<?> postProductsBatch(@RequestBody List<Long> ids,
+                                                @RequestParam(required = false) String view) {
+        return batch(ids, view);
+    }
+
+    private ProductBatchDTO<?> batch(List<Long> ids, String view) {
+        List<Long> requested = new ArrayList<>(new LinkedHashSet<>(ids));
+        requested.remove(null);
+        if (requested.size() > MAX_BATCH) {
+            throw new RuntimeException("Un lot ne peut pas dépasser " + MAX_BATCH + " ids");
+        }
+        if (requested.isEmpty()) {
+            return new ProductBatchDTO<>(List.of(), List.of());
+        }
+
+        if ("summary".equals(view)) {
+            List<ProductSummaryDTO> items = productPageService.summariesByIds(requested);
+            Set<Long> found = new HashSet<>();
+            for (ProductSummaryDTO dto : items) found.add(dto.getId());
+            return new ProductBatchDTO<>(items, missing(requested, found));
+        }
+
+        Map<Long, Product> byId = new HashMap<>(requested.size() * 2);
+        for (Product p : productRepository.findByIdIn(requested)) {
+            byId.put(p.getId(), p);
+        }
+        List<Product> items = new ArrayList<>(byId.size());
+        for (Long id : requested) {
+            Product p = byId.get(id);
+            if (p != null) items.add(p);
+        }
+        return new ProductBatchDTO<>(items, missing(requested, byId.keySet()));
+    }
+
+    private static List<Long> missing(List<Long> requested, Set<Long> found) {
+        return requested.stream().filter(id -> !found.contains(id)).toList();
+    }
+
     // 3) Recherche par mot-clé (search)
     @GetMapping("/search")
-    public List<Product> searchProducts(@RequestParam String keyword) {
+    // ?fuzzy=true : tolère les fautes de frappe (index trigrammes + distance d'édition), meilleurs d'abord.
+    // Sans fuzzy : paginé comme les autres listes (?limit=&cursor=&sort=, ?all=true déprécié)
+    public ResponseEntity<?> searchProducts(@RequestParam String keyword,
+                                            @RequestParam(required = false) String view,
+                                            @RequestParam(required = false, defaultValue = "false") boolean fuzzy,
+                                            @RequestParam(required = false) Integer limit,
+                                            @RequestParam(required = false) String cursor,
+                                            @RequestParam(required = false) String sort,
+                                            @RequestParam(required = false, defaultValue = "false") boolean all) {
         if (keyword == null || keyword.trim().isEmpty()) {
             throw new RuntimeException("Le mot-clé de recherche ne peut pas être vide");
         }
-        return productRepository.findByTitleContainingIgnoreCase(keyword.trim());
+        if (fuzzy && titleTrigramIndex.isReady()) {
+            List<Long> ids = titleTrigramIndex.search(keyword).stream()
+                    .limit(ProductPageService.normalizeLimit(limit))
+                    .map(TitleTrigramIndex.Match::getProductId)
+                    .toList();
+            return ResponseEntity.ok("summary".equals(view)
+                    ? productPageService.summariesByIds(ids)
+                    : produitSearchService.findAllInOrder(ids));
+        }
+        String trimmed = keyword.trim();
+        return list(ProduitSpecifications.titleContains(trimmed), sort, limit, cursor, view, all,
+                () -> productRepository.findByTitleContainingIgnoreCase(trimmed));
     }
 
-    // 4) Filtrage avancé avec plusieurs critères
+    // 3 bis) Autocomplétion (titres + catégories), servie depuis la mémoire
+    @GetMapping("/suggest")
+    public SuggestResponseDTO suggest(@RequestParam String prefix,
+                                      @RequestParam(required = false) Integer limit) {
+        return productSuggestService.suggest(prefix, limit);
+    }
+
+    // 4) Filtrage avancé avec plusieurs critères (paginé comme les autres listes)
     @GetMapping("/filter")
-    public List<Product> filterProducts(
+    public ResponseEntity<?> filterProducts(
             @RequestParam(required = false) String keyword,
             @RequestParam(required = false) Long categoryId,
             @RequestParam(required = false) Double minPrice,
             @RequestParam(required = false) Double maxPrice,
-            @RequestParam(required = false) Double minRating) {
-        return productRepository.searchProducts(keyword, categoryId, minPrice, maxPrice, minRating);
+            @RequestParam(required = false) Double minRating,
+            @RequestParam(required = false) String view,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) String sort,
+            @RequestParam(required = false, defaultValue = "false") boolean all) {
+        Specification<Product> spec = produitSearchService.buildSpec(
+                keyword,
+                categoryId,
+                minPrice != null ? BigDecimal.valueOf(minPrice) : null,
+                maxPrice != null ? BigDecimal.valueOf(maxPrice) : null,
+                minRating != null ? BigDecimal.valueOf(minRating) : null,
+                null, null, null);
+        return list(spec, sort, limit, cursor, view, all, () -> productRepository.findAll(spec));
     }
 
     // 5) Recherche par catégorie
     @GetMapping("/category/{categoryId}")
-    public List<Product> getProductsByCategory(@PathVariable Long categoryId) {
-        return productRepository.findByCategorie_Id(categoryId);
+    public ResponseEntity<?> getProductsByCategory(
+            @PathVariable Long categoryId,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) String sort,
+            @RequestParam(required = false) String view,
+            @RequestParam(required = false, defaultValue = "false") boolean all) {
+        Specification<Product> spec = ProduitSpecifications.withFilters(
+                (String) null, categoryId, null, null, null, null, null, null);
+        return list(spec, sort, limit, cursor, view, all, () -> productRepository.findByCategorie_Id(categoryId));
     }
 
     // 6) Recherche par ASIN
     @GetMapping("/asin/{asin}")
     public Product getProductByAsin(@PathVariable String asin) {
+        if (asinIndex.isReady()) {
+            // ✅ ASIN inconnu : 404 sans requête ; connu : lecture par clé primaire
+            Long id = asinIndex.findId(asin)
+                    .orElseThrow(() -> new RuntimeException("Produit introuvable"));
+            return productRepository.findById(id)
+                    .orElseThrow(() -> new RuntimeException("Produit introuvable"));
+        }
         return productRepository.findByAsin(asin)
                 .orElseThrow(() -> new RuntimeException("Produit introuvable"));
     }
 
     // 7) Recherche par plage de prix
     @GetMapping("/price-range")
-    public List<Product> getProductsByPriceRange(
+    public ResponseEntity<?> getProductsByPriceRange(
             @RequestParam Double minPrice,
-            @RequestParam Double maxPrice) {
+            @RequestParam Double maxPrice,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) String sort,
+            @RequestParam(required = false) String view,
+            @RequestParam(required = false, defaultValue = "false") boolean all) {
         if (minPrice < 0 || maxPrice < 0) {
             throw new RuntimeException("Les prix ne peuvent pas être négatifs");
         }
         if (minPrice > maxPrice) {
             throw new RuntimeException("Le prix minimum ne peut pas être supérieur au prix maximum");
         }
-        return productRepository.findByPriceBetween(minPrice, maxPrice);
+        Specification<Product> spec = ProduitSpecifications.withFilters(
+                (String) null, null, BigDecimal.valueOf(minPrice), BigDecimal.valueOf(maxPrice),
+                null, null, null, null);
+        return list(spec, sort, limit, cursor, view, all, () -> productRepository.findByPriceBetween(minPrice, maxPrice));
     }
 
     // 8) Recherche par note minimale
     @GetMapping("/rating/{minRating}")
-    public List<Product> getProductsByRating(@PathVariable Double minRating) {
+    public ResponseEntity<?> getProductsByRating(
+            @PathVariable Double minRating,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) String sort,
+            @RequestParam(required = false) String view,
+            @RequestParam(required = false, defaultValue = "false") boolean all) {
         if (minRating < 0.0 || minRating > 5.0) {
             throw new RuntimeException("La note doit être entre 0.0 et 5.0");
         }
-        return productRepository.findByRatingGreaterThanEqual(minRating);
+        Specification<Product> spec = ProduitSpecifications.withFilters(
+                (String) null, null, null, null, BigDecimal.valueOf(minRating), null, null, null);
+        return list(spec, sort, limit, cursor, view, all, () -> productRepository.findByRatingGreaterThanEqual(minRating));
     }
 }
@@ -1,25 +1,51 @@
 package org.example.projectjee.controllers;
 
+import org.example.projectjee.dto.CursorPage;
 import org.example.projectjee.dto.ProductKpisDTO;
+import org.example.projectjee.dto.ProduitFacetsDTO;
+import org.example.projectjee.dto.ProduitQuantilesDTO;
+import org.example.projectjee.events.ProductChangedEvent;
 import org.example.projectjee.model.Categorie;
 import org.example.projectjee.model.Product;
 import org.example.projectjee.repository.*;
+import org.example.projectjee.services.CatalogVersion;
+import org.example.projectjee.services.HybridSearchService;
+import org.example.projectjee.services.ProductPageService;
+import org.example.projectjee.services.ProductStreamService;
+import org.example.projectjee.services.ProduitFacetService;
 import org.example.projectjee.services.ProduitKpiService;
-import org.example.projectjee.spec.ProduitSpecifications;
+import org.example.projectjee.services.ProduitResultCache;
+import org.example.projectjee.services.ProduitSearchService;
+import org.example.projectjee.services.ProductVectorIndex;
+import org.example.projectjee.services.SemanticProduitService;
+import org.example.projectjee.services.SemanticSearchService;
+import org.example.projectjee.spec.ProduitFilter;
+import org.example.projectjee.spec.ProduitQueryKey;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Sort;
-import org.springframework.data.jpa.domain.Specification;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
 import java.math.BigDecimal;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
 
 @RestController
 @RequestMapping("/api/produits")
 @CrossOrigin(origins = "http://localhost:3000")
 public class ProduitController {
 
+    // ?view=summary : id, titre, prix, note, nb avis, image (sans description ni associations)
+    private static final String SUMMARY_VIEW = "summary";
+
     private final ProduitRepository produitRepository;
     private final CategorieRepository categorieRepository;
     private final ProduitKpiService produitKpiService;
@@ -27,6 +53,17 @@ public class ProduitController {
     private final OrderItemRepository orderItemRepository;
     private final RatingRepository ratingRepository;
     private final ProductImageRepository productImageRepository;
+    private final ProduitSearchService produitSearchService;
+    private final ProductPageService productPageService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ProduitFacetService produitFacetService;
+    private final ProductVectorIndex productVectorIndex;
+    private final SemanticProduitService semanticProduitService;
+    private final SemanticSearchService semanticSearchService;
+    private final HybridSearchService hybridSearchService;
+    private final ProduitResultCache produitResultCache;
+    private final CatalogVersion catalogVersion;
+    private final ProductStreamService productStreamService;
 
     public ProduitController(ProduitRepository produitRepository,
             CategorieRepository categorieRepository,
@@ -34,7 +71,18 @@ public class ProduitController {
             CartItemRepository cartItemRepository,
             OrderItemRepository orderItemRepository,
             RatingRepository ratingRepository,
-            ProductImageRepository productImageRepository) {
+            ProductImageRepository productImageRepository,
+            ProduitSearchService produitSearchService,
+            ProductPageService productPageService,
+            ApplicationEventPublisher eventPublisher,
+            ProduitFacetService produitFacetService,
+            ProductVectorIndex productVectorIndex,
+            SemanticProduitService semanticProduitService,
+            SemanticSearchService semanticSearchService,
+            HybridSearchService hybridSearchService,
+            ProduitResultCache produitResultCache,
+            CatalogVersion catalogVersion,
+            ProductStreamService productStreamService) {
         this.produitRepository = produitRepository;
         this.categorieRepository = categorieRepository;
         this.produitKpiService = produitKpiService;
@@ -42,12 +90,58 @@ public class ProduitController {
         this.orderItemRepository = orderItemRepository;
         this.ratingRepository = ratingRepository;
         this.productImageRepository = productImageRepository;
+        this.produitSearchService = produitSearchService;
+        this.productPageService = productPageService;
+        this.eventPublisher = eventPublisher;
+        this.produitFacetService = produitFacetService;
+        this.productVectorIndex = productVectorIndex;
+        this.semanticProduitService = semanticProduitService;
+        this.semanticSearchService = semanticSearchService;
+        this.hybridSearchService = hybridSearchService;
+        this.produitResultCache = produitResultCache;
+        this.catalogVersion = catalogVersion;
+        this.productStreamService = productStreamService;
     }
 
     // ✅ READ ALL (sans filtres)
+    // Toujours paginé par curseur (?limit=&cursor=&sort=, page par défaut sans limit).
+    // Liste complète seulement avec ?all=true, déprécié : la synchro Python passe par ?stream=true
     @GetMapping
-    public List<Product> getAll() {
-        return produitRepository.findAll();
+    public ResponseEntity<?> getAll(
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) String sort,
+            @RequestParam(required = false) String view,
+            @RequestParam(required = false, defaultValue = "false") boolean all,
+            WebRequest request) {
+        // ✅ catalogue inchangé depuis la dernière lecture : 304 sans requête
+        if (request.checkNotModified(catalogVersion.etag())) {
+            return null;
+        }
+        ProductPageService.Keyset keyset = ProductPageService.Keyset.parse(sort, ProductPageService.Keyset.ID_ASC);
+        boolean unpaged = all && limit == null && cursor == null;
+        if (SUMMARY_VIEW.equals(view)) {
+            if (unpaged) {
+                return ResponseEntity.ok().header("Deprecation", "true")
+                        .body(productPageService.summaries(null, Sort.by("id")));
+            }
+            return ResponseEntity.ok(productPageService.pageSummaries(null, keyset, cursor, limit));
+        }
+        if (unpaged) {
+            return ResponseEntity.ok().header("Deprecation", "true").body(produitRepository.findAll());
+        }
+        return ResponseEntity.ok(productPageService.page(null, keyset, cursor, limit));
+    }
+
+    // ✅ READ ALL en flux (synchro Python) : écrit au fil d'un curseur, sans charger tout le catalogue
+    @GetMapping(params = "stream=true")
+    public void streamAll(WebRequest request, HttpServletResponse response) throws IOException {
+        if (request.checkNotModified(catalogVersion.etag())) {
+            return;
+        }
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding("UTF-8");
+        productStreamService.writeAll(response.getOutputStream());
     }
 
     // ✅ READ ONE
@@ -70,6 +164,7 @@ public class ProduitController {
             p.setCategorie(cat);
         }
         Product saved = produitRepository.save(p);
+        eventPublisher.publishEvent(ProductChangedEvent.created(saved));
         return ResponseEntity.ok(saved);
     }
 
@@ -98,6 +193,7 @@ public class ProduitController {
             }
 
             Product saved = produitRepository.save(existing);
+            eventPublisher.publishEvent(ProductChangedEvent.updated(saved));
             return ResponseEntity.ok(saved);
         }).orElse(ResponseEntity.notFound().build());
     }
@@ -128,6 +224,7 @@ public class ProduitController {
 
                 // 5. Supprimer le produit
                 produitRepository.delete(product);
+                eventPublisher.publishEvent(ProductChangedEvent.deleted(id));
 
                 return ResponseEntity.ok("Produit supprimé avec succès");
             } catch (Exception e) {
@@ -141,6 +238,41 @@ public class ProduitController {
 
     @GetMapping("/kpis")
     public ProductKpisDTO kpis(
+            @RequestParam(required = false) String q,
+            @RequestParam(required = false) Long categorieId,
+            @RequestParam(required = false) BigDecimal prixMin,
+            @RequestParam(required = false) BigDecimal prixMax,
+            @RequestParam(required = false) BigDecimal noteMin,
+            @RequestParam(required = false) BigDecimal noteMax,
+            @RequestParam(required = false) Integer reviewsMin,
+            @RequestParam(required = false) Integer reviewsMax,
+            WebRequest request) {
+        if (request.checkNotModified(catalogVersion.etag())) {
+            return null;
+        }
+        ProduitFilter filter = new ProduitFilter(
+                q, categorieId, prixMin, prixMax, noteMin, noteMax, reviewsMin, reviewsMax);
+        ProduitQueryKey key = ProduitQueryKey.of("kpis", catalogVersion.current(), filter, null, null, null, null);
+        return produitResultCache.get(key, () -> produitKpiService.getKpis(
+                q, categorieId, prixMin, prixMax, noteMin, noteMax, reviewsMin, reviewsMax));
+    }
+
+    // ✅ Percentiles prix / note par catégorie(s), depuis les sketches en mémoire
+    // ?categorieId=3,7 (absent = tout le catalogue) & percentiles=50,90,99 (défaut)
+    @GetMapping("/kpis/quantiles")
+    public ProduitQuantilesDTO quantiles(
+            @RequestParam(required = false) List<Long> categorieId,
+            @RequestParam(required = false) List<Double> percentiles,
+            WebRequest request) {
+        if (request.checkNotModified(catalogVersion.etag())) {
+            return null;
+        }
+        return produitKpiService.getQuantiles(categorieId, percentiles);
+    }
+
+    // ✅ Comptes par facette pour les filtres courants (chaque facette ignore son propre filtre)
+    @GetMapping("/facets")
+    public ProduitFacetsDTO facets(
             @RequestParam(required = false) String q,
             @RequestParam(required = false) Long categorieId,
             @RequestParam(required = false) BigDecimal prixMin,
@@ -149,12 +281,41 @@ public class ProduitController {
             @RequestParam(required = false) BigDecimal noteMax,
             @RequestParam(required = false) Integer reviewsMin,
             @RequestParam(required = false) Integer reviewsMax) {
-        return produitKpiService.getKpis(
+        return produitFacetService.getFacets(
                 q, categorieId, prixMin, prixMax, noteMin, noteMax, reviewsMin, reviewsMax);
     }
 
+    // ✅ Recherche sémantique, produits du plus proche au moins proche
+    // source=local (index vectoriel dans la JVM, par défaut) ou source=python (service FastAPI), autre valeur : 400
+    @GetMapping("/semantic")
+    public ResponseEntity<?> semantic(
+            @RequestParam String q,
+            @RequestParam(required = false) Integer k,
+            @RequestParam(required = false, defaultValue = SemanticProduitService.SOURCE_LOCAL) String source,
+            @RequestParam(required = false) Long categorieId,
+            @RequestParam(required = false) BigDecimal prixMin,
+            @RequestParam(required = false) BigDecimal prixMax,
+            @RequestParam(required = false) BigDecimal noteMin,
+            @RequestParam(required = false) BigDecimal noteMax,
+            @RequestParam(required = false) Integer reviewsMin,
+            @RequestParam(required = false) Integer reviewsMax) {
+        if (q.trim().isEmpty()) {
+            throw new RuntimeException("La requête ne peut pas être vide");
+        }
+        if (SemanticProduitService.SOURCE_LOCAL.equals(source) && !productVectorIndex.isReady()) {
+            return ResponseEntity.status(503).body("Index sémantique en cours de construction");
+        }
+        ProduitFilter filter = new ProduitFilter(
+                null, categorieId, prixMin, prixMax, noteMin, noteMax, reviewsMin, reviewsMax);
+        return ResponseEntity.ok(semanticProduitService.search(q, source, k, filter));
+    }
+
+    // ✅ q : chaque mot doit commencer un mot du titre ou de la description ("smart" trouve
+    // "smartphone", pas "phone"), quel que soit le nombre de produits trouvés (cf. ProduitSearchService)
+    // Paginé par curseur comme GET /api/produits (page par défaut sans limit) ; liste complète seulement
+    // avec ?all=true, dépréciée et jamais mise en cache
     @GetMapping("/search")
-    public List<Product> search(
+    public ResponseEntity<?> search(
             @RequestParam(required = false) String q,
             @RequestParam(required = false) Long categorieId,
             @RequestParam(required = false) BigDecimal prixMin,
@@ -163,17 +324,66 @@ public class ProduitController {
             @RequestParam(required = false) BigDecimal noteMax,
             @RequestParam(required = false) Integer reviewsMin,
             @RequestParam(required = false) Integer reviewsMax,
-            @RequestParam(required = false, defaultValue = "note_desc") String sort) {
-        Specification<Product> spec = ProduitSpecifications.withFilters(
+            @RequestParam(required = false) String sort,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) String view,
+            @RequestParam(required = false) String mode,
+            @RequestParam(required = false, defaultValue = "false") boolean all) {
+        ProduitFilter filter = new ProduitFilter(
                 q, categorieId, prixMin, prixMax, noteMin, noteMax, reviewsMin, reviewsMax);
+        boolean summary = SUMMARY_VIEW.equals(view);
+
+        // mode=hybrid : classement BM25 + vectoriel fusionné, au lieu du tri statique (pas mis en cache).
+        // Une seule page de "limit" résultats par pertinence : sort et cursor sont refusés (400)
+        if ("hybrid".equals(mode) && filter.hasText()) {
+            if (sort != null || cursor != null) {
+                throw new RuntimeException("Le mode hybrid ne peut pas être combiné avec sort ou cursor : "
+                        + "résultats classés par pertinence, limit seulement");
+            }
+            List<Long> ids = hybridSearchService.rankedIds(filter, ProductPageService.normalizeLimit(limit));
+            return ResponseEntity.ok(summary
+                    ? productPageService.summariesByIds(ids)
+                    : produitSearchService.findAllInOrder(ids));
+        }
 
-        Sort s;
-        switch (sort) {
-            case "reviews_desc" -> s = Sort.by(Sort.Direction.DESC, "ratingCount");
-            case "prix_asc" -> s = Sort.by(Sort.Direction.ASC, "price");
-            case "prix_desc" -> s = Sort.by(Sort.Direction.DESC, "price");
-            default -> s = Sort.by(Sort.Direction.DESC, "rating");
+        String order = sort != null ? sort : "note_desc";
+        if (all && limit == null && cursor == null) {
+            // ✅ résultat non borné : servi directement, sans remplir le cache
+            return ResponseEntity.ok().header("Deprecation", "true").body(summary
+                    ? produitSearchService.searchSummaries(filter, order)
+                    : produitSearchService.search(
+                            q, categorieId, prixMin, prixMax, noteMin, noteMax, reviewsMin, reviewsMax, order));
         }
-        return produitRepository.findAll(spec, s);
+        ProduitQueryKey key = ProduitQueryKey.of("search", catalogVersion.current(), filter, order, cursor,
+                ProductPageService.normalizeLimit(limit), summary ? SUMMARY_VIEW : null);
+
+        if (summary) {
+            // DTOs sans association : mis en cache tels quels
+            return ResponseEntity.ok(produitResultCache.get(key,
+                    () -> produitSearchService.searchSummaryPage(filter, order, cursor, limit)));
+        }
+
+        // entités : le cache garde les ids ordonnés, rechargés par clé primaire sur un hit
+        AtomicReference<List<Product>> fresh = new AtomicReference<>();
+        ProduitResultCache.CachedIds cached = produitResultCache.get(key, () -> {
+            CursorPage<Product> page = produitSearchService.searchPage(
+                    q, categorieId, prixMin, prixMax, noteMin, noteMax, reviewsMin, reviewsMax,
+                    order, cursor, limit);
+            fresh.set(page.getItems());
+            return new ProduitResultCache.CachedIds(
+                    page.getItems().stream().map(Product::getId).toList(), page.getNext());
+        });
+        List<Product> items = fresh.get() != null ? fresh.get()
+                : produitSearchService.findAllInOrder(cached.getIds());
+        return ResponseEntity.ok(new CursorPage<>(items, cached.getNext(), items.size()));
+    }
+
+    // ✅ Statistiques du cache de résultats (search + kpis) et du client sémantique (disjoncteur, cache)
+    @GetMapping("/cache/stats")
+    public Map<String, Object> cacheStats() {
+        Map<String, Object> stats = new LinkedHashMap<>(produitResultCache.stats());
+        stats.put("semanticBackend", semanticSearchService.stats());
+        return stats;
     }
 }
\ No newline at end of file
@@ -1,5 +1,6 @@
 package org.example.projectjee.controllers;
 
+import org.example.projectjee.config.CurrentUser;
 import org.example.projectjee.dto.ReviewRequest;
 import org.example.projectjee.model.Product;
 import org.example.projectjee.model.Rating;
@@ -7,8 +8,6 @@ import org.example.projectjee.model.Utilisateur;
 import org.example.projectjee.repository.ProduitRepository;
 import org.example.projectjee.repository.RatingRepository;
 import org.example.projectjee.repository.UtilisateurRepository;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
 
 import java.time.LocalDateTime;
@@ -22,33 +21,30 @@ public class RatingController {
     private final ProduitRepository productRepository;
     private final RatingRepository ratingRepository;
     private final UtilisateurRepository utilisateurRepository;
+    private final CurrentUser currentUser;
 
     public RatingController(ProduitRepository productRepository,
                            RatingRepository ratingRepository,
-                           UtilisateurRepository utilisateurRepository) {
+                           UtilisateurRepository utilisateurRepository,
+                           CurrentUser currentUser) {
         this.productRepository = productRepository;
         this.ratingRepository = ratingRepository;
         this.utilisateurRepository = utilisateurRepository;
+        this.currentUser = currentUser;
     }
 
     /**
-     * Récupère l'utilisateur actuellement connecté
+     * Récupère l'utilisateur actuellement connecté (référence, sans requête)
      */
     private Utilisateur getCurrentUser() {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        if (authentication == null || !authentication.isAuthenticated()) {
-            throw new RuntimeException("Utilisateur non authentifié");
-        }
-        String email = authentication.getName();
-        return utilisateurRepository.findByEmail(email)
-                .orElseThrow(() -> new RuntimeException("Utilisateur introuvable"));
+        return utilisateurRepository.getReferenceById(currentUser.requireId());
     }
 
     /**
      * Récupère l'ID de l'utilisateur actuellement connecté
      */
     private Long getCurrentUserId() {
-        return getCurrentUser().getId();
+        return currentUser.requireId();
     }
 
     // Get all reviews for a product
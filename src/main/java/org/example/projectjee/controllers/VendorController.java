@@ -1,15 +1,24 @@
 package org.example.projectjee.controllers;
 
+import org.example.projectjee.config.CurrentUser;
 import org.example.projectjee.dto.ProductRequest;
 import org.example.projectjee.dto.ProductStatsResponse;
+import org.example.projectjee.dto.RevenueBucketDTO;
+import org.example.projectjee.dto.RevenueSeriesDTO;
+import org.example.projectjee.events.CatalogChangedEvent;
+import org.example.projectjee.events.ProductChangedEvent;
 import org.example.projectjee.model.*;
 import org.example.projectjee.repository.*;
+import org.example.projectjee.services.AsinIndex;
+import org.example.projectjee.services.VenteTimeSeriesService;
+import org.example.projectjee.services.VenteTimeSeriesService.Resolution;
 import jakarta.persistence.EntityManager;
 import jakarta.transaction.Transactional;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.HashMap;
@@ -29,6 +38,11 @@ public class VendorController {
     private final OrderRepository orderRepository;
     private final OrderItemRepository orderItemRepository;
     private final EntityManager entityManager;
+    private final ApplicationEventPublisher eventPublisher;
+    private final AsinIndex asinIndex;
+    private final VenteJourRepository venteJourRepository;
+    private final CurrentUser currentUser;
+    private final VenteTimeSeriesService venteTimeSeriesService;
 
     public VendorController(ProduitRepository productRepository,
                            ProductImageRepository productImageRepository,
@@ -37,7 +51,12 @@ public class VendorController {
                            RatingRepository ratingRepository,
                            OrderRepository orderRepository,
                            OrderItemRepository orderItemRepository,
-                           EntityManager entityManager) {
+                           EntityManager entityManager,
+                           ApplicationEventPublisher eventPublisher,
+                           AsinIndex asinIndex,
+                           VenteJourRepository venteJourRepository,
+                           CurrentUser currentUser,
+                           VenteTimeSeriesService venteTimeSeriesService) {
         this.productRepository = productRepository;
         this.productImageRepository = productImageRepository;
         this.categorieRepository = categorieRepository;
@@ -46,42 +65,29 @@ public class VendorController {
         this.orderRepository = orderRepository;
         this.orderItemRepository = orderItemRepository;
         this.entityManager = entityManager;
+        this.eventPublisher = eventPublisher;
+        this.asinIndex = asinIndex;
+        this.venteJourRepository = venteJourRepository;
+        this.currentUser = currentUser;
+        this.venteTimeSeriesService = venteTimeSeriesService;
     }
 
     /**
-     * Récupère l'ID du vendeur actuellement connecté
+     * Récupère l'ID du vendeur actuellement connecté (chargé par le filtre JWT, sans requête)
      */
     private Long getCurrentVendorId() {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        if (authentication == null || !authentication.isAuthenticated()) {
-            throw new RuntimeException("Utilisateur non authentifié");
-        }
-        String email = authentication.getName();
-        Utilisateur user = utilisateurRepository.findByEmail(email)
-                .orElseThrow(() -> new RuntimeException("Utilisateur introuvable"));
-        
-        if (!user.getRole().name().equals("VENDEUR")) {
+        Long id = currentUser.requireId();
+        if (currentUser.getRole() != Role.VENDEUR) {
             throw new RuntimeException("Accès réservé aux vendeurs");
         }
-        return user.getId();
+        return id;
     }
 
     /**
-     * Récupère le vendeur actuellement connecté
+     * Récupère le vendeur actuellement connecté (référence, sans requête)
      */
     private Utilisateur getCurrentVendor() {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        if (authentication == null || !authentication.isAuthenticated()) {
-            throw new RuntimeException("Utilisateur non authentifié");
-        }
-        String email = authentication.getName();
-        Utilisateur user = utilisateurRepository.findByEmail(email)
-                .orElseThrow(() -> new RuntimeException("Utilisateur introuvable"));
-        
-        if (!user.getRole().name().equals("VENDEUR")) {
-            throw new RuntimeException("Accès réservé aux vendeurs");
-        }
-        return user;
+        return utilisateurRepository.getReferenceById(getCurrentVendorId());
     }
 
     // ========== GESTION DES PRODUITS ==========
@@ -103,6 +109,9 @@ public class VendorController {
         if (request.getQuantityAvailable() == null || request.getQuantityAvailable() < 0) {
             throw new RuntimeException("La quantité doit être supérieure ou égale à 0");
         }
+        if (request.getAsin() != null && isAsinTaken(request.getAsin())) {
+            throw new RuntimeException("L'ASIN " + request.getAsin() + " ne peut pas être réutilisé : il existe déjà");
+        }
 
         // Récupérer le vendeur connecté
         Utilisateur vendor = getCurrentVendor();
@@ -149,6 +158,7 @@ public class VendorController {
                     .orElse(product);
         }
 
+        eventPublisher.publishEvent(ProductChangedEvent.created(product));
         return ResponseEntity.status(HttpStatus.CREATED).body(product);
     }
 
@@ -221,6 +231,7 @@ public class VendorController {
             product = productRepository.save(product);
         }
 
+        eventPublisher.publishEvent(ProductChangedEvent.updated(product));
         return ResponseEntity.ok(product);
     }
 
@@ -239,6 +250,7 @@ public class VendorController {
         }
 
         productRepository.delete(product);
+        eventPublisher.publishEvent(ProductChangedEvent.deleted(id));
 
         Map<String, String> response = new HashMap<>();
         response.put("message", "Produit supprimé avec succès");
@@ -307,6 +319,7 @@ public class VendorController {
         }
 
         List<ProductImage> allImages = productImageRepository.findByProduct_IdOrderByDisplayOrderAsc(productId);
+        eventPublisher.publishEvent(new CatalogChangedEvent("images produit " + productId));
         return ResponseEntity.status(HttpStatus.CREATED).body(allImages);
     }
 
@@ -335,6 +348,7 @@ public class VendorController {
         }
 
         productImageRepository.delete(image);
+        eventPublisher.publishEvent(new CatalogChangedEvent("images produit " + productId));
 
         Map<String, String> response = new HashMap<>();
         response.put("message", "Image supprimée avec succès");
@@ -466,77 +480,46 @@ public class VendorController {
      * Récupérer les statistiques de ventes du vendeur
      * GET /api/vendeur/ventes/stats
      * GET /api/vendeur/ventes/stats?period=day|month|year
+     *
+     * Lu dans les rollups journaliers : une période couvre des jours entiers,
+     * aujourd'hui compris (day = aujourd'hui, week = les 7 derniers jours, ...).
      */
     @GetMapping("/ventes/stats")
     public ResponseEntity<Map<String, Object>> getVendorSalesStats(
             @RequestParam(required = false, defaultValue = "all") String period) {
         
-        // Récupérer tous les items de commande pour les produits du vendeur
-        List<OrderItem> vendorOrderItems = orderItemRepository.findByProduct_Utilisateur_Id(getCurrentVendorId());
+        Long vendorId = getCurrentVendorId();
 
-        // Filtrer par période si spécifiée
+        // Premier jour inclus (null = depuis toujours)
+        java.time.LocalDate since = null;
         if (!period.equals("all")) {
-            java.time.LocalDateTime filterDate = java.time.LocalDateTime.now();
-            
-            switch (period.toLowerCase()) {
-                case "day":
-                case "today":
-                    filterDate = filterDate.minusDays(1);
-                    break;
-                case "week":
-                    filterDate = filterDate.minusWeeks(1);
-                    break;
-                case "month":
-                    filterDate = filterDate.minusMonths(1);
-                    break;
-                case "year":
-                    filterDate = filterDate.minusYears(1);
-                    break;
-            }
-            
-            final java.time.LocalDateTime finalFilterDate = filterDate;
-            vendorOrderItems = vendorOrderItems.stream()
-                    .filter(item -> item.getOrder().getCreatedAt().isAfter(finalFilterDate))
-                    .toList();
+            java.time.LocalDate today = java.time.LocalDate.now();
+            since = switch (period.toLowerCase()) {
+                case "day", "today" -> today;
+                case "week" -> today.minusWeeks(1).plusDays(1);
+                case "month" -> today.minusMonths(1).plusDays(1);
+                case "year" -> today.minusYears(1).plusDays(1);
+                default -> today.plusDays(1);   // période inconnue : aucune vente
+            };
         }
 
         // Calculer les statistiques
-        int totalOrders = (int) vendorOrderItems.stream()
-                .map(item -> item.getOrder().getId())
-                .distinct()
-                .count();
-
-        int totalProductsSold = vendorOrderItems.stream()
-                .mapToInt(OrderItem::getQuantity)
-                .sum();
-
-        double totalRevenue = vendorOrderItems.stream()
-                .mapToDouble(item -> item.getQuantity() * item.getUnitPrice())
-                .sum();
+        Object[] totals = venteJourRepository.sumVendeur(vendorId, since).get(0);
+        int totalProductsSold = ((Number) totals[0]).intValue();
+        double totalRevenue = ((Number) totals[1]).doubleValue();
+        int totalOrders = ((Number) totals[2]).intValue();
 
         double averageOrderValue = totalOrders > 0 ? totalRevenue / totalOrders : 0.0;
 
         // Top 5 produits les plus vendus
-        Map<Long, Integer> productSales = new HashMap<>();
-        Map<Long, String> productNames = new HashMap<>();
-        Map<Long, Double> productRevenue = new HashMap<>();
-        for (OrderItem item : vendorOrderItems) {
-            Long productId = item.getProduct().getId();
-            productSales.put(productId, productSales.getOrDefault(productId, 0) + item.getQuantity());
-            productNames.put(productId, item.getProduct().getTitle());
-            productRevenue.put(productId, 
-                productRevenue.getOrDefault(productId, 0.0) + (item.getQuantity() * item.getUnitPrice()));
-        }
-
-        List<Map<String, Object>> topProducts = productSales.entrySet().stream()
-                .sorted((e1, e2) -> e2.getValue().compareTo(e1.getValue()))
-                .limit(5)
-                .map(entry -> {
+        List<Map<String, Object>> topProducts = venteJourRepository
+                .topProduitsParQuantite(vendorId, since, PageRequest.of(0, 5)).stream()
+                .map(row -> {
                     Map<String, Object> product = new HashMap<>();
-                    product.put("productId", entry.getKey());
-                    product.put("productName", productNames.get(entry.getKey()));
-                    product.put("quantitySold", entry.getValue());
-                    product.put("revenue", productRevenue.get(entry.getKey()));
+                    product.put("productId", row[0]);
+                    product.put("productName", row[1]);
+                    product.put("quantitySold", ((Number) row[3]).intValue());
+                    product.put("revenue", row[4]);
                     return product;
                 })
                 .toList();
@@ -554,57 +537,59 @@ public class VendorController {
     }
     
     /**
-     * Récupérer les statistiques de ventes par période (jour/mois/année)
-     * GET /api/vendeur/dashboard/revenue-by-period?period=day|month|year&limit=30
+     * Récupérer les statistiques de ventes par période (heure/jour/semaine/mois/année)
+     * GET /api/vendeur/dashboard/revenue-by-period?period=hour|day|week|month|year&limit=30
+     *
+     * Les "limit" dernières périodes qui ont des ventes, jusqu'à la période en
+     * cours, de la plus récente à la plus ancienne, aussi loin qu'il faut remonter.
+     * "orders" compte les commandes distinctes. La série calendaire, périodes
+     * vides comprises, est servie par /dashboard/revenue-series.
      */
     @GetMapping("/dashboard/revenue-by-period")
     public ResponseEntity<List<Map<String, Object>>> getRevenueByPeriod(
             @RequestParam(required = false, defaultValue = "day") String period,
             @RequestParam(required = false, defaultValue = "30") int limit) {
         
-        List<OrderItem> vendorOrderItems = orderItemRepository.findByProduct_Utilisateur_Id(getCurrentVendorId());
-        
-        // Grouper par période
-        Map<String, Double> revenueByPeriod = new java.util.LinkedHashMap<>();
-        Map<String, Integer> ordersByPeriod = new java.util.LinkedHashMap<>();
-        
-        java.time.format.DateTimeFormatter formatter;
-        switch (period.toLowerCase()) {
-            case "day":
-                formatter = java.time.format.DateTimeFormatter.ofPattern("yyyy-MM-dd");
-                break;
-            case "month":
-                formatter = java.time.format.DateTimeFormatter.ofPattern("yyyy-MM");
-                break;
-            case "year":
-                formatter = java.time.format.DateTimeFormatter.ofPattern("yyyy");
-                break;
-            default:
-                formatter = java.time.format.DateTimeFormatter.ofPattern("yyyy-MM-dd");
+        if (limit <= 0) {
+            return ResponseEntity.ok(List.of());
         }
-        
-        for (OrderItem item : vendorOrderItems) {
-            String periodKey = item.getOrder().getCreatedAt().format(formatter);
-            double revenue = item.getQuantity() * item.getUnitPrice();
-            revenueByPeriod.put(periodKey, revenueByPeriod.getOrDefault(periodKey, 0.0) + revenue);
-            ordersByPeriod.put(periodKey, ordersByPeriod.getOrDefault(periodKey, 0) + 1);
+        Long vendorId = getCurrentVendorId();
+
+        // Période inconnue : par jour, comme avant
+        Resolution resolution = switch (period.toLowerCase()) {
+            case "hour", "week", "month", "year" -> Resolution.parse(period);
+            default -> Resolution.DAY;
+        };
+
+        // ✅ Périodes avec ventes seulement : pas de plafond calendaire sur "limit"
+        List<Map<String, Object>> result = new java.util.ArrayList<>();
+        for (RevenueBucketDTO bucket : venteTimeSeriesService.latestWithSales(
+                vendorId, resolution, limit, java.time.LocalDateTime.now())) {
+            Map<String, Object> data = new HashMap<>();
+            data.put("period", bucket.getPeriod());
+            data.put("revenue", bucket.getRevenue());
+            data.put("orders", (int) bucket.getOrders());
+            result.add(data);
         }
         
-        // Convertir en liste et trier par date décroissante
-        List<Map<String, Object>> result = revenueByPeriod.entrySet().stream()
-                .sorted((e1, e2) -> e2.getKey().compareTo(e1.getKey()))
-                .limit(limit)
-                .map(entry -> {
-                    Map<String, Object> data = new HashMap<>();
-                    data.put("period", entry.getKey());
-                    data.put("revenue", Math.round(entry.getValue() * 100.0) / 100.0);
-                    data.put("orders", ordersByPeriod.get(entry.getKey()));
-                    return data;
-                })
-                .toList();
-        
         return ResponseEntity.ok(result);
     }
+
+    /**
+     * Série du chiffre d'affaires sur une plage explicite, intervalles vides compris
+     * GET /api/vendeur/dashboard/revenue-series?resolution=hour|day|week|month|year
+     *     &from=2026-01-01T00:00:00&to=2026-04-01T00:00:00
+     */
+    @GetMapping("/dashboard/revenue-series")
+    public ResponseEntity<RevenueSeriesDTO> getRevenueSeries(
+            @RequestParam(required = false, defaultValue = "day") String resolution,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) java.time.LocalDateTime from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) java.time.LocalDateTime to) {
+
+        VenteTimeSeriesService.Series series = venteTimeSeriesService.series(
+                getCurrentVendorId(), Resolution.parse(resolution), from, to);
+        return ResponseEntity.ok(venteTimeSeriesService.toDTO(series, from, to));
+    }
     
     /**
      * Récupérer le tableau de bord complet du vendeur
@@ -613,93 +598,27 @@ public class VendorController {
     @GetMapping("/dashboard")
     public ResponseEntity<Map<String, Object>> getVendorDashboard() {
         Long vendorId = getCurrentVendorId();
-        List<OrderItem> allVendorOrderItems = orderItemRepository.findByProduct_Utilisateur_Id(vendorId);
-        List<Product> vendorProducts = productRepository.findByUtilisateur_Id(vendorId);
+
+        // ✅ Inventaire, ventes (totales / du mois / du jour) et meilleure vente : une seule requête
+        java.time.LocalDate today = java.time.LocalDate.now();
+        Object[] row = venteJourRepository.dashboardVendeur(vendorId, today.withDayOfMonth(1), today).get(0);
         
         // Statistiques générales
-        int totalProducts = vendorProducts.size();
-        int activeProducts = (int) vendorProducts.stream()
-                .filter(p -> p.getQuantityAvailable() != null && p.getQuantityAvailable() > 0)
-                .count();
+        int totalProducts = ((Number) row[9]).intValue();
+        int activeProducts = ((Number) row[10]).intValue();
         int outOfStock = totalProducts - activeProducts;
         
-        // Statistiques de ventes totales
-        int totalOrders = (int) allVendorOrderItems.stream()
-                .map(item -> item.getOrder().getId())
-                .distinct()
-                .count();
-        
-        double totalRevenue = allVendorOrderItems.stream()
-                .mapToDouble(item -> item.getQuantity() * item.getUnitPrice())
-                .sum();
-        
-        // Statistiques du mois en cours
-        java.time.LocalDateTime startOfMonth = java.time.LocalDateTime.now()
-                .withDayOfMonth(1)
-                .withHour(0)
-                .withMinute(0)
-                .withSecond(0);
-        
-        List<OrderItem> monthOrderItems = allVendorOrderItems.stream()
-                .filter(item -> item.getOrder().getCreatedAt().isAfter(startOfMonth))
-                .toList();
-        
-        int monthOrders = (int) monthOrderItems.stream()
-                .map(item -> item.getOrder().getId())
-                .distinct()
-                .count();
-        
-        double monthRevenue = monthOrderItems.stream()
-                .mapToDouble(item -> item.getQuantity() * item.getUnitPrice())
-                .sum();
-        
-        // Statistiques d'aujourd'hui
-        java.time.LocalDateTime startOfDay = java.time.LocalDateTime.now()
-                .withHour(0)
-                .withMinute(0)
-                .withSecond(0);
-        
-        List<OrderItem> todayOrderItems = allVendorOrderItems.stream()
-                .filter(item -> item.getOrder().getCreatedAt().isAfter(startOfDay))
-                .toList();
-        
-        int todayOrders = (int) todayOrderItems.stream()
-                .map(item -> item.getOrder().getId())
-                .distinct()
-                .count();
-        
-        double todayRevenue = todayOrderItems.stream()
-                .mapToDouble(item -> item.getQuantity() * item.getUnitPrice())
-                .sum();
-        
         // Produit le plus vendu (all time)
-        Map<Long, Integer> productSales = new HashMap<>();
-        Map<Long, String> productNames = new HashMap<>();
-        for (OrderItem item : allVendorOrderItems) {
-            Long productId = item.getProduct().getId();
-            productSales.put(productId, productSales.getOrDefault(productId, 0) + item.getQuantity());
-            productNames.put(productId, item.getProduct().getTitle());
-        }
-        
         Map<String, Object> topSellingProduct = null;
-        if (!productSales.isEmpty()) {
-            var topEntry = productSales.entrySet().stream()
-                    .max((e1, e2) -> e1.getValue().compareTo(e2.getValue()))
-                    .orElse(null);
-            if (topEntry != null) {
-                topSellingProduct = new HashMap<>();
-                topSellingProduct.put("productId", topEntry.getKey());
-                topSellingProduct.put("productName", productNames.get(topEntry.getKey()));
-                topSellingProduct.put("totalSold", topEntry.getValue());
-            }
+        if (row[6] != null) {
+            topSellingProduct = new HashMap<>();
+            topSellingProduct.put("productId", ((Number) row[6]).longValue());
+            topSellingProduct.put("productName", row[7]);
+            topSellingProduct.put("totalSold", ((Number) row[8]).intValue());
         }
         
         // Évaluation moyenne des produits
-        double averageRating = vendorProducts.stream()
-                .filter(p -> p.getRating() != null && p.getRating() > 0)
-                .mapToDouble(Product::getRating)
-                .average()
-                .orElse(0.0);
+        double averageRating = ((Number) row[11]).doubleValue();
         
         // Créer la réponse du tableau de bord
         Map<String, Object> dashboard = new HashMap<>();
@@ -713,20 +632,20 @@ public class VendorController {
         
         // Ventes totales
         Map<String, Object> totalSales = new HashMap<>();
-        totalSales.put("totalOrders", totalOrders);
-        totalSales.put("totalRevenue", Math.round(totalRevenue * 100.0) / 100.0);
+        totalSales.put("totalOrders", ((Number) row[0]).intValue());
+        totalSales.put("totalRevenue", Math.round(((Number) row[1]).doubleValue() * 100.0) / 100.0);
         dashboard.put("totalSales", totalSales);
         
         // Ventes du mois
         Map<String, Object> monthlySales = new HashMap<>();
-        monthlySales.put("orders", monthOrders);
-        monthlySales.put("revenue", Math.round(monthRevenue * 100.0) / 100.0);
+        monthlySales.put("orders", ((Number) row[2]).intValue());
+        monthlySales.put("revenue", Math.round(((Number) row[3]).doubleValue() * 100.0) / 100.0);
         dashboard.put("monthlySales", monthlySales);
         
         // Ventes d'aujourd'hui
         Map<String, Object> dailySales = new HashMap<>();
-        dailySales.put("orders", todayOrders);
-        dailySales.put("revenue", Math.round(todayRevenue * 100.0) / 100.0);
+        dailySales.put("orders", ((Number) row[4]).intValue());
+        dailySales.put("revenue", Math.round(((Number) row[5]).doubleValue() * 100.0) / 100.0);
         dashboard.put("dailySales", dailySales);
         
         // Performance
@@ -771,31 +690,21 @@ public class VendorController {
     public ResponseEntity<List<Map<String, Object>>> getTopCustomers(
             @RequestParam(required = false, defaultValue = "10") int limit) {
         
-        List<OrderItem> vendorOrderItems = orderItemRepository.findByProduct_Utilisateur_Id(getCurrentVendorId());
-        
-        // Grouper par client
-        Map<Long, Double> customerRevenue = new HashMap<>();
-        Map<Long, String> customerNames = new HashMap<>();
-        Map<Long, Integer> customerOrders = new HashMap<>();
-        
-        for (OrderItem item : vendorOrderItems) {
-            Long customerId = item.getOrder().getUtilisateur().getId();
-            double revenue = item.getQuantity() * item.getUnitPrice();
-            
-            customerRevenue.put(customerId, customerRevenue.getOrDefault(customerId, 0.0) + revenue);
-            customerNames.put(customerId, item.getOrder().getUtilisateur().getNom());
-            customerOrders.put(customerId, customerOrders.getOrDefault(customerId, 0) + 1);
+        if (limit <= 0) {
+            return ResponseEntity.ok(List.of());
         }
-        
-        List<Map<String, Object>> topCustomers = customerRevenue.entrySet().stream()
-                .sorted((e1, e2) -> e2.getValue().compareTo(e1.getValue()))
-                .limit(limit)
-                .map(entry -> {
+
+        // Groupé par client dans les rollups ("orderCount" = lignes de commande).
+        // ✅ GROUP BY ... ORDER BY ... LIMIT en base : seules les limit lignes reviennent,
+        // pas de TopKAggregator ici (il faudrait rapatrier toutes les lignes jour x client)
+        List<Map<String, Object>> topCustomers = venteJourRepository
+                .topClients(getCurrentVendorId(), PageRequest.of(0, limit)).stream()
+                .map(row -> {
                     Map<String, Object> customer = new HashMap<>();
-                    customer.put("customerId", entry.getKey());
-                    customer.put("customerName", customerNames.get(entry.getKey()));
-                    customer.put("totalRevenue", Math.round(entry.getValue() * 100.0) / 100.0);
-                    customer.put("orderCount", customerOrders.get(entry.getKey()));
+                    customer.put("customerId", row[0]);
+                    customer.put("customerName", row[1]);
+                    customer.put("totalRevenue", Math.round(((Number) row[2]).doubleValue() * 100.0) / 100.0);
+                    customer.put("orderCount", ((Number) row[3]).intValue());
                     return customer;
                 })
                 .toList();
@@ -811,41 +720,27 @@ public class VendorController {
     public ResponseEntity<List<Map<String, Object>>> getTopProductsByRevenue(
             @RequestParam(required = false, defaultValue = "10") int limit) {
         
-        List<OrderItem> vendorOrderItems = orderItemRepository.findByProduct_Utilisateur_Id(getCurrentVendorId());
-        
-        // Grouper par produit et calculer le chiffre d'affaires
-        Map<Long, Double> productRevenue = new HashMap<>();
-        Map<Long, String> productNames = new HashMap<>();
-        Map<Long, Integer> productQuantitySold = new HashMap<>();
-        Map<Long, Double> productPrice = new HashMap<>();
-        
-        for (OrderItem item : vendorOrderItems) {
-            Long productId = item.getProduct().getId();
-            double revenue = item.getQuantity() * item.getUnitPrice();
-            
-            productRevenue.put(productId, productRevenue.getOrDefault(productId, 0.0) + revenue);
-            productNames.put(productId, item.getProduct().getTitle());
-            productQuantitySold.put(productId, productQuantitySold.getOrDefault(productId, 0) + item.getQuantity());
-            productPrice.put(productId, item.getProduct().getPrice());
+        if (limit <= 0) {
+            return ResponseEntity.ok(List.of());
         }
-        
-        // Trier par chiffre d'affaires décroissant et limiter au top N
+
+        // ✅ Trié par chiffre d'affaires décroissant et limité au top N par la requête (même raison que top-customers)
+        List<Object[]> rows = venteJourRepository
+                .topProduitsParChiffreAffaires(getCurrentVendorId(), null, PageRequest.of(0, limit));
+
         List<Map<String, Object>> topProducts = new java.util.ArrayList<>();
-        java.util.List<Map.Entry<Long, Double>> sortedEntries = productRevenue.entrySet().stream()
-                .sorted((e1, e2) -> e2.getValue().compareTo(e1.getValue()))
-                .limit(limit)
-                .toList();
-        
-        for (int i = 0; i < sortedEntries.size(); i++) {
-            Map.Entry<Long, Double> entry = sortedEntries.get(i);
+        for (int i = 0; i < rows.size(); i++) {
+            Object[] row = rows.get(i);
+            double revenue = ((Number) row[4]).doubleValue();
+            long quantitySold = ((Number) row[3]).longValue();
             Map<String, Object> product = new HashMap<>();
             product.put("rank", i + 1);
-            product.put("productId", entry.getKey());
-            product.put("productName", productNames.get(entry.getKey()));
-            product.put("totalRevenue", Math.round(entry.getValue() * 100.0) / 100.0);
-            product.put("quantitySold", productQuantitySold.get(entry.getKey()));
-            product.put("currentPrice", productPrice.get(entry.getKey()));
-            product.put("averagePrice", Math.round((entry.getValue() / productQuantitySold.get(entry.getKey())) * 100.0) / 100.0);
+            product.put("productId", row[0]);
+            product.put("productName", row[1]);
+            product.put("totalRevenue", Math.round(revenue * 100.0) / 100.0);
+            product.put("quantitySold", (int) quantitySold);
+            product.put("currentPrice", row[2]);
+            product.put("averagePrice", Math.round((revenue / quantitySold) * 100.0) / 100.0);
             topProducts.add(product);
         }
         
@@ -858,12 +753,15 @@ public class VendorController {
      */
     @GetMapping("/ventes/{orderId}")
     public ResponseEntity<Map<String, Object>> getVendorSaleDetails(@PathVariable Long orderId) {
+        Long vendorId = getCurrentVendorId();
         Order order = orderRepository.findById(orderId)
                 .orElseThrow(() -> new RuntimeException("Commande introuvable"));
 
         // Récupérer uniquement les items du vendeur dans cette commande
         List<OrderItem> vendorItems = order.getItems().stream()
-                .filter(item -> item.getProduct().getUtilisateur().getId().equals(getCurrentVendorId()))
+                .filter(item -> item.getProduct() != null
+                        && item.getProduct().getUtilisateur() != null
+                        && item.getProduct().getUtilisateur().getId().equals(vendorId))
                 .toList();
 
         if (vendorItems.isEmpty()) {
@@ -897,6 +795,20 @@ public class VendorController {
 
     // Méthode utilitaire pour générer un code ASIN unique
     private String generateAsin() {
-        return "VEND" + System.currentTimeMillis();
+        long stamp = System.currentTimeMillis();
+        String asin = "VEND" + stamp;
+        // ✅ collision (deux créations dans la même milliseconde) détectée en mémoire
+        while (isAsinTaken(asin)) {
+            asin = "VEND" + (++stamp);
+        }
+        return asin;
+    }
+
+    // Index en mémoire quand il est prêt, sinon la base
+    private boolean isAsinTaken(String asin) {
+        if (asinIndex.isReady()) {
+            return asinIndex.isTaken(asin);
+        }
+        return productRepository.findByAsin(asin).isPresent();
     }
 }
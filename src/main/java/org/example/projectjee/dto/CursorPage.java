@@ -0,0 +1,16 @@
+package org.example.projectjee.dto;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CursorPage<T> {
+    private List<T> items;
+    private String next;   // jeton opaque pour la page suivante, null si dernière page
+    private int size;
+}
@@ -0,0 +1,13 @@
+package org.example.projectjee.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data @NoArgsConstructor @AllArgsConstructor @Builder
+public class FacetBucketDTO {
+    private String key;     // id de catégorie ou borne "min-max" / "min+"
+    private String label;
+    private long count;
+}
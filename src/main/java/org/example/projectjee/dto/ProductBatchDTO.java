@@ -0,0 +1,15 @@
+package org.example.projectjee.dto;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductBatchDTO<T> {
+    private List<T> items;       // dans l'ordre des ids demandés
+    private List<Long> missing;  // ids demandés mais inexistants
+}
@@ -0,0 +1,21 @@
+package org.example.projectjee.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Vue "grille" d'un produit : seulement les colonnes affichées dans les listes.
+ * Sélectionnée directement en JPQL (pas de description ni d'associations).
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductSummaryDTO {
+    private Long id;
+    private String title;
+    private Double price;
+    private Double rating;
+    private Long ratingCount;
+    private String imageUrl;
+}
@@ -0,0 +1,13 @@
+package org.example.projectjee.dto;
+
+import lombok.*;
+import java.util.List;
+
+@Data @NoArgsConstructor @AllArgsConstructor @Builder
+public class ProduitFacetsDTO {
+    private long total;                      // produits correspondant à tous les filtres
+    private List<FacetBucketDTO> categories; // comptes sans le filtre categorieId
+    private List<FacetBucketDTO> prix;       // comptes sans prixMin/prixMax
+    private List<FacetBucketDTO> notes;      // 5..1, sans noteMin/noteMax
+    private List<FacetBucketDTO> avis;       // comptes sans reviewsMin/reviewsMax
+}
@@ -0,0 +1,11 @@
+package org.example.projectjee.dto;
+
+import lombok.*;
+import java.util.List;
+
+@Data @NoArgsConstructor @AllArgsConstructor @Builder
+public class ProduitQuantilesDTO {
+    private List<Long> categories;   // catégories fusionnées, vide = tout le catalogue
+    private QuantileSummaryDTO prix;
+    private QuantileSummaryDTO note;
+}
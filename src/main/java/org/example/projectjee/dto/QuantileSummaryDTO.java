@@ -0,0 +1,12 @@
+package org.example.projectjee.dto;
+
+import lombok.*;
+import java.util.Map;
+
+@Data @NoArgsConstructor @AllArgsConstructor @Builder
+public class QuantileSummaryDTO {
+    private long count;                    // valeurs renseignées
+    private Double min;
+    private Double max;
+    private Map<String, Double> quantiles; // "p50" -> valeur (approchée, erreur de rang ~1 %)
+}
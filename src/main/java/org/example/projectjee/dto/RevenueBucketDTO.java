@@ -0,0 +1,13 @@
+package org.example.projectjee.dto;
+
+import lombok.*;
+import java.time.LocalDateTime;
+
+@Data @NoArgsConstructor @AllArgsConstructor @Builder
+public class RevenueBucketDTO {
+    private String period;        // "2026-03-14 09:00", "2026-03-14", "2026-W11", "2026-03", "2026"
+    private LocalDateTime start;  // début de l'intervalle
+    private double revenue;
+    private long orders;          // commandes distinctes
+    private long quantity;        // articles vendus
+}
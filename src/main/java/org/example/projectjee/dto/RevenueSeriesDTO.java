@@ -0,0 +1,13 @@
+package org.example.projectjee.dto;
+
+import lombok.*;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data @NoArgsConstructor @AllArgsConstructor @Builder
+public class RevenueSeriesDTO {
+    private String resolution;           // hour | day | week | month | year
+    private LocalDateTime from;          // inclus
+    private LocalDateTime to;            // exclu
+    private List<RevenueBucketDTO> buckets; // tous les intervalles de la plage, vides compris
+}
@@ -0,0 +1,15 @@
+package org.example.projectjee.dto;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SuggestResponseDTO {
+    private List<SuggestionDTO> produits;    // par nombre d'avis décroissant
+    private List<SuggestionDTO> categories;
+}
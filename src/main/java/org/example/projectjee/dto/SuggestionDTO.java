@@ -0,0 +1,14 @@
+package org.example.projectjee.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SuggestionDTO {
+    private Long id;
+    private String label;
+    private Long ratingCount;   // null pour une catégorie
+}
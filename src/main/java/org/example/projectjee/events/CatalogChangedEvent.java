@@ -0,0 +1,16 @@
+package org.example.projectjee.events;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Publié après une écriture qui change ce que renvoient les lectures du
+ * catalogue sans toucher aux champs indexés (stock, images, catégories).
+ * Les écritures de produit proprement dites passent par {@link ProductChangedEvent}.
+ */
+@Getter
+@AllArgsConstructor
+public class CatalogChangedEvent {
+
+    private final String reason;
+}
@@ -0,0 +1,37 @@
+package org.example.projectjee.events;
+
+import org.example.projectjee.model.Product;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Publié par les contrôleurs après chaque écriture sur un produit
+ * (création, modification, suppression) pour tenir à jour les index en mémoire.
+ */
+@Getter
+@AllArgsConstructor
+public class ProductChangedEvent {
+
+    public enum Type { CREATED, UPDATED, DELETED }
+
+    private final Type type;
+    private final Long productId;
+    private final Product product; // null pour DELETED
+
+    public static ProductChangedEvent created(Product product) {
+        return new ProductChangedEvent(Type.CREATED, product.getId(), product);
+    }
+
+    public static ProductChangedEvent updated(Product product) {
+        return new ProductChangedEvent(Type.UPDATED, product.getId(), product);
+    }
+
+    public static ProductChangedEvent deleted(Long productId) {
+        return new ProductChangedEvent(Type.DELETED, productId, null);
+    }
+
+    public boolean isDelete() {
+        return type == Type.DELETED;
+    }
+}
@@ -1,5 +1,6 @@
 package org.example.projectjee.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.FetchType;
@@ -29,6 +30,7 @@ public class CartItem {
     //  Un utilisateur peut avoir plusieurs CartItem
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "utilisateur_id", nullable = false)
+    @JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
     private Utilisateur utilisateur;
 
     //  Un produit peut apparaître dans plusieurs CartItem
@@ -7,7 +7,12 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "produits")
+@Table(name = "produits", indexes = {
+        // clés de tri de la pagination par curseur (valeur, id)
+        @Index(name = "idx_produits_prix_id", columnList = "prix, id"),
+        @Index(name = "idx_produits_note_id", columnList = "note_moyenne, id"),
+        @Index(name = "idx_produits_avis_id", columnList = "nombre_avis, id")
+})
 @Getter
 @Setter
 @NoArgsConstructor
@@ -27,6 +32,7 @@ public class Product {
 
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "utilisateur_id")
+    @JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
     private Utilisateur utilisateur;
 
     @ManyToOne(fetch = FetchType.LAZY)
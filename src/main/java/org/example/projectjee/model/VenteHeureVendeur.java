@@ -0,0 +1,44 @@
+package org.example.projectjee.model;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * Ventes cumulées d'un vendeur pour une heure ({@code heure} tronquée à l'heure
+ * pleine). Résolution la plus fine des séries de chiffre d'affaires.
+ */
+@Entity
+@Table(name = "ventes_heure_vendeur",
+        uniqueConstraints = @UniqueConstraint(name = "uk_vhv_vendeur_heure",
+                columnNames = {"vendeur_id", "heure"}))
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class VenteHeureVendeur {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "vendeur_id", nullable = false)
+    private Long vendeurId;
+
+    @Column(name = "heure", nullable = false)
+    private LocalDateTime heure;
+
+    @Column(name = "quantite", nullable = false)
+    private Long quantite;
+
+    @Column(name = "chiffre_affaires", nullable = false)
+    private Double chiffreAffaires;
+
+    @Column(name = "nb_commandes", nullable = false)
+    private Long nbCommandes;
+
+    @Column(name = "nb_lignes", nullable = false)
+    private Long nbLignes;
+}
@@ -0,0 +1,41 @@
+package org.example.projectjee.model;
+
+import java.time.LocalDate;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * Achats cumulés d'un client chez un vendeur pour un jour.
+ */
+@Entity
+@Table(name = "ventes_jour_client",
+        uniqueConstraints = @UniqueConstraint(name = "uk_vjc_vendeur_client_jour",
+                columnNames = {"vendeur_id", "client_id", "jour"}),
+        indexes = @Index(name = "idx_vjc_vendeur_jour", columnList = "vendeur_id, jour"))
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class VenteJourClient {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "vendeur_id", nullable = false)
+    private Long vendeurId;
+
+    @Column(name = "client_id", nullable = false)
+    private Long clientId;
+
+    @Column(name = "jour", nullable = false)
+    private LocalDate jour;
+
+    @Column(name = "chiffre_affaires", nullable = false)
+    private Double chiffreAffaires;
+
+    @Column(name = "nb_lignes", nullable = false)
+    private Long nbLignes;
+}
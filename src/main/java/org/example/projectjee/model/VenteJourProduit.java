@@ -0,0 +1,46 @@
+package org.example.projectjee.model;
+
+import java.time.LocalDate;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * Ventes cumulées d'un produit pour un vendeur et un jour (rollup alimenté à
+ * chaque commande, dans la même transaction). Pas de clé étrangère : les
+ * ventes restent acquises si le produit est supprimé.
+ */
+@Entity
+@Table(name = "ventes_jour_produit",
+        uniqueConstraints = @UniqueConstraint(name = "uk_vjp_vendeur_produit_jour",
+                columnNames = {"vendeur_id", "produit_id", "jour"}),
+        indexes = @Index(name = "idx_vjp_vendeur_jour", columnList = "vendeur_id, jour"))
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class VenteJourProduit {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "vendeur_id", nullable = false)
+    private Long vendeurId;
+
+    @Column(name = "produit_id", nullable = false)
+    private Long produitId;
+
+    @Column(name = "jour", nullable = false)
+    private LocalDate jour;
+
+    @Column(name = "quantite", nullable = false)
+    private Long quantite;
+
+    @Column(name = "chiffre_affaires", nullable = false)
+    private Double chiffreAffaires;
+
+    @Column(name = "nb_lignes", nullable = false)
+    private Long nbLignes;
+}
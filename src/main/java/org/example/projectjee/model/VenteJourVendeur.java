@@ -0,0 +1,44 @@
+package org.example.projectjee.model;
+
+import java.time.LocalDate;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * Ventes cumulées d'un vendeur pour un jour. {@code nbCommandes} compte chaque
+ * commande une seule fois, même si elle contient plusieurs de ses produits.
+ */
+@Entity
+@Table(name = "ventes_jour_vendeur",
+        uniqueConstraints = @UniqueConstraint(name = "uk_vjv_vendeur_jour",
+                columnNames = {"vendeur_id", "jour"}))
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class VenteJourVendeur {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "vendeur_id", nullable = false)
+    private Long vendeurId;
+
+    @Column(name = "jour", nullable = false)
+    private LocalDate jour;
+
+    @Column(name = "quantite", nullable = false)
+    private Long quantite;
+
+    @Column(name = "chiffre_affaires", nullable = false)
+    private Double chiffreAffaires;
+
+    @Column(name = "nb_commandes", nullable = false)
+    private Long nbCommandes;
+
+    @Column(name = "nb_lignes", nullable = false)
+    private Long nbLignes;
+}
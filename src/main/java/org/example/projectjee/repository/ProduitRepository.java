@@ -1,11 +1,13 @@
 package org.example.projectjee.repository;
 
+import java.util.Collection;
 import java.util.List;
 
 import org.example.projectjee.dto.ProduitCategorieStatDTO;
 import org.example.projectjee.dto.TopProduitDTO;
 import org.example.projectjee.model.Product;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
@@ -107,4 +109,40 @@ public interface ProduitRepository extends JpaRepository<Product, Long>, JpaSpec
     // Find product by ID with images eagerly loaded
     @Query("SELECT p FROM Product p LEFT JOIN FETCH p.images WHERE p.id = :id")
     Optional<Product> findByIdWithImages(@Param("id") Long id);
+
+    // Plusieurs produits en une requête, associations sérialisées comprises (endpoint /batch)
+    @EntityGraph(attributePaths = {"categorie", "utilisateur", "images"})
+    List<Product> findByIdIn(Collection<Long> ids);
+
+    // 🔎 Lignes légères (id, titre, description) pour construire l'index texte par lots
+    @Query("SELECT p.id, p.title, p.description FROM Product p WHERE p.id > :afterId ORDER BY p.id")
+    List<Object[]> findTextRowsAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+    // 🔎 Colonnes filtrables (id, prix, note, nb avis, catégorie) pour le store en mémoire, par lots
+    @Query("""
+            SELECT p.id, p.price, p.rating, p.ratingCount, c.id
+            FROM Product p
+            LEFT JOIN p.categorie c
+            WHERE p.id > :afterId
+            ORDER BY p.id
+            """)
+    List<Object[]> findColumnRowsAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+    // 🔎 (id, titre, nb avis) pour l'autocomplétion, par lots
+    @Query("SELECT p.id, p.title, p.ratingCount FROM Product p WHERE p.id > :afterId ORDER BY p.id")
+    List<Object[]> findSuggestRowsAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+    // 🔎 (id, titre, description, catégorie) pour calculer les embeddings, par lots
+    @Query("""
+            SELECT p.id, p.title, p.description, c.nom
+            FROM Product p
+            LEFT JOIN p.categorie c
+            WHERE p.id > :afterId
+            ORDER BY p.id
+            """)
+    List<Object[]> findEmbeddingRowsAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+    // 🔎 (id, ASIN) pour l'index des ASIN, par lots
+    @Query("SELECT p.id, p.asin FROM Product p WHERE p.id > :afterId ORDER BY p.id")
+    List<Object[]> findAsinRowsAfter(@Param("afterId") Long afterId, Pageable pageable);
 }
@@ -0,0 +1,281 @@
+package org.example.projectjee.repository;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.example.projectjee.model.VenteHeureVendeur;
+import org.example.projectjee.model.VenteJourProduit;
+import org.example.projectjee.model.VenteJourVendeur;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Rollups journaliers des ventes par vendeur (ventes_jour_produit,
+ * ventes_jour_vendeur, ventes_jour_client) et rollup horaire
+ * (ventes_heure_vendeur). Alimentés par
+ * {@code VenteRollupService} au passage de commande ; les lectures ne
+ * parcourent que les jours de la fenêtre demandée.
+ *
+ * Paramètre {@code depuis} : premier jour inclus, null = depuis toujours.
+ */
+@Repository
+public interface VenteJourRepository extends JpaRepository<VenteJourProduit, Long> {
+
+    // ========== ÉCRITURES (upserts MySQL) ==========
+
+    @Modifying
+    @Query(value = """
+        INSERT INTO ventes_jour_produit (vendeur_id, produit_id, jour, quantite, chiffre_affaires, nb_lignes)
+        VALUES (:vendeurId, :produitId, :jour, :quantite, :chiffreAffaires, :nbLignes)
+        ON DUPLICATE KEY UPDATE
+            quantite = quantite + VALUES(quantite),
+            chiffre_affaires = chiffre_affaires + VALUES(chiffre_affaires),
+            nb_lignes = nb_lignes + VALUES(nb_lignes)
+    """, nativeQuery = true)
+    void addProduit(@Param("vendeurId") Long vendeurId,
+                    @Param("produitId") Long produitId,
+                    @Param("jour") LocalDate jour,
+                    @Param("quantite") long quantite,
+                    @Param("chiffreAffaires") double chiffreAffaires,
+                    @Param("nbLignes") long nbLignes);
+
+    @Modifying
+    @Query(value = """
+        INSERT INTO ventes_jour_vendeur (vendeur_id, jour, quantite, chiffre_affaires, nb_commandes, nb_lignes)
+        VALUES (:vendeurId, :jour, :quantite, :chiffreAffaires, :nbCommandes, :nbLignes)
+        ON DUPLICATE KEY UPDATE
+            quantite = quantite + VALUES(quantite),
+            chiffre_affaires = chiffre_affaires + VALUES(chiffre_affaires),
+            nb_commandes = nb_commandes + VALUES(nb_commandes),
+            nb_lignes = nb_lignes + VALUES(nb_lignes)
+    """, nativeQuery = true)
+    void addVendeur(@Param("vendeurId") Long vendeurId,
+                    @Param("jour") LocalDate jour,
+                    @Param("quantite") long quantite,
+                    @Param("chiffreAffaires") double chiffreAffaires,
+                    @Param("nbCommandes") long nbCommandes,
+                    @Param("nbLignes") long nbLignes);
+
+    @Modifying
+    @Query(value = """
+        INSERT INTO ventes_jour_client (vendeur_id, client_id, jour, chiffre_affaires, nb_lignes)
+        VALUES (:vendeurId, :clientId, :jour, :chiffreAffaires, :nbLignes)
+        ON DUPLICATE KEY UPDATE
+            chiffre_affaires = chiffre_affaires + VALUES(chiffre_affaires),
+            nb_lignes = nb_lignes + VALUES(nb_lignes)
+    """, nativeQuery = true)
+    void addClient(@Param("vendeurId") Long vendeurId,
+                   @Param("clientId") Long clientId,
+                   @Param("jour") LocalDate jour,
+                   @Param("chiffreAffaires") double chiffreAffaires,
+                   @Param("nbLignes") long nbLignes);
+
+    @Modifying
+    @Query(value = """
+        INSERT INTO ventes_heure_vendeur (vendeur_id, heure, quantite, chiffre_affaires, nb_commandes, nb_lignes)
+        VALUES (:vendeurId, :heure, :quantite, :chiffreAffaires, :nbCommandes, :nbLignes)
+        ON DUPLICATE KEY UPDATE
+            quantite = quantite + VALUES(quantite),
+            chiffre_affaires = chiffre_affaires + VALUES(chiffre_affaires),
+            nb_commandes = nb_commandes + VALUES(nb_commandes),
+            nb_lignes = nb_lignes + VALUES(nb_lignes)
+    """, nativeQuery = true)
+    void addHeure(@Param("vendeurId") Long vendeurId,
+                  @Param("heure") LocalDateTime heure,
+                  @Param("quantite") long quantite,
+                  @Param("chiffreAffaires") double chiffreAffaires,
+                  @Param("nbCommandes") long nbCommandes,
+                  @Param("nbLignes") long nbLignes);
+
+    // ========== REPRISE DE L'HISTORIQUE ==========
+
+    @Query(value = "SELECT COUNT(*) FROM ventes_jour_vendeur", nativeQuery = true)
+    long countJoursVendeur();
+
+    // vendeur actuel du produit ; lignes dont le produit a été supprimé ignorées
+    @Modifying
+    @Query(value = """
+        INSERT INTO ventes_jour_produit (vendeur_id, produit_id, jour, quantite, chiffre_affaires, nb_lignes)
+        SELECT p.utilisateur_id, p.id, DATE(c.date_creation),
+               SUM(l.quantite), SUM(l.quantite * l.prix_unitaire), COUNT(*)
+        FROM lignes_commande l
+        JOIN commandes c ON c.id = l.commande_id
+        JOIN produits p  ON p.id = l.produit_id
+        WHERE p.utilisateur_id IS NOT NULL
+        GROUP BY p.utilisateur_id, p.id, DATE(c.date_creation)
+    """, nativeQuery = true)
+    int backfillProduits();
+
+    @Modifying
+    @Query(value = """
+        INSERT INTO ventes_jour_vendeur (vendeur_id, jour, quantite, chiffre_affaires, nb_commandes, nb_lignes)
+        SELECT p.utilisateur_id, DATE(c.date_creation),
+               SUM(l.quantite), SUM(l.quantite * l.prix_unitaire), COUNT(DISTINCT c.id), COUNT(*)
+        FROM lignes_commande l
+        JOIN commandes c ON c.id = l.commande_id
+        JOIN produits p  ON p.id = l.produit_id
+        WHERE p.utilisateur_id IS NOT NULL
+        GROUP BY p.utilisateur_id, DATE(c.date_creation)
+    """, nativeQuery = true)
+    int backfillVendeurs();
+
+    @Modifying
+    @Query(value = """
+        INSERT INTO ventes_jour_client (vendeur_id, client_id, jour, chiffre_affaires, nb_lignes)
+        SELECT p.utilisateur_id, c.utilisateur_id, DATE(c.date_creation),
+               SUM(l.quantite * l.prix_unitaire), COUNT(*)
+        FROM lignes_commande l
+        JOIN commandes c ON c.id = l.commande_id
+        JOIN produits p  ON p.id = l.produit_id
+        WHERE p.utilisateur_id IS NOT NULL
+        GROUP BY p.utilisateur_id, c.utilisateur_id, DATE(c.date_creation)
+    """, nativeQuery = true)
+    int backfillClients();
+
+    @Query(value = "SELECT COUNT(*) FROM ventes_heure_vendeur", nativeQuery = true)
+    long countHeuresVendeur();
+
+    @Modifying
+    @Query(value = """
+        INSERT INTO ventes_heure_vendeur (vendeur_id, heure, quantite, chiffre_affaires, nb_commandes, nb_lignes)
+        SELECT p.utilisateur_id, DATE_FORMAT(c.date_creation, '%Y-%m-%d %H:00:00'),
+               SUM(l.quantite), SUM(l.quantite * l.prix_unitaire), COUNT(DISTINCT c.id), COUNT(*)
+        FROM lignes_commande l
+        JOIN commandes c ON c.id = l.commande_id
+        JOIN produits p  ON p.id = l.produit_id
+        WHERE p.utilisateur_id IS NOT NULL
+        GROUP BY p.utilisateur_id, DATE_FORMAT(c.date_creation, '%Y-%m-%d %H:00:00')
+    """, nativeQuery = true)
+    int backfillHeures();
+
+    // ========== LECTURES ==========
+
+    /** [quantité, chiffre d'affaires, commandes] du vendeur sur la fenêtre ; une seule ligne. */
+    @Query("""
+        SELECT COALESCE(SUM(v.quantite), 0), COALESCE(SUM(v.chiffreAffaires), 0.0), COALESCE(SUM(v.nbCommandes), 0)
+        FROM VenteJourVendeur v
+        WHERE v.vendeurId = :vendeurId AND (:depuis IS NULL OR v.jour >= :depuis)
+    """)
+    List<Object[]> sumVendeur(@Param("vendeurId") Long vendeurId, @Param("depuis") LocalDate depuis);
+
+    /**
+     * Tableau de bord vendeur en une requête, une seule ligne :
+     * [0] commandes, [1] CA (depuis toujours), [2] commandes, [3] CA (depuis {@code debutMois}),
+     * [4] commandes, [5] CA (depuis {@code aujourdhui}), [6] id, [7] titre, [8] quantité du
+     * produit le plus vendu (null si aucune vente), [9] produits, [10] produits en stock,
+     * [11] note moyenne des produits notés.
+     *
+     * Sommes conditionnelles sur {@code jour} : un seul passage sur les jours du vendeur.
+     */
+    @Query(value = """
+        SELECT t.total_commandes, t.total_ca, t.mois_commandes, t.mois_ca, t.jour_commandes, t.jour_ca,
+               top.produit_id, top.titre, top.quantite,
+               inv.nb_produits, inv.nb_actifs, inv.note_moyenne
+        FROM (
+            SELECT COALESCE(SUM(v.nb_commandes), 0) AS total_commandes,
+                   COALESCE(SUM(v.chiffre_affaires), 0) AS total_ca,
+                   COALESCE(SUM(CASE WHEN v.jour >= :debutMois THEN v.nb_commandes END), 0) AS mois_commandes,
+                   COALESCE(SUM(CASE WHEN v.jour >= :debutMois THEN v.chiffre_affaires END), 0) AS mois_ca,
+                   COALESCE(SUM(CASE WHEN v.jour >= :aujourdhui THEN v.nb_commandes END), 0) AS jour_commandes,
+                   COALESCE(SUM(CASE WHEN v.jour >= :aujourdhui THEN v.chiffre_affaires END), 0) AS jour_ca
+            FROM ventes_jour_vendeur v
+            WHERE v.vendeur_id = :vendeurId
+        ) t
+        LEFT JOIN (
+            SELECT r.produit_id, p.titre, SUM(r.quantite) AS quantite
+            FROM ventes_jour_produit r
+            JOIN produits p ON p.id = r.produit_id
+            WHERE r.vendeur_id = :vendeurId
+            GROUP BY r.produit_id, p.titre
+            ORDER BY quantite DESC, r.produit_id
+            LIMIT 1
+        ) top ON 1 = 1
+        CROSS JOIN (
+            SELECT COUNT(*) AS nb_produits,
+                   COALESCE(SUM(CASE WHEN p.quantite_disponible > 0 THEN 1 ELSE 0 END), 0) AS nb_actifs,
+                   COALESCE(AVG(CASE WHEN p.note_moyenne > 0 THEN p.note_moyenne END), 0) AS note_moyenne
+            FROM produits p
+            WHERE p.utilisateur_id = :vendeurId
+        ) inv
+    """, nativeQuery = true)
+    List<Object[]> dashboardVendeur(@Param("vendeurId") Long vendeurId,
+                                    @Param("debutMois") LocalDate debutMois,
+                                    @Param("aujourdhui") LocalDate aujourdhui);
+
+    /** Jours du vendeur dans [debut, fin[. */
+    @Query("""
+        SELECT v FROM VenteJourVendeur v
+        WHERE v.vendeurId = :vendeurId AND v.jour >= :debut AND v.jour < :fin
+    """)
+    List<VenteJourVendeur> findJoursVendeur(@Param("vendeurId") Long vendeurId,
+                                            @Param("debut") LocalDate debut,
+                                            @Param("fin") LocalDate fin);
+
+    /** Heures du vendeur dans [debut, fin[. */
+    @Query("""
+        SELECT v FROM VenteHeureVendeur v
+        WHERE v.vendeurId = :vendeurId AND v.heure >= :debut AND v.heure < :fin
+    """)
+    List<VenteHeureVendeur> findHeuresVendeur(@Param("vendeurId") Long vendeurId,
+                                              @Param("debut") LocalDateTime debut,
+                                              @Param("fin") LocalDateTime fin);
+
+    /** Jours du vendeur avant {@code fin}, du plus récent au plus ancien (lecture à rebours par lots). */
+    @Query("""
+        SELECT v FROM VenteJourVendeur v
+        WHERE v.vendeurId = :vendeurId AND v.jour < :fin
+        ORDER BY v.jour DESC
+    """)
+    List<VenteJourVendeur> findJoursVendeurAvant(@Param("vendeurId") Long vendeurId,
+                                                 @Param("fin") LocalDate fin,
+                                                 Pageable pageable);
+
+    /** Heures du vendeur avant {@code fin}, de la plus récente à la plus ancienne. */
+    @Query("""
+        SELECT v FROM VenteHeureVendeur v
+        WHERE v.vendeurId = :vendeurId AND v.heure < :fin
+        ORDER BY v.heure DESC
+    """)
+    List<VenteHeureVendeur> findHeuresVendeurAvant(@Param("vendeurId") Long vendeurId,
+                                                   @Param("fin") LocalDateTime fin,
+                                                   Pageable pageable);
+
+    /** [produitId, titre, prix actuel, quantité, chiffre d'affaires], par quantité décroissante. */
+    @Query("""
+        SELECT r.produitId, p.title, p.price, SUM(r.quantite), SUM(r.chiffreAffaires)
+        FROM VenteJourProduit r JOIN Product p ON p.id = r.produitId
+        WHERE r.vendeurId = :vendeurId AND (:depuis IS NULL OR r.jour >= :depuis)
+        GROUP BY r.produitId, p.title, p.price
+        ORDER BY SUM(r.quantite) DESC, r.produitId
+    """)
+    List<Object[]> topProduitsParQuantite(@Param("vendeurId") Long vendeurId,
+                                          @Param("depuis") LocalDate depuis,
+                                          Pageable pageable);
+
+    /** [produitId, titre, prix actuel, quantité, chiffre d'affaires], par chiffre d'affaires décroissant. */
+    @Query("""
+        SELECT r.produitId, p.title, p.price, SUM(r.quantite), SUM(r.chiffreAffaires)
+        FROM VenteJourProduit r JOIN Product p ON p.id = r.produitId
+        WHERE r.vendeurId = :vendeurId AND (:depuis IS NULL OR r.jour >= :depuis)
+        GROUP BY r.produitId, p.title, p.price
+        ORDER BY SUM(r.chiffreAffaires) DESC, r.produitId
+    """)
+    List<Object[]> topProduitsParChiffreAffaires(@Param("vendeurId") Long vendeurId,
+                                                 @Param("depuis") LocalDate depuis,
+                                                 Pageable pageable);
+
+    /** [clientId, nom, chiffre d'affaires, lignes de commande], par chiffre d'affaires décroissant. */
+    @Query("""
+        SELECT r.clientId, u.nom, SUM(r.chiffreAffaires), SUM(r.nbLignes)
+        FROM VenteJourClient r JOIN Utilisateur u ON u.id = r.clientId
+        WHERE r.vendeurId = :vendeurId
+        GROUP BY r.clientId, u.nom
+        ORDER BY SUM(r.chiffreAffaires) DESC, r.clientId
+    """)
+    List<Object[]> topClients(@Param("vendeurId") Long vendeurId, Pageable pageable);
+}
@@ -0,0 +1,147 @@
+package org.example.projectjee.services;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.example.projectjee.events.ProductChangedEvent;
+import org.example.projectjee.model.Product;
+import org.example.projectjee.repository.ProduitRepository;
+import org.example.projectjee.util.BloomFilter;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Index ASIN -> id produit en mémoire, précédé d'un filtre de Bloom.
+ *
+ * Une fois prêt, un ASIN inconnu est écarté sans requête (le filtre répond
+ * "absent" dans la grande majorité des cas, la map tranche les faux positifs) ;
+ * un ASIN connu ne coûte plus qu'une lecture par clé primaire.
+ * Tenu à jour par les {@link ProductChangedEvent}, comme les autres index.
+ */
+@Slf4j
+@Service
+public class AsinIndex {
+
+    private static final int LOAD_BATCH = 5000;
+    private static final double FALSE_POSITIVE_RATE = 0.01;
+    private static final long MIN_CAPACITY = 10_000;
+
+    private final ProduitRepository produitRepository;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Map<String, Long> idByAsin = new HashMap<>();
+    private final Map<Long, String> asinById = new HashMap<>();
+    private BloomFilter bloom = new BloomFilter(MIN_CAPACITY, FALSE_POSITIVE_RATE);
+
+    private volatile boolean ready = false;
+
+    public AsinIndex(ProduitRepository produitRepository) {
+        this.produitRepository = produitRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        lock.writeLock().lock();
+        try {
+            ready = false;
+            idByAsin.clear();
+            asinById.clear();
+
+            long afterId = 0L;
+            List<Object[]> rows;
+            do {
+                rows = produitRepository.findAsinRowsAfter(afterId, PageRequest.of(0, LOAD_BATCH));
+                for (Object[] r : rows) {
+                    Long id = (Long) r[0];
+                    put(id, (String) r[1]);
+                    afterId = id;
+                }
+            } while (rows.size() == LOAD_BATCH);
+
+            resizeBloom();
+            ready = true;
+            log.info("Index ASIN construit : {} produits", idByAsin.size());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Order(CatalogVersion.INDEX_ORDER)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        lock.writeLock().lock();
+        try {
+            remove(event.getProductId());
+            if (!event.isDelete()) {
+                Product p = event.getProduct();
+                if (put(p.getId(), p.getAsin())) {
+                    bloom.put(key(p.getAsin()));
+                    if (bloom.isSaturated()) resizeBloom();
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Id du produit portant cet ASIN. Sans objet tant que {@link #isReady()} est faux :
+     * l'appelant interroge alors la base.
+     */
+    public Optional<Long> findId(String asin) {
+        if (asin == null) return Optional.empty();
+        String key = key(asin);
+        lock.readLock().lock();
+        try {
+            if (!bloom.mightContain(key)) return Optional.empty();
+            return Optional.ofNullable(idByAsin.get(key));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public boolean isTaken(String asin) {
+        return findId(asin).isPresent();
+    }
+
+    // la colonne code_asin est comparée sans tenir compte de la casse ni des espaces finaux (collation MySQL)
+    private static String key(String asin) {
+        return asin.stripTrailing().toUpperCase(Locale.ROOT);
+    }
+
+    private boolean put(Long id, String asin) {
+        if (id == null || asin == null) return false;
+        String key = key(asin);
+        idByAsin.put(key, id);
+        asinById.put(id, key);
+        return true;
+    }
+
+    private void remove(Long id) {
+        if (id == null) return;
+        String key = asinById.remove(id);
+        // le filtre garde ses bits : l'ASIN libéré devient un faux positif, tranché par la map
+        if (key != null) idByAsin.remove(key, id);
+    }
+
+    // filtre dimensionné pour le double du catalogue actuel, pour absorber les créations
+    private void resizeBloom() {
+        BloomFilter fresh = new BloomFilter(Math.max(MIN_CAPACITY, 2L * idByAsin.size()), FALSE_POSITIVE_RATE);
+        for (String key : idByAsin.keySet()) fresh.put(key);
+        bloom = fresh;
+    }
+}
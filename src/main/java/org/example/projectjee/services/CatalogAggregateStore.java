@@ -0,0 +1,281 @@
+package org.example.projectjee.services;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.example.projectjee.dto.ProduitCategorieStatDTO;
+import org.example.projectjee.events.ProductChangedEvent;
+import org.example.projectjee.model.Categorie;
+import org.example.projectjee.model.Product;
+import org.example.projectjee.repository.CategorieRepository;
+import org.example.projectjee.repository.ProduitRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Agrégats du catalogue pour l'en-tête du tableau de bord admin : nombre de
+ * produits (total et par catégorie), somme et nombre des notes, histogramme
+ * des étoiles.
+ *
+ * Construits une fois au démarrage puis ajustés à chaque {@link ProductChangedEvent}
+ * (après commit) : on retire l'ancienne contribution du produit et on ajoute la
+ * nouvelle. Une réconciliation périodique recalcule tout depuis la base et
+ * remplace les compteurs s'ils ont dérivé (écritures hors application, arrondis).
+ */
+@Slf4j
+@Service
+public class CatalogAggregateStore {
+
+    private static final int LOAD_BATCH = 5000;
+
+    private final ProduitRepository produitRepository;
+    private final CategorieRepository categorieRepository;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private Aggregates aggregates = new Aggregates();
+    // pendant une réconciliation : dernier état des produits modifiés (valeur null = supprimé),
+    // rejoué sur le recalcul avant le remplacement ; null hors réconciliation. Sous le verrou d'écriture
+    private Map<Long, Contribution> changedDuringReconcile = null;
+    private volatile boolean ready = false;
+
+    public CatalogAggregateStore(ProduitRepository produitRepository,
+                                 CategorieRepository categorieRepository) {
+        this.produitRepository = produitRepository;
+        this.categorieRepository = categorieRepository;
+    }
+
+    // note et catégorie d'un produit, pour retirer sa contribution lors d'une modification
+    private record Contribution(Long categorieId, Double rating) {
+    }
+
+    private static final class Aggregates {
+        final Map<Long, Contribution> byProduct = new HashMap<>();
+        final Map<Long, Long> productsByCategory = new HashMap<>();
+        final Map<Long, String> categoryNames = new LinkedHashMap<>();
+        final long[] stars = new long[6];   // 1..5
+        double ratingSum = 0;
+        long ratingCount = 0;
+
+        void add(Contribution c, int sign) {
+            if (c.categorieId() != null) {
+                productsByCategory.merge(c.categorieId(), (long) sign, Long::sum);
+            }
+            if (c.rating() != null) {
+                ratingSum += sign * c.rating();
+                ratingCount += sign;
+                stars[Math.max(1, Math.min(5, (int) Math.round(c.rating())))] += sign;
+            }
+        }
+
+        void put(Long id, Long categorieId, Double rating) {
+            remove(id);
+            Contribution c = new Contribution(categorieId, rating);
+            byProduct.put(id, c);
+            add(c, 1);
+        }
+
+        void remove(Long id) {
+            Contribution old = byProduct.remove(id);
+            if (old != null) add(old, -1);
+        }
+
+        boolean sameCounts(Aggregates other) {
+            return byProduct.size() == other.byProduct.size()
+                    && ratingCount == other.ratingCount
+                    && Arrays.equals(stars, other.stars)
+                    && nonZero(productsByCategory).equals(nonZero(other.productsByCategory));
+        }
+
+        private static Map<Long, Long> nonZero(Map<Long, Long> counts) {
+            Map<Long, Long> m = new HashMap<>(counts);
+            m.values().removeIf(v -> v == 0);
+            return m;
+        }
+    }
+
+    // ========== CHARGEMENT / MISE À JOUR ==========
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        Aggregates fresh = load();
+        lock.writeLock().lock();
+        try {
+            aggregates = fresh;
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Agrégats catalogue chargés : {} produits, {} catégories",
+                fresh.byProduct.size(), fresh.categoryNames.size());
+    }
+
+    /**
+     * Recalcul complet depuis la base. Les produits modifiés pendant le parcours
+     * sont notés avec leur dernier état et rejoués sur le recalcul avant de le
+     * publier : le parcours a pu lire l'état d'avant ou d'après l'écriture, le
+     * rejeu donne le même résultat puisque {@code put}/{@code remove} sont
+     * idempotents par produit. Un événement appliqué après le remplacement est
+     * sans risque pour la même raison.
+     */
+    @Scheduled(initialDelayString = "${catalog.aggregates.reconcile-ms:600000}",
+               fixedDelayString = "${catalog.aggregates.reconcile-ms:600000}")
+    public void reconcile() {
+        if (!ready) return;
+        lock.writeLock().lock();
+        try {
+            if (changedDuringReconcile != null) return;
+            changedDuringReconcile = new HashMap<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        Aggregates fresh;
+        try {
+            fresh = load();
+        } catch (RuntimeException e) {
+            lock.writeLock().lock();
+            try {
+                changedDuringReconcile = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            throw e;
+        }
+
+        lock.writeLock().lock();
+        try {
+            for (Map.Entry<Long, Contribution> e : changedDuringReconcile.entrySet()) {
+                Contribution c = e.getValue();
+                if (c == null) {
+                    fresh.remove(e.getKey());
+                } else {
+                    fresh.put(e.getKey(), c.categorieId(), c.rating());
+                }
+            }
+            if (!aggregates.sameCounts(fresh)) {
+                log.warn("Agrégats catalogue corrigés : {} -> {} produits",
+                        aggregates.byProduct.size(), fresh.byProduct.size());
+            }
+            log.debug("Réconciliation des agrégats : {} produit(s) modifié(s) pendant le calcul rejoué(s)",
+                    changedDuringReconcile.size());
+            aggregates = fresh;
+            changedDuringReconcile = null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Order(CatalogVersion.INDEX_ORDER)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        lock.writeLock().lock();
+        try {
+            if (event.isDelete()) {
+                aggregates.remove(event.getProductId());
+                if (changedDuringReconcile != null) changedDuringReconcile.put(event.getProductId(), null);
+            } else {
+                Product p = event.getProduct();
+                if (p.getId() == null) return;
+                Contribution c = new Contribution(
+                        p.getCategorie() != null ? p.getCategorie().getId() : null, p.getRating());
+                aggregates.put(p.getId(), c.categorieId(), c.rating());
+                if (changedDuringReconcile != null) changedDuringReconcile.put(p.getId(), c);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private Aggregates load() {
+        Aggregates a = new Aggregates();
+        for (Categorie c : categorieRepository.findAll()) {
+            a.categoryNames.put(c.getId(), c.getNom());
+        }
+
+        long afterId = 0L;
+        List<Object[]> rows;
+        do {
+            rows = produitRepository.findColumnRowsAfter(afterId, PageRequest.of(0, LOAD_BATCH));
+            for (Object[] r : rows) {
+                Long id = (Long) r[0];
+                a.put(id, (Long) r[4], (Double) r[2]);
+                afterId = id;
+            }
+        } while (rows.size() == LOAD_BATCH);
+        return a;
+    }
+
+    // ========== LECTURES ==========
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public long totalProduits() {
+        lock.readLock().lock();
+        try {
+            return aggregates.byProduct.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public long totalCategories() {
+        lock.readLock().lock();
+        try {
+            return aggregates.categoryNames.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Moyenne des notes renseignées, 0 s'il n'y en a aucune (comme COALESCE(AVG(note), 0)). */
+    public double noteMoyenne() {
+        lock.readLock().lock();
+        try {
+            return aggregates.ratingCount == 0 ? 0.0 : aggregates.ratingSum / aggregates.ratingCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Nombre de produits notés par étoiles (arrondi de la note), index 1..5. */
+    public long[] starHistogram() {
+        lock.readLock().lock();
+        try {
+            return aggregates.stars.clone();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Produits par nom de catégorie, catégories vides exclues (comme le GROUP BY c.nom). */
+    public List<ProduitCategorieStatDTO> produitsParCategorie() {
+        lock.readLock().lock();
+        try {
+            Map<String, Long> byName = new LinkedHashMap<>();
+            aggregates.productsByCategory.forEach((categorieId, count) -> {
+                if (count > 0) {
+                    byName.merge(aggregates.categoryNames.get(categorieId), count, Long::sum);
+                }
+            });
+            List<ProduitCategorieStatDTO> stats = new ArrayList<>(byName.size());
+            byName.forEach((nom, count) -> stats.add(new ProduitCategorieStatDTO(nom, count)));
+            return stats;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package org.example.projectjee.services;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.example.projectjee.events.CatalogChangedEvent;
+import org.example.projectjee.events.ProductChangedEvent;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Numéro de version du catalogue, incrémenté après chaque écriture produit
+ * ({@link ProductChangedEvent}) ou de stock, d'image, de catégorie ({@link CatalogChangedEvent}).
+ * Une valeur calculée avec la version {@code v} est périmée dès que
+ * {@link #current()} ne vaut plus {@code v}.
+ *
+ * Sert aussi d'ETag fort aux lectures du catalogue (produits, catégories, KPI) :
+ * un {@code If-None-Match} à jour est répondu en 304 sans aucune requête.
+ *
+ * Ordre des écouteurs après commit : d'abord les index et stores en mémoire
+ * ({@link #INDEX_ORDER}), puis le cache de résultats ({@link #CACHE_ORDER}),
+ * la version en dernier ({@link #VERSION_ORDER}). Ainsi un ETag ou une clé de
+ * cache de la nouvelle version ne peut jamais être associé à des données
+ * d'avant l'écriture.
+ */
+@Component
+public class CatalogVersion {
+
+    public static final int INDEX_ORDER = 0;
+    public static final int CACHE_ORDER = 100;
+    public static final int VERSION_ORDER = Ordered.LOWEST_PRECEDENCE;
+
+    // le compteur repart de 0 à chaque démarrage : l'instant de démarrage distingue les ETags
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    private final AtomicLong version = new AtomicLong();
+
+    public long current() {
+        return version.get();
+    }
+
+    /** ETag fort de l'état courant du catalogue, ex. {@code "m3k9x2a1-42"}. */
+    public String etag() {
+        return "\"" + epoch + "-" + version.get() + "\"";
+    }
+
+    @Order(VERSION_ORDER)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        version.incrementAndGet();
+    }
+
+    @Order(VERSION_ORDER)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        version.incrementAndGet();
+    }
+}
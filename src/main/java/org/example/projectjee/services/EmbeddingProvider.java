@@ -0,0 +1,26 @@
+package org.example.projectjee.services;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Transforme un texte en vecteur normalisé (norme 1) pour l'index sémantique.
+ *
+ * Pour brancher un vrai modèle, déclarer un bean qui implémente cette interface :
+ * il remplace {@link HashingEmbeddingProvider} (voir {@code SemanticConfig}).
+ */
+public interface EmbeddingProvider {
+
+    /** Identifiant stable (modèle + dimension) : un index persisté n'est relu que s'il correspond. */
+    String id();
+
+    int dimension();
+
+    float[] embed(String text);
+
+    default List<float[]> embedAll(List<String> texts) {
+        List<float[]> out = new ArrayList<>(texts.size());
+        for (String t : texts) out.add(embed(t));
+        return out;
+    }
+}
@@ -0,0 +1,171 @@
+package org.example.projectjee.services;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.example.projectjee.dto.FacetBucketDTO;
+import org.example.projectjee.dto.ProduitFacetsDTO;
+import org.example.projectjee.spec.ProduitFilter;
+
+/**
+ * Compte les facettes en un seul passage sur les produits qui passent le filtre texte.
+ *
+ * Facettes disjonctives : chaque produit est testé contre les quatre filtres
+ * (catégorie, prix, note, avis). S'il les passe tous il compte dans toutes les
+ * facettes ; s'il n'échoue qu'à un seul, il compte uniquement dans la facette
+ * de ce filtre (qui ignore son propre filtre) ; au-delà il ne compte nulle part.
+ */
+final class FacetCounter {
+
+    static final double[] PRICE_BOUNDS = { 0, 25, 50, 100, 200, 500 };
+    static final double[] REVIEW_BOUNDS = { 0, 10, 100, 1000, 10000 };
+
+    private static final int CATEGORY = 0, PRICE = 1, RATING = 2, REVIEWS = 3;
+
+    private final Long categorieId;
+    private final Double prixMin, prixMax, noteMin, noteMax, reviewsMin, reviewsMax;
+    private final boolean priceFiltered, ratingFiltered, reviewsFiltered;
+
+    private long total = 0;
+    private final Map<Long, Long> categories = new HashMap<>();
+    private final long[] prices = new long[PRICE_BOUNDS.length];
+    private final long[] stars = new long[5];
+    private final long[] reviews = new long[REVIEW_BOUNDS.length];
+
+    FacetCounter(ProduitFilter f) {
+        this.categorieId = f.getCategorieId();
+        this.prixMin = f.getPrixMin() == null ? null : f.getPrixMin().doubleValue();
+        this.prixMax = f.getPrixMax() == null ? null : f.getPrixMax().doubleValue();
+        this.noteMin = f.getNoteMin() == null ? null : f.getNoteMin().doubleValue();
+        this.noteMax = f.getNoteMax() == null ? null : f.getNoteMax().doubleValue();
+        this.reviewsMin = f.getReviewsMin() == null ? null : f.getReviewsMin().doubleValue();
+        this.reviewsMax = f.getReviewsMax() == null ? null : f.getReviewsMax().doubleValue();
+        this.priceFiltered = prixMin != null || prixMax != null;
+        this.ratingFiltered = noteMin != null || noteMax != null;
+        this.reviewsFiltered = reviewsMin != null || reviewsMax != null;
+    }
+
+    /**
+     * Un produit ; NaN pour une valeur NULL, {@code null} si pas de catégorie.
+     */
+    void accept(double price, double rating, double reviewCount, Long productCategorieId) {
+        int failed = -1;
+        int failures = 0;
+        if (categorieId != null && !categorieId.equals(productCategorieId)) {
+            failed = CATEGORY;
+            failures++;
+        }
+        if (priceFiltered && !inRange(price, prixMin, prixMax)) {
+            failed = PRICE;
+            failures++;
+        }
+        if (ratingFiltered && !inRange(rating, noteMin, noteMax)) {
+            failed = RATING;
+            failures++;
+        }
+        if (reviewsFiltered && !inRange(reviewCount, reviewsMin, reviewsMax)) {
+            failed = REVIEWS;
+            failures++;
+        }
+        if (failures > 1) return;
+
+        if (failures == 0) total++;
+        if (failures == 0 || failed == CATEGORY) {
+            if (productCategorieId != null) categories.merge(productCategorieId, 1L, Long::sum);
+        }
+        if (failures == 0 || failed == PRICE) {
+            int b = bucket(price, PRICE_BOUNDS);
+            if (b >= 0) prices[b]++;
+        }
+        if (failures == 0 || failed == RATING) {
+            if (!Double.isNaN(rating)) {
+                // même arrondi que la distribution des KPIs
+                int s = Math.max(1, Math.min(5, (int) Math.round(rating)));
+                stars[s - 1]++;
+            }
+        }
+        if (failures == 0 || failed == REVIEWS) {
+            int b = bucket(reviewCount, REVIEW_BOUNDS);
+            if (b >= 0) reviews[b]++;
+        }
+    }
+
+    // ✅ Comptes déjà groupés en base (repli de ProduitFacetService quand le store n'est pas prêt) :
+    // chaque requête applique les filtres des autres facettes, comme accept() ci-dessus
+
+    void addTotal(long count) {
+        total += count;
+    }
+
+    void addCategory(Long productCategorieId, long count) {
+        if (productCategorieId != null) categories.merge(productCategorieId, count, Long::sum);
+    }
+
+    void addPriceBucket(int bucket, long count) {
+        prices[bucket] += count;
+    }
+
+    void addStars(int rounded, long count) {
+        stars[Math.max(1, Math.min(5, rounded)) - 1] += count;
+    }
+
+    void addReviewsBucket(int bucket, long count) {
+        reviews[bucket] += count;
+    }
+
+    Iterable<Long> categoryIds() {
+        return categories.keySet();
+    }
+
+    ProduitFacetsDTO toDTO(Map<Long, String> categoryNames) {
+        List<FacetBucketDTO> cats = new ArrayList<>(categories.size());
+        categories.entrySet().stream()
+                .sorted(Map.Entry.<Long, Long>comparingByValue().reversed()
+                        .thenComparing(Map.Entry.comparingByKey()))
+                .forEach(e -> cats.add(new FacetBucketDTO(
+                        String.valueOf(e.getKey()), categoryNames.get(e.getKey()), e.getValue())));
+
+        List<FacetBucketDTO> notes = new ArrayList<>(5);
+        for (int s = 5; s >= 1; s--) {
+            notes.add(new FacetBucketDTO(String.valueOf(s), s + " étoile" + (s > 1 ? "s" : ""), stars[s - 1]));
+        }
+
+        return ProduitFacetsDTO.builder()
+                .total(total)
+                .categories(cats)
+                .prix(ranges(PRICE_BOUNDS, prices, " €"))
+                .notes(notes)
+                .avis(ranges(REVIEW_BOUNDS, reviews, " avis"))
+                .build();
+    }
+
+    private static List<FacetBucketDTO> ranges(double[] bounds, long[] counts, String unit) {
+        List<FacetBucketDTO> out = new ArrayList<>(bounds.length);
+        for (int i = 0; i < bounds.length; i++) {
+            long from = (long) bounds[i];
+            boolean last = i == bounds.length - 1;
+            String key = last ? from + "+" : from + "-" + (long) bounds[i + 1];
+            String label = last ? from + unit + " et plus" : from + " à " + (long) bounds[i + 1] + unit;
+            out.add(new FacetBucketDTO(key, label, counts[i]));
+        }
+        return out;
+    }
+
+    // bornes incluses comme dans ProduitSpecifications ; NULL ne passe jamais un filtre
+    private static boolean inRange(double v, Double min, Double max) {
+        if (Double.isNaN(v)) return false;
+        if (min != null && v < min) return false;
+        return max == null || v <= max;
+    }
+
+    // tranche [bounds[i], bounds[i+1]) ; les valeurs négatives vont dans la première
+    private static int bucket(double v, double[] bounds) {
+        if (Double.isNaN(v)) return -1;
+        for (int i = bounds.length - 1; i > 0; i--) {
+            if (v >= bounds[i]) return i;
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,69 @@
+package org.example.projectjee.services;
+
+import java.util.List;
+
+import org.example.projectjee.util.TextNormalizer;
+
+/**
+ * Embedding local et déterministe par "feature hashing" : chaque mot et chaque
+ * trigramme de caractères est haché vers une composante du vecteur (avec un signe).
+ * Pas de sémantique fine, mais deux textes qui partagent des mots ou des racines
+ * sont proches ; suffisant en secours et pour les tests, sans service externe.
+ */
+public class HashingEmbeddingProvider implements EmbeddingProvider {
+
+    private static final float TRIGRAM_WEIGHT = 0.5f;
+
+    private final int dimension;
+
+    public HashingEmbeddingProvider(int dimension) {
+        this.dimension = dimension;
+    }
+
+    @Override
+    public String id() {
+        return "hashing-v1-" + dimension;
+    }
+
+    @Override
+    public int dimension() {
+        return dimension;
+    }
+
+    @Override
+    public float[] embed(String text) {
+        float[] v = new float[dimension];
+        List<String> tokens = TextNormalizer.tokenize(text);
+        for (String token : tokens) {
+            add(v, token, 1f);
+            String padded = "#" + token + "#";
+            for (int i = 0; i + 3 <= padded.length(); i++) {
+                add(v, padded.substring(i, i + 3), TRIGRAM_WEIGHT);
+            }
+        }
+
+        double norm = 0;
+        for (float f : v) norm += f * f;
+        if (norm > 0) {
+            float inv = (float) (1.0 / Math.sqrt(norm));
+            for (int i = 0; i < v.length; i++) v[i] *= inv;
+        }
+        return v;
+    }
+
+    private void add(float[] v, String feature, float weight) {
+        int h = mix(feature.hashCode());
+        int index = Math.floorMod(h, dimension);
+        v[index] += (h & 0x40000000) == 0 ? weight : -weight;
+    }
+
+    // brassage des bits (finaliseur de MurmurHash3) pour mieux répartir String.hashCode
+    private static int mix(int h) {
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+        return h;
+    }
+}
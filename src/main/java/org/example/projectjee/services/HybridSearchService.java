@@ -0,0 +1,169 @@
+package org.example.projectjee.services;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.example.projectjee.model.Product;
+import org.example.projectjee.repository.ProduitRepository;
+import org.example.projectjee.spec.ProduitFilter;
+import org.example.projectjee.spec.ProduitSpecifications;
+import org.example.projectjee.util.HnswIndex;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Mode {@code mode=hybrid} de /api/produits/search : classement BM25 (index
+ * texte local) et classement vectoriel fusionnés par Reciprocal Rank Fusion :
+ * {@code score = Σ 1 / (60 + rang)}. Le classement vectoriel vient de l'index
+ * HNSW de la JVM ({@link ProductVectorIndex}) ; le service Python
+ * ({@link SemanticSearchService}) seulement avec
+ * {@code search.hybrid.vector-source=python}.
+ *
+ * Les deux recherches partent en parallèle avec une échéance commune : une
+ * branche en retard est abandonnée et la fusion se fait avec l'autre seule.
+ * Une branche abandonnée n'est pas interrompue (cancel sur un CompletableFuture
+ * n'arrête pas son thread) : la file du pool est donc bornée, et une branche
+ * refusée faute de place compte comme abandonnée au lieu d'attendre.
+ */
+@Slf4j
+@Service
+public class HybridSearchService {
+
+    private static final int RRF_K = 60;
+    private static final int CANDIDATES = 100;
+
+    private final ProductTextIndex productTextIndex;
+    private final SemanticSearchService semanticSearchService;
+    private final ProductVectorIndex productVectorIndex;
+    private final ProductColumnStore productColumnStore;
+    private final ProduitRepository produitRepository;
+    private final long timeoutMs;
+    private final String vectorSource;
+    private final ExecutorService executor;
+
+    public HybridSearchService(ProductTextIndex productTextIndex,
+                               SemanticSearchService semanticSearchService,
+                               ProductVectorIndex productVectorIndex,
+                               ProductColumnStore productColumnStore,
+                               ProduitRepository produitRepository,
+                               @Value("${search.hybrid.timeout-ms:800}") long timeoutMs,
+                               @Value("${search.hybrid.threads:8}") int threads,
+                               @Value("${search.hybrid.vector-source:local}") String vectorSource) {
+        if (!SemanticProduitService.SOURCE_LOCAL.equals(vectorSource)
+                && !SemanticProduitService.SOURCE_PYTHON.equals(vectorSource)) {
+            throw new RuntimeException("search.hybrid.vector-source invalide : " + vectorSource + " (local ou python)");
+        }
+        this.productTextIndex = productTextIndex;
+        this.semanticSearchService = semanticSearchService;
+        this.productVectorIndex = productVectorIndex;
+        this.productColumnStore = productColumnStore;
+        this.produitRepository = produitRepository;
+        this.timeoutMs = timeoutMs;
+        this.vectorSource = vectorSource;
+        AtomicInteger counter = new AtomicInteger();
+        // ✅ file bornée (une requête par thread en attente au plus), refus immédiat au-delà
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(threads), r -> {
+            Thread t = new Thread(r, "hybrid-search-" + counter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        }, new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /** Ids classés par fusion, filtrés comme /search (hors q), limités à {@code limit}. */
+    public List<Long> rankedIds(ProduitFilter filter, int limit) {
+        String q = filter.getQ();
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+
+        CompletableFuture<List<Long>> lexical = submit(
+                () -> productTextIndex.isReady() ? productTextIndex.bm25(q, CANDIDATES) : List.<Long>of(), "BM25");
+        CompletableFuture<List<Long>> vector = submit(() -> vectorIds(q), "vectorielle");
+
+        List<Long> lexicalIds = await(lexical, deadline, "BM25");
+        List<Long> vectorIds = await(vector, deadline, "vectorielle");
+
+        List<Long> fused = fuse(lexicalIds, vectorIds);
+        return applyFilters(fused, filter, limit);
+    }
+
+    private List<Long> vectorIds(String q) {
+        if (SemanticProduitService.SOURCE_PYTHON.equals(vectorSource)) {
+            return semanticSearchService.searchProductIds(q, CANDIDATES);
+        }
+        if (!productVectorIndex.isReady()) return List.of();
+        return productVectorIndex.search(q, CANDIDATES).stream().map(HnswIndex.Hit::getKey).toList();
+    }
+
+    private CompletableFuture<List<Long>> submit(Supplier<List<Long>> branch, String name) {
+        try {
+            return CompletableFuture.supplyAsync(branch, executor);
+        } catch (RejectedExecutionException e) {
+            log.warn("Recherche hybride : branche {} refusée (pool saturé)", name);
+            return CompletableFuture.completedFuture(Collections.emptyList());
+        }
+    }
+
+    private List<Long> await(CompletableFuture<List<Long>> future, long deadline, String branch) {
+        long remaining = deadline - System.nanoTime();
+        try {
+            return future.get(Math.max(0, remaining), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            log.warn("Recherche hybride : branche {} abandonnée (échéance de {} ms)", branch, timeoutMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            log.warn("Recherche hybride : branche {} en échec : {}", branch, e.getMessage());
+        }
+        return Collections.emptyList();
+    }
+
+    static List<Long> fuse(List<Long> first, List<Long> second) {
+        Map<Long, Double> scores = new HashMap<>();
+        for (int i = 0; i < first.size(); i++) scores.merge(first.get(i), 1.0 / (RRF_K + i + 1), Double::sum);
+        for (int i = 0; i < second.size(); i++) scores.merge(second.get(i), 1.0 / (RRF_K + i + 1), Double::sum);
+        return scores.entrySet().stream()
+                .sorted(Map.Entry.<Long, Double>comparingByValue().reversed()
+                        .thenComparing(Map.Entry.comparingByKey()))
+                .map(Map.Entry::getKey)
+                .toList();
+    }
+
+    private List<Long> applyFilters(List<Long> fused, ProduitFilter f, int limit) {
+        if (fused.isEmpty()) return fused;
+        List<Long> kept;
+        if (productColumnStore.isReady()) {
+            kept = productColumnStore.retainMatching(f, fused);
+        } else {
+            Set<Long> matching = new HashSet<>();
+            for (Product p : produitRepository.findAll(ProduitSpecifications.withFilters(fused,
+                    f.getCategorieId(), f.getPrixMin(), f.getPrixMax(),
+                    f.getNoteMin(), f.getNoteMax(), f.getReviewsMin(), f.getReviewsMax()))) {
+                matching.add(p.getId());
+            }
+            kept = fused.stream().filter(matching::contains).toList();
+        }
+        return kept.subList(0, Math.min(limit, kept.size()));
+    }
+}
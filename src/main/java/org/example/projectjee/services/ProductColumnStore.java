@@ -0,0 +1,580 @@
+package org.example.projectjee.services;
+
+import java.math.BigDecimal;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.example.projectjee.events.ProductChangedEvent;
+import org.example.projectjee.model.Product;
+import org.example.projectjee.repository.ProduitRepository;
+import org.example.projectjee.services.ProductPageService.Cursor;
+import org.example.projectjee.services.ProductPageService.Keyset;
+import org.example.projectjee.services.ProductPageService.SortField;
+import org.example.projectjee.spec.ProduitFilter;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Copie en colonnes, en mémoire, des champs filtrables du catalogue
+ * (prix, note, nombre d'avis, catégorie).
+ *
+ * Chaque produit occupe un "slot". Les catégories sont des bitmaps de slots,
+ * les colonnes numériques des tableaux triés (valeur, slot) : un filtre de
+ * {@link org.example.projectjee.spec.ProduitSpecifications#withFilters} devient
+ * des recherches binaires + des ET de bitmaps, sans passer par MySQL.
+ * Seuls les ids de la page renvoyée sont ensuite chargés depuis la base.
+ */
+@Slf4j
+@Service
+public class ProductColumnStore {
+
+    private static final int LOAD_BATCH = 5000;
+    private static final long NO_CATEGORY = -1L;
+
+    private final ProduitRepository produitRepository;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // colonnes indexées par slot (NaN = valeur NULL)
+    private long[] ids = new long[0];
+    private double[] prices = new double[0];
+    private double[] ratings = new double[0];
+    private double[] reviewCounts = new double[0];
+    private long[] categories = new long[0];
+    private int slotCount = 0;
+
+    private final BitSet live = new BitSet();
+    private final Deque<Integer> freeSlots = new ArrayDeque<>();
+    private final Map<Long, Integer> slotById = new HashMap<>();
+    private final Map<Long, BitSet> byCategory = new HashMap<>();
+
+    private final SortedColumn priceIndex = new SortedColumn();
+    private final SortedColumn ratingIndex = new SortedColumn();
+    private final SortedColumn reviewsIndex = new SortedColumn();
+
+    private volatile boolean ready = false;
+
+    public ProductColumnStore(ProduitRepository produitRepository) {
+        this.produitRepository = produitRepository;
+    }
+
+    /** Une page d'ids dans l'ordre de tri demandé. */
+    public static final class IdPage {
+        private final List<Long> ids;
+        private final String next;
+
+        IdPage(List<Long> ids, String next) {
+            this.ids = ids;
+            this.next = next;
+        }
+
+        public List<Long> getIds() {
+            return ids;
+        }
+
+        public String getNext() {
+            return next;
+        }
+    }
+
+    // ========== CHARGEMENT / MISE À JOUR ==========
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        lock.writeLock().lock();
+        try {
+            ready = false;
+            clear();
+
+            long afterId = 0L;
+            List<Object[]> rows;
+            do {
+                rows = produitRepository.findColumnRowsAfter(afterId, PageRequest.of(0, LOAD_BATCH));
+                for (Object[] r : rows) {
+                    Long id = (Long) r[0];
+                    upsert(id, (Double) r[1], (Double) r[2], (Long) r[3], (Long) r[4], true);
+                    afterId = id;
+                }
+            } while (rows.size() == LOAD_BATCH);
+
+            // en chargement initial on ajoute en vrac puis on trie une seule fois
+            priceIndex.sort();
+            ratingIndex.sort();
+            reviewsIndex.sort();
+            ready = true;
+            log.info("Colonnes produits chargées : {} produits, {} catégories", slotById.size(), byCategory.size());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Order(CatalogVersion.INDEX_ORDER)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        lock.writeLock().lock();
+        try {
+            if (event.isDelete()) {
+                delete(event.getProductId());
+            } else {
+                Product p = event.getProduct();
+                upsert(p.getId(), p.getPrice(), p.getRating(), p.getRatingCount(),
+                        p.getCategorie() != null ? p.getCategorie().getId() : null, false);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    private void clear() {
+        ids = new long[0];
+        prices = new double[0];
+        ratings = new double[0];
+        reviewCounts = new double[0];
+        categories = new long[0];
+        slotCount = 0;
+        live.clear();
+        freeSlots.clear();
+        slotById.clear();
+        byCategory.clear();
+        priceIndex.clear();
+        ratingIndex.clear();
+        reviewsIndex.clear();
+    }
+
+    private void upsert(Long id, Double price, Double rating, Long reviews, Long categorieId, boolean bulk) {
+        if (id == null) return;
+        Integer slot = slotById.get(id);
+        if (slot != null) {
+            unindex(slot);
+        } else {
+            slot = allocateSlot();
+            slotById.put(id, slot);
+        }
+
+        ids[slot] = id;
+        prices[slot] = price == null ? Double.NaN : price;
+        ratings[slot] = rating == null ? Double.NaN : rating;
+        reviewCounts[slot] = reviews == null ? Double.NaN : reviews;
+        categories[slot] = categorieId == null ? NO_CATEGORY : categorieId;
+
+        live.set(slot);
+        priceIndex.add(prices[slot], slot, bulk);
+        ratingIndex.add(ratings[slot], slot, bulk);
+        reviewsIndex.add(reviewCounts[slot], slot, bulk);
+        if (categorieId != null) {
+            byCategory.computeIfAbsent(categorieId, k -> new BitSet()).set(slot);
+        }
+    }
+
+    private void delete(Long id) {
+        Integer slot = slotById.remove(id);
+        if (slot == null) return;
+        unindex(slot);
+        freeSlots.push(slot);
+    }
+
+    private void unindex(int slot) {
+        live.clear(slot);
+        priceIndex.remove(prices[slot], slot);
+        ratingIndex.remove(ratings[slot], slot);
+        reviewsIndex.remove(reviewCounts[slot], slot);
+        if (categories[slot] != NO_CATEGORY) {
+            BitSet bits = byCategory.get(categories[slot]);
+            if (bits != null) bits.clear(slot);
+        }
+    }
+
+    private int allocateSlot() {
+        if (!freeSlots.isEmpty()) return freeSlots.pop();
+        if (slotCount == ids.length) {
+            int capacity = Math.max(1024, ids.length * 2);
+            ids = Arrays.copyOf(ids, capacity);
+            prices = Arrays.copyOf(prices, capacity);
+            ratings = Arrays.copyOf(ratings, capacity);
+            reviewCounts = Arrays.copyOf(reviewCounts, capacity);
+            categories = Arrays.copyOf(categories, capacity);
+        }
+        return slotCount++;
+    }
+
+    // ========== REQUÊTES ==========
+
+    /**
+     * Page d'ids correspondant au filtre, triés selon {@code keyset}.
+     * {@code textCandidates} : ids résolus par l'index texte pour {@code q}, ou null si pas de q.
+     */
+    public IdPage page(ProduitFilter filter, Collection<Long> textCandidates, Keyset keyset, String cursor, int size) {
+        Cursor after = cursor != null && !cursor.isBlank() ? keyset.decode(cursor) : null;
+        lock.readLock().lock();
+        try {
+            // size + 1 pour savoir s'il reste une page après celle-ci
+            int[] top = topSlots(match(filter, textCandidates), keyset, after, size + 1);
+            int end = Math.min(top.length, size);
+
+            List<Long> pageIds = new ArrayList<>(end);
+            for (int i = 0; i < end; i++) {
+                pageIds.add(ids[top[i]]);
+            }
+            String next = null;
+            if (top.length > size) {
+                int last = top[end - 1];
+                next = keyset.encode(boxedKey(keyset.getField(), last), ids[last]);
+            }
+            return new IdPage(pageIds, next);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Tous les ids correspondant au filtre, triés (ancien mode "liste complète"). */
+    public List<Long> allIds(ProduitFilter filter, Collection<Long> textCandidates, Keyset keyset) {
+        lock.readLock().lock();
+        try {
+            int[] sorted = sortedSlots(match(filter, textCandidates), keyset);
+            List<Long> out = new ArrayList<>(sorted.length);
+            for (int slot : sorted) out.add(ids[slot]);
+            return out;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Comptes de facettes pour le filtre, en un passage sur les produits qui
+     * passent le filtre texte (voir {@link FacetCounter}).
+     */
+    FacetCounter facets(ProduitFilter filter, Collection<Long> textCandidates) {
+        lock.readLock().lock();
+        try {
+            BitSet base = textCandidates != null ? slotsOf(textCandidates) : live;
+            FacetCounter counter = new FacetCounter(filter);
+            for (int slot = base.nextSetBit(0); slot >= 0; slot = base.nextSetBit(slot + 1)) {
+                counter.accept(prices[slot], ratings[slot], reviewCounts[slot],
+                        categories[slot] == NO_CATEGORY ? null : categories[slot]);
+            }
+            return counter;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Les ids de {@code productIds} qui passent le filtre (hors q), dans le même ordre.
+     * Sert de post-filtre aux résultats classés ailleurs (recherche sémantique).
+     */
+    public List<Long> retainMatching(ProduitFilter f, List<Long> productIds) {
+        lock.readLock().lock();
+        try {
+            List<Long> out = new ArrayList<>(productIds.size());
+            for (Long id : productIds) {
+                Integer slot = slotById.get(id);
+                if (slot != null && matches(f, slot)) out.add(id);
+            }
+            return out;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // mêmes comparaisons que ProduitSpecifications : bornes incluses, NULL exclu dès qu'une borne existe
+    private boolean matches(ProduitFilter f, int slot) {
+        if (f.getCategorieId() != null && categories[slot] != f.getCategorieId()) return false;
+        return inRange(prices[slot], d(f.getPrixMin()), d(f.getPrixMax()))
+                && inRange(ratings[slot], d(f.getNoteMin()), d(f.getNoteMax()))
+                && inRange(reviewCounts[slot],
+                        f.getReviewsMin() != null ? f.getReviewsMin().doubleValue() : null,
+                        f.getReviewsMax() != null ? f.getReviewsMax().doubleValue() : null);
+    }
+
+    private static boolean inRange(double v, Double min, Double max) {
+        if (min == null && max == null) return true;
+        if (Double.isNaN(v)) return false;
+        return (min == null || v >= min) && (max == null || v <= max);
+    }
+
+    // à appeler sous verrou de lecture
+    private BitSet slotsOf(Collection<Long> productIds) {
+        BitSet bits = new BitSet();
+        for (Long id : productIds) {
+            Integer slot = slotById.get(id);
+            if (slot != null) bits.set(slot);
+        }
+        return bits;
+    }
+
+    // à appeler sous verrou de lecture
+    private BitSet match(ProduitFilter f, Collection<Long> textCandidates) {
+        BitSet result = (BitSet) live.clone();
+
+        if (f.getCategorieId() != null) {
+            BitSet cat = byCategory.get(f.getCategorieId());
+            if (cat == null) return new BitSet();
+            result.and(cat);
+        }
+        if (textCandidates != null) {
+            result.and(slotsOf(textCandidates));
+        }
+        if (f.getPrixMin() != null || f.getPrixMax() != null) {
+            result.and(priceIndex.range(d(f.getPrixMin()), d(f.getPrixMax())));
+        }
+        if (f.getNoteMin() != null || f.getNoteMax() != null) {
+            result.and(ratingIndex.range(d(f.getNoteMin()), d(f.getNoteMax())));
+        }
+        if (f.getReviewsMin() != null || f.getReviewsMax() != null) {
+            result.and(reviewsIndex.range(
+                    f.getReviewsMin() != null ? f.getReviewsMin().doubleValue() : null,
+                    f.getReviewsMax() != null ? f.getReviewsMax().doubleValue() : null));
+        }
+        return result;
+    }
+
+    private int[] sortedSlots(BitSet matched, Keyset keyset) {
+        Integer[] boxed = matched.stream().boxed().toArray(Integer[]::new);
+        SortField field = keyset.getField();
+        Arrays.sort(boxed, (a, b) -> compare(keyset, key(field, a), ids[a], key(field, b), ids[b]));
+        int[] out = new int[boxed.length];
+        for (int i = 0; i < boxed.length; i++) out[i] = boxed[i];
+        return out;
+    }
+
+    /**
+     * Les {@code k} premiers slots de {@code matched} dans l'ordre du keyset, strictement
+     * après {@code after} : tas borné de taille k (le pire en racine), O(n log k),
+     * seul le résultat final est trié.
+     */
+    private int[] topSlots(BitSet matched, Keyset keyset, Cursor after, int k) {
+        SortField field = keyset.getField();
+        double afterKey = 0;
+        long afterId = 0;
+        if (after != null) {
+            afterKey = after.getValue() == null ? Double.NaN : Double.parseDouble(after.getValue());
+            afterId = after.getLastId();
+        }
+
+        int[] heap = new int[k];
+        int heapSize = 0;
+        for (int slot = matched.nextSetBit(0); slot >= 0; slot = matched.nextSetBit(slot + 1)) {
+            double key = key(field, slot);
+            if (after != null && compare(keyset, key, ids[slot], afterKey, afterId) <= 0) continue;
+            if (heapSize < k) {
+                heap[heapSize] = slot;
+                siftUp(heap, heapSize++, keyset, field);
+            } else if (compare(keyset, key, ids[slot], key(field, heap[0]), ids[heap[0]]) < 0) {
+                heap[0] = slot;
+                siftDown(heap, heapSize, keyset, field);
+            }
+        }
+
+        // on vide le tas : le pire sort en premier, donc on remplit par la fin
+        int[] out = new int[heapSize];
+        for (int i = heapSize - 1; i >= 0; i--) {
+            out[i] = heap[0];
+            heap[0] = heap[--heapSize];
+            siftDown(heap, heapSize, keyset, field);
+        }
+        return out;
+    }
+
+    // tas "max" selon l'ordre du keyset : la racine est l'élément classé le plus loin
+    private boolean after(int a, int b, Keyset keyset, SortField field) {
+        return compare(keyset, key(field, a), ids[a], key(field, b), ids[b]) > 0;
+    }
+
+    private void siftUp(int[] heap, int i, Keyset keyset, SortField field) {
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (!after(heap[i], heap[parent], keyset, field)) break;
+            int t = heap[i];
+            heap[i] = heap[parent];
+            heap[parent] = t;
+            i = parent;
+        }
+    }
+
+    private void siftDown(int[] heap, int size, Keyset keyset, SortField field) {
+        int i = 0;
+        while (true) {
+            int left = 2 * i + 1;
+            if (left >= size) break;
+            int worst = left;
+            if (left + 1 < size && after(heap[left + 1], heap[left], keyset, field)) worst = left + 1;
+            if (!after(heap[worst], heap[i], keyset, field)) break;
+            int t = heap[i];
+            heap[i] = heap[worst];
+            heap[worst] = t;
+            i = worst;
+        }
+    }
+
+    // même ordre que MySQL : NULL en tête en ASC, en queue en DESC, puis id
+    private static int compare(Keyset keyset, double ka, long ia, double kb, long ib) {
+        boolean na = Double.isNaN(ka), nb = Double.isNaN(kb);
+        int c;
+        if (na || nb) {
+            c = na == nb ? 0 : (na ? -1 : 1);
+        } else {
+            c = Double.compare(ka, kb);
+        }
+        if (c == 0) c = Long.compare(ia, ib);
+        return keyset.isDesc() ? -c : c;
+    }
+
+    private double key(SortField field, int slot) {
+        return switch (field) {
+            case PRICE -> prices[slot];
+            case RATING -> ratings[slot];
+            case RATING_COUNT -> reviewCounts[slot];
+            case ID -> ids[slot];
+        };
+    }
+
+    // valeur de clé au format attendu par le curseur (même format que le chemin SQL)
+    private Object boxedKey(SortField field, int slot) {
+        double v = key(field, slot);
+        if (Double.isNaN(v)) return null;
+        return switch (field) {
+            case RATING_COUNT, ID -> (long) v;
+            default -> v;
+        };
+    }
+
+    private static Double d(BigDecimal v) {
+        return v == null ? null : v.doubleValue();
+    }
+
+    /**
+     * Couples (valeur, slot) triés par valeur puis slot. Les NULL ne sont pas
+     * indexés : comme en SQL, ils ne passent aucune comparaison.
+     */
+    static final class SortedColumn {
+        private double[] values = new double[1024];
+        private int[] slots = new int[1024];
+        private int size = 0;
+
+        void clear() {
+            size = 0;
+        }
+
+        void add(double value, int slot, boolean bulk) {
+            if (Double.isNaN(value)) return;
+            ensureCapacity(size + 1);
+            if (bulk) {
+                values[size] = value;
+                slots[size] = slot;
+                size++;
+                return;
+            }
+            int pos = position(value, slot);
+            if (pos >= 0) return;
+            pos = -pos - 1;
+            System.arraycopy(values, pos, values, pos + 1, size - pos);
+            System.arraycopy(slots, pos, slots, pos + 1, size - pos);
+            values[pos] = value;
+            slots[pos] = slot;
+            size++;
+        }
+
+        void remove(double value, int slot) {
+            if (Double.isNaN(value)) return;
+            int pos = position(value, slot);
+            if (pos < 0) return;
+            System.arraycopy(values, pos + 1, values, pos, size - pos - 1);
+            System.arraycopy(slots, pos + 1, slots, pos, size - pos - 1);
+            size--;
+        }
+
+        void sort() {
+            Integer[] order = new Integer[size];
+            for (int i = 0; i < size; i++) order[i] = i;
+            Arrays.sort(order, (a, b) -> {
+                int c = Double.compare(values[a], values[b]);
+                return c != 0 ? c : Integer.compare(slots[a], slots[b]);
+            });
+            double[] v = new double[values.length];
+            int[] s = new int[slots.length];
+            for (int i = 0; i < size; i++) {
+                v[i] = values[order[i]];
+                s[i] = slots[order[i]];
+            }
+            values = v;
+            slots = s;
+        }
+
+        BitSet range(Double min, Double max) {
+            int from = min == null ? 0 : lowerBound(min);
+            int to = max == null ? size : upperBound(max);
+            BitSet bits = new BitSet();
+            for (int i = from; i < to; i++) bits.set(slots[i]);
+            return bits;
+        }
+
+        int size() {
+            return size;
+        }
+
+        double valueAt(int i) {
+            return values[i];
+        }
+
+        int slotAt(int i) {
+            return slots[i];
+        }
+
+        // premier indice dont la valeur est >= v
+        int lowerBound(double v) {
+            int lo = 0, hi = size;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (values[mid] < v) lo = mid + 1; else hi = mid;
+            }
+            return lo;
+        }
+
+        // premier indice dont la valeur est > v
+        int upperBound(double v) {
+            int lo = 0, hi = size;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (values[mid] <= v) lo = mid + 1; else hi = mid;
+            }
+            return lo;
+        }
+
+        private int position(double value, int slot) {
+            int lo = 0, hi = size - 1;
+            while (lo <= hi) {
+                int mid = (lo + hi) >>> 1;
+                int c = Double.compare(values[mid], value);
+                if (c == 0) c = Integer.compare(slots[mid], slot);
+                if (c < 0) lo = mid + 1;
+                else if (c > 0) hi = mid - 1;
+                else return mid;
+            }
+            return -(lo + 1);
+        }
+
+        private void ensureCapacity(int capacity) {
+            if (capacity <= values.length) return;
+            int newCapacity = Math.max(capacity, values.length * 2);
+            values = Arrays.copyOf(values, newCapacity);
+            slots = Arrays.copyOf(slots, newCapacity);
+        }
+    }
+}
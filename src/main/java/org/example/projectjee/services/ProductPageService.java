@@ -0,0 +1,320 @@
+package org.example.projectjee.services;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import org.example.projectjee.dto.CursorPage;
+import org.example.projectjee.dto.ProductSummaryDTO;
+import org.example.projectjee.model.Product;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Order;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+
+/**
+ * Pagination par curseur (keyset) des listes de produits.
+ *
+ * Le curseur encode la valeur de la clé de tri et l'id du dernier élément
+ * renvoyé : la page suivante repart de là avec un {@code WHERE (cle, id) > ...}
+ * au lieu d'un OFFSET, donc une page profonde coûte autant que la première.
+ */
+@Service
+public class ProductPageService {
+
+    public static final int DEFAULT_PAGE_SIZE = 20;
+    public static final int MAX_PAGE_SIZE = 100;
+
+    private static final String NULL_VALUE = "~";
+    private static final int ID_CHUNK = 1000;
+
+    private final EntityManager entityManager;
+
+    public ProductPageService(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    public enum SortField {
+        RATING("rating"),
+        RATING_COUNT("ratingCount"),
+        PRICE("price"),
+        ID("id");
+
+        private final String attribute;
+
+        SortField(String attribute) {
+            this.attribute = attribute;
+        }
+
+        public String getAttribute() {
+            return attribute;
+        }
+
+        Object valueOf(Product p) {
+            return switch (this) {
+                case RATING -> p.getRating();
+                case RATING_COUNT -> p.getRatingCount();
+                case PRICE -> p.getPrice();
+                case ID -> p.getId();
+            };
+        }
+
+        Object valueOf(ProductSummaryDTO p) {
+            return switch (this) {
+                case RATING -> p.getRating();
+                case RATING_COUNT -> p.getRatingCount();
+                case PRICE -> p.getPrice();
+                case ID -> p.getId();
+            };
+        }
+    }
+
+    /**
+     * Clé de tri active : un champ + un sens. L'id sert toujours de départage.
+     */
+    public static final class Keyset {
+
+        public static final Keyset ID_ASC = new Keyset(SortField.ID, false);
+
+        private final SortField field;
+        private final boolean desc;
+
+        public Keyset(SortField field, boolean desc) {
+            this.field = field;
+            this.desc = desc;
+        }
+
+        public SortField getField() {
+            return field;
+        }
+
+        public boolean isDesc() {
+            return desc;
+        }
+
+        /**
+         * Accepte le vocabulaire de /api/produits/search (note_desc, prix_asc...)
+         * et la forme champ,sens de /api/products (price,desc).
+         */
+        public static Keyset parse(String sort, Keyset fallback) {
+            if (sort == null || sort.isBlank()) return fallback;
+            String s = sort.trim().toLowerCase().replace(',', '_');
+            return switch (s) {
+                case "note_desc", "rating_desc", "rating" -> new Keyset(SortField.RATING, true);
+                case "note_asc", "rating_asc" -> new Keyset(SortField.RATING, false);
+                case "reviews_desc", "ratingcount_desc", "ratingcount" -> new Keyset(SortField.RATING_COUNT, true);
+                case "reviews_asc", "ratingcount_asc" -> new Keyset(SortField.RATING_COUNT, false);
+                case "prix_desc", "price_desc" -> new Keyset(SortField.PRICE, true);
+                case "prix_asc", "price_asc", "price" -> new Keyset(SortField.PRICE, false);
+                case "id_desc" -> new Keyset(SortField.ID, true);
+                case "id_asc", "id" -> ID_ASC;
+                default -> fallback;
+            };
+        }
+
+        String encode(Object value, Long lastId) {
+            String raw = field.name() + "|" + (desc ? "d" : "a") + "|"
+                    + (value == null ? NULL_VALUE : value.toString()) + "|" + lastId;
+            return Base64.getUrlEncoder().withoutPadding()
+                    .encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        }
+
+        Cursor decode(String token) {
+            try {
+                String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+                String[] parts = raw.split("\\|", -1);
+                if (parts.length != 4
+                        || !parts[0].equals(field.name())
+                        || !parts[1].equals(desc ? "d" : "a")) {
+                    throw new IllegalArgumentException(raw);
+                }
+                String value = NULL_VALUE.equals(parts[2]) ? null : parts[2];
+                return new Cursor(value, Long.valueOf(parts[3]));
+            } catch (IllegalArgumentException e) {
+                throw new RuntimeException("Curseur invalide pour ce tri");
+            }
+        }
+    }
+
+    static final class Cursor {
+        private final String value;   // null si la clé du dernier élément était NULL
+        private final Long lastId;
+
+        private Cursor(String value, Long lastId) {
+            this.value = value;
+            this.lastId = lastId;
+        }
+
+        String getValue() {
+            return value;
+        }
+
+        Long getLastId() {
+            return lastId;
+        }
+    }
+
+    public static int normalizeLimit(Integer limit) {
+        if (limit == null) return DEFAULT_PAGE_SIZE;
+        return Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+    }
+
+    @Transactional(readOnly = true)
+    public CursorPage<Product> page(Specification<Product> spec, Keyset keyset, String cursor, Integer limit) {
+        return page(spec, keyset, cursor, limit, Product.class, root -> root,
+                Product::getId, keyset.field::valueOf);
+    }
+
+    // ✅ Même page, en ne sélectionnant que les colonnes de ProductSummaryDTO
+    @Transactional(readOnly = true)
+    public CursorPage<ProductSummaryDTO> pageSummaries(
+            Specification<Product> spec, Keyset keyset, String cursor, Integer limit) {
+        return page(spec, keyset, cursor, limit, ProductSummaryDTO.class, this::summary,
+                ProductSummaryDTO::getId, keyset.field::valueOf);
+    }
+
+    // ✅ Liste complète (sans curseur) en projection résumé
+    @Transactional(readOnly = true)
+    public List<ProductSummaryDTO> summaries(Specification<Product> spec, Sort sort) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<ProductSummaryDTO> cq = cb.createQuery(ProductSummaryDTO.class);
+        Root<Product> root = cq.from(Product.class);
+
+        cq.select(summary(root));
+        if (spec != null) {
+            Predicate p = spec.toPredicate(root, cq, cb);
+            if (p != null) cq.where(p);
+        }
+        if (sort != null && sort.isSorted()) {
+            cq.orderBy(QueryUtils.toOrders(sort, root, cb));
+        }
+        return entityManager.createQuery(cq).getResultList();
+    }
+
+    // ✅ Résumés pour des ids déjà triés (index en mémoire), dans le même ordre
+    @Transactional(readOnly = true)
+    public List<ProductSummaryDTO> summariesByIds(List<Long> ids) {
+        Map<Long, ProductSummaryDTO> byId = new HashMap<>(ids.size() * 2);
+        for (int i = 0; i < ids.size(); i += ID_CHUNK) {
+            List<Long> chunk = ids.subList(i, Math.min(ids.size(), i + ID_CHUNK));
+            CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+            CriteriaQuery<ProductSummaryDTO> cq = cb.createQuery(ProductSummaryDTO.class);
+            Root<Product> root = cq.from(Product.class);
+            cq.select(summary(root)).where(root.get("id").in(chunk));
+            for (ProductSummaryDTO s : entityManager.createQuery(cq).getResultList()) {
+                byId.put(s.getId(), s);
+            }
+        }
+        List<ProductSummaryDTO> ordered = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            ProductSummaryDTO s = byId.get(id);
+            if (s != null) ordered.add(s);
+        }
+        return ordered;
+    }
+
+    private Selection<ProductSummaryDTO> summary(Root<Product> root) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        return cb.construct(ProductSummaryDTO.class,
+                root.get("id"),
+                root.get("title"),
+                root.get("price"),
+                root.get("rating"),
+                root.get("ratingCount"),
+                root.get("imageUrl"));
+    }
+
+    private <R> CursorPage<R> page(Specification<Product> spec, Keyset keyset, String cursor, Integer limit,
+                                   Class<R> resultType, Function<Root<Product>, Selection<R>> select,
+                                   Function<R, Long> idOf, Function<R, Object> keyOf) {
+        int size = normalizeLimit(limit);
+
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<R> cq = cb.createQuery(resultType);
+        Root<Product> root = cq.from(Product.class);
+
+        List<Predicate> predicates = new ArrayList<>();
+        if (spec != null) {
+            Predicate p = spec.toPredicate(root, cq, cb);
+            if (p != null) predicates.add(p);
+        }
+        if (cursor != null && !cursor.isBlank()) {
+            predicates.add(afterCursor(cb, root, keyset, keyset.decode(cursor)));
+        }
+
+        cq.select(select.apply(root)).where(predicates.toArray(new Predicate[0]));
+        cq.orderBy(orderBy(cb, root, keyset));
+
+        List<R> rows = entityManager.createQuery(cq)
+                .setMaxResults(size + 1)
+                .getResultList();
+
+        boolean hasNext = rows.size() > size;
+        List<R> items = hasNext ? new ArrayList<>(rows.subList(0, size)) : rows;
+        String next = null;
+        if (hasNext) {
+            R last = items.get(items.size() - 1);
+            next = keyset.encode(keyOf.apply(last), idOf.apply(last));
+        }
+        return new CursorPage<>(items, next, items.size());
+    }
+
+    private List<Order> orderBy(CriteriaBuilder cb, Root<Product> root, Keyset keyset) {
+        List<Order> orders = new ArrayList<>(2);
+        if (keyset.field != SortField.ID) {
+            Path<?> key = root.get(keyset.field.getAttribute());
+            orders.add(keyset.desc ? cb.desc(key) : cb.asc(key));
+        }
+        Path<?> id = root.get("id");
+        orders.add(keyset.desc ? cb.desc(id) : cb.asc(id));
+        return orders;
+    }
+
+    private Predicate afterCursor(CriteriaBuilder cb, Root<Product> root, Keyset keyset, Cursor c) {
+        Path<Long> id = root.get("id");
+        switch (keyset.field) {
+            case ID:
+                return keyset.desc ? cb.lessThan(id, c.lastId) : cb.greaterThan(id, c.lastId);
+            case RATING_COUNT: {
+                Path<Long> key = root.get(keyset.field.getAttribute());
+                Long value = c.value == null ? null : Long.valueOf(c.value);
+                return keysetPredicate(cb, key, value, id, c.lastId, keyset.desc);
+            }
+            default: {
+                Path<Double> key = root.get(keyset.field.getAttribute());
+                Double value = c.value == null ? null : Double.valueOf(c.value);
+                return keysetPredicate(cb, key, value, id, c.lastId, keyset.desc);
+            }
+        }
+    }
+
+    // MySQL place les NULL en tête en ASC et en queue en DESC : le curseur suit le même ordre
+    private <Y extends Comparable<? super Y>> Predicate keysetPredicate(
+            CriteriaBuilder cb, Path<Y> key, Y value, Path<Long> id, Long lastId, boolean desc) {
+        Predicate nextId = desc ? cb.lessThan(id, lastId) : cb.greaterThan(id, lastId);
+
+        if (value == null) {
+            Predicate restOfNulls = cb.and(cb.isNull(key), nextId);
+            return desc ? restOfNulls : cb.or(restOfNulls, cb.isNotNull(key));
+        }
+
+        Predicate strictlyAfter = desc ? cb.lessThan(key, value) : cb.greaterThan(key, value);
+        Predicate sameKey = cb.and(cb.equal(key, value), nextId);
+        Predicate after = cb.or(strictlyAfter, sameKey);
+        return desc ? cb.or(after, cb.isNull(key)) : after;
+    }
+}
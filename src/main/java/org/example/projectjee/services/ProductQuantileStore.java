@@ -0,0 +1,318 @@
+package org.example.projectjee.services;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+
+import org.example.projectjee.events.ProductChangedEvent;
+import org.example.projectjee.model.Product;
+import org.example.projectjee.repository.ProduitRepository;
+import org.example.projectjee.util.KllSketch;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Sketches de quantiles ({@link KllSketch}) du prix et de la note, un par
+ * catégorie. Une requête sur plusieurs catégories (ou tout le catalogue)
+ * fusionne les sketches concernés : la fusion et le calcul des quantiles ne
+ * dépendent pas de la taille du catalogue.
+ *
+ * Chaque catégorie garde aussi les dernières valeurs connues de ses produits
+ * (prix, note), seul moyen de savoir quelle valeur retirer quand un événement
+ * annonce une modification ou une suppression. Un KLL ne sait pas retirer une
+ * valeur : l'ancienne reste dans le sketch comme "périmée", et dès que les
+ * valeurs périmées dépassent {@link #STALE_RATIO} des produits de la catégorie,
+ * son sketch est reconstruit à partir de ces valeurs.
+ *
+ * Nombre, min et max sont tenus à part, exacts : un compteur, et un min/max
+ * recalculé sur la catégorie seulement quand l'extrême courant est retiré.
+ */
+@Slf4j
+@Service
+public class ProductQuantileStore {
+
+    private static final int LOAD_BATCH = 5000;
+    private static final long NO_CATEGORY = -1L;
+    private static final double STALE_RATIO = 0.01;
+    private static final int MIN_STALE_BEFORE_REBUILD = 16;
+
+    private final ProduitRepository produitRepository;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Map<Long, CategorySketches> byCategory = new HashMap<>();
+
+    private volatile boolean ready = false;
+
+    public ProductQuantileStore(ProduitRepository produitRepository) {
+        this.produitRepository = produitRepository;
+    }
+
+    private record Values(Double price, Double rating) {
+    }
+
+    // sketch (avec valeurs périmées) + nombre, min et max exacts des valeurs vivantes
+    private static final class Column {
+        final Function<Values, Double> field;
+        KllSketch sketch = new KllSketch();
+        long count = 0;
+        Double min;
+        Double max;
+
+        Column(Function<Values, Double> field) {
+            this.field = field;
+        }
+
+        void add(Values v) {
+            Double x = field.apply(v);
+            if (x == null) return;
+            sketch.update(x);
+            count++;
+            min = min == null ? x : Math.min(min, x);
+            max = max == null ? x : Math.max(max, x);
+        }
+
+        // la valeur reste dans le sketch jusqu'à la prochaine reconstruction
+        void remove(Values v, Collection<Values> remaining) {
+            Double x = field.apply(v);
+            if (x == null) return;
+            count--;
+            if (x.doubleValue() == min || x.doubleValue() == max) {
+                min = null;
+                max = null;
+                for (Values r : remaining) {
+                    Double y = field.apply(r);
+                    if (y == null) continue;
+                    min = min == null ? y : Math.min(min, y);
+                    max = max == null ? y : Math.max(max, y);
+                }
+            }
+        }
+
+        void rebuild(Collection<Values> values) {
+            sketch = new KllSketch();
+            count = 0;
+            min = null;
+            max = null;
+            for (Values v : values) add(v);
+        }
+    }
+
+    private static final class CategorySketches {
+        final Map<Long, Values> products = new HashMap<>();
+        final Column prices = new Column(Values::price);
+        final Column ratings = new Column(Values::rating);
+        long stale = 0;
+
+        void put(Long id, Values v) {
+            products.put(id, v);
+            prices.add(v);
+            ratings.add(v);
+        }
+
+        void remove(Long id) {
+            Values v = products.remove(id);
+            if (v == null) return;
+            prices.remove(v, products.values());
+            ratings.remove(v, products.values());
+            stale++;
+        }
+
+        boolean needsRebuild() {
+            return stale >= Math.max(MIN_STALE_BEFORE_REBUILD, products.size() * STALE_RATIO);
+        }
+
+        void rebuild() {
+            prices.rebuild(products.values());
+            ratings.rebuild(products.values());
+            stale = 0;
+        }
+    }
+
+    /**
+     * Une colonne fusionnée sur plusieurs catégories : sketch pour les quantiles
+     * (approchés), nombre, min et max exacts des valeurs vivantes.
+     */
+    public static final class ColumnSnapshot {
+        private final KllSketch sketch;
+        private final long count;
+        private final Double min;
+        private final Double max;
+
+        public ColumnSnapshot(KllSketch sketch, long count, Double min, Double max) {
+            this.sketch = sketch;
+            this.count = count;
+            this.min = min;
+            this.max = max;
+        }
+
+        /** Colonne construite d'un seul parcours, sans valeur périmée : le sketch est exact sur ces trois points. */
+        public static ColumnSnapshot of(KllSketch sketch) {
+            return sketch.getCount() == 0
+                    ? new ColumnSnapshot(sketch, 0, null, null)
+                    : new ColumnSnapshot(sketch, sketch.getCount(), sketch.getMin(), sketch.getMax());
+        }
+
+        public KllSketch getSketch() {
+            return sketch;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public Double getMin() {
+            return min;
+        }
+
+        public Double getMax() {
+            return max;
+        }
+    }
+
+    /** Quantiles fusionnés d'un ensemble de catégories. */
+    public static final class Snapshot {
+        private final ColumnSnapshot prices;
+        private final ColumnSnapshot ratings;
+
+        Snapshot(ColumnSnapshot prices, ColumnSnapshot ratings) {
+            this.prices = prices;
+            this.ratings = ratings;
+        }
+
+        public ColumnSnapshot getPrices() {
+            return prices;
+        }
+
+        public ColumnSnapshot getRatings() {
+            return ratings;
+        }
+    }
+
+    // ========== CHARGEMENT / MISE À JOUR ==========
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        lock.writeLock().lock();
+        try {
+            ready = false;
+            byCategory.clear();
+
+            long afterId = 0L;
+            List<Object[]> rows;
+            do {
+                rows = produitRepository.findColumnRowsAfter(afterId, PageRequest.of(0, LOAD_BATCH));
+                for (Object[] r : rows) {
+                    Long id = (Long) r[0];
+                    Long categorieId = (Long) r[4];
+                    add(id, categorieId == null ? NO_CATEGORY : categorieId, new Values((Double) r[1], (Double) r[2]));
+                    afterId = id;
+                }
+            } while (rows.size() == LOAD_BATCH);
+
+            ready = true;
+            long products = byCategory.values().stream().mapToLong(c -> c.products.size()).sum();
+            log.info("Sketches de quantiles construits : {} produits, {} catégories", products, byCategory.size());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Order(CatalogVersion.INDEX_ORDER)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        lock.writeLock().lock();
+        try {
+            Long id = event.getProductId();
+            Values next = null;
+            long nextCategorie = NO_CATEGORY;
+            if (!event.isDelete()) {
+                Product p = event.getProduct();
+                next = new Values(p.getPrice(), p.getRating());
+                if (p.getCategorie() != null) nextCategorie = p.getCategorie().getId();
+            }
+
+            // catégorie actuelle du produit : quelques dizaines de catégories à interroger
+            Long oldCategorie = null;
+            for (Map.Entry<Long, CategorySketches> e : byCategory.entrySet()) {
+                if (e.getValue().products.containsKey(id)) {
+                    oldCategorie = e.getKey();
+                    break;
+                }
+            }
+            if (oldCategorie != null) {
+                CategorySketches c = byCategory.get(oldCategorie);
+                if (oldCategorie == nextCategorie && Objects.equals(c.products.get(id), next)) {
+                    return;   // ni prix, ni note, ni catégorie n'ont changé
+                }
+                c.remove(id);
+                if (c.products.isEmpty()) {
+                    byCategory.remove(oldCategorie);
+                } else if (c.needsRebuild()) {
+                    c.rebuild();
+                }
+            }
+            if (next != null && id != null) {
+                add(id, nextCategorie, next);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void add(Long id, long categorieId, Values v) {
+        byCategory.computeIfAbsent(categorieId, k -> new CategorySketches()).put(id, v);
+    }
+
+    // ========== LECTURES ==========
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /** Fusion des sketches des catégories demandées ; vide ou null = tout le catalogue. */
+    public Snapshot snapshot(Collection<Long> categorieIds) {
+        List<Column> prices = new ArrayList<>();
+        List<Column> ratings = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            Collection<Long> keys = categorieIds == null || categorieIds.isEmpty()
+                    ? byCategory.keySet()
+                    : categorieIds;
+            for (Long key : keys) {
+                CategorySketches c = byCategory.get(key);
+                if (c == null) continue;
+                prices.add(c.prices);
+                ratings.add(c.ratings);
+            }
+            return new Snapshot(merge(prices), merge(ratings));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static ColumnSnapshot merge(List<Column> columns) {
+        KllSketch sketch = new KllSketch();
+        long count = 0;
+        Double min = null;
+        Double max = null;
+        for (Column c : columns) {
+            sketch.merge(c.sketch);
+            if (c.count == 0) continue;
+            count += c.count;
+            min = min == null ? c.min : Math.min(min, c.min);
+            max = max == null ? c.max : Math.max(max, c.max);
+        }
+        return new ColumnSnapshot(sketch, count, min, max);
+    }
+}
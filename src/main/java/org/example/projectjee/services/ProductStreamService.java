@@ -0,0 +1,105 @@
+package org.example.projectjee.services;
+
+import java.io.OutputStream;
+
+import org.example.projectjee.model.Categorie;
+import org.example.projectjee.model.Product;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.Session;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import tools.jackson.core.JsonGenerator;
+import tools.jackson.databind.ObjectMapper;
+
+/**
+ * Export complet du catalogue en flux ({@code GET /api/produits?stream=true}),
+ * pour la synchro Python.
+ *
+ * Les produits sont lus par un curseur JDBC en avant seulement et écrits un
+ * par un dans la réponse ; le contexte de persistance est vidé tous les
+ * {@link #CLEAR_EVERY} produits. La mémoire utilisée ne dépend donc pas de la
+ * taille du catalogue.
+ */
+@Service
+@RequiredArgsConstructor
+public class ProductStreamService {
+
+    private static final int CLEAR_EVERY = 500;
+    // MySQL Connector/J ne lit ligne par ligne qu'avec cette taille de fetch
+    private static final int MYSQL_STREAMING_FETCH_SIZE = Integer.MIN_VALUE;
+
+    private final EntityManager entityManager;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Écrit le tableau JSON de tous les produits, triés par id. Mêmes champs que
+     * la sérialisation de {@link Product}, catégorie comprise ; ni vendeur ni images.
+     */
+    @Transactional(readOnly = true)
+    public void writeAll(OutputStream out) {
+        Session session = entityManager.unwrap(Session.class);
+        try (JsonGenerator gen = objectMapper.createGenerator(out);
+             ScrollableResults<Product> rows = session
+                     .createSelectionQuery("SELECT p FROM Product p LEFT JOIN FETCH p.categorie ORDER BY p.id", Product.class)
+                     .setReadOnly(true)
+                     .setFetchSize(MYSQL_STREAMING_FETCH_SIZE)
+                     .scroll(ScrollMode.FORWARD_ONLY)) {
+            gen.writeStartArray();
+            int count = 0;
+            while (rows.next()) {
+                writeProduct(gen, rows.get());
+                if (++count % CLEAR_EVERY == 0) {
+                    session.clear();
+                    gen.flush();
+                }
+            }
+            gen.writeEndArray();
+        }
+    }
+
+    private static void writeProduct(JsonGenerator gen, Product p) {
+        gen.writeStartObject();
+        writeNumber(gen, "id", p.getId());
+        gen.writeStringProperty("asin", p.getAsin());
+        gen.writeStringProperty("title", p.getTitle());
+
+        Categorie c = p.getCategorie();
+        gen.writeName("categorie");
+        if (c == null) {
+            gen.writeNull();
+        } else {
+            gen.writeStartObject();
+            writeNumber(gen, "id", c.getId());
+            gen.writeStringProperty("nom", c.getNom());
+            gen.writeStringProperty("description", c.getDescription());
+            gen.writeEndObject();
+        }
+
+        writeNumber(gen, "price", p.getPrice());
+        writeNumber(gen, "rating", p.getRating());
+        writeNumber(gen, "ratingCount", p.getRatingCount());
+        writeNumber(gen, "rank", p.getRank());
+        gen.writeStringProperty("description", p.getDescription());
+        gen.writeStringProperty("imageUrl", p.getImageUrl());
+        gen.writeStringProperty("no_sellers", p.getNo_sellers());
+        writeNumber(gen, "quantityAvailable", p.getQuantityAvailable());
+        gen.writeEndObject();
+    }
+
+    private static void writeNumber(JsonGenerator gen, String name, Number value) {
+        gen.writeName(name);
+        if (value == null) {
+            gen.writeNull();
+        } else if (value instanceof Double d) {
+            gen.writeNumber(d);
+        } else if (value instanceof Integer i) {
+            gen.writeNumber(i);
+        } else {
+            gen.writeNumber(value.longValue());
+        }
+    }
+}
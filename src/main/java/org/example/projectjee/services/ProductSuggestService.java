@@ -0,0 +1,152 @@
+package org.example.projectjee.services;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.example.projectjee.dto.SuggestResponseDTO;
+import org.example.projectjee.dto.SuggestionDTO;
+import org.example.projectjee.events.ProductChangedEvent;
+import org.example.projectjee.model.Categorie;
+import org.example.projectjee.model.Product;
+import org.example.projectjee.repository.CategorieRepository;
+import org.example.projectjee.repository.ProduitRepository;
+import org.example.projectjee.util.PrefixTrie;
+import org.example.projectjee.util.TextNormalizer;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Autocomplétion des titres produits et des noms de catégories.
+ *
+ * Un titre est indexé à partir de chaque début de mot ("coque iphone 15"
+ * répond à "coq", "iph" et "15"), tronqué à {@link #MAX_KEY_LENGTH} caractères.
+ * Les produits sont classés par nombre d'avis.
+ */
+@Slf4j
+@Service
+public class ProductSuggestService {
+
+    public static final int DEFAULT_LIMIT = 8;
+    public static final int MAX_LIMIT = 20;
+
+    private static final int MAX_KEY_LENGTH = 40;
+    private static final int LOAD_BATCH = 5000;
+
+    private final ProduitRepository produitRepository;
+    private final CategorieRepository categorieRepository;
+
+    private final PrefixTrie titles = new PrefixTrie(MAX_LIMIT);
+    private final PrefixTrie categories = new PrefixTrie(MAX_LIMIT);
+    // suggestions en parallèle, écritures exclusives (voir PrefixTrie)
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public ProductSuggestService(ProduitRepository produitRepository, CategorieRepository categorieRepository) {
+        this.produitRepository = produitRepository;
+        this.categorieRepository = categorieRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        lock.writeLock().lock();
+        try {
+            titles.clear();
+            categories.clear();
+
+            long afterId = 0L;
+            List<Object[]> rows;
+            do {
+                rows = produitRepository.findSuggestRowsAfter(afterId, PageRequest.of(0, LOAD_BATCH));
+                for (Object[] r : rows) {
+                    Long id = (Long) r[0];
+                    putTitle(id, (String) r[1], (Long) r[2]);
+                    afterId = id;
+                }
+            } while (rows.size() == LOAD_BATCH);
+
+            // pas d'écriture de catégories dans l'application : chargées une fois au démarrage
+            for (Categorie c : categorieRepository.findAll()) {
+                List<String> keys = keys(c.getNom());
+                if (!keys.isEmpty()) categories.put(new PrefixTrie.Entry(c.getId(), c.getNom(), 0L, keys));
+            }
+            log.info("Autocomplétion construite : {} titres, {} catégories", titles.size(), categories.size());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Order(CatalogVersion.INDEX_ORDER)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        lock.writeLock().lock();
+        try {
+            if (event.isDelete()) {
+                titles.remove(event.getProductId());
+            } else {
+                Product p = event.getProduct();
+                putTitle(p.getId(), p.getTitle(), p.getRatingCount());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public SuggestResponseDTO suggest(String prefix, Integer limit) {
+        int n = limit == null ? DEFAULT_LIMIT : Math.max(1, Math.min(limit, MAX_LIMIT));
+        String key = TextNormalizer.normalize(prefix);
+        if (key.length() > MAX_KEY_LENGTH) key = key.substring(0, MAX_KEY_LENGTH);
+
+        List<PrefixTrie.Entry> titleMatches;
+        List<PrefixTrie.Entry> categoryMatches;
+        lock.readLock().lock();
+        try {
+            titleMatches = titles.complete(key, n);
+            categoryMatches = categories.complete(key, n);
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        List<SuggestionDTO> produits = new ArrayList<>();
+        for (PrefixTrie.Entry e : titleMatches) {
+            produits.add(new SuggestionDTO(e.getId(), e.getLabel(), e.getWeight()));
+        }
+        List<SuggestionDTO> cats = new ArrayList<>();
+        for (PrefixTrie.Entry e : categoryMatches) {
+            cats.add(new SuggestionDTO(e.getId(), e.getLabel(), null));
+        }
+        return new SuggestResponseDTO(produits, cats);
+    }
+
+    private void putTitle(Long id, String title, Long ratingCount) {
+        if (id == null) return;
+        List<String> keys = keys(title);
+        if (keys.isEmpty()) {
+            titles.remove(id);
+            return;
+        }
+        titles.put(new PrefixTrie.Entry(id, title, ratingCount == null ? 0L : ratingCount, keys));
+    }
+
+    // le texte normalisé à partir de chaque début de mot
+    private static List<String> keys(String text) {
+        String normalized = TextNormalizer.normalize(text);
+        Set<String> keys = new LinkedHashSet<>();
+        int start = 0;
+        while (start < normalized.length()) {
+            keys.add(normalized.substring(start, Math.min(normalized.length(), start + MAX_KEY_LENGTH)).trim());
+            int space = normalized.indexOf(' ', start);
+            if (space < 0) break;
+            start = space + 1;
+        }
+        keys.remove("");
+        return new ArrayList<>(keys);
+    }
+}
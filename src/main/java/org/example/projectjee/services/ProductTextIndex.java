@@ -0,0 +1,218 @@
+package org.example.projectjee.services;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.example.projectjee.events.ProductChangedEvent;
+import org.example.projectjee.model.Product;
+import org.example.projectjee.repository.ProduitRepository;
+import org.example.projectjee.util.TextNormalizer;
+import org.example.projectjee.util.TopKAggregator;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Index inversé en mémoire sur titre + description des produits.
+ *
+ * Remplace le {@code LIKE '%q%'} de la recherche : chaque mot de {@code q}
+ * est résolu par préfixe sur le dictionnaire des termes, et les ids trouvés
+ * sont intersectés (tous les mots doivent être présents).
+ *
+ * Les postings gardent la fréquence de chaque terme et l'index la longueur de
+ * chaque document, pour le classement BM25 du mode hybride ({@link #bm25}).
+ * Les mots du titre comptent double.
+ */
+@Slf4j
+@Service
+public class ProductTextIndex {
+
+    private static final int LOAD_BATCH = 1000;
+    private static final int TITLE_WEIGHT = 2;
+    private static final double BM25_K1 = 1.2;
+    private static final double BM25_B = 0.75;
+
+    private final ProduitRepository produitRepository;
+
+    // terme -> (id produit -> fréquence du terme dans le produit)
+    private final ConcurrentSkipListMap<String, Map<Long, Integer>> postings = new ConcurrentSkipListMap<>();
+
+    // id -> termes indexés, pour retirer l'ancienne version lors d'une mise à jour
+    private final Map<Long, Set<String>> termsByProduct = new ConcurrentHashMap<>();
+
+    // id -> longueur du document (en termes, titre pondéré) ; somme pour la longueur moyenne
+    private final Map<Long, Integer> lengthByProduct = new ConcurrentHashMap<>();
+    private final AtomicLong totalLength = new AtomicLong();
+
+    private volatile boolean ready = false;
+
+    public ProductTextIndex(ProduitRepository produitRepository) {
+        this.produitRepository = produitRepository;
+    }
+
+    // ✅ Construction au démarrage, par lots pour ne pas charger tout le catalogue d'un coup
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuild() {
+        ready = false;
+        postings.clear();
+        termsByProduct.clear();
+        lengthByProduct.clear();
+        totalLength.set(0);
+
+        long afterId = 0L;
+        List<Object[]> rows;
+        do {
+            rows = produitRepository.findTextRowsAfter(afterId, PageRequest.of(0, LOAD_BATCH));
+            for (Object[] r : rows) {
+                Long id = (Long) r[0];
+                index(id, (String) r[1], (String) r[2]);
+                afterId = id;
+            }
+        } while (rows.size() == LOAD_BATCH);
+
+        ready = true;
+        log.info("Index texte produits construit : {} produits, {} termes", termsByProduct.size(), postings.size());
+    }
+
+    // ✅ Mise à jour incrémentale après commit (ou immédiatement hors transaction)
+    @Order(CatalogVersion.INDEX_ORDER)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        if (event.isDelete()) {
+            remove(event.getProductId());
+        } else {
+            Product p = event.getProduct();
+            index(p.getId(), p.getTitle(), p.getDescription());
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Ids des produits contenant tous les mots de {@code q} (par préfixe).
+     * Retourne un ensemble vide si un des mots ne correspond à rien.
+     * Pas de correspondance au milieu d'un mot : "phone" ne trouve pas "smartphone".
+     */
+    public Set<Long> search(String q) {
+        List<String> tokens = new ArrayList<>(new LinkedHashSet<>(TextNormalizer.tokenize(q)));
+        if (tokens.isEmpty()) return Collections.emptySet();
+
+        List<Set<Long>> matches = new ArrayList<>(tokens.size());
+        for (String token : tokens) {
+            Set<Long> ids = prefixMatch(token);
+            if (ids.isEmpty()) return Collections.emptySet();
+            matches.add(ids);
+        }
+
+        // intersection en partant de l'ensemble le plus petit
+        matches.sort(Comparator.comparingInt(Set::size));
+        Set<Long> result = new HashSet<>(matches.get(0));
+        for (int i = 1; i < matches.size() && !result.isEmpty(); i++) {
+            result.retainAll(matches.get(i));
+        }
+        return result;
+    }
+
+    /**
+     * Les {@code limit} meilleurs produits pour {@code q} au sens BM25, du meilleur au moins bon.
+     * Contrairement à {@link #search}, il suffit qu'un des mots soit présent.
+     * Un mot de la requête couvre aussi les termes dont il est préfixe.
+     */
+    public List<Long> bm25(String q, int limit) {
+        List<String> tokens = new ArrayList<>(new LinkedHashSet<>(TextNormalizer.tokenize(q)));
+        int n = lengthByProduct.size();
+        if (tokens.isEmpty() || n == 0) return Collections.emptyList();
+        double avgLength = Math.max(1.0, (double) totalLength.get() / n);
+
+        TopKAggregator scores = new TopKAggregator();
+        for (String token : tokens) {
+            for (Map.Entry<String, Map<Long, Integer>> term : prefixRange(token).entrySet()) {
+                Map<Long, Integer> posting = term.getValue();
+                int df = posting.size();
+                if (df == 0) continue;
+                double idf = Math.log(1.0 + (n - df + 0.5) / (df + 0.5));
+                for (Map.Entry<Long, Integer> e : posting.entrySet()) {
+                    int tf = e.getValue();
+                    int length = lengthByProduct.getOrDefault(e.getKey(), 0);
+                    double norm = tf + BM25_K1 * (1 - BM25_B + BM25_B * length / avgLength);
+                    scores.add(e.getKey(), idf * tf * (BM25_K1 + 1) / norm);
+                }
+            }
+        }
+
+        // tas borné à limit : pas de tri de tous les produits qui contiennent un mot
+        return scores.top(limit).stream()
+                .map(TopKAggregator.Entry::key)
+                .toList();
+    }
+
+    private NavigableMap<String, Map<Long, Integer>> prefixRange(String prefix) {
+        return postings.subMap(prefix, true, prefix + Character.MAX_VALUE, false);
+    }
+
+    private Set<Long> prefixMatch(String prefix) {
+        NavigableMap<String, Map<Long, Integer>> range = prefixRange(prefix);
+        if (range.size() == 1) {
+            return range.firstEntry().getValue().keySet();
+        }
+        Set<Long> ids = new HashSet<>();
+        for (Map<Long, Integer> posting : range.values()) {
+            ids.addAll(posting.keySet());
+        }
+        return ids;
+    }
+
+    private synchronized void index(Long id, String title, String description) {
+        if (id == null) return;
+        removeTerms(id);
+
+        Map<String, Integer> frequencies = new HashMap<>();
+        for (String t : TextNormalizer.tokenize(title)) frequencies.merge(t, TITLE_WEIGHT, Integer::sum);
+        for (String t : TextNormalizer.tokenize(description)) frequencies.merge(t, 1, Integer::sum);
+
+        int length = 0;
+        for (Map.Entry<String, Integer> e : frequencies.entrySet()) {
+            postings.computeIfAbsent(e.getKey(), k -> new ConcurrentHashMap<>()).put(id, e.getValue());
+            length += e.getValue();
+        }
+        termsByProduct.put(id, new HashSet<>(frequencies.keySet()));
+        lengthByProduct.put(id, length);
+        totalLength.addAndGet(length);
+    }
+
+    private synchronized void remove(Long id) {
+        if (id == null) return;
+        removeTerms(id);
+    }
+
+    private void removeTerms(Long id) {
+        Set<String> previous = termsByProduct.remove(id);
+        if (previous == null) return;
+        for (String term : previous) {
+            Map<Long, Integer> posting = postings.get(term);
+            if (posting == null) continue;
+            posting.remove(id);
+            if (posting.isEmpty()) postings.remove(term, posting);
+        }
+        Integer length = lengthByProduct.remove(id);
+        if (length != null) totalLength.addAndGet(-length);
+    }
+}
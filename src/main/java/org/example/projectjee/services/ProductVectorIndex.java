@@ -0,0 +1,394 @@
+package org.example.projectjee.services;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.example.projectjee.events.ProductChangedEvent;
+import org.example.projectjee.model.Product;
+import org.example.projectjee.repository.ProduitRepository;
+import org.example.projectjee.util.HnswIndex;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Recherche sémantique dans la JVM : embeddings des produits (titre, catégorie,
+ * début de description) dans un index HNSW, sans appel au service Python.
+ *
+ * L'index est sauvegardé dans {@code semantic.index.path} (fichier mappé en
+ * mémoire) à l'arrêt et après chaque reconstruction, avec à côté
+ * ({@code <index>.fp}) l'empreinte du texte embeddé de chaque produit. Au
+ * démarrage il est relu puis réconcilié avec la table produits : produits
+ * disparus retirés, nouveaux ajoutés, et produits dont le texte a changé
+ * depuis la sauvegarde (arrêt brutal, base modifiée application arrêtée)
+ * recalculés. Sans fichier d'empreintes lisible, tous les vecteurs relus sont
+ * recalculés. S'il est absent ou produit par un autre {@link EmbeddingProvider},
+ * l'index est reconstruit.
+ *
+ * Une mise à jour qui ne touche pas le texte embeddé (prix, stock, note...) ne
+ * recalcule pas le vecteur (même empreinte). Quand trop de nœuds sont
+ * supprimés, l'index est reconstruit en tâche de fond puis échangé, sans
+ * bloquer les écritures pendant la reconstruction.
+ */
+@Slf4j
+@Service
+public class ProductVectorIndex {
+
+    public static final int DEFAULT_K = 20;
+    public static final int MAX_K = 200;
+
+    private static final int LOAD_BATCH = 1000;
+    private static final int HNSW_M = 16;
+    private static final int HNSW_EF_CONSTRUCTION = 100;
+    private static final int HNSW_EF_SEARCH = 64;
+    private static final int DESCRIPTION_CHARS = 500;
+    private static final double COMPACT_RATIO = 0.3;
+    private static final int FINGERPRINTS_MAGIC = 0x484E4650; // "HNFP"
+
+    private final ProduitRepository produitRepository;
+    private final EmbeddingProvider embeddingProvider;
+    private final Path indexFile;
+    private final Path fingerprintFile;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final ExecutorService compactor = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "hnsw-compaction");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private HnswIndex index;
+    private final Map<Long, Long> fingerprints = new HashMap<>();   // id -> empreinte du texte embeddé
+    private boolean dirty = false;
+    private volatile boolean ready = false;
+
+    // compaction en cours : ids modifiés depuis la copie, rejoués sur le nouvel index avant l'échange
+    private boolean compacting = false;
+    private final Set<Long> changedDuringCompaction = new HashSet<>();
+
+    public ProductVectorIndex(ProduitRepository produitRepository,
+                              EmbeddingProvider embeddingProvider,
+                              @Value("${semantic.index.path:data/produits.hnsw}") String indexPath) {
+        this.produitRepository = produitRepository;
+        this.embeddingProvider = embeddingProvider;
+        this.indexFile = Path.of(indexPath);
+        this.fingerprintFile = indexFile.resolveSibling(indexFile.getFileName() + ".fp");
+        this.index = newIndex();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        lock.writeLock().lock();
+        try {
+            fingerprints.clear();
+            HnswIndex stored = null;
+            try {
+                stored = HnswIndex.load(indexFile, embeddingProvider.id(), embeddingProvider.dimension());
+            } catch (IOException | RuntimeException e) {
+                log.warn("Index sémantique illisible ({}), reconstruction : {}", indexFile, e.getMessage());
+            }
+
+            if (stored != null) {
+                index = stored;
+                fingerprints.putAll(loadFingerprints());
+                reconcile();
+            } else {
+                index = newIndex();
+                buildAll();
+                dirty = true;
+            }
+            ready = true;
+            saveIfDirty();
+            log.info("Index sémantique prêt : {} produits ({})", index.size(), embeddingProvider.id());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Order(CatalogVersion.INDEX_ORDER)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        lock.writeLock().lock();
+        try {
+            long id = event.getProductId();
+            if (event.isDelete()) {
+                index.remove(id);
+                fingerprints.remove(id);
+            } else {
+                Product p = event.getProduct();
+                String text = text(p.getTitle(), p.getDescription(),
+                        p.getCategorie() != null ? p.getCategorie().getNom() : null);
+                long fingerprint = fingerprint(text);
+                Long previous = fingerprints.get(id);
+                if (previous != null && previous == fingerprint && index.contains(id)) {
+                    return;   // titre, description et catégorie inchangés : même vecteur
+                }
+                index.add(id, embeddingProvider.embed(text));
+                fingerprints.put(id, fingerprint);
+            }
+            dirty = true;
+            if (compacting) {
+                changedDuringCompaction.add(id);
+            } else if (index.deletedRatio() > COMPACT_RATIO) {
+                startCompaction();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        compactor.shutdownNow();
+        lock.writeLock().lock();
+        try {
+            saveIfDirty();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /** Les {@code k} produits les plus proches de {@code query}, du plus proche au moins proche. */
+    public List<HnswIndex.Hit> search(String query, Integer k) {
+        int n = k == null ? DEFAULT_K : Math.max(1, Math.min(k, MAX_K));
+        float[] vector = embeddingProvider.embed(query);
+        lock.readLock().lock();
+        try {
+            return index.search(vector, n, Math.max(HNSW_EF_SEARCH, n));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // proportion de nœuds supprimés encore dans le graphe (tests, suivi de la compaction)
+    double deletedRatio() {
+        lock.readLock().lock();
+        try {
+            return index.deletedRatio();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // ========== COMPACTION ==========
+
+    // sous verrou d'écriture : copie des clés vivantes, reconstruction confiée au thread de compaction
+    private void startCompaction() {
+        long[] keys = index.keys();
+        float[][] vectors = new float[keys.length][];
+        for (int i = 0; i < keys.length; i++) vectors[i] = index.vector(keys[i]);
+        HnswIndex fresh = index.emptyCopy();
+        compacting = true;
+        changedDuringCompaction.clear();
+        compactor.execute(() -> compact(fresh, keys, vectors));
+    }
+
+    private void compact(HnswIndex fresh, long[] keys, float[][] vectors) {
+        try {
+            for (int i = 0; i < keys.length; i++) fresh.add(keys[i], vectors[i]);
+        } catch (RuntimeException e) {
+            log.warn("Compaction de l'index sémantique abandonnée : {}", e.getMessage());
+            lock.writeLock().lock();
+            try {
+                compacting = false;
+                changedDuringCompaction.clear();
+            } finally {
+                lock.writeLock().unlock();
+            }
+            return;
+        }
+
+        lock.writeLock().lock();
+        try {
+            for (Long id : changedDuringCompaction) {
+                float[] v = index.vector(id);
+                if (v == null) fresh.remove(id);
+                else fresh.add(id, v);
+            }
+            log.info("Index sémantique compacté : {} produits", fresh.size());
+            index = fresh;
+            dirty = true;
+            compacting = false;
+            changedDuringCompaction.clear();
+            // beaucoup de suppressions pendant la reconstruction : on recommence tout de suite
+            if (index.deletedRatio() > COMPACT_RATIO) {
+                startCompaction();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // ========== CONSTRUCTION ==========
+
+    private HnswIndex newIndex() {
+        return new HnswIndex(embeddingProvider.dimension(), HNSW_M, HNSW_EF_CONSTRUCTION);
+    }
+
+    private void buildAll() {
+        long afterId = 0L;
+        List<Object[]> rows;
+        do {
+            rows = produitRepository.findEmbeddingRowsAfter(afterId, PageRequest.of(0, LOAD_BATCH));
+            addRows(rows);
+            if (!rows.isEmpty()) afterId = (Long) rows.get(rows.size() - 1)[0];
+        } while (rows.size() == LOAD_BATCH);
+    }
+
+    /**
+     * Index relu depuis le disque : un passage sur la table produits. Les produits
+     * absents de l'index, ou dont l'empreinte du texte diffère de celle
+     * sauvegardée (ou est inconnue), sont recalculés ; ceux qui ne sont plus en
+     * base sont retirés.
+     */
+    private void reconcile() {
+        Set<Long> gone = new HashSet<>();
+        for (long key : index.keys()) gone.add(key);
+        int added = 0;
+        int changed = 0;
+
+        long afterId = 0L;
+        List<Object[]> rows;
+        do {
+            rows = produitRepository.findEmbeddingRowsAfter(afterId, PageRequest.of(0, LOAD_BATCH));
+            List<Long> ids = new ArrayList<>();
+            List<String> texts = new ArrayList<>();
+            for (Object[] r : rows) {
+                Long id = (Long) r[0];
+                String text = text((String) r[1], (String) r[2], (String) r[3]);
+                gone.remove(id);
+                Long known = fingerprints.get(id);
+                if (!index.contains(id)) {
+                    added++;
+                } else if (known == null || known != fingerprint(text)) {
+                    changed++;
+                } else {
+                    continue;
+                }
+                ids.add(id);
+                texts.add(text);
+            }
+            embed(ids, texts);
+            if (!rows.isEmpty()) afterId = (Long) rows.get(rows.size() - 1)[0];
+        } while (rows.size() == LOAD_BATCH);
+
+        for (Long id : gone) {
+            index.remove(id);
+            fingerprints.remove(id);
+        }
+        if (added > 0 || changed > 0 || !gone.isEmpty()) {
+            dirty = true;
+            log.info("Index sémantique réconcilié : {} retirés, {} ajoutés, {} recalculés",
+                    gone.size(), added, changed);
+        }
+    }
+
+    private void addRows(List<Object[]> rows) {
+        List<Long> ids = new ArrayList<>(rows.size());
+        List<String> texts = new ArrayList<>(rows.size());
+        for (Object[] r : rows) {
+            ids.add((Long) r[0]);
+            texts.add(text((String) r[1], (String) r[2], (String) r[3]));
+        }
+        embed(ids, texts);
+    }
+
+    private void embed(List<Long> ids, List<String> texts) {
+        if (ids.isEmpty()) return;
+        List<float[]> vectors = embeddingProvider.embedAll(texts);
+        for (int i = 0; i < ids.size(); i++) {
+            index.add(ids.get(i), vectors.get(i));
+            fingerprints.put(ids.get(i), fingerprint(texts.get(i)));
+        }
+    }
+
+    private static String text(String title, String description, String categorie) {
+        StringBuilder sb = new StringBuilder();
+        if (title != null) sb.append(title);
+        if (categorie != null) sb.append(' ').append(categorie);
+        if (description != null) {
+            sb.append(' ').append(description, 0, Math.min(description.length(), DESCRIPTION_CHARS));
+        }
+        return sb.toString();
+    }
+
+    // FNV-1a 64 bits du texte embeddé : détecte qu'un produit modifié garde le même vecteur
+    private static long fingerprint(String text) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < text.length(); i++) {
+            h ^= text.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        return h;
+    }
+
+    // empreintes effacées avant d'écrire l'index : un arrêt entre les deux écritures laisse un index
+    // sans empreintes (tout recalculé au démarrage), jamais des empreintes plus récentes que les vecteurs
+    private void saveIfDirty() {
+        if (!dirty) return;
+        try {
+            Files.deleteIfExists(fingerprintFile);
+            index.save(indexFile, embeddingProvider.id());
+            saveFingerprints();
+            dirty = false;
+        } catch (IOException e) {
+            log.warn("Sauvegarde de l'index sémantique impossible ({}) : {}", indexFile, e.getMessage());
+        }
+    }
+
+    private void saveFingerprints() throws IOException {
+        Path tmp = fingerprintFile.resolveSibling(fingerprintFile.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+            out.writeInt(FINGERPRINTS_MAGIC);
+            out.writeUTF(embeddingProvider.id());
+            out.writeInt(fingerprints.size());
+            for (Map.Entry<Long, Long> e : fingerprints.entrySet()) {
+                out.writeLong(e.getKey());
+                out.writeLong(e.getValue());
+            }
+        }
+        Files.move(tmp, fingerprintFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // vide si le fichier est absent, illisible ou d'un autre fournisseur : tout sera recalculé
+    private Map<Long, Long> loadFingerprints() {
+        if (!Files.isRegularFile(fingerprintFile)) return Map.of();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(fingerprintFile)))) {
+            if (in.readInt() != FINGERPRINTS_MAGIC || !embeddingProvider.id().equals(in.readUTF())) return Map.of();
+            int count = in.readInt();
+            Map<Long, Long> out = new HashMap<>(count * 2);
+            for (int i = 0; i < count; i++) {
+                out.put(in.readLong(), in.readLong());
+            }
+            return out;
+        } catch (IOException e) {
+            log.warn("Empreintes de l'index sémantique illisibles ({}) : {}", fingerprintFile, e.getMessage());
+            return Map.of();
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package org.example.projectjee.services;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import org.example.projectjee.dto.ProduitFacetsDTO;
+import org.example.projectjee.model.Categorie;
+import org.example.projectjee.model.Product;
+import org.example.projectjee.repository.CategorieRepository;
+import org.example.projectjee.repository.ProduitRepository;
+import org.example.projectjee.spec.ProduitFilter;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.stereotype.Service;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import lombok.RequiredArgsConstructor;
+
+@Service
+@RequiredArgsConstructor
+public class ProduitFacetService {
+
+    private final ProduitRepository produitRepository;
+    private final CategorieRepository categorieRepository;
+    private final ProduitSearchService produitSearchService;
+    private final ProductColumnStore productColumnStore;
+    private final EntityManager entityManager;
+
+    // ✅ Facettes (catégorie, prix, note, avis) pour les mêmes filtres que /search
+    public ProduitFacetsDTO getFacets(
+            String q,
+            Long categorieId,
+            BigDecimal prixMin,
+            BigDecimal prixMax,
+            BigDecimal noteMin,
+            BigDecimal noteMax,
+            Integer reviewsMin,
+            Integer reviewsMax) {
+        ProduitFilter filter = new ProduitFilter(
+                q, categorieId, prixMin, prixMax, noteMin, noteMax, reviewsMin, reviewsMax);
+
+        FacetCounter counter;
+        if (produitSearchService.canUseColumns(filter)) {
+            counter = productColumnStore.facets(filter, produitSearchService.textCandidates(filter));
+        } else {
+            // store pas encore chargé : une requête groupée par facette, quelques lignes chacune
+            counter = new FacetCounter(filter);
+            counter.addTotal(produitRepository.count(produitSearchService.buildSpec(
+                    q, categorieId, prixMin, prixMax, noteMin, noteMax, reviewsMin, reviewsMax)));
+            for (Object[] row : groupedCounts(produitSearchService.buildSpec(
+                    q, null, prixMin, prixMax, noteMin, noteMax, reviewsMin, reviewsMax),
+                    root -> root.get("categorie").get("id"))) {
+                counter.addCategory((Long) row[0], ((Number) row[1]).longValue());
+            }
+            for (Object[] row : groupedCounts(produitSearchService.buildSpec(
+                    q, categorieId, null, null, noteMin, noteMax, reviewsMin, reviewsMax),
+                    root -> bucketOf(root.get("price"), FacetCounter.PRICE_BOUNDS))) {
+                counter.addPriceBucket(((Number) row[0]).intValue(), ((Number) row[1]).longValue());
+            }
+            for (Object[] row : groupedCounts(produitSearchService.buildSpec(
+                    q, categorieId, prixMin, prixMax, null, null, reviewsMin, reviewsMax),
+                    this::roundedRating)) {
+                counter.addStars(((Number) row[0]).intValue(), ((Number) row[1]).longValue());
+            }
+            for (Object[] row : groupedCounts(produitSearchService.buildSpec(
+                    q, categorieId, prixMin, prixMax, noteMin, noteMax, null, null),
+                    root -> bucketOf(root.get("ratingCount"), FacetCounter.REVIEW_BOUNDS))) {
+                counter.addReviewsBucket(((Number) row[0]).intValue(), ((Number) row[1]).longValue());
+            }
+        }
+
+        Map<Long, String> names = new HashMap<>();
+        for (Categorie c : categorieRepository.findAllById(counter.categoryIds())) {
+            names.put(c.getId(), c.getNom());
+        }
+        return counter.toDTO(names);
+    }
+
+    // (clé, nombre) des produits qui passent spec, groupés par key ; les clés NULL sont écartées
+    private List<Object[]> groupedCounts(Specification<Product> spec, Function<Root<Product>, Expression<?>> key) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Object[]> cq = cb.createQuery(Object[].class);
+        Root<Product> root = cq.from(Product.class);
+        Expression<?> k = key.apply(root);
+        cq.multiselect(k, cb.count(root));
+        List<Predicate> where = new ArrayList<>(2);
+        where.add(cb.isNotNull(k));
+        Predicate p = spec.toPredicate(root, cq, cb);
+        if (p != null) where.add(p);
+        cq.where(where.toArray(new Predicate[0]));
+        cq.groupBy(k);
+        return entityManager.createQuery(cq).getResultList();
+    }
+
+    // même arrondi que la distribution des KPIs : FLOOR(note + 0.5)
+    private Expression<Double> roundedRating(Root<Product> root) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        return cb.floor(cb.sum(root.<Double>get("rating"), 0.5));
+    }
+
+    // numéro de tranche [bounds[i], bounds[i+1]) comme FacetCounter, NULL si la valeur est NULL
+    private Expression<Integer> bucketOf(Expression<? extends Number> value, double[] bounds) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaBuilder.Case<Integer> bucket = cb.selectCase();
+        bucket = bucket.when(cb.isNull(value), cb.nullLiteral(Integer.class));
+        for (int i = 1; i < bounds.length; i++) {
+            bucket = bucket.when(cb.lt(value, bounds[i]), i - 1);
+        }
+        return bucket.otherwise(bounds.length - 1);
+    }
+}
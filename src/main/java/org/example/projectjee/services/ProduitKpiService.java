@@ -2,29 +2,44 @@ package org.example.projectjee.services;
 
 import java.math.BigDecimal;
 import java.util.ArrayList;
-import java.util.Comparator;
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
 import org.example.projectjee.dto.ProductKpisDTO;
+import org.example.projectjee.dto.ProduitQuantilesDTO;
+import org.example.projectjee.dto.QuantileSummaryDTO;
 import org.example.projectjee.dto.RatingBucketDTO;
 import org.example.projectjee.dto.TopProduitDTO;
+import org.example.projectjee.model.Categorie;
 import org.example.projectjee.model.Product;
-import org.example.projectjee.repository.ProduitRepository;
-import org.example.projectjee.spec.ProduitSpecifications;
+import org.example.projectjee.util.KllSketch;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Order;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
 import lombok.RequiredArgsConstructor;
 
 @Service
 @RequiredArgsConstructor
 public class ProduitKpiService {
 
-    private final ProduitRepository produitRepository;
+    private final ProduitSearchService produitSearchService;
+    private final EntityManager entityManager;
+    private final CatalogAggregateStore catalogAggregateStore;
+    private final ProductQuantileStore productQuantileStore;
 
-    // ✅ KPIs AVEC FILTRE
+    private static final List<Double> DEFAULT_PERCENTILES = List.of(50.0, 90.0, 99.0);
+
+    // ✅ KPIs AVEC FILTRE, calculés en base : O(1) lignes renvoyées quel que soit le nombre de produits
     public ProductKpisDTO getKpis(
             String q,
             Long categorieId,
@@ -36,48 +51,50 @@ public class ProduitKpiService {
             Integer reviewsMax
     ) {
 
-        Specification<Product> spec = ProduitSpecifications.withFilters(
+        Specification<Product> spec = produitSearchService.buildSpec(
                 q, categorieId, prixMin, prixMax, noteMin, noteMax, reviewsMin, reviewsMax
         );
 
-        List<Product> list = produitRepository.findAll(spec);
-        long total = list.size();
-
-        // 1️⃣ Produit le mieux noté (note desc, tie -> reviews desc)
-        Product bestRated = list.stream()
-                .max(Comparator
-                        .comparing((Product p) -> bd(p.getRating()))              // rating (Double)
-                        .thenComparing(p -> intv(p.getRatingCount()))           // ratingCount (Long)
-                )
-                .orElse(null);
-
-        // 2️⃣ Produit le plus vendu (proxy = nombre d'avis)
-        Product mostSold = list.stream()
-                .max(Comparator.comparing(p -> intv(p.getRatingCount())))
-                .orElse(null);
-
-        // 3️⃣ Distribution des notes (round -> 1..5)
-        Map<Integer, Long> dist = new HashMap<>();
-        for (int i = 1; i <= 5; i++) dist.put(i, 0L);
-
-        for (Product p : list) {
-            if (p.getRating() == null) continue;
+        // 1️⃣ Nombre de produits + distribution des notes : une requête groupée
+        // (sans filtre : directement depuis les agrégats tenus en mémoire)
+        boolean unfiltered = (q == null || q.trim().isEmpty()) && categorieId == null
+                && prixMin == null && prixMax == null && noteMin == null && noteMax == null
+                && reviewsMin == null && reviewsMax == null;
+        long total = 0;
+        long[] dist = new long[6];
+        List<Object[]> rows = List.of();
+        if (unfiltered && catalogAggregateStore.isReady()) {
+            total = catalogAggregateStore.totalProduits();
+            dist = catalogAggregateStore.starHistogram();
+        } else {
+            rows = starCounts(spec);
+        }
+        for (Object[] row : rows) {
+            long count = ((Number) row[1]).longValue();
+            total += count;
+            if (row[0] == null) continue;   // produit sans note : compté, hors distribution
 
-            double r = p.getRating();
-            int stars = (int) Math.round(r);
+            int stars = ((Number) row[0]).intValue();
             stars = Math.max(1, Math.min(5, stars));
-
-            dist.put(stars, dist.get(stars) + 1);
+            dist[stars] += count;
         }
 
         List<RatingBucketDTO> buckets = new ArrayList<>();
         for (int s = 5; s >= 1; s--) {
-            buckets.add(new RatingBucketDTO(s, dist.get(s)));
+            buckets.add(new RatingBucketDTO(s, dist[s]));
+        }
+
+        // 2️⃣ Produit le mieux noté (note desc, tie -> reviews desc) et le plus vendu (proxy = nombre d'avis)
+        TopProduitDTO bestRated = null;
+        TopProduitDTO mostSold = null;
+        if (total > 0) {
+            bestRated = top(spec, true);
+            mostSold = top(spec, false);
         }
 
         return ProductKpisDTO.builder()
-                .bestRated(toTopProduitDTO(bestRated))
-                .mostSold(toTopProduitDTO(mostSold))
+                .bestRated(bestRated)
+                .mostSold(mostSold)
                 .distribution(buckets)
                 .totalProduits(total)
                 .build();
@@ -88,26 +105,125 @@ public class ProduitKpiService {
         return getKpis(null, null, null, null, null, null, null, null);
     }
 
-    // 🔁 Mapping EXACT vers ton DTO existant
-    private TopProduitDTO toTopProduitDTO(Product p) {
-        if (p == null) return null;
-
-        return new TopProduitDTO(
-                p.getId(),
-                p.getTitle(),                                                   // ancien nom -> title
-                p.getCategorie() != null ? p.getCategorie().getNom() : null,
-                p.getPrice() != null ? BigDecimal.valueOf(p.getPrice()) : null,
-                p.getRating() != null ? BigDecimal.valueOf(p.getRating()) : null,
-                p.getRatingCount() != null ? p.getRatingCount().intValue() : null
-        );
+    // ✅ Percentiles du prix et de la note, pour des catégories (vide = tout le catalogue)
+    public ProduitQuantilesDTO getQuantiles(List<Long> categorieIds, List<Double> percentiles) {
+        List<Double> ps = percentiles == null || percentiles.isEmpty() ? DEFAULT_PERCENTILES : percentiles;
+        for (Double p : ps) {
+            if (p == null || p < 0 || p > 100) {
+                throw new RuntimeException("Les percentiles doivent être compris entre 0 et 100");
+            }
+        }
+        List<Long> categories = categorieIds == null ? List.of() : categorieIds;
+
+        ProductQuantileStore.ColumnSnapshot prices;
+        ProductQuantileStore.ColumnSnapshot ratings;
+        if (productQuantileStore.isReady()) {
+            ProductQuantileStore.Snapshot snapshot = productQuantileStore.snapshot(categories);
+            prices = snapshot.getPrices();
+            ratings = snapshot.getRatings();
+        } else {
+            // sketches pas encore construits : parcours des colonnes en base
+            KllSketch priceSketch = new KllSketch();
+            KllSketch ratingSketch = new KllSketch();
+            for (Object[] row : priceAndRatingRows(categories)) {
+                if (row[0] != null) priceSketch.update((Double) row[0]);
+                if (row[1] != null) ratingSketch.update((Double) row[1]);
+            }
+            prices = ProductQuantileStore.ColumnSnapshot.of(priceSketch);
+            ratings = ProductQuantileStore.ColumnSnapshot.of(ratingSketch);
+        }
+
+        return ProduitQuantilesDTO.builder()
+                .categories(categories)
+                .prix(summary(prices, ps))
+                .note(summary(ratings, ps))
+                .build();
+    }
+
+    // nombre, min et max exacts ; quantiles du sketch ramenés dans [min, max]
+    // (le sketch peut encore contenir des valeurs périmées hors de cet intervalle)
+    private static QuantileSummaryDTO summary(ProductQuantileStore.ColumnSnapshot column, List<Double> percentiles) {
+        double[] fractions = new double[percentiles.size()];
+        for (int i = 0; i < fractions.length; i++) fractions[i] = percentiles.get(i) / 100.0;
+        double[] values = column.getSketch().quantiles(fractions);
+        boolean empty = column.getCount() == 0;
+
+        Map<String, Double> byLabel = new LinkedHashMap<>();
+        for (int i = 0; i < fractions.length; i++) {
+            String label = "p" + BigDecimal.valueOf(percentiles.get(i)).stripTrailingZeros().toPlainString();
+            Double value = null;
+            if (!empty) {
+                if (fractions[i] <= 0) {
+                    value = column.getMin();
+                } else if (fractions[i] >= 1) {
+                    value = column.getMax();
+                } else {
+                    value = Math.max(column.getMin(), Math.min(column.getMax(), values[i]));
+                }
+            }
+            byLabel.put(label, value);
+        }
+        return QuantileSummaryDTO.builder()
+                .count(column.getCount())
+                .min(column.getMin())
+                .max(column.getMax())
+                .quantiles(byLabel)
+                .build();
     }
 
-    // Helpers null-safe adaptés aux types de Product
-    private Double bd(Double x) { return x == null ? 0.0 : x; }
+    private List<Object[]> priceAndRatingRows(List<Long> categorieIds) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Object[]> cq = cb.createQuery(Object[].class);
+        Root<Product> root = cq.from(Product.class);
+        cq.multiselect(root.get("price"), root.get("rating"));
+        if (!categorieIds.isEmpty()) {
+            cq.where(root.get("categorie").get("id").in(categorieIds));
+        }
+        return entityManager.createQuery(cq).getResultList();
+    }
 
-    private int intv(Long x) { return x == null ? 0 : x.intValue(); }
+    // (étoiles, nombre) avec étoiles = arrondi de la note (FLOOR(note + 0.5), comme Math.round), null si pas de note
+    private List<Object[]> starCounts(Specification<Product> spec) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Object[]> cq = cb.createQuery(Object[].class);
+        Root<Product> root = cq.from(Product.class);
+        Expression<Double> stars = cb.floor(cb.sum(root.<Double>get("rating"), 0.5));
+        cq.multiselect(stars, cb.count(root));
+        Predicate p = spec.toPredicate(root, cq, cb);
+        if (p != null) {
+            cq.where(p);
+        }
+        cq.groupBy(stars);
+        return entityManager.createQuery(cq).getResultList();
+    }
 
+    // Premier produit pour (note, avis) ou (avis) décroissants, notes/avis absents comptés 0, id croissant en cas d'égalité
+    private TopProduitDTO top(Specification<Product> spec, boolean byRating) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<TopProduitDTO> cq = cb.createQuery(TopProduitDTO.class);
+        Root<Product> root = cq.from(Product.class);
+        Join<Product, Categorie> categorie = root.join("categorie", JoinType.LEFT);
+        cq.select(cb.construct(TopProduitDTO.class,
+                root.get("id"),
+                root.get("title"),
+                categorie.get("nom"),
+                root.get("price"),
+                root.get("rating"),
+                root.get("ratingCount")));
+        Predicate p = spec.toPredicate(root, cq, cb);
+        if (p != null) {
+            cq.where(p);
+        }
 
+        List<Order> orders = new ArrayList<>();
+        if (byRating) {
+            orders.add(cb.desc(cb.coalesce(root.<Double>get("rating"), 0.0)));
+        }
+        orders.add(cb.desc(cb.coalesce(root.<Long>get("ratingCount"), 0L)));
+        orders.add(cb.asc(root.get("id")));
+        cq.orderBy(orders);
 
-    
+        List<TopProduitDTO> rows = entityManager.createQuery(cq).setMaxResults(1).getResultList();
+        return rows.isEmpty() ? null : rows.get(0);
+    }
 }
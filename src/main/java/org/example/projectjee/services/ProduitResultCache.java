@@ -0,0 +1,116 @@
+package org.example.projectjee.services;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import org.example.projectjee.dto.CursorPage;
+import org.example.projectjee.events.ProductChangedEvent;
+import org.example.projectjee.spec.ProduitQueryKey;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+
+/**
+ * Cache des résultats de /api/produits/search et /api/produits/kpis.
+ *
+ * Caffeine (admission W-TinyLFU, poids max + durée de vie). La clé contient
+ * la version du catalogue : un résultat calculé pendant une écriture est rangé
+ * sous l'ancienne version et n'est jamais relu. Chaque écriture produit vide
+ * aussi le cache pour libérer la place tout de suite.
+ *
+ * On ne garde pas d'entités JPA (associations lazy) : pour la vue complète
+ * on garde les ids dans l'ordre, rechargés par clé primaire à chaque lecture.
+ *
+ * Le poids d'une entrée est une estimation de sa taille en octets (id ou ligne
+ * résumé par élément) : une recherche non paginée sur tout le catalogue pèse
+ * autant que des milliers de pages et le cache reste borné en mémoire.
+ */
+@Service
+public class ProduitResultCache {
+
+    /** Résultat de recherche réduit à ses ids ordonnés (+ curseur suivant en mode paginé). */
+    public static final class CachedIds {
+        private final List<Long> ids;
+        private final String next;
+
+        public CachedIds(List<Long> ids, String next) {
+            this.ids = List.copyOf(ids);
+            this.next = next;
+        }
+
+        public List<Long> getIds() {
+            return ids;
+        }
+
+        public String getNext() {
+            return next;
+        }
+    }
+
+    // estimations grossières : Long en boîte + place dans la liste, DTO résumé (titre, URL image)
+    private static final int ID_BYTES = 24;
+    private static final int ROW_BYTES = 320;
+    private static final int ENTRY_BYTES = 512;
+
+    private final Cache<ProduitQueryKey, Object> cache;
+
+    public ProduitResultCache(
+            @Value("${search.cache.max-bytes:67108864}") long maxBytes,
+            @Value("${search.cache.ttl-seconds:600}") long ttlSeconds) {
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((ProduitQueryKey key, Object value) -> weigh(value))
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> T get(ProduitQueryKey key, Supplier<T> loader) {
+        return (T) cache.get(key, k -> loader.get());
+    }
+
+    // après les index en mémoire, avant la nouvelle version (cf. CatalogVersion)
+    @Order(CatalogVersion.CACHE_ORDER)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        cache.invalidateAll();
+    }
+
+    static int weigh(Object value) {
+        long bytes;
+        if (value instanceof CachedIds c) {
+            bytes = ENTRY_BYTES + (long) c.getIds().size() * ID_BYTES;
+        } else if (value instanceof Collection<?> rows) {
+            bytes = ENTRY_BYTES + (long) rows.size() * ROW_BYTES;
+        } else if (value instanceof CursorPage<?> page && page.getItems() != null) {
+            bytes = ENTRY_BYTES + (long) page.getItems().size() * ROW_BYTES;
+        } else {
+            bytes = ENTRY_BYTES;
+        }
+        return (int) Math.min(Integer.MAX_VALUE, bytes);
+    }
+
+    public Map<String, Object> stats() {
+        CacheStats s = cache.stats();
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("size", cache.estimatedSize());
+        cache.policy().eviction().ifPresent(e -> out.put("weightedSizeBytes", e.weightedSize().orElse(0L)));
+        out.put("hits", s.hitCount());
+        out.put("misses", s.missCount());
+        out.put("hitRate", s.hitRate());
+        out.put("evictions", s.evictionCount());
+        out.put("loadFailures", s.loadFailureCount());
+        out.put("averageLoadMillis", s.averageLoadPenalty() / 1_000_000.0);
+        return out;
+    }
+}
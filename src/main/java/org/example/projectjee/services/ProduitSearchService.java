@@ -0,0 +1,182 @@
+package org.example.projectjee.services;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.example.projectjee.dto.CursorPage;
+import org.example.projectjee.dto.ProductSummaryDTO;
+import org.example.projectjee.model.Product;
+import org.example.projectjee.repository.ProduitRepository;
+import org.example.projectjee.spec.ProduitFilter;
+import org.example.projectjee.spec.ProduitSpecifications;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.stereotype.Service;
+
+import lombok.RequiredArgsConstructor;
+
+@Service
+@RequiredArgsConstructor
+public class ProduitSearchService {
+
+    private static final int HYDRATE_CHUNK = 1000;
+
+    private final ProduitRepository produitRepository;
+    private final ProductTextIndex productTextIndex;
+    private final ProductPageService productPageService;
+    private final ProductColumnStore productColumnStore;
+
+    /**
+     * Spécification des filtres : q passe par l'index texte dès qu'il est prêt.
+     * <p>
+     * Attention, la sémantique de q n'est pas celle de l'ancien {@code LIKE '%q%'} :
+     * chaque mot doit être le début d'un mot du titre ou de la description (ET entre
+     * les mots). "smart" trouve "smartphone", mais "phone" ne le trouve plus.
+     * <p>
+     * Quelle que soit la taille du résultat de l'index, q garde ce sens : les
+     * candidats sont d'abord réduits en mémoire par les autres filtres (store
+     * colonnes, s'il est prêt), puis liés en {@code id IN (...)} par paquets.
+     * Le LIKE SQL ne sert que tant que l'index texte n'est pas construit.
+     */
+    public Specification<Product> buildSpec(
+            String q,
+            Long categorieId,
+            BigDecimal prixMin,
+            BigDecimal prixMax,
+            BigDecimal noteMin,
+            BigDecimal noteMax,
+            Integer reviewsMin,
+            Integer reviewsMax) {
+        if (q != null && !q.trim().isEmpty() && productTextIndex.isReady()) {
+            Collection<Long> candidates = productTextIndex.search(q);
+            if (productColumnStore.isReady()) {
+                // ✅ terme courant : seuls les ids qui passent aussi les autres filtres partent en SQL
+                candidates = productColumnStore.retainMatching(new ProduitFilter(
+                        null, categorieId, prixMin, prixMax, noteMin, noteMax, reviewsMin, reviewsMax),
+                        new ArrayList<>(candidates));
+            }
+            return ProduitSpecifications.withFilters(candidates,
+                    categorieId, prixMin, prixMax, noteMin, noteMax, reviewsMin, reviewsMax);
+        }
+        // index pas encore construit : ancien LIKE
+        return ProduitSpecifications.withFilters(q,
+                categorieId, prixMin, prixMax, noteMin, noteMax, reviewsMin, reviewsMax);
+    }
+
+    public List<Product> search(
+            String q,
+            Long categorieId,
+            BigDecimal prixMin,
+            BigDecimal prixMax,
+            BigDecimal noteMin,
+            BigDecimal noteMax,
+            Integer reviewsMin,
+            Integer reviewsMax,
+            String sort) {
+        ProduitFilter filter = new ProduitFilter(
+                q, categorieId, prixMin, prixMax, noteMin, noteMax, reviewsMin, reviewsMax);
+        if (canUseColumns(filter)) {
+            return findAllInOrder(productColumnStore.allIds(filter, textCandidates(filter), toKeyset(sort)));
+        }
+        Specification<Product> spec = buildSpec(
+                q, categorieId, prixMin, prixMax, noteMin, noteMax, reviewsMin, reviewsMax);
+        return produitRepository.findAll(spec, toSort(sort));
+    }
+
+    // ✅ Même recherche, paginée par curseur sur la clé de tri active
+    public CursorPage<Product> searchPage(
+            String q,
+            Long categorieId,
+            BigDecimal prixMin,
+            BigDecimal prixMax,
+            BigDecimal noteMin,
+            BigDecimal noteMax,
+            Integer reviewsMin,
+            Integer reviewsMax,
+            String sort,
+            String cursor,
+            Integer limit) {
+        ProduitFilter filter = new ProduitFilter(
+                q, categorieId, prixMin, prixMax, noteMin, noteMax, reviewsMin, reviewsMax);
+        if (canUseColumns(filter)) {
+            ProductColumnStore.IdPage page = productColumnStore.page(filter, textCandidates(filter),
+                    toKeyset(sort), cursor, ProductPageService.normalizeLimit(limit));
+            List<Product> items = findAllInOrder(page.getIds());
+            return new CursorPage<>(items, page.getNext(), items.size());
+        }
+        Specification<Product> spec = buildSpec(
+                q, categorieId, prixMin, prixMax, noteMin, noteMax, reviewsMin, reviewsMax);
+        return productPageService.page(spec, toKeyset(sort), cursor, limit);
+    }
+
+    // ✅ Variantes view=summary : mêmes filtres et même ordre, colonnes de ProductSummaryDTO seulement
+    public List<ProductSummaryDTO> searchSummaries(ProduitFilter filter, String sort) {
+        if (canUseColumns(filter)) {
+            return productPageService.summariesByIds(
+                    productColumnStore.allIds(filter, textCandidates(filter), toKeyset(sort)));
+        }
+        return productPageService.summaries(buildSpec(filter), toSort(sort));
+    }
+
+    public CursorPage<ProductSummaryDTO> searchSummaryPage(
+            ProduitFilter filter, String sort, String cursor, Integer limit) {
+        if (canUseColumns(filter)) {
+            ProductColumnStore.IdPage page = productColumnStore.page(filter, textCandidates(filter),
+                    toKeyset(sort), cursor, ProductPageService.normalizeLimit(limit));
+            List<ProductSummaryDTO> items = productPageService.summariesByIds(page.getIds());
+            return new CursorPage<>(items, page.getNext(), items.size());
+        }
+        return productPageService.pageSummaries(buildSpec(filter), toKeyset(sort), cursor, limit);
+    }
+
+    private Specification<Product> buildSpec(ProduitFilter f) {
+        return buildSpec(f.getQ(), f.getCategorieId(), f.getPrixMin(), f.getPrixMax(),
+                f.getNoteMin(), f.getNoteMax(), f.getReviewsMin(), f.getReviewsMax());
+    }
+
+    // ✅ Filtres évalués en mémoire si le store (et l'index texte quand q est présent) sont prêts
+    boolean canUseColumns(ProduitFilter filter) {
+        return productColumnStore.isReady() && (!filter.hasText() || productTextIndex.isReady());
+    }
+
+    Set<Long> textCandidates(ProduitFilter filter) {
+        return filter.hasText() ? productTextIndex.search(filter.getQ()) : null;
+    }
+
+    // Charge les produits par paquets d'ids en conservant l'ordre calculé en mémoire
+    public List<Product> findAllInOrder(List<Long> ids) {
+        Map<Long, Product> byId = new HashMap<>(ids.size() * 2);
+        for (int i = 0; i < ids.size(); i += HYDRATE_CHUNK) {
+            List<Long> chunk = ids.subList(i, Math.min(ids.size(), i + HYDRATE_CHUNK));
+            for (Product p : produitRepository.findAllById(chunk)) {
+                byId.put(p.getId(), p);
+            }
+        }
+        List<Product> ordered = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            Product p = byId.get(id);
+            if (p != null) ordered.add(p);   // supprimé entre-temps
+        }
+        return ordered;
+    }
+
+    public static ProductPageService.Keyset toKeyset(String sort) {
+        return ProductPageService.Keyset.parse(sort,
+                new ProductPageService.Keyset(ProductPageService.SortField.RATING, true));
+    }
+
+    public static Sort toSort(String sort) {
+        if (sort == null) sort = "note_desc";
+        return switch (sort) {
+            case "reviews_desc" -> Sort.by(Sort.Direction.DESC, "ratingCount");
+            case "prix_asc" -> Sort.by(Sort.Direction.ASC, "price");
+            case "prix_desc" -> Sort.by(Sort.Direction.DESC, "price");
+            default -> Sort.by(Sort.Direction.DESC, "rating");
+        };
+    }
+}
@@ -0,0 +1,99 @@
+package org.example.projectjee.services;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.example.projectjee.model.Product;
+import org.example.projectjee.repository.ProduitRepository;
+import org.example.projectjee.spec.ProduitFilter;
+import org.example.projectjee.spec.ProduitSpecifications;
+import org.example.projectjee.util.HnswIndex;
+import org.springframework.stereotype.Service;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Recherche sémantique filtrée : ids classés par l'index local (ou le service
+ * Python), post-filtrés comme {@link ProduitSpecifications}, puis chargés en
+ * une seule requête {@code IN} dans l'ordre du classement.
+ *
+ * Si le post-filtre laisse moins de {@code k} résultats, on redemande plus
+ * d'ids à la source (jusqu'à {@link #MAX_FETCH}). Le post-filtre passe par le
+ * store en colonnes quand il est prêt, donc sans aller-retour base.
+ */
+@Service
+@RequiredArgsConstructor
+public class SemanticProduitService {
+
+    public static final String SOURCE_LOCAL = "local";
+    public static final String SOURCE_PYTHON = "python";
+
+    private static final int MAX_FETCH = ProductVectorIndex.MAX_K;
+    private static final int OVER_FETCH_FACTOR = 4;
+
+    private final ProductVectorIndex productVectorIndex;
+    private final SemanticSearchService semanticSearchService;
+    private final ProductColumnStore productColumnStore;
+    private final ProduitSearchService produitSearchService;
+    private final ProduitRepository produitRepository;
+
+    public List<Product> search(String q, String source, Integer k, ProduitFilter filter) {
+        if (!SOURCE_LOCAL.equals(source) && !SOURCE_PYTHON.equals(source)) {
+            throw new RuntimeException("Source invalide : " + source + " (local ou python)");
+        }
+        int wanted = k == null ? ProductVectorIndex.DEFAULT_K : Math.max(1, Math.min(k, MAX_FETCH));
+        boolean filtered = filter.getCategorieId() != null
+                || filter.getPrixMin() != null || filter.getPrixMax() != null
+                || filter.getNoteMin() != null || filter.getNoteMax() != null
+                || filter.getReviewsMin() != null || filter.getReviewsMax() != null;
+        boolean inMemory = productColumnStore.isReady();
+
+        int fetch = filtered ? Math.min(MAX_FETCH, wanted * 2) : wanted;
+        while (true) {
+            List<Long> ranked = rankedIds(q, source, fetch);
+            boolean exhausted = ranked.size() < fetch || fetch >= MAX_FETCH;
+
+            if (!filtered) {
+                return produitSearchService.findAllInOrder(ranked);
+            }
+            if (inMemory) {
+                List<Long> kept = productColumnStore.retainMatching(filter, ranked);
+                if (kept.size() >= wanted || exhausted) {
+                    return produitSearchService.findAllInOrder(kept.subList(0, Math.min(wanted, kept.size())));
+                }
+            } else {
+                // store pas prêt : filtres et chargement dans la même requête IN
+                List<Product> kept = loadFilteredInOrder(ranked, filter);
+                if (kept.size() >= wanted || exhausted) {
+                    return kept.subList(0, Math.min(wanted, kept.size()));
+                }
+            }
+            fetch = Math.min(MAX_FETCH, fetch * OVER_FETCH_FACTOR);
+        }
+    }
+
+    private List<Long> rankedIds(String q, String source, int n) {
+        if (SOURCE_PYTHON.equals(source)) {
+            return semanticSearchService.searchProductIds(q, n);
+        }
+        return productVectorIndex.search(q, n).stream().map(HnswIndex.Hit::getKey).toList();
+    }
+
+    private List<Product> loadFilteredInOrder(List<Long> ranked, ProduitFilter f) {
+        if (ranked.isEmpty()) return new ArrayList<>();
+        Map<Long, Product> byId = new HashMap<>(ranked.size() * 2);
+        for (Product p : produitRepository.findAll(ProduitSpecifications.withFilters(ranked,
+                f.getCategorieId(), f.getPrixMin(), f.getPrixMax(),
+                f.getNoteMin(), f.getNoteMax(), f.getReviewsMin(), f.getReviewsMax()))) {
+            byId.put(p.getId(), p);
+        }
+        List<Product> ordered = new ArrayList<>(byId.size());
+        for (Long id : ranked) {
+            Product p = byId.get(id);
+            if (p != null) ordered.add(p);
+        }
+        return ordered;
+    }
+}
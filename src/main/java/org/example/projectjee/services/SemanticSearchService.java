@@ -1,51 +1,201 @@
 package org.example.projectjee.services;
 
-import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
-import org.springframework.http.ResponseEntity;
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.example.projectjee.util.CircuitBreaker;
+import org.example.projectjee.util.TextNormalizer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.RestTemplate;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Client du service de recherche sémantique Python (FastAPI + Chroma).
+ *
+ * Protections autour de l'appel distant :
+ * - un HttpClient JDK partagé (connexions keep-alive réutilisées) avec délais de connexion et de lecture ;
+ * - un disjoncteur qui coupe les appels quand le service enchaîne les échecs ;
+ * - une limite d'appels simultanés : au-delà, réponse vide immédiate au lieu d'attendre ;
+ * - un cache des résultats par requête normalisée (durée de vie + taille max).
+ * En cas d'échec, la recherche renvoie une liste vide, comme avant.
+ */
+@Slf4j
 @Service
 public class SemanticSearchService {
 
+    public static final int DEFAULT_RESULTS = 20;
+
     private final RestTemplate restTemplate;
-    private static final String PYTHON_BACKEND_URL = "http://localhost:8000/search";
+    private final String searchUrl;
+    private final String batchUrl;
+    private final CircuitBreaker circuitBreaker;
+    private final Semaphore bulkhead;
+    private final Cache<String, List<Long>> cache;
+    private final AtomicLong rejectedCalls = new AtomicLong();
+
+    public SemanticSearchService(
+            @Value("${semantic.backend.url:http://localhost:8000}") String baseUrl,
+            @Value("${semantic.backend.connect-timeout-ms:500}") long connectTimeoutMs,
+            @Value("${semantic.backend.read-timeout-ms:2000}") long readTimeoutMs,
+            @Value("${semantic.backend.max-concurrent-calls:8}") int maxConcurrentCalls,
+            @Value("${semantic.backend.breaker.failures:5}") int breakerFailures,
+            @Value("${semantic.backend.breaker.open-seconds:30}") long breakerOpenSeconds,
+            @Value("${semantic.backend.cache.ttl-seconds:300}") long cacheTtlSeconds,
+            @Value("${semantic.backend.cache.max-size:1000}") long cacheMaxSize) {
+        HttpClient httpClient = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofMillis(connectTimeoutMs))
+                .version(HttpClient.Version.HTTP_1_1)
+                .build();
+        JdkClientHttpRequestFactory requestFactory = new JdkClientHttpRequestFactory(httpClient);
+        requestFactory.setReadTimeout(Duration.ofMillis(readTimeoutMs));
 
-    public SemanticSearchService() {
-        this.restTemplate = new RestTemplate();
+        this.restTemplate = new RestTemplate(requestFactory);
+        String base = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+        this.searchUrl = base + "/search";
+        this.batchUrl = base + "/search/batch";
+        this.circuitBreaker = new CircuitBreaker(breakerFailures, Duration.ofSeconds(breakerOpenSeconds));
+        this.bulkhead = new Semaphore(maxConcurrentCalls);
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(cacheMaxSize)
+                .expireAfterWrite(Duration.ofSeconds(cacheTtlSeconds))
+                .recordStats()
+                .build();
     }
 
     public List<Long> searchProductIds(String query) {
+        return searchProductIds(query, DEFAULT_RESULTS);
+    }
+
+    public List<Long> searchProductIds(String query, int nResults) {
         if (query == null || query.trim().isEmpty()) {
             return Collections.emptyList();
         }
+        String key = cacheKey(query, nResults);
+        List<Long> cached = cache.getIfPresent(key);
+        if (cached != null) {
+            return cached;
+        }
 
-        try {
-            // Construit le body pour l'API Python
-            Map<String, Object> requestBody = Map.of(
-                    "query", query,
-                    "n_results", 20);
-
-            ResponseEntity<Map> response = restTemplate.postForEntity(
-                    PYTHON_BACKEND_URL,
-                    requestBody,
-                    Map.class);
-
-            if (response.getBody() != null && response.getBody().containsKey("product_ids")) {
-                List<Integer> ids = (List<Integer>) response.getBody().get("product_ids");
-                return ids.stream()
-                        .map(Long::valueOf)
-                        .collect(Collectors.toList());
+        Map<String, Object> response = call(searchUrl, Map.of(
+                "query", query,
+                "n_results", nResults));
+        if (response == null) {
+            return Collections.emptyList();
+        }
+        List<Long> ids = toIds(response.get("product_ids"));
+        cache.put(key, ids);
+        return ids;
+    }
+
+    /**
+     * Plusieurs requêtes en un seul appel ({@code POST /search/batch}), derrière
+     * les mêmes protections que {@link #searchProductIds}. Les requêtes déjà en
+     * cache sont servies localement ; les autres partent ensemble, une fois par
+     * forme normalisée. En cas de refus ou d'échec, ces dernières reçoivent une
+     * liste vide, non mise en cache. Résultat dans l'ordre des requêtes.
+     */
+    public Map<String, List<Long>> searchProductIdsBatch(List<String> queries, int nResults) {
+        Map<String, List<Long>> byKey = new HashMap<>();
+        Map<String, String> toSend = new LinkedHashMap<>();   // clé de cache -> première requête de cette forme
+        for (String q : queries) {
+            if (q == null || q.trim().isEmpty()) continue;
+            String key = cacheKey(q, nResults);
+            if (byKey.containsKey(key) || toSend.containsKey(key)) continue;
+            List<Long> cached = cache.getIfPresent(key);
+            if (cached != null) {
+                byKey.put(key, cached);
+            } else {
+                toSend.put(key, q);
             }
+        }
+
+        if (!toSend.isEmpty()) {
+            Map<String, Object> response = call(batchUrl, Map.of(
+                    "queries", new ArrayList<>(toSend.values()),
+                    "n_results", nResults));
+            if (response != null && response.get("results") instanceof List<?> rows) {
+                for (Object row : rows) {
+                    if (!(row instanceof Map<?, ?> r) || !(r.get("query") instanceof String q)) continue;
+                    String key = cacheKey(q, nResults);
+                    if (!toSend.containsKey(key)) continue;
+                    List<Long> ids = toIds(r.get("product_ids"));
+                    byKey.put(key, ids);
+                    cache.put(key, ids);
+                }
+            }
+        }
 
+        Map<String, List<Long>> results = new LinkedHashMap<>();
+        for (String q : queries) {
+            results.put(q, q == null || q.trim().isEmpty() ? Collections.emptyList()
+                    : byKey.getOrDefault(cacheKey(q, nResults), Collections.emptyList()));
+        }
+        return results;
+    }
+
+    // ✅ Appel protégé : limite de concurrence puis disjoncteur ; null en cas de refus ou d'échec
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> call(String url, Map<String, Object> body) {
+        if (!bulkhead.tryAcquire()) {
+            rejectedCalls.incrementAndGet();
+            log.warn("Trop d'appels simultanés au service sémantique, requête ignorée");
+            return null;
+        }
+        if (!circuitBreaker.tryAcquire()) {
+            bulkhead.release();
+            log.debug("Service sémantique coupé (disjoncteur ouvert), appel ignoré");
+            return null;
+        }
+        try {
+            Map<String, Object> response = restTemplate.postForObject(url, body, Map.class);
+            circuitBreaker.onSuccess();
+            return response;
         } catch (Exception e) {
-            e.printStackTrace();
-            System.err.println("Erreur lors de l'appel au service sémantique Python: " + e.getMessage());
+            circuitBreaker.onFailure();
+            log.warn("Erreur lors de l'appel au service sémantique Python ({}) : {}", url, e.getMessage());
+            return null;
+        } finally {
+            bulkhead.release();
         }
+    }
+
+    /** État du client pour /api/produits/cache/stats : disjoncteur, appels refusés, cache. */
+    public Map<String, Object> stats() {
+        CacheStats s = cache.stats();
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("circuit", circuitBreaker.state().name());
+        out.put("rejectedCalls", rejectedCalls.get());
+        out.put("cacheSize", cache.estimatedSize());
+        out.put("cacheHits", s.hitCount());
+        out.put("cacheMisses", s.missCount());
+        return out;
+    }
+
+    private static String cacheKey(String query, int nResults) {
+        return nResults + "|" + TextNormalizer.normalize(query);
+    }
 
-        return Collections.emptyList();
+    private static List<Long> toIds(Object raw) {
+        if (!(raw instanceof List<?> list)) return Collections.emptyList();
+        List<Long> ids = new ArrayList<>(list.size());
+        for (Object o : list) {
+            if (o instanceof Number n) ids.add(n.longValue());
+        }
+        return Collections.unmodifiableList(ids);
     }
 }
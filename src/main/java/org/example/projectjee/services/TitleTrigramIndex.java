@@ -0,0 +1,235 @@
+package org.example.projectjee.services;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.example.projectjee.events.ProductChangedEvent;
+import org.example.projectjee.model.Product;
+import org.example.projectjee.repository.ProduitRepository;
+import org.example.projectjee.util.Levenshtein;
+import org.example.projectjee.util.TextNormalizer;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Recherche tolérante aux fautes sur les titres ("echo dott", "fire tv stik").
+ *
+ * Deux niveaux : trigramme -> mots du vocabulaire des titres, puis mot -> produits.
+ * Pour chaque mot de la requête, les mots candidats sont ceux qui partagent assez
+ * de trigrammes (borne du q-gramme pour la distance autorisée), puis chaque
+ * candidat est vérifié par une distance d'édition bornée. Le coût dépend du
+ * vocabulaire touché par les trigrammes, pas du nombre de produits. Quand la
+ * borne ne filtre rien (mots de 3 ou 6 lettres), on parcourt les mots du
+ * vocabulaire de longueur proche.
+ */
+@Slf4j
+@Service
+public class TitleTrigramIndex {
+
+    private static final int LOAD_BATCH = 5000;
+
+    private final ProduitRepository produitRepository;
+
+    private final Map<String, Set<String>> wordsByTrigram = new HashMap<>();
+    private final Map<Integer, Set<String>> wordsByLength = new HashMap<>();
+    private final Map<String, Set<Long>> productsByWord = new HashMap<>();
+    private final Map<Long, Set<String>> wordsByProduct = new HashMap<>();
+
+    private volatile boolean ready = false;
+
+    public TitleTrigramIndex(ProduitRepository produitRepository) {
+        this.produitRepository = produitRepository;
+    }
+
+    /** Un produit trouvé et la somme des distances d'édition de ses mots. */
+    public static final class Match {
+        private final long productId;
+        private final int distance;
+
+        Match(long productId, int distance) {
+            this.productId = productId;
+            this.distance = distance;
+        }
+
+        public long getProductId() {
+            return productId;
+        }
+
+        public int getDistance() {
+            return distance;
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuild() {
+        ready = false;
+        wordsByTrigram.clear();
+        wordsByLength.clear();
+        productsByWord.clear();
+        wordsByProduct.clear();
+
+        long afterId = 0L;
+        List<Object[]> rows;
+        do {
+            rows = produitRepository.findSuggestRowsAfter(afterId, PageRequest.of(0, LOAD_BATCH));
+            for (Object[] r : rows) {
+                Long id = (Long) r[0];
+                index(id, (String) r[1]);
+                afterId = id;
+            }
+        } while (rows.size() == LOAD_BATCH);
+
+        ready = true;
+        log.info("Index trigrammes construit : {} titres, {} mots", wordsByProduct.size(), productsByWord.size());
+    }
+
+    @Order(CatalogVersion.INDEX_ORDER)
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onProductChanged(ProductChangedEvent event) {
+        if (event.isDelete()) {
+            remove(event.getProductId());
+        } else {
+            Product p = event.getProduct();
+            index(p.getId(), p.getTitle());
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Produits dont le titre contient, pour chaque mot de {@code keyword}, un mot
+     * à distance d'édition autorisée (0 jusqu'à 2 lettres, 1 jusqu'à 5, 2 au-delà).
+     * Triés par distance totale croissante.
+     */
+    public synchronized List<Match> search(String keyword) {
+        List<String> tokens = new ArrayList<>(new LinkedHashSet<>(TextNormalizer.tokenize(keyword)));
+        if (tokens.isEmpty()) return Collections.emptyList();
+
+        Map<Long, Integer> total = null;
+        for (String token : tokens) {
+            Map<Long, Integer> perProduct = new HashMap<>();
+            for (Map.Entry<String, Integer> w : similarWords(token).entrySet()) {
+                for (Long id : productsByWord.get(w.getKey())) {
+                    perProduct.merge(id, w.getValue(), Math::min);
+                }
+            }
+            if (total == null) {
+                total = perProduct;
+            } else {
+                Map<Long, Integer> next = new HashMap<>();
+                for (Map.Entry<Long, Integer> e : total.entrySet()) {
+                    Integer d = perProduct.get(e.getKey());
+                    if (d != null) next.put(e.getKey(), e.getValue() + d);
+                }
+                total = next;
+            }
+            if (total.isEmpty()) return Collections.emptyList();
+        }
+
+        List<Match> out = new ArrayList<>(total.size());
+        total.forEach((id, d) -> out.add(new Match(id, d)));
+        out.sort((a, b) -> a.distance != b.distance
+                ? Integer.compare(a.distance, b.distance)
+                : Long.compare(a.productId, b.productId));
+        return out;
+    }
+
+    // mots du vocabulaire à distance <= maxEdits(token), avec leur distance
+    private Map<String, Integer> similarWords(String token) {
+        int maxEdits = maxEdits(token);
+        Set<String> grams = trigrams(token);
+
+        // une édition détruit au plus 3 trigrammes
+        int minShared = grams.size() - 3 * maxEdits;
+        Map<String, Integer> result = new HashMap<>();
+        if (minShared <= 0) {
+            // borne nulle (mots de 3 ou 6 lettres) : un mot proche peut ne partager aucun
+            // trigramme ("eld" / "ead"), on vérifie tous les mots de longueur compatible
+            for (int len = token.length() - maxEdits; len <= token.length() + maxEdits; len++) {
+                for (String w : wordsByLength.getOrDefault(len, Collections.emptySet())) {
+                    int d = Levenshtein.bounded(token, w, maxEdits);
+                    if (d <= maxEdits) result.put(w, d);
+                }
+            }
+            return result;
+        }
+
+        Map<String, Integer> shared = new HashMap<>();
+        for (String g : grams) {
+            Set<String> words = wordsByTrigram.get(g);
+            if (words == null) continue;
+            for (String w : words) shared.merge(w, 1, Integer::sum);
+        }
+        for (Map.Entry<String, Integer> e : shared.entrySet()) {
+            if (e.getValue() < minShared) continue;
+            int d = Levenshtein.bounded(token, e.getKey(), maxEdits);
+            if (d <= maxEdits) result.put(e.getKey(), d);
+        }
+        return result;
+    }
+
+    private static int maxEdits(String token) {
+        if (token.length() <= 2) return 0;
+        return token.length() <= 5 ? 1 : 2;
+    }
+
+    // trigrammes du mot entouré de '$' : "dot" -> $do, dot, ot$
+    private static Set<String> trigrams(String word) {
+        String padded = "$" + word + "$";
+        Set<String> grams = new LinkedHashSet<>();
+        for (int i = 0; i + 3 <= padded.length(); i++) grams.add(padded.substring(i, i + 3));
+        return grams;
+    }
+
+    private void index(Long id, String title) {
+        if (id == null) return;
+        remove(id);
+        Set<String> words = new HashSet<>(TextNormalizer.tokenize(title));
+        if (words.isEmpty()) return;
+        for (String w : words) {
+            Set<Long> products = productsByWord.computeIfAbsent(w, k -> new HashSet<>());
+            if (products.isEmpty()) {
+                for (String g : trigrams(w)) wordsByTrigram.computeIfAbsent(g, k -> new HashSet<>()).add(w);
+                wordsByLength.computeIfAbsent(w.length(), k -> new HashSet<>()).add(w);
+            }
+            products.add(id);
+        }
+        wordsByProduct.put(id, words);
+    }
+
+    private void remove(Long id) {
+        Set<String> words = wordsByProduct.remove(id);
+        if (words == null) return;
+        for (String w : words) {
+            Set<Long> products = productsByWord.get(w);
+            if (products == null) continue;
+            products.remove(id);
+            if (products.isEmpty()) {
+                productsByWord.remove(w);
+                for (String g : trigrams(w)) {
+                    Set<String> ws = wordsByTrigram.get(g);
+                    if (ws == null) continue;
+                    ws.remove(w);
+                    if (ws.isEmpty()) wordsByTrigram.remove(g);
+                }
+                Set<String> sameLength = wordsByLength.get(w.length());
+                sameLength.remove(w);
+                if (sameLength.isEmpty()) wordsByLength.remove(w.length());
+            }
+        }
+    }
+}
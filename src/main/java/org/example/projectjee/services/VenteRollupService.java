@@ -0,0 +1,100 @@
+package org.example.projectjee.services;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.example.projectjee.model.Order;
+import org.example.projectjee.model.OrderItem;
+import org.example.projectjee.model.Product;
+import org.example.projectjee.repository.VenteJourRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Tient à jour les rollups journaliers des ventes vendeur ({@link VenteJourRepository}).
+ *
+ * {@link #record} est appelé par le passage de commande, dans sa transaction :
+ * les rollups sont validés ou annulés avec la commande. Les lignes sont
+ * d'abord cumulées en mémoire (une commande touche souvent plusieurs fois le
+ * même vendeur) puis écrites par upserts.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class VenteRollupService {
+
+    private final VenteJourRepository venteJourRepository;
+
+    private static final class Cumul {
+        long quantite;
+        double chiffreAffaires;
+        long lignes;
+
+        void add(OrderItem item) {
+            quantite += item.getQuantity();
+            chiffreAffaires += item.getQuantity() * item.getUnitPrice();
+            lignes++;
+        }
+    }
+
+    private record CleProduit(Long vendeurId, Long produitId) {
+    }
+
+    @Transactional
+    public void record(Order order, List<OrderItem> items) {
+        LocalDate jour = order.getCreatedAt().toLocalDate();
+        LocalDateTime heure = order.getCreatedAt().truncatedTo(ChronoUnit.HOURS);
+        Long clientId = order.getUtilisateur().getId();
+
+        Map<Long, Cumul> parVendeur = new HashMap<>();
+        Map<CleProduit, Cumul> parProduit = new HashMap<>();
+        for (OrderItem item : items) {
+            Product p = item.getProduct();
+            if (p == null || p.getUtilisateur() == null) continue;   // produit sans vendeur
+            Long vendeurId = p.getUtilisateur().getId();
+            parVendeur.computeIfAbsent(vendeurId, k -> new Cumul()).add(item);
+            parProduit.computeIfAbsent(new CleProduit(vendeurId, p.getId()), k -> new Cumul()).add(item);
+        }
+
+        parProduit.forEach((cle, c) -> venteJourRepository.addProduit(
+                cle.vendeurId(), cle.produitId(), jour, c.quantite, c.chiffreAffaires, c.lignes));
+        parVendeur.forEach((vendeurId, c) -> {
+            venteJourRepository.addVendeur(vendeurId, jour, c.quantite, c.chiffreAffaires, 1, c.lignes);
+            venteJourRepository.addHeure(vendeurId, heure, c.quantite, c.chiffreAffaires, 1, c.lignes);
+            venteJourRepository.addClient(vendeurId, clientId, jour, c.chiffreAffaires, c.lignes);
+        });
+    }
+
+    /**
+     * Au premier démarrage avec les rollups, reconstruit l'historique depuis
+     * les lignes de commande (une requête GROUP BY par table). Le rollup
+     * horaire, plus récent, a sa propre vérification.
+     */
+    @Transactional
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillIfEmpty() {
+        if (venteJourRepository.countJoursVendeur() == 0) {
+            int jours = venteJourRepository.backfillVendeurs();
+            if (jours > 0) {
+                venteJourRepository.backfillProduits();
+                venteJourRepository.backfillClients();
+                log.info("Rollups de ventes reconstruits depuis l'historique : {} jours vendeur", jours);
+            }
+        }
+        if (venteJourRepository.countHeuresVendeur() == 0) {
+            int heures = venteJourRepository.backfillHeures();
+            if (heures > 0) {
+                log.info("Rollup horaire des ventes reconstruit depuis l'historique : {} heures vendeur", heures);
+            }
+        }
+    }
+}
@@ -0,0 +1,284 @@
+package org.example.projectjee.services;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.IsoFields;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import org.example.projectjee.dto.RevenueBucketDTO;
+import org.example.projectjee.dto.RevenueSeriesDTO;
+import org.example.projectjee.model.VenteHeureVendeur;
+import org.example.projectjee.model.VenteJourVendeur;
+import org.example.projectjee.repository.VenteJourRepository;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Séries temporelles du chiffre d'affaires d'un vendeur, par heure, jour,
+ * semaine (ISO, du lundi au dimanche), mois ou année, sur une plage [from, to[.
+ *
+ * Chaque série est un jeu de tableaux primitifs indexés par numéro
+ * d'intervalle depuis l'epoch (heure = secondes / 3600, jour = epochDay, ...) :
+ * la case d'une vente se calcule, aucune clé texte n'est formatée ni triée.
+ * Les heures viennent du rollup horaire, les jours du rollup journalier ; les
+ * semaines et les mois sont cumulés à partir des jours, les années à partir
+ * des mois. Aucune résolution ne relit les lignes de commande.
+ */
+@Service
+@RequiredArgsConstructor
+public class VenteTimeSeriesService {
+
+    /** Nombre maximal d'intervalles par série en heures et en jours (≈ 14 mois en heures, 27 ans en jours). */
+    public static final int MAX_BUCKETS = 10_000;
+    // jours lus pour dériver semaines, mois et années (≈ 110 ans)
+    private static final int MAX_DERIVED_DAYS = 40_000;
+    // lignes de rollup lues par requête quand on remonte le temps
+    private static final int WALK_BATCH = 1000;
+
+    private final VenteJourRepository venteJourRepository;
+
+    public enum Resolution {
+        HOUR, DAY, WEEK, MONTH, YEAR;
+
+        public static Resolution parse(String value) {
+            for (Resolution r : values()) {
+                if (r.name().equalsIgnoreCase(value)) return r;
+            }
+            throw new RuntimeException("Résolution invalide : " + value + " (hour, day, week, month ou year)");
+        }
+
+        public String label() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+
+        /**
+         * Nombre maximal d'intervalles d'une série dans cette résolution. Semaines,
+         * mois et années sont dérivés des jours : leur plafond est celui des jours
+         * lus, compté au plus long (mois de 31 jours, années de 366 jours).
+         */
+        public int maxBuckets() {
+            return switch (this) {
+                case HOUR, DAY -> MAX_BUCKETS;
+                case WEEK -> MAX_DERIVED_DAYS / 7;
+                case MONTH -> MAX_DERIVED_DAYS / 31;
+                case YEAR -> MAX_DERIVED_DAYS / 366;
+            };
+        }
+
+        /** Numéro de l'intervalle qui contient {@code t}. */
+        public long bucketOf(LocalDateTime t) {
+            return switch (this) {
+                case HOUR -> Math.floorDiv(t.toEpochSecond(ZoneOffset.UTC), 3600L);
+                case DAY -> t.toLocalDate().toEpochDay();
+                // le 1970-01-01 est un jeudi : la semaine 0 commence le lundi 1969-12-29
+                case WEEK -> Math.floorDiv(t.toLocalDate().toEpochDay() + 3, 7L);
+                case MONTH -> (t.getYear() - 1970L) * 12 + t.getMonthValue() - 1;
+                case YEAR -> t.getYear() - 1970L;
+            };
+        }
+
+        /** Début de l'intervalle {@code bucket}. */
+        public LocalDateTime startOf(long bucket) {
+            return switch (this) {
+                case HOUR -> LocalDateTime.ofEpochSecond(bucket * 3600L, 0, ZoneOffset.UTC);
+                case DAY -> LocalDate.ofEpochDay(bucket).atStartOfDay();
+                case WEEK -> LocalDate.ofEpochDay(bucket * 7 - 3).atStartOfDay();
+                case MONTH -> LocalDate.of((int) (1970 + Math.floorDiv(bucket, 12L)),
+                        (int) Math.floorMod(bucket, 12L) + 1, 1).atStartOfDay();
+                case YEAR -> LocalDate.of((int) (1970 + bucket), 1, 1).atStartOfDay();
+            };
+        }
+
+        String format(LocalDateTime start) {
+            return switch (this) {
+                case HOUR -> String.format(Locale.ROOT, "%s %02d:00", start.toLocalDate(), start.getHour());
+                case DAY -> start.toLocalDate().toString();
+                case WEEK -> String.format(Locale.ROOT, "%d-W%02d",
+                        start.get(IsoFields.WEEK_BASED_YEAR), start.get(IsoFields.WEEK_OF_WEEK_BASED_YEAR));
+                case MONTH -> String.format(Locale.ROOT, "%d-%02d", start.getYear(), start.getMonthValue());
+                case YEAR -> Integer.toString(start.getYear());
+            };
+        }
+    }
+
+    /** Série dense : une case par intervalle de la plage, vide ou non. */
+    public static final class Series {
+        private final Resolution resolution;
+        private final long firstBucket;
+        private final double[] revenue;
+        private final long[] orders;
+        private final long[] quantity;
+
+        Series(Resolution resolution, long firstBucket, int size) {
+            this.resolution = resolution;
+            this.firstBucket = firstBucket;
+            this.revenue = new double[size];
+            this.orders = new long[size];
+            this.quantity = new long[size];
+        }
+
+        public Resolution getResolution() {
+            return resolution;
+        }
+
+        public int size() {
+            return revenue.length;
+        }
+
+        public double revenue(int i) {
+            return revenue[i];
+        }
+
+        public long orders(int i) {
+            return orders[i];
+        }
+
+        public long quantity(int i) {
+            return quantity[i];
+        }
+
+        public LocalDateTime start(int i) {
+            return resolution.startOf(firstBucket + i);
+        }
+
+        public String label(int i) {
+            return resolution.format(start(i));
+        }
+
+        public RevenueBucketDTO bucket(int i) {
+            return new RevenueBucketDTO(label(i), start(i), Math.round(revenue[i] * 100.0) / 100.0,
+                    orders[i], quantity[i]);
+        }
+
+        // cumule la case i d'une série plus fine dans la case qui la contient
+        private void addFrom(Series finer, int i) {
+            long bucket = resolution.bucketOf(finer.start(i));
+            int j = (int) (bucket - firstBucket);
+            revenue[j] += finer.revenue[i];
+            orders[j] += finer.orders[i];
+            quantity[j] += finer.quantity[i];
+        }
+    }
+
+    /**
+     * Série du vendeur sur [from, to[. Les intervalles aux bords sont limités à
+     * la plage (une semaine commencée avant {@code from} ne compte que ses jours
+     * à partir de {@code from}) ; heures et jours sont pris en entier.
+     */
+    public Series series(Long vendeurId, Resolution resolution, LocalDateTime from, LocalDateTime to) {
+        if (from == null || to == null || !from.isBefore(to)) {
+            throw new RuntimeException("Les bornes from et to doivent être renseignées, avec from < to");
+        }
+        // ✅ plafond vérifié dans la résolution demandée : les séries dérivées restent dans MAX_DERIVED_DAYS
+        return compute(vendeurId, resolution, from, to, resolution.maxBuckets());
+    }
+
+    private Series compute(Long vendeurId, Resolution resolution, LocalDateTime from, LocalDateTime to, int maxBuckets) {
+        Series series = empty(resolution, from, to, maxBuckets);
+
+        switch (resolution) {
+            case HOUR -> {
+                for (VenteHeureVendeur h : venteJourRepository.findHeuresVendeur(vendeurId,
+                        Resolution.HOUR.startOf(series.firstBucket), Resolution.HOUR.startOf(series.firstBucket + series.size()))) {
+                    int i = (int) (Resolution.HOUR.bucketOf(h.getHeure()) - series.firstBucket);
+                    series.revenue[i] += h.getChiffreAffaires();
+                    series.orders[i] += h.getNbCommandes();
+                    series.quantity[i] += h.getQuantite();
+                }
+            }
+            case DAY -> {
+                LocalDate first = LocalDate.ofEpochDay(series.firstBucket);
+                for (VenteJourVendeur d : venteJourRepository.findJoursVendeur(vendeurId,
+                        first, first.plusDays(series.size()))) {
+                    int i = (int) (d.getJour().toEpochDay() - series.firstBucket);
+                    series.revenue[i] += d.getChiffreAffaires();
+                    series.orders[i] += d.getNbCommandes();
+                    series.quantity[i] += d.getQuantite();
+                }
+            }
+            case WEEK, MONTH -> {
+                Series days = compute(vendeurId, Resolution.DAY, from, to, MAX_DERIVED_DAYS);
+                for (int i = 0; i < days.size(); i++) series.addFrom(days, i);
+            }
+            case YEAR -> {
+                Series months = compute(vendeurId, Resolution.MONTH, from, to, MAX_DERIVED_DAYS);
+                for (int i = 0; i < months.size(); i++) series.addFrom(months, i);
+            }
+        }
+        return series;
+    }
+
+    /**
+     * Les {@code count} derniers intervalles ayant des ventes, jusqu'à celui qui
+     * contient {@code now}, du plus récent au plus ancien. Contrairement à
+     * {@link #series}, aucun plafond de durée : les rollups (horaire, ou
+     * journalier pour les résolutions plus larges) sont relus à rebours par lots
+     * jusqu'au {@code count}-ième intervalle non vide, sans série dense.
+     */
+    public List<RevenueBucketDTO> latestWithSales(Long vendeurId, Resolution resolution, int count, LocalDateTime now) {
+        List<RevenueBucketDTO> out = new ArrayList<>();
+        if (count <= 0) return out;
+
+        LocalDateTime end = resolution.startOf(resolution.bucketOf(now) + 1);
+        Series open = null;   // intervalle en cours de cumul (une seule case)
+        List<RollupRow> rows;
+        do {
+            rows = rowsBefore(vendeurId, resolution == Resolution.HOUR, end);
+            for (RollupRow r : rows) {
+                end = r.start();
+                if (r.orders() == 0) continue;
+                long bucket = resolution.bucketOf(r.start());
+                if (open == null || bucket != open.firstBucket) {
+                    if (open != null) out.add(open.bucket(0));
+                    if (out.size() == count) return out;
+                    open = new Series(resolution, bucket, 1);
+                }
+                open.revenue[0] += r.revenue();
+                open.orders[0] += r.orders();
+                open.quantity[0] += r.quantity();
+            }
+        } while (rows.size() == WALK_BATCH);
+
+        if (open != null) out.add(open.bucket(0));
+        return out;
+    }
+
+    private record RollupRow(LocalDateTime start, double revenue, long orders, long quantity) {
+    }
+
+    // un lot de lignes de rollup avant "end", de la plus récente à la plus ancienne
+    private List<RollupRow> rowsBefore(Long vendeurId, boolean hours, LocalDateTime end) {
+        PageRequest batch = PageRequest.of(0, WALK_BATCH);
+        if (hours) {
+            return venteJourRepository.findHeuresVendeurAvant(vendeurId, end, batch).stream()
+                    .map(h -> new RollupRow(h.getHeure(), h.getChiffreAffaires(), h.getNbCommandes(), h.getQuantite()))
+                    .toList();
+        }
+        return venteJourRepository.findJoursVendeurAvant(vendeurId, end.toLocalDate(), batch).stream()
+                .map(d -> new RollupRow(d.getJour().atStartOfDay(), d.getChiffreAffaires(), d.getNbCommandes(),
+                        d.getQuantite()))
+                .toList();
+    }
+
+    public RevenueSeriesDTO toDTO(Series series, LocalDateTime from, LocalDateTime to) {
+        List<RevenueBucketDTO> buckets = new ArrayList<>(series.size());
+        for (int i = 0; i < series.size(); i++) buckets.add(series.bucket(i));
+        return new RevenueSeriesDTO(series.getResolution().label(), from, to, buckets);
+    }
+
+    private static Series empty(Resolution resolution, LocalDateTime from, LocalDateTime to, int maxBuckets) {
+        long first = resolution.bucketOf(from);
+        long last = resolution.bucketOf(to.minusNanos(1));
+        long size = last - first + 1;
+        if (size > maxBuckets) {
+            throw new RuntimeException("La plage ne peut pas dépasser " + maxBuckets + " intervalles en résolution "
+                    + resolution.label() + " (demandé : " + size + ")");
+        }
+        return new Series(resolution, first, (int) size);
+    }
+}
@@ -0,0 +1,31 @@
+package org.example.projectjee.spec;
+
+import java.math.BigDecimal;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Les arguments de {@link ProduitSpecifications#withFilters} regroupés en un objet,
+ * pour les chemins qui évaluent les filtres hors base (index en mémoire).
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProduitFilter {
+    private String q;
+    private Long categorieId;
+    private BigDecimal prixMin;
+    private BigDecimal prixMax;
+    private BigDecimal noteMin;
+    private BigDecimal noteMax;
+    private Integer reviewsMin;
+    private Integer reviewsMax;
+
+    public boolean hasText() {
+        return q != null && !q.trim().isEmpty();
+    }
+}
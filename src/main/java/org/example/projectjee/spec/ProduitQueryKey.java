@@ -0,0 +1,50 @@
+package org.example.projectjee.spec;
+
+import java.math.BigDecimal;
+import java.util.Locale;
+
+import lombok.Value;
+
+/**
+ * Clé de cache d'une requête produits : les arguments de
+ * {@link ProduitSpecifications#withFilters} mis sous forme canonique
+ * (q en minuscules sans espaces autour, décimaux sans zéros de fin, chaînes
+ * vides = absentes) + tri, pagination, vue, et version du catalogue.
+ * "prixMin=10" et "prixMin=10.00" donnent ainsi la même clé.
+ */
+@Value
+public class ProduitQueryKey {
+    String endpoint;
+    long catalogVersion;
+    String q;
+    Long categorieId;
+    BigDecimal prixMin;
+    BigDecimal prixMax;
+    BigDecimal noteMin;
+    BigDecimal noteMax;
+    Integer reviewsMin;
+    Integer reviewsMax;
+    String sort;
+    String cursor;
+    Integer limit;
+    String view;
+
+    public static ProduitQueryKey of(String endpoint, long catalogVersion, ProduitFilter f,
+                                     String sort, String cursor, Integer limit, String view) {
+        return new ProduitQueryKey(endpoint, catalogVersion,
+                f.hasText() ? f.getQ().trim().toLowerCase(Locale.ROOT) : null,
+                f.getCategorieId(),
+                canonical(f.getPrixMin()), canonical(f.getPrixMax()),
+                canonical(f.getNoteMin()), canonical(f.getNoteMax()),
+                f.getReviewsMin(), f.getReviewsMax(),
+                blankToNull(sort), blankToNull(cursor), limit, blankToNull(view));
+    }
+
+    private static BigDecimal canonical(BigDecimal v) {
+        return v == null ? null : v.stripTrailingZeros();
+    }
+
+    private static String blankToNull(String s) {
+        return s == null || s.isBlank() ? null : s.trim();
+    }
+}
@@ -1,12 +1,20 @@
 package org.example.projectjee.spec;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 
 import org.example.projectjee.model.Product;
 import org.springframework.data.jpa.domain.Specification;
 
+import jakarta.persistence.criteria.Predicate;
+
 public class ProduitSpecifications {
 
+    // ids liés par liste IN : au-delà, plusieurs listes reliées par OR
+    static final int IN_CHUNK = 1000;
+
     public static Specification<Product> withFilters(
             String q,
             Long categorieId,
@@ -71,4 +79,41 @@ public class ProduitSpecifications {
             return p;
         };
     }
+
+    /**
+     * Variante où {@code q} a déjà été résolu en ids candidats par l'index texte :
+     * le filtre texte devient un {@code id IN (...)} au lieu d'un LIKE sur la table.
+     * Les grandes listes sont découpées en {@code id IN (...) OR id IN (...)}
+     * de {@link #IN_CHUNK} ids chacune.
+     */
+    public static Specification<Product> withFilters(
+            Collection<Long> candidateIds,
+            Long categorieId,
+            BigDecimal prixMin,
+            BigDecimal prixMax,
+            BigDecimal noteMin,
+            BigDecimal noteMax,
+            Integer reviewsMin,
+            Integer reviewsMax) {
+        Specification<Product> others = withFilters((String) null,
+                categorieId, prixMin, prixMax, noteMin, noteMax, reviewsMin, reviewsMax);
+        return (root, query, cb) -> {
+            if (candidateIds.isEmpty()) {
+                return cb.disjunction();
+            }
+            List<Long> ids = new ArrayList<>(candidateIds);
+            List<Predicate> chunks = new ArrayList<>(ids.size() / IN_CHUNK + 1);
+            for (int i = 0; i < ids.size(); i += IN_CHUNK) {
+                chunks.add(root.get("id").in(ids.subList(i, Math.min(ids.size(), i + IN_CHUNK))));
+            }
+            Predicate idIn = chunks.size() == 1 ? chunks.get(0) : cb.or(chunks.toArray(new Predicate[0]));
+            return cb.and(others.toPredicate(root, query, cb), idIn);
+        };
+    }
+
+    // 🔎 Équivalent de findByTitleContainingIgnoreCase, pour les projections
+    public static Specification<Product> titleContains(String keyword) {
+        return (root, query, cb) -> cb.like(cb.lower(root.get("title")),
+                "%" + keyword.toLowerCase() + "%");
+    }
 }
@@ -0,0 +1,76 @@
+package org.example.projectjee.util;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Filtre de Bloom sur des chaînes : "absent" est certain, "présent" peut être
+ * un faux positif (taux ≈ {@code fpp} tant qu'on reste sous {@code expected}).
+ *
+ * Les {@code k} positions viennent d'un seul hachage 64 bits découpé en deux
+ * moitiés (h1 + i * h2, Kirsch-Mitzenmacher). Pas de suppression possible :
+ * l'appelant reconstruit le filtre quand il devient trop chargé.
+ * Non thread-safe.
+ */
+public final class BloomFilter {
+
+    private final long[] words;
+    private final long bitCount;
+    private final int hashCount;
+    private final long expected;
+    private long inserted = 0;
+
+    public BloomFilter(long expected, double fpp) {
+        this.expected = Math.max(1, expected);
+        long m = (long) Math.ceil(-this.expected * Math.log(fpp) / (Math.log(2) * Math.log(2)));
+        m = Math.max(64, m);
+        this.words = new long[(int) ((m + 63) >>> 6)];
+        this.bitCount = (long) words.length << 6;
+        this.hashCount = Math.max(1, (int) Math.round((double) bitCount / this.expected * Math.log(2)));
+    }
+
+    public void put(String value) {
+        long h = hash(value);
+        int h1 = (int) h;
+        int h2 = (int) (h >>> 32);
+        for (int i = 1; i <= hashCount; i++) {
+            long bit = ((h1 + (long) i * h2) & Long.MAX_VALUE) % bitCount;
+            words[(int) (bit >>> 6)] |= 1L << bit;
+        }
+        inserted++;
+    }
+
+    public boolean mightContain(String value) {
+        long h = hash(value);
+        int h1 = (int) h;
+        int h2 = (int) (h >>> 32);
+        for (int i = 1; i <= hashCount; i++) {
+            long bit = ((h1 + (long) i * h2) & Long.MAX_VALUE) % bitCount;
+            if ((words[(int) (bit >>> 6)] & (1L << bit)) == 0) return false;
+        }
+        return true;
+    }
+
+    /** true quand on a inséré plus que prévu : le taux de faux positifs dérive. */
+    public boolean isSaturated() {
+        return inserted > expected;
+    }
+
+    public long getInserted() {
+        return inserted;
+    }
+
+    // FNV-1a 64 bits sur l'UTF-8, suivi du mélange final de murmur3
+    private static long hash(String value) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            h ^= b & 0xff;
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
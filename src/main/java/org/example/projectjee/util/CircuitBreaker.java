@@ -0,0 +1,64 @@
+package org.example.projectjee.util;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+
+/**
+ * Disjoncteur minimal pour un service distant.
+ *
+ * FERMÉ : les appels passent ; après {@code failureThreshold} échecs consécutifs
+ * il s'OUVRE et refuse tout appel pendant {@code openDuration}. Ensuite un seul
+ * appel d'essai est autorisé (SEMI-OUVERT) : succès = refermé, échec = rouvert.
+ */
+public final class CircuitBreaker {
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private final int failureThreshold;
+    private final long openNanos;
+    private final LongSupplier clock;
+
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+    private final AtomicBoolean trialInFlight = new AtomicBoolean();
+    private volatile long openedAt = -1L;   // -1 = fermé
+
+    public CircuitBreaker(int failureThreshold, Duration openDuration) {
+        this(failureThreshold, openDuration, System::nanoTime);
+    }
+
+    CircuitBreaker(int failureThreshold, Duration openDuration, LongSupplier clock) {
+        this.failureThreshold = failureThreshold;
+        this.openNanos = openDuration.toNanos();
+        this.clock = clock;
+    }
+
+    /** true si l'appel peut partir ; l'appelant doit ensuite signaler le résultat. */
+    public boolean tryAcquire() {
+        long opened = openedAt;
+        if (opened < 0) return true;
+        if (clock.getAsLong() - opened < openNanos) return false;
+        // délai écoulé : un seul appel d'essai à la fois
+        return trialInFlight.compareAndSet(false, true);
+    }
+
+    public void onSuccess() {
+        consecutiveFailures.set(0);
+        openedAt = -1L;
+        trialInFlight.set(false);
+    }
+
+    public void onFailure() {
+        if (openedAt >= 0 || consecutiveFailures.incrementAndGet() >= failureThreshold) {
+            openedAt = clock.getAsLong();
+        }
+        trialInFlight.set(false);
+    }
+
+    public State state() {
+        long opened = openedAt;
+        if (opened < 0) return State.CLOSED;
+        return clock.getAsLong() - opened < openNanos ? State.OPEN : State.HALF_OPEN;
+    }
+}
@@ -0,0 +1,396 @@
+package org.example.projectjee.util;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.SplittableRandom;
+
+/**
+ * Index HNSW (Hierarchical Navigable Small World) pour la recherche des plus
+ * proches voisins en similarité cosinus. Les vecteurs doivent être normalisés
+ * (norme 1) : la distance est alors {@code 1 - produit scalaire}.
+ *
+ * Chaque nœud porte une clé {@code long} (id produit). Remplacer ou retirer une
+ * clé marque l'ancien nœud comme supprimé ; il reste un point de passage du
+ * graphe mais n'apparaît plus dans les résultats ({@link #deletedRatio()} dit
+ * quand reconstruire).
+ *
+ * Non thread-safe : l'appelant synchronise (lectures concurrentes possibles).
+ */
+public final class HnswIndex {
+
+    private static final int MAGIC = 0x484E5357; // "HNSW"
+    private static final int FORMAT_VERSION = 1;
+
+    public static final class Hit {
+        private final long key;
+        private final float score;
+
+        Hit(long key, float score) {
+            this.key = key;
+            this.score = score;
+        }
+
+        public long getKey() {
+            return key;
+        }
+
+        /** Similarité cosinus, 1 = identique. */
+        public float getScore() {
+            return score;
+        }
+    }
+
+    private final int dimension;
+    private final int m;
+    private final int mMax0;
+    private final int efConstruction;
+    private final double levelMultiplier;
+    private final SplittableRandom random;
+
+    private float[][] vectors = new float[0][];
+    private long[] keys = new long[0];
+    private int[] levels = new int[0];
+    private int[][][] links = new int[0][][];   // links[nœud][niveau] = {nb, voisin1, voisin2...}
+    private int size = 0;
+
+    private final BitSet deleted = new BitSet();
+    private final Map<Long, Integer> nodeByKey = new HashMap<>();
+    private int entryPoint = -1;
+    private int maxLevel = -1;
+
+    public HnswIndex(int dimension, int m, int efConstruction) {
+        this.dimension = dimension;
+        this.m = m;
+        this.mMax0 = m * 2;
+        this.efConstruction = efConstruction;
+        this.levelMultiplier = 1.0 / Math.log(m);
+        this.random = new SplittableRandom(42);
+    }
+
+    public int dimension() {
+        return dimension;
+    }
+
+    /** Nombre de clés vivantes. */
+    public int size() {
+        return nodeByKey.size();
+    }
+
+    public boolean contains(long key) {
+        return nodeByKey.containsKey(key);
+    }
+
+    public long[] keys() {
+        return nodeByKey.keySet().stream().mapToLong(Long::longValue).toArray();
+    }
+
+    public double deletedRatio() {
+        return size == 0 ? 0.0 : (double) deleted.cardinality() / size;
+    }
+
+    public void remove(long key) {
+        Integer node = nodeByKey.remove(key);
+        if (node != null) deleted.set(node);
+    }
+
+    public void add(long key, float[] vector) {
+        if (vector.length != dimension) {
+            throw new IllegalArgumentException("dimension " + vector.length + " != " + dimension);
+        }
+        remove(key);
+
+        int level = (int) (-Math.log(1.0 - random.nextDouble()) * levelMultiplier);
+        int node = allocate(key, vector, level);
+
+        if (entryPoint < 0) {
+            entryPoint = node;
+            maxLevel = level;
+            return;
+        }
+
+        int ep = entryPoint;
+        for (int l = maxLevel; l > level; l--) {
+            ep = greedyClosest(vector, ep, l);
+        }
+        for (int l = Math.min(level, maxLevel); l >= 0; l--) {
+            List<int[]> candidates = searchLayer(vector, ep, efConstruction, l);   // {nœud, distance bits}
+            int maxLinks = l == 0 ? mMax0 : m;
+            int[] selected = closest(candidates, m);
+            for (int neighbour : selected) {
+                addLink(node, neighbour, l, maxLinks);
+                addLink(neighbour, node, l, maxLinks);
+            }
+            ep = selected.length > 0 ? selected[0] : ep;
+        }
+        if (level > maxLevel) {
+            entryPoint = node;
+            maxLevel = level;
+        }
+    }
+
+    /** Les {@code k} clés vivantes les plus proches de {@code query}, de la plus proche à la moins proche. */
+    public List<Hit> search(float[] query, int k, int ef) {
+        if (entryPoint < 0 || k <= 0) return Collections.emptyList();
+        int ep = entryPoint;
+        for (int l = maxLevel; l > 0; l--) {
+            ep = greedyClosest(query, ep, l);
+        }
+        // les nœuds supprimés occupent des places dans la liste : on élargit d'autant
+        int width = Math.max(ef, k) + Math.min(deleted.cardinality(), Math.max(ef, k));
+        List<int[]> found = searchLayer(query, ep, width, 0);
+
+        List<Hit> hits = new ArrayList<>(k);
+        for (int[] c : found) {
+            if (deleted.get(c[0])) continue;
+            hits.add(new Hit(keys[c[0]], 1f - Float.intBitsToFloat(c[1])));
+            if (hits.size() == k) break;
+        }
+        return hits;
+    }
+
+    /** Nouvel index contenant seulement les clés vivantes (les nœuds supprimés disparaissent du graphe). */
+    public HnswIndex compacted() {
+        HnswIndex copy = emptyCopy();
+        for (int n = 0; n < size; n++) {
+            if (!deleted.get(n)) copy.add(keys[n], vectors[n]);
+        }
+        return copy;
+    }
+
+    /** Index vide avec les mêmes paramètres (reconstruction hors verrou, voir ProductVectorIndex). */
+    public HnswIndex emptyCopy() {
+        return new HnswIndex(dimension, m, efConstruction);
+    }
+
+    /**
+     * Vecteur d'une clé vivante, null si absente. Le tableau n'est plus modifié
+     * après {@link #add} : il peut être lu hors verrou et ajouté à un autre index.
+     */
+    public float[] vector(long key) {
+        Integer node = nodeByKey.get(key);
+        return node == null ? null : vectors[node];
+    }
+
+    // ========== GRAPHE ==========
+
+    private int allocate(long key, float[] vector, int level) {
+        if (size == vectors.length) {
+            int capacity = Math.max(256, size * 2);
+            vectors = Arrays.copyOf(vectors, capacity);
+            keys = Arrays.copyOf(keys, capacity);
+            levels = Arrays.copyOf(levels, capacity);
+            links = Arrays.copyOf(links, capacity);
+        }
+        int node = size++;
+        vectors[node] = vector;
+        keys[node] = key;
+        levels[node] = level;
+        links[node] = new int[level + 1][];
+        for (int l = 0; l <= level; l++) {
+            links[node][l] = new int[(l == 0 ? mMax0 : m) + 1];
+        }
+        nodeByKey.put(key, node);
+        return node;
+    }
+
+    private int greedyClosest(float[] q, int ep, int level) {
+        int current = ep;
+        float best = distance(q, vectors[current]);
+        boolean improved = true;
+        while (improved) {
+            improved = false;
+            int[] l = links[current][level];
+            for (int i = 1; i <= l[0]; i++) {
+                float d = distance(q, vectors[l[i]]);
+                if (d < best) {
+                    best = d;
+                    current = l[i];
+                    improved = true;
+                }
+            }
+        }
+        return current;
+    }
+
+    // recherche en faisceau sur un niveau ; renvoie {nœud, bits de la distance} triés par distance croissante
+    private List<int[]> searchLayer(float[] q, int ep, int ef, int level) {
+        BitSet visited = new BitSet(size);
+        PriorityQueue<int[]> candidates = new PriorityQueue<>((a, b) -> Float.compare(dist(a), dist(b)));
+        PriorityQueue<int[]> results = new PriorityQueue<>((a, b) -> Float.compare(dist(b), dist(a)));
+
+        int[] start = { ep, Float.floatToIntBits(distance(q, vectors[ep])) };
+        visited.set(ep);
+        candidates.add(start);
+        results.add(start);
+
+        while (!candidates.isEmpty()) {
+            int[] c = candidates.poll();
+            if (dist(c) > dist(results.peek()) && results.size() >= ef) break;
+
+            int[] l = level < links[c[0]].length ? links[c[0]][level] : null;
+            if (l == null) continue;
+            for (int i = 1; i <= l[0]; i++) {
+                int n = l[i];
+                if (visited.get(n)) continue;
+                visited.set(n);
+                float d = distance(q, vectors[n]);
+                if (results.size() < ef || d < dist(results.peek())) {
+                    int[] e = { n, Float.floatToIntBits(d) };
+                    candidates.add(e);
+                    results.add(e);
+                    if (results.size() > ef) results.poll();
+                }
+            }
+        }
+
+        List<int[]> sorted = new ArrayList<>(results);
+        sorted.sort((a, b) -> Float.compare(dist(a), dist(b)));
+        return sorted;
+    }
+
+    private static int[] closest(List<int[]> sortedCandidates, int n) {
+        int count = Math.min(n, sortedCandidates.size());
+        int[] out = new int[count];
+        for (int i = 0; i < count; i++) out[i] = sortedCandidates.get(i)[0];
+        return out;
+    }
+
+    private void addLink(int from, int to, int level, int maxLinks) {
+        int[] l = links[from][level];
+        for (int i = 1; i <= l[0]; i++) {
+            if (l[i] == to) return;
+        }
+        if (l[0] < maxLinks) {
+            l[++l[0]] = to;
+            return;
+        }
+        // liste pleine : on garde les maxLinks voisins les plus proches de "from"
+        float[] base = vectors[from];
+        int worst = -1;
+        float worstDistance = distance(base, vectors[to]);
+        for (int i = 1; i <= l[0]; i++) {
+            float d = distance(base, vectors[l[i]]);
+            if (d > worstDistance) {
+                worstDistance = d;
+                worst = i;
+            }
+        }
+        if (worst > 0) l[worst] = to;
+    }
+
+    private static float dist(int[] e) {
+        return Float.intBitsToFloat(e[1]);
+    }
+
+    private static float distance(float[] a, float[] b) {
+        float dot = 0f;
+        for (int i = 0; i < a.length; i++) dot += a[i] * b[i];
+        return 1f - dot;
+    }
+
+    // ========== PERSISTANCE ==========
+
+    /**
+     * Écrit l'index dans {@code file} via un fichier mappé en mémoire
+     * (écriture dans un fichier temporaire puis renommage atomique).
+     * {@code tag} identifie le fournisseur d'embeddings qui a produit les vecteurs.
+     */
+    public void save(Path file, String tag) throws IOException {
+        byte[] tagBytes = tag.getBytes(StandardCharsets.UTF_8);
+        long bytes = 4L * 8 + 4 + tagBytes.length;
+        for (int n = 0; n < size; n++) {
+            bytes += 8 + 1 + 4 + 4L * dimension;
+            for (int[] l : links[n]) bytes += 4L * (l[0] + 1);
+        }
+
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) Files.createDirectories(parent);
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            MappedByteBuffer buf = ch.map(FileChannel.MapMode.READ_WRITE, 0, bytes);
+            buf.putInt(MAGIC).putInt(FORMAT_VERSION).putInt(dimension).putInt(m)
+                    .putInt(efConstruction).putInt(size).putInt(entryPoint).putInt(maxLevel);
+            buf.putInt(tagBytes.length).put(tagBytes);
+            for (int n = 0; n < size; n++) {
+                buf.putLong(keys[n]).put((byte) (deleted.get(n) ? 1 : 0)).putInt(levels[n]);
+                for (float f : vectors[n]) buf.putFloat(f);
+                for (int[] l : links[n]) {
+                    buf.putInt(l[0]);
+                    for (int i = 1; i <= l[0]; i++) buf.putInt(l[i]);
+                }
+            }
+            buf.force();
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Relit un index écrit par {@link #save}. Renvoie null si le fichier est absent,
+     * d'un autre format, ou produit par un autre fournisseur d'embeddings.
+     */
+    public static HnswIndex load(Path file, String expectedTag, int expectedDimension) throws IOException {
+        if (!Files.isRegularFile(file)) return null;
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer buf = ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+            if (buf.remaining() < 36 || buf.getInt() != MAGIC || buf.getInt() != FORMAT_VERSION) return null;
+            int dimension = buf.getInt();
+            int m = buf.getInt();
+            int efConstruction = buf.getInt();
+            int size = buf.getInt();
+            int entryPoint = buf.getInt();
+            int maxLevel = buf.getInt();
+            byte[] tagBytes = new byte[buf.getInt()];
+            buf.get(tagBytes);
+            if (dimension != expectedDimension
+                    || !expectedTag.equals(new String(tagBytes, StandardCharsets.UTF_8))) {
+                return null;
+            }
+
+            HnswIndex index = new HnswIndex(dimension, m, efConstruction);
+            index.vectors = new float[size][];
+            index.keys = new long[size];
+            index.levels = new int[size];
+            index.links = new int[size][][];
+            for (int n = 0; n < size; n++) {
+                long key = buf.getLong();
+                boolean isDeleted = buf.get() == 1;
+                int level = buf.getInt();
+                float[] v = new float[dimension];
+                for (int i = 0; i < dimension; i++) v[i] = buf.getFloat();
+                int[][] nodeLinks = new int[level + 1][];
+                for (int l = 0; l <= level; l++) {
+                    int count = buf.getInt();
+                    int[] arr = new int[(l == 0 ? index.mMax0 : m) + 1];
+                    arr[0] = count;
+                    for (int i = 1; i <= count; i++) arr[i] = buf.getInt();
+                    nodeLinks[l] = arr;
+                }
+                index.keys[n] = key;
+                index.levels[n] = level;
+                index.vectors[n] = v;
+                index.links[n] = nodeLinks;
+                if (isDeleted) index.deleted.set(n);
+                else index.nodeByKey.put(key, n);
+            }
+            index.size = size;
+            index.entryPoint = entryPoint;
+            index.maxLevel = maxLevel;
+            return index;
+        }
+    }
+}
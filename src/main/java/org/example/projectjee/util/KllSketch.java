@@ -0,0 +1,179 @@
+package org.example.projectjee.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Sketch de quantiles KLL (Karnin, Lang, Liberty) : taille bornée par ~3k
+ * valeurs quel que soit le nombre d'insertions, erreur de rang ~1,7/k,
+ * fusionnable (la fusion de deux sketches vaut le sketch de l'union).
+ *
+ * Niveau h : valeurs de poids 2^h. Quand le sketch est plein, le premier niveau
+ * qui déborde est trié et une valeur sur deux (décalage aléatoire) monte au
+ * niveau suivant. Les capacités décroissent géométriquement (facteur 2/3) des
+ * niveaux hauts vers les niveaux bas. Pas de suppression ; non thread-safe.
+ */
+public final class KllSketch {
+
+    public static final int DEFAULT_K = 200;
+
+    private static final double DECAY = 2.0 / 3.0;
+    private static final int MIN_LEVEL_CAPACITY = 8;
+
+    private final int k;
+    private final List<Level> levels = new ArrayList<>();
+    private final Random random;
+    private int[] levelCapacities = new int[0];
+    private int capacity = 0;
+    private int retained = 0;
+    private long count = 0;
+    private double min = Double.NaN;
+    private double max = Double.NaN;
+
+    public KllSketch() {
+        this(DEFAULT_K);
+    }
+
+    public KllSketch(int k) {
+        this.k = k;
+        this.random = new Random(k);
+        addLevel();
+    }
+
+    private static final class Level {
+        double[] values = new double[MIN_LEVEL_CAPACITY];
+        int size = 0;
+
+        void add(double v) {
+            if (size == values.length) values = Arrays.copyOf(values, size * 2);
+            values[size++] = v;
+        }
+    }
+
+    public void update(double value) {
+        if (Double.isNaN(value)) return;
+        levels.get(0).add(value);
+        retained++;
+        count++;
+        min = Double.isNaN(min) ? value : Math.min(min, value);
+        max = Double.isNaN(max) ? value : Math.max(max, value);
+        while (retained >= capacity) compress();
+    }
+
+    /** Ajoute le contenu de {@code other} ; {@code other} n'est pas modifié. */
+    public void merge(KllSketch other) {
+        if (other.count == 0) return;
+        while (levels.size() < other.levels.size()) addLevel();
+        for (int h = 0; h < other.levels.size(); h++) {
+            Level src = other.levels.get(h);
+            Level dst = levels.get(h);
+            for (int i = 0; i < src.size; i++) dst.add(src.values[i]);
+            retained += src.size;
+        }
+        count += other.count;
+        min = Double.isNaN(min) ? other.min : Math.min(min, other.min);
+        max = Double.isNaN(max) ? other.max : Math.max(max, other.max);
+        while (retained >= capacity) compress();
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public double getMin() {
+        return min;
+    }
+
+    public double getMax() {
+        return max;
+    }
+
+    /**
+     * Valeurs aux rangs {@code fractions} (entre 0 et 1), dans le même ordre.
+     * NaN si le sketch est vide.
+     */
+    public double[] quantiles(double... fractions) {
+        double[] out = new double[fractions.length];
+        if (count == 0) {
+            Arrays.fill(out, Double.NaN);
+            return out;
+        }
+
+        // chaque niveau trié, puis fusion des niveaux par ordre de valeur (poids 2^h)
+        int levelCount = levels.size();
+        double[][] sorted = new double[levelCount][];
+        long total = 0;
+        for (int h = 0; h < levelCount; h++) {
+            Level level = levels.get(h);
+            sorted[h] = Arrays.copyOf(level.values, level.size);
+            Arrays.sort(sorted[h]);
+            total += (long) level.size << h;
+        }
+
+        long[] ranks = new long[fractions.length];
+        for (int j = 0; j < fractions.length; j++) {
+            double f = fractions[j];
+            out[j] = f <= 0 ? min : max;
+            ranks[j] = f <= 0 || f >= 1 ? -1 : (long) Math.ceil(f * total);
+        }
+
+        int[] next = new int[levelCount];
+        long cumulative = 0;
+        while (true) {
+            int best = -1;
+            for (int h = 0; h < levelCount; h++) {
+                if (next[h] < sorted[h].length
+                        && (best < 0 || sorted[h][next[h]] < sorted[best][next[best]])) {
+                    best = h;
+                }
+            }
+            if (best < 0) break;
+            double value = sorted[best][next[best]++];
+            long before = cumulative;
+            cumulative += 1L << best;
+            for (int j = 0; j < ranks.length; j++) {
+                if (ranks[j] > before && ranks[j] <= cumulative) out[j] = value;
+            }
+        }
+        return out;
+    }
+
+    // les capacités dépendent de la hauteur : recalculées à chaque nouveau niveau
+    private void addLevel() {
+        levels.add(new Level());
+        int height = levels.size();
+        levelCapacities = new int[height];
+        capacity = 0;
+        for (int h = 0; h < height; h++) {
+            int depth = height - 1 - h;
+            levelCapacities[h] = Math.max(MIN_LEVEL_CAPACITY, (int) Math.ceil(k * Math.pow(DECAY, depth)));
+            capacity += levelCapacities[h];
+        }
+    }
+
+    // compacte le premier niveau plein : une valeur sur deux monte d'un niveau
+    private void compress() {
+        for (int h = 0; h < levels.size(); h++) {
+            Level level = levels.get(h);
+            if (level.size < levelCapacities[h]) continue;
+            if (h + 1 == levels.size()) addLevel();
+            Level up = levels.get(h + 1);
+
+            Arrays.sort(level.values, 0, level.size);
+            // nombre impair : la plus grande valeur reste au niveau courant
+            int pairs = level.size / 2;
+            int offset = random.nextBoolean() ? 1 : 0;
+            for (int i = 0; i < pairs; i++) up.add(level.values[2 * i + offset]);
+            retained -= pairs;
+            if (level.size % 2 == 1) {
+                level.values[0] = level.values[level.size - 1];
+                level.size = 1;
+            } else {
+                level.size = 0;
+            }
+            return;
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package org.example.projectjee.util;
+
+/**
+ * Distance d'édition (insertion, suppression, substitution) bornée.
+ */
+public final class Levenshtein {
+
+    private Levenshtein() {
+    }
+
+    /**
+     * Distance entre {@code a} et {@code b} si elle est au plus {@code max},
+     * sinon {@code max + 1}. Seule la bande diagonale de largeur {@code 2 * max + 1}
+     * est calculée, et le calcul s'arrête dès qu'une ligne dépasse {@code max}.
+     */
+    public static int bounded(String a, String b, int max) {
+        int n = a.length(), m = b.length();
+        if (Math.abs(n - m) > max) return max + 1;
+        if (n == 0 || m == 0) return Math.max(n, m);
+
+        int big = max + 1;
+        int[] prev = new int[m + 1];
+        int[] curr = new int[m + 1];
+        for (int j = 0; j <= m; j++) prev[j] = j <= max ? j : big;
+
+        for (int i = 1; i <= n; i++) {
+            int from = Math.max(1, i - max);
+            int to = Math.min(m, i + max);
+            curr[0] = i <= max ? i : big;
+            if (from > 1) curr[from - 1] = big;
+            int rowMin = curr[0];
+            char ca = a.charAt(i - 1);
+            for (int j = from; j <= to; j++) {
+                int cost = ca == b.charAt(j - 1) ? 0 : 1;
+                int v = Math.min(Math.min(prev[j] + 1, curr[j - 1] + 1), prev[j - 1] + cost);
+                curr[j] = Math.min(v, big);
+                rowMin = Math.min(rowMin, curr[j]);
+            }
+            if (to < m) curr[to + 1] = big;
+            if (rowMin > max) return big;
+            int[] t = prev;
+            prev = curr;
+            curr = t;
+        }
+        return Math.min(prev[m], big);
+    }
+}
@@ -0,0 +1,199 @@
+package org.example.projectjee.util;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Trie de complétion : chaque entrée est indexée sous plusieurs clés déjà
+ * normalisées, et chaque nœud garde en cache ses {@code topK} meilleures
+ * entrées (poids décroissant, puis libellé). Une requête par préfixe coûte
+ * donc la descente du préfixe, quelle que soit la taille du sous-arbre.
+ *
+ * Une mise à jour remplace l'entrée dans les caches des nœuds de ses clés.
+ * Un retrait, ou une baisse de poids qui peut faire remonter une entrée hors
+ * cache, ne recalcule pas tout de suite : les nœuds touchés sont marqués et
+ * reconstruits depuis leur sous-arbre à la prochaine lecture.
+ *
+ * Plusieurs {@link #complete} peuvent tourner en parallèle (un cache reconstruit
+ * est publié d'un bloc), mais pas en même temps qu'une écriture : l'appelant
+ * protège le trie par un verrou lecture/écriture.
+ */
+public final class PrefixTrie {
+
+    public static final class Entry {
+        private final long id;
+        private final String label;
+        private final long weight;
+        private final List<String> keys;
+
+        public Entry(long id, String label, long weight, List<String> keys) {
+            this.id = id;
+            this.label = label;
+            this.weight = weight;
+            this.keys = keys;
+        }
+
+        public long getId() {
+            return id;
+        }
+
+        public String getLabel() {
+            return label;
+        }
+
+        public long getWeight() {
+            return weight;
+        }
+    }
+
+    private static final Comparator<Entry> RANKING = Comparator
+            .comparingLong((Entry e) -> e.weight).reversed()
+            .thenComparing(e -> e.label == null ? "" : e.label)
+            .thenComparingLong(e -> e.id);
+
+    private static final class Node {
+        final Map<Character, Node> children = new HashMap<>(4);
+        Set<Entry> terminal;             // entrées dont une clé se termine ici
+        volatile List<Entry> top = new ArrayList<>(2);
+        volatile boolean stale;          // top à reconstruire depuis le sous-arbre
+    }
+
+    private final int topK;
+    private final Node root = new Node();
+    private final Map<Long, Entry> entries = new HashMap<>();
+
+    public PrefixTrie(int topK) {
+        this.topK = topK;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public void clear() {
+        root.children.clear();
+        entries.clear();
+    }
+
+    /** Ajoute ou remplace l'entrée {@code id}. */
+    public void put(Entry entry) {
+        Entry previous = entries.put(entry.id, entry);
+        Set<String> oldKeys = previous == null ? Set.of() : new HashSet<>(previous.keys);
+        for (String key : entry.keys) {
+            Node node = root;
+            for (int i = 0; i < key.length(); i++) {
+                node = node.children.computeIfAbsent(key.charAt(i), c -> new Node());
+                if (oldKeys.contains(key)) {
+                    replace(node, previous, entry);
+                } else {
+                    offer(node, entry);
+                }
+            }
+            if (node.terminal == null) node.terminal = new HashSet<>(2);
+            if (previous != null) node.terminal.remove(previous);
+            node.terminal.add(entry);
+        }
+        if (previous != null) {
+            // clés abandonnées par la nouvelle version (titre modifié)
+            Set<String> newKeys = new HashSet<>(entry.keys);
+            for (String key : previous.keys) {
+                if (!newKeys.contains(key)) removeKey(previous, key);
+            }
+        }
+    }
+
+    public void remove(long id) {
+        Entry entry = entries.remove(id);
+        if (entry == null) return;
+        for (String key : entry.keys) {
+            removeKey(entry, key);
+        }
+    }
+
+    private void removeKey(Entry entry, String key) {
+        Deque<Node> path = new ArrayDeque<>(key.length() + 1);
+        Node node = root;
+        path.push(node);
+        for (int i = 0; i < key.length() && node != null; i++) {
+            node = node.children.get(key.charAt(i));
+            if (node != null) {
+                path.push(node);
+                if (node.top.remove(entry)) node.stale = true;
+            }
+        }
+        if (node == null) return;
+        if (node.terminal != null) node.terminal.remove(entry);
+
+        // élagage des nœuds devenus vides, du bas vers le haut
+        for (int i = key.length() - 1; i >= 0 && path.size() > 1; i--) {
+            Node child = path.pop();
+            if (!child.children.isEmpty() || (child.terminal != null && !child.terminal.isEmpty())) break;
+            path.peek().children.remove(key.charAt(i));
+        }
+    }
+
+    /** Les {@code limit} meilleures entrées dont une clé commence par {@code prefix}. */
+    public List<Entry> complete(String prefix, int limit) {
+        if (prefix == null || prefix.isEmpty()) return List.of();
+        Node node = root;
+        for (int i = 0; i < prefix.length() && node != null; i++) {
+            node = node.children.get(prefix.charAt(i));
+        }
+        if (node == null) return List.of();
+        List<Entry> top = node.stale ? rebuildTop(node) : node.top;
+        return List.copyOf(top.subList(0, Math.min(limit, top.size())));
+    }
+
+    private void offer(Node node, Entry entry) {
+        List<Entry> top = node.top;
+        if (top.contains(entry)) return;
+        if (top.size() == topK && RANKING.compare(entry, top.get(topK - 1)) >= 0) return;
+        int pos = 0;
+        while (pos < top.size() && RANKING.compare(top.get(pos), entry) < 0) pos++;
+        top.add(pos, entry);
+        if (top.size() > topK) top.remove(topK);
+    }
+
+    /**
+     * Remplace {@code previous} par {@code entry} (même id) dans le cache du nœud.
+     * Si {@code previous} y était et que le cache était plein, une entrée restée
+     * hors cache peut passer devant la nouvelle version : seul ce cas marque le nœud.
+     */
+    private void replace(Node node, Entry previous, Entry entry) {
+        List<Entry> top = node.top;
+        boolean wasFull = top.size() == topK;
+        if (!top.remove(previous)) {
+            offer(node, entry);
+            return;
+        }
+        if (!wasFull || (!top.isEmpty() && RANKING.compare(entry, top.get(top.size() - 1)) < 0)) {
+            offer(node, entry);
+        } else {
+            node.stale = true;
+        }
+    }
+
+    // appelé depuis complete() : le nouveau cache est construit à part puis publié
+    private List<Entry> rebuildTop(Node node) {
+        Set<Entry> seen = new HashSet<>();
+        Deque<Node> stack = new ArrayDeque<>();
+        stack.push(node);
+        while (!stack.isEmpty()) {
+            Node n = stack.pop();
+            if (n.terminal != null) seen.addAll(n.terminal);
+            stack.addAll(n.children.values());
+        }
+        List<Entry> top = new ArrayList<>(Math.min(topK, seen.size()));
+        seen.stream().sorted(RANKING).limit(topK).forEach(top::add);
+        node.top = top;
+        node.stale = false;
+        return top;
+    }
+}
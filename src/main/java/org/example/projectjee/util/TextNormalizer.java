@@ -0,0 +1,39 @@
+package org.example.projectjee.util;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Normalisation commune aux index texte : minuscules, accents retirés,
+ * découpage sur tout ce qui n'est ni lettre ni chiffre.
+ */
+public final class TextNormalizer {
+
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private TextNormalizer() {
+    }
+
+    // "Élément Écho-Dot" -> "element echo dot"
+    public static String normalize(String text) {
+        if (text == null || text.isEmpty()) return "";
+        String folded = Normalizer.normalize(text, Normalizer.Form.NFD);
+        folded = DIACRITICS.matcher(folded).replaceAll("");
+        folded = SEPARATORS.matcher(folded.toLowerCase(Locale.ROOT)).replaceAll(" ");
+        return folded.trim();
+    }
+
+    public static List<String> tokenize(String text) {
+        String normalized = normalize(text);
+        List<String> tokens = new ArrayList<>();
+        if (normalized.isEmpty()) return tokens;
+        for (String t : normalized.split(" ")) {
+            if (!t.isEmpty()) tokens.add(t);
+        }
+        return tokens;
+    }
+}
@@ -0,0 +1,180 @@
+package org.example.projectjee.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Classement des {@code k} meilleures clés par somme de scores, en un passage.
+ *
+ * Les contributions sont cumulées dans une table à adressage ouvert sur des
+ * tableaux primitifs (clé {@code long}, score {@code double}, compteur
+ * {@code long}) : ni boxing ni objet par clé. {@link #top} parcourt ensuite la
+ * table avec un tas-min borné à {@code k} entrées : O(n log k) au lieu de
+ * trier toutes les clés, et seul le résultat (k entrées) est alloué.
+ *
+ * Ordre : score décroissant, puis clé croissante à égalité. Non thread-safe.
+ *
+ * Pour les scores calculés en mémoire (BM25 de {@code ProductTextIndex}).
+ * Les classements vendeur (meilleurs clients, produits par chiffre d'affaires)
+ * n'en ont pas besoin : ils sont lus sur les rollups par un
+ * {@code GROUP BY ... ORDER BY ... LIMIT} qui ne renvoie que k lignes.
+ */
+public final class TopKAggregator {
+
+    private static final int MIN_CAPACITY = 16;
+
+    private long[] keys;
+    private double[] scores;
+    private long[] counts;
+    private boolean[] used;
+    private int mask;
+    private int size = 0;
+
+    public TopKAggregator() {
+        this(MIN_CAPACITY);
+    }
+
+    /** {@code expectedKeys} : nombre de clés distinctes attendu, pour éviter les agrandissements. */
+    public TopKAggregator(int expectedKeys) {
+        int capacity = Integer.highestOneBit(Math.max(MIN_CAPACITY, expectedKeys * 2 - 1)) << 1;
+        allocate(Math.max(MIN_CAPACITY, capacity));
+    }
+
+    /** Une entrée du classement. */
+    public record Entry(long key, double score, long count) {
+    }
+
+    /** Ajoute {@code score} au total de {@code key} et 1 à son compteur. */
+    public void add(long key, double score) {
+        add(key, score, 1);
+    }
+
+    /** Ajoute {@code score} au total de {@code key} et {@code count} à son compteur (ex. une quantité). */
+    public void add(long key, double score, long count) {
+        int slot = slot(key);
+        if (!used[slot]) {
+            used[slot] = true;
+            keys[slot] = key;
+            if (++size * 2 > keys.length) {
+                grow();
+                slot = slot(key);
+            }
+        }
+        scores[slot] += score;
+        counts[slot] += count;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /** Les {@code k} meilleures entrées, de la meilleure à la moins bonne. */
+    public List<Entry> top(int k) {
+        int n = Math.min(k, size);
+        if (n <= 0) return Collections.emptyList();
+
+        // tas-min des n meilleurs emplacements vus : la racine est la moins bonne
+        int[] heap = new int[n];
+        int filled = 0;
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (!used[slot]) continue;
+            if (filled < n) {
+                heap[filled] = slot;
+                siftUp(heap, filled++);
+            } else if (better(slot, heap[0])) {
+                heap[0] = slot;
+                siftDown(heap, n);
+            }
+        }
+
+        // vidage du tas : du moins bon au meilleur, rangé depuis la fin
+        Entry[] out = new Entry[n];
+        for (int end = n - 1; end >= 0; end--) {
+            int slot = heap[0];
+            out[end] = new Entry(keys[slot], scores[slot], counts[slot]);
+            heap[0] = heap[end];
+            siftDown(heap, end);
+        }
+        return new ArrayList<>(Arrays.asList(out));
+    }
+
+    // ========== TABLE ==========
+
+    private int slot(long key) {
+        int i = (int) mix(key) & mask;
+        while (used[i] && keys[i] != key) i = (i + 1) & mask;
+        return i;
+    }
+
+    private void grow() {
+        long[] oldKeys = keys;
+        double[] oldScores = scores;
+        long[] oldCounts = counts;
+        boolean[] oldUsed = used;
+        allocate(oldKeys.length * 2);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (!oldUsed[i]) continue;
+            int slot = slot(oldKeys[i]);
+            used[slot] = true;
+            keys[slot] = oldKeys[i];
+            scores[slot] = oldScores[i];
+            counts[slot] = oldCounts[i];
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        scores = new double[capacity];
+        counts = new long[capacity];
+        used = new boolean[capacity];
+        mask = capacity - 1;
+    }
+
+    // finaliseur de MurmurHash3 : les ids séquentiels se répartissent sur toute la table
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    // ========== TAS ==========
+
+    private boolean better(int a, int b) {
+        int c = Double.compare(scores[a], scores[b]);
+        return c > 0 || (c == 0 && keys[a] < keys[b]);
+    }
+
+    private void siftUp(int[] heap, int i) {
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (!better(heap[parent], heap[i])) break;
+            swap(heap, i, parent);
+            i = parent;
+        }
+    }
+
+    private void siftDown(int[] heap, int size) {
+        int i = 0;
+        while (true) {
+            int left = 2 * i + 1;
+            if (left >= size) break;
+            int worst = left;
+            int right = left + 1;
+            if (right < size && better(heap[left], heap[right])) worst = right;
+            if (!better(heap[i], heap[worst])) break;
+            swap(heap, i, worst);
+            i = worst;
+        }
+    }
+
+    private static void swap(int[] heap, int a, int b) {
+        int t = heap[a];
+        heap[a] = heap[b];
+        heap[b] = t;
+    }
+}
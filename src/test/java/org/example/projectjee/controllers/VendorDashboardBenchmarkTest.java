@@ -0,0 +1,237 @@
+package org.example.projectjee.controllers;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+
+import org.example.projectjee.model.Order;
+import org.example.projectjee.model.OrderItem;
+import org.example.projectjee.model.Product;
+import org.example.projectjee.model.Role;
+import org.example.projectjee.model.Utilisateur;
+import org.example.projectjee.repository.OrderItemRepository;
+import org.example.projectjee.repository.ProduitRepository;
+import org.example.projectjee.repository.UtilisateurRepository;
+import org.example.projectjee.repository.VenteJourRepository;
+import org.example.projectjee.services.VenteRollupService;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.mysql.MySQLContainer;
+
+/**
+ * Compare le calcul du tableau de bord vendeur ligne par ligne (chargement de
+ * toutes les lignes de commande puis six passages en Java) avec la requête
+ * unique {@link VenteJourRepository#dashboardVendeur}, sur les huit chiffres.
+ *
+ * Tourne sur un MySQL jetable (Testcontainers, profil "bench") : la base
+ * configurée de l'application n'est jamais touchée. Les commandes sont
+ * insérées en masse, les rollups passent par {@link VenteRollupService#record}
+ * comme au passage de commande. Désactivé par défaut (Docker requis) :
+ * {@code mvn test -Dtest=VendorDashboardBenchmarkTest -Dbenchmarks=true}
+ * (prévoir -Xmx2g pour le palier à 1M lignes du chemin ligne par ligne).
+ */
+@SpringBootTest
+@ActiveProfiles("bench")
+@Testcontainers(disabledWithoutDocker = true)
+@EnabledIfSystemProperty(named = "benchmarks", matches = "true")
+class VendorDashboardBenchmarkTest {
+
+    @Container
+    @ServiceConnection
+    static final MySQLContainer MYSQL = new MySQLContainer("mysql:8.4");
+
+    private static final int PRODUCTS = 200;
+    private static final int LINES_PER_ORDER = 2;
+    private static final int DAYS = 400;
+    private static final int INSERT_CHUNK = 1000;
+    private static final int WARMUP = 1;
+    private static final int RUNS = 5;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private UtilisateurRepository utilisateurRepository;
+    @Autowired
+    private ProduitRepository produitRepository;
+    @Autowired
+    private OrderItemRepository orderItemRepository;
+    @Autowired
+    private VenteJourRepository venteJourRepository;
+    @Autowired
+    private VenteRollupService venteRollupService;
+
+    @ParameterizedTest
+    @ValueSource(ints = {10_000, 100_000, 1_000_000})
+    void dashboard(int lines) {
+        String tag = "bench" + System.nanoTime();
+        Utilisateur vendor = utilisateurRepository.save(user(tag + "-v", Role.VENDEUR));
+        Utilisateur client = utilisateurRepository.save(user(tag + "-c", Role.ACHETEUR));
+        seed(tag, vendor, client, lines);
+
+        LocalDate today = LocalDate.now();
+        double[] legacy = transactionTemplate.execute(s -> legacyDashboard(vendor.getId()));
+        Object[] row = venteJourRepository.dashboardVendeur(vendor.getId(), today.withDayOfMonth(1), today).get(0);
+        assertEquals((long) legacy[0], ((Number) row[0]).longValue(), "commandes");
+        assertEquals(legacy[1], ((Number) row[1]).doubleValue(), 0.01, "chiffre d'affaires");
+        assertEquals((long) legacy[2], ((Number) row[2]).longValue(), "commandes du mois");
+        assertEquals(legacy[3], ((Number) row[3]).doubleValue(), 0.01, "chiffre d'affaires du mois");
+        assertEquals((long) legacy[4], ((Number) row[4]).longValue(), "commandes du jour");
+        assertEquals(legacy[5], ((Number) row[5]).doubleValue(), 0.01, "chiffre d'affaires du jour");
+        assertEquals((long) legacy[6], ((Number) row[8]).longValue(), "quantité de la meilleure vente");
+        assertEquals(legacy[7], ((Number) row[11]).doubleValue(), 1e-6, "note moyenne");
+
+        long legacyMs = median(() -> transactionTemplate.execute(s -> legacyDashboard(vendor.getId())));
+        long queryMs = median(() -> venteJourRepository.dashboardVendeur(vendor.getId(), today.withDayOfMonth(1), today));
+        System.out.printf("dashboard vendeur, %,d lignes : ligne par ligne %d ms, requête unique %d ms%n",
+                lines, legacyMs, queryMs);
+    }
+
+    // ========== ANCIEN CHEMIN ==========
+
+    // [commandes, CA, commandes du mois, CA du mois, commandes du jour, CA du jour, meilleure vente, note]
+    private double[] legacyDashboard(Long vendorId) {
+        List<OrderItem> items = orderItemRepository.findByProduct_Utilisateur_Id(vendorId);
+        List<Product> products = produitRepository.findByUtilisateur_Id(vendorId);
+        LocalDateTime startOfMonth = LocalDate.now().withDayOfMonth(1).atStartOfDay();
+        LocalDateTime startOfDay = LocalDate.now().atStartOfDay();
+
+        List<OrderItem> month = items.stream().filter(i -> !i.getOrder().getCreatedAt().isBefore(startOfMonth)).toList();
+        List<OrderItem> day = items.stream().filter(i -> !i.getOrder().getCreatedAt().isBefore(startOfDay)).toList();
+
+        Map<Long, Integer> productSales = new HashMap<>();
+        for (OrderItem item : items) {
+            productSales.merge(item.getProduct().getId(), item.getQuantity(), Integer::sum);
+        }
+        double top = productSales.values().stream().mapToInt(Integer::intValue).max().orElse(0);
+        double rating = products.stream()
+                .filter(p -> p.getRating() != null && p.getRating() > 0)
+                .mapToDouble(Product::getRating).average().orElse(0.0);
+
+        return new double[] {
+                distinctOrders(items), revenue(items),
+                distinctOrders(month), revenue(month),
+                distinctOrders(day), revenue(day),
+                top, rating
+        };
+    }
+
+    private static double distinctOrders(List<OrderItem> items) {
+        return items.stream().map(i -> i.getOrder().getId()).distinct().count();
+    }
+
+    private static double revenue(List<OrderItem> items) {
+        return items.stream().mapToDouble(i -> i.getQuantity() * i.getUnitPrice()).sum();
+    }
+
+    // ========== DONNÉES ==========
+
+    private static Utilisateur user(String tag, Role role) {
+        return Utilisateur.builder()
+                .nom(tag)
+                .email(tag + "@bench.local")
+                .motDePasse("x")
+                .role(role)
+                .build();
+    }
+
+    private void seed(String tag, Utilisateur vendor, Utilisateur client, int lines) {
+        StringBuilder sql = new StringBuilder(
+                "INSERT INTO produits (code_asin, titre, prix, note_moyenne, quantite_disponible, utilisateur_id) VALUES ");
+        for (int i = 0; i < PRODUCTS; i++) {
+            if (i > 0) sql.append(',');
+            sql.append(String.format(Locale.ROOT, "('%s-%d','Produit %d',%.2f,%.1f,%d,%d)",
+                    tag, i, i, 5 + i % 50 * 1.5, 1 + i % 5 * 0.9, i % 7 * 10, vendor.getId()));
+        }
+        jdbc.update(sql.toString());
+        List<Long> productIds = jdbc.queryForList(
+                "SELECT id FROM produits WHERE utilisateur_id = ? ORDER BY id", Long.class, vendor.getId());
+
+        // commandes réparties sur DAYS jours, aujourd'hui compris
+        int orders = (lines + LINES_PER_ORDER - 1) / LINES_PER_ORDER;
+        LocalDateTime now = LocalDateTime.now().withNano(0);
+        IntFunction<LocalDateTime> createdAt = o -> now.minusDays(o % DAYS);
+        insertChunked("INSERT INTO commandes (utilisateur_id, date_creation, montant_total) VALUES ", orders,
+                o -> String.format("(%d,'%s',0)", client.getId(), createdAt.apply(o).toString().replace('T', ' ')));
+        List<Long> orderIds = jdbc.queryForList(
+                "SELECT id FROM commandes WHERE utilisateur_id = ? ORDER BY id", Long.class, client.getId());
+
+        IntFunction<Integer> quantity = l -> 1 + l % 3;
+        IntFunction<Double> unitPrice = l -> 5 + l % 50 * 1.5;
+        insertChunked("INSERT INTO lignes_commande (commande_id, produit_id, quantite, prix_unitaire) VALUES ", lines,
+                l -> String.format(Locale.ROOT, "(%d,%d,%d,%.2f)",
+                        orderIds.get(l / LINES_PER_ORDER), productIds.get(l % PRODUCTS),
+                        quantity.apply(l), unitPrice.apply(l)));
+
+        // rollups par le même chemin que le passage de commande, une transaction par paquet de commandes
+        List<Product> products = productIds.stream()
+                .map(id -> Product.builder().id(id).utilisateur(vendor).build())
+                .toList();
+        for (int from = 0; from < orders; from += INSERT_CHUNK) {
+            int to = Math.min(orders, from + INSERT_CHUNK);
+            int first = from;
+            transactionTemplate.executeWithoutResult(s -> {
+                for (int o = first; o < to; o++) {
+                    Order order = Order.builder()
+                            .id(orderIds.get(o))
+                            .utilisateur(client)
+                            .createdAt(createdAt.apply(o))
+                            .build();
+                    List<OrderItem> items = new ArrayList<>();
+                    for (int l = o * LINES_PER_ORDER; l < Math.min(lines, (o + 1) * LINES_PER_ORDER); l++) {
+                        items.add(OrderItem.builder()
+                                .order(order)
+                                .product(products.get(l % PRODUCTS))
+                                .quantity(quantity.apply(l))
+                                .unitPrice(unitPrice.apply(l))
+                                .build());
+                    }
+                    venteRollupService.record(order, items);
+                }
+            });
+        }
+    }
+
+    private void insertChunked(String prefix, int count, IntFunction<String> values) {
+        StringBuilder sql = new StringBuilder(prefix);
+        for (int i = 0; i < count; i++) {
+            if (i % INSERT_CHUNK > 0) sql.append(',');
+            sql.append(values.apply(i));
+            if (i % INSERT_CHUNK == INSERT_CHUNK - 1 || i == count - 1) {
+                jdbc.update(sql.toString());
+                sql.setLength(prefix.length());
+            }
+        }
+    }
+
+    private static long median(Supplier<?> run) {
+        for (int i = 0; i < WARMUP; i++) run.get();
+        long[] ms = new long[RUNS];
+        for (int i = 0; i < RUNS; i++) {
+            long start = System.nanoTime();
+            run.get();
+            ms[i] = (System.nanoTime() - start) / 1_000_000;
+        }
+        Arrays.sort(ms);
+        return ms[RUNS / 2];
+    }
+}
@@ -0,0 +1,181 @@
+package org.example.projectjee.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+import java.util.TreeMap;
+
+import org.example.projectjee.events.ProductChangedEvent;
+import org.example.projectjee.model.Product;
+import org.example.projectjee.repository.ProduitRepository;
+import org.example.projectjee.util.BloomFilter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+
+/**
+ * {@link AsinIndex} : recherches cohérentes avec une map ASIN -> id après un
+ * flux d'événements (clé sans casse ni espaces finaux, comme la collation
+ * MySQL), chargement complet depuis la base, et filtre de Bloom
+ * redimensionné quand il sature.
+ */
+class AsinIndexTest {
+
+    private static final int PRODUCTS = 30_000;
+
+    private final Random random = new Random(17);
+    private final Map<String, Long> reference = new HashMap<>();
+    private final Map<Long, String> asinById = new HashMap<>();
+    private AsinIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new AsinIndex(null);
+        for (long id = 1; id <= PRODUCTS; id++) {
+            save(id, randomAsin());
+        }
+        // changements d'ASIN et suppressions : les anciens ASIN restent dans le filtre
+        for (int i = 0; i < PRODUCTS / 3; i++) {
+            long id = 1 + random.nextInt(PRODUCTS);
+            if (random.nextInt(3) == 0) {
+                delete(id);
+            } else {
+                save(id, randomAsin());
+            }
+        }
+    }
+
+    @Test
+    void findIdMatchesReferenceMap() {
+        List<String> probes = new ArrayList<>(reference.keySet());
+        for (int i = 0; i < 20_000; i++) probes.add(randomAsin());
+        for (String asin : probes) {
+            assertEquals(Optional.ofNullable(reference.get(asin)), index.findId(asin), asin);
+        }
+    }
+
+    @Test
+    void lookupIgnoresCaseAndTrailingSpaces() {
+        save(PRODUCTS + 1L, "B0TESTCASE");
+        assertEquals(Optional.of(PRODUCTS + 1L), index.findId("b0testcase  "));
+        assertTrue(index.isTaken("B0TestCase"));
+        assertFalse(index.isTaken(" B0TESTCASE"));
+        assertEquals(Optional.empty(), index.findId(null));
+    }
+
+    @Test
+    void freedAsinIsNoLongerTaken() {
+        save(PRODUCTS + 1L, "B0FREEDUP1");
+        save(PRODUCTS + 1L, "B0RENAMED1");
+        assertFalse(index.isTaken("B0FREEDUP1"));
+        assertEquals(Optional.of(PRODUCTS + 1L), index.findId("B0RENAMED1"));
+
+        delete(PRODUCTS + 1L);
+        assertFalse(index.isTaken("B0RENAMED1"));
+
+        // réutilisé par un autre produit
+        save(PRODUCTS + 2L, "B0RENAMED1");
+        assertEquals(Optional.of(PRODUCTS + 2L), index.findId("B0RENAMED1"));
+    }
+
+    @Test
+    void rebuildReplacesEventStateWithTheDatabase() {
+        TreeMap<Long, String> database = new TreeMap<>();
+        for (long id = 1; id <= 12_345; id++) database.put(id, String.format("B0%08d", id));
+        database.put(20_000L, null); // produit sans ASIN : ignoré
+        AsinIndex rebuilt = new AsinIndex(repository(database));
+        assertFalse(rebuilt.isReady());
+
+        // reçu par événement avant le chargement, absent de la base : effacé par rebuild
+        rebuilt.onProductChanged(ProductChangedEvent.created(Product.builder().id(99_999L).asin("B0EVENTONL").build()));
+        rebuilt.rebuild();
+
+        assertTrue(rebuilt.isReady());
+        assertFalse(rebuilt.isTaken("B0EVENTONL"));
+        // plusieurs lots de chargement : la première et la dernière ligne sont là
+        assertEquals(Optional.of(1L), rebuilt.findId("b000000001"));
+        assertEquals(Optional.of(12_345L), rebuilt.findId("B000012345"));
+        assertEquals(Optional.empty(), rebuilt.findId("B000012346"));
+    }
+
+    @Test
+    void saturatedFilterIsResizedWithoutLosingAsins() throws Exception {
+        AsinIndex growing = new AsinIndex(repository(new TreeMap<>()));
+        growing.rebuild();
+        long capacity = 10_000; // MIN_CAPACITY de l'index
+        for (long id = 1; id <= capacity + 1; id++) {
+            growing.onProductChanged(ProductChangedEvent.created(
+                    Product.builder().id(id).asin(String.format("B0%08d", id)).build()));
+        }
+        // l'insertion de trop déclenche la reconstruction : filtre neuf, deux fois le catalogue
+        BloomFilter bloom = bloom(growing);
+        assertFalse(bloom.isSaturated());
+        assertEquals(capacity + 1, bloom.getInserted());
+        for (long id = 1; id <= capacity + 1; id++) {
+            assertEquals(Optional.of(id), growing.findId(String.format("B0%08d", id)));
+        }
+    }
+
+    // ========== DONNÉES ==========
+
+    private void save(long id, String asin) {
+        boolean known = asinById.containsKey(id);
+        String old = asinById.put(id, key(asin));
+        if (old != null) reference.remove(old);
+        reference.put(key(asin), id);
+        Product p = Product.builder().id(id).asin(asin).build();
+        index.onProductChanged(known ? ProductChangedEvent.updated(p) : ProductChangedEvent.created(p));
+    }
+
+    private void delete(long id) {
+        String old = asinById.remove(id);
+        if (old != null) reference.remove(old);
+        index.onProductChanged(ProductChangedEvent.deleted(id));
+    }
+
+    // "base" id -> ASIN servie par lots comme findAsinRowsAfter
+    private static ProduitRepository repository(TreeMap<Long, String> database) {
+        return (ProduitRepository) Proxy.newProxyInstance(AsinIndexTest.class.getClassLoader(),
+                new Class<?>[] {ProduitRepository.class}, (proxy, method, args) -> {
+                    if (!method.getName().equals("findAsinRowsAfter")) {
+                        throw new UnsupportedOperationException(method.getName());
+                    }
+                    int size = ((Pageable) args[1]).getPageSize();
+                    List<Object[]> rows = new ArrayList<>();
+                    for (Map.Entry<Long, String> e : database.tailMap((Long) args[0], false).entrySet()) {
+                        if (rows.size() == size) break;
+                        rows.add(new Object[] {e.getKey(), e.getValue()});
+                    }
+                    return rows;
+                });
+    }
+
+    private static BloomFilter bloom(AsinIndex index) throws ReflectiveOperationException {
+        Field field = AsinIndex.class.getDeclaredField("bloom");
+        field.setAccessible(true);
+        return (BloomFilter) field.get(index);
+    }
+
+    private static String key(String asin) {
+        return asin.stripTrailing().toUpperCase(Locale.ROOT);
+    }
+
+    // ASIN aléatoires (tirages indépendants : collisions négligeables), parfois en minuscules
+    private String randomAsin() {
+        String chars = "ABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789";
+        StringBuilder sb = new StringBuilder("B0");
+        for (int i = 0; i < 8; i++) sb.append(chars.charAt(random.nextInt(chars.length())));
+        String asin = sb.toString();
+        return random.nextInt(10) == 0 ? asin.toLowerCase(Locale.ROOT) + " " : asin;
+    }
+}
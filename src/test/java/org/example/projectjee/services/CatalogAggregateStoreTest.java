@@ -0,0 +1,167 @@
+package org.example.projectjee.services;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import org.example.projectjee.dto.ProduitCategorieStatDTO;
+import org.example.projectjee.events.ProductChangedEvent;
+import org.example.projectjee.model.Categorie;
+import org.example.projectjee.model.Product;
+import org.example.projectjee.repository.CategorieRepository;
+import org.example.projectjee.repository.ProduitRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+
+/**
+ * Réconciliation de {@link CatalogAggregateStore} : les écritures reçues
+ * pendant le parcours de la base sont rejouées sur le recalcul, les écarts
+ * sans événement (écriture hors application) sont corrigés. Les agrégats sont
+ * comparés à un calcul naïf sur la "base" (une map id -> produit).
+ */
+class CatalogAggregateStoreTest {
+
+    private static final int PRODUCTS = 12_000;   // plus d'un lot de chargement
+    private static final int CATEGORIES = 6;
+
+    private final Random random = new Random(23);
+    private final Map<Long, Product> database = new TreeMap<>();
+    private Runnable duringScan;
+    private CatalogAggregateStore store;
+
+    @BeforeEach
+    void setUp() {
+        for (long id = 1; id <= PRODUCTS; id++) {
+            database.put(id, randomProduct(id));
+        }
+        store = new CatalogAggregateStore(produitRepository(), categorieRepository());
+        store.rebuild();
+        assertMatchesDatabase();
+    }
+
+    @Test
+    void writesDuringTheScanAreReplayedOnTheRebuild() {
+        // écart sans événement : corrigé seulement si le recalcul est bien publié
+        for (long id = PRODUCTS - 100; id <= PRODUCTS; id++) {
+            database.remove(id);
+        }
+        // après la lecture du premier lot : ces produits-là ont déjà été lus avec leur ancien état
+        duringScan = () -> {
+            for (int i = 0; i < 300; i++) {
+                long id = 1 + random.nextInt(PRODUCTS + 500);
+                if (random.nextInt(3) == 0) {
+                    database.remove(id);
+                    store.onProductChanged(ProductChangedEvent.deleted(id));
+                } else {
+                    Product p = randomProduct(id);
+                    boolean known = database.put(id, p) != null;
+                    store.onProductChanged(known ? ProductChangedEvent.updated(p) : ProductChangedEvent.created(p));
+                }
+            }
+        };
+        store.reconcile();
+        assertMatchesDatabase();
+
+        // réconciliation suivante sans écriture : rien ne change
+        duringScan = null;
+        store.reconcile();
+        assertMatchesDatabase();
+    }
+
+    @Test
+    void driftWithoutEventsIsCorrected() {
+        for (long id = 1; id <= 200; id++) {
+            database.put(id, randomProduct(id));
+        }
+        database.remove((long) PRODUCTS);
+        store.reconcile();
+        assertMatchesDatabase();
+    }
+
+    // ========== RÉFÉRENCE NAÏVE ==========
+
+    private void assertMatchesDatabase() {
+        long[] stars = new long[6];
+        double sum = 0;
+        long rated = 0;
+        Map<String, Long> byCategory = new TreeMap<>();
+        for (Product p : database.values()) {
+            if (p.getRating() != null) {
+                sum += p.getRating();
+                rated++;
+                stars[Math.max(1, Math.min(5, (int) Math.round(p.getRating())))]++;
+            }
+            if (p.getCategorie() != null) {
+                byCategory.merge(categoryName(p.getCategorie().getId()), 1L, Long::sum);
+            }
+        }
+        assertEquals(database.size(), store.totalProduits());
+        assertEquals(rated == 0 ? 0.0 : sum / rated, store.noteMoyenne(), 1e-9);
+        assertArrayEquals(stars, store.starHistogram());
+
+        Map<String, Long> actual = new TreeMap<>();
+        for (ProduitCategorieStatDTO s : store.produitsParCategorie()) {
+            actual.put(s.getCategorieNom(), s.getTotalProduits());
+        }
+        assertEquals(byCategory, actual);
+    }
+
+    // ========== DONNÉES ==========
+
+    private Product randomProduct(long id) {
+        return Product.builder()
+                .id(id)
+                .rating(random.nextInt(8) == 0 ? null : random.nextInt(11) / 2.0)
+                .categorie(random.nextInt(8) == 0 ? null
+                        : Categorie.builder().id(1L + random.nextInt(CATEGORIES)).build())
+                .build();
+    }
+
+    private static String categoryName(long id) {
+        return "Catégorie " + id;
+    }
+
+    // dépôts sans base : seules les requêtes utilisées par le store sont servies
+    private ProduitRepository produitRepository() {
+        return (ProduitRepository) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[] {ProduitRepository.class}, (proxy, method, args) -> {
+                    if (!method.getName().equals("findColumnRowsAfter")) {
+                        throw new UnsupportedOperationException(method.getName());
+                    }
+                    long afterId = (Long) args[0];
+                    int size = ((Pageable) args[1]).getPageSize();
+                    List<Object[]> rows = new ArrayList<>();
+                    for (Product p : database.values()) {
+                        if (p.getId() <= afterId) continue;
+                        if (rows.size() == size) break;
+                        rows.add(new Object[] {p.getId(), p.getPrice(), p.getRating(), p.getRatingCount(),
+                                p.getCategorie() != null ? p.getCategorie().getId() : null});
+                    }
+                    Runnable hook = duringScan;
+                    duringScan = null;
+                    if (hook != null) hook.run();
+                    return rows;
+                });
+    }
+
+    private CategorieRepository categorieRepository() {
+        return (CategorieRepository) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[] {CategorieRepository.class}, (proxy, method, args) -> {
+                    if (!method.getName().equals("findAll") || args != null) {
+                        throw new UnsupportedOperationException(method.getName());
+                    }
+                    List<Categorie> categories = new ArrayList<>();
+                    for (long id = 1; id <= CATEGORIES; id++) {
+                        categories.add(Categorie.builder().id(id).nom(categoryName(id)).build());
+                    }
+                    return categories;
+                });
+    }
+}
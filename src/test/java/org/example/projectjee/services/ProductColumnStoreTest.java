@@ -0,0 +1,334 @@
+package org.example.projectjee.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.function.Function;
+
+import org.example.projectjee.events.ProductChangedEvent;
+import org.example.projectjee.model.Categorie;
+import org.example.projectjee.model.Product;
+import org.example.projectjee.services.ProductPageService.Keyset;
+import org.example.projectjee.services.ProductPageService.SortField;
+import org.example.projectjee.spec.ProduitFilter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Filtres, tris et pages de {@link ProductColumnStore} sur un catalogue
+ * aléatoire, recoupés avec un filtre + tri en mémoire qui applique les règles
+ * du SQL (bornes incluses, NULL exclu dès qu'une borne existe, NULL en tête
+ * en ASC). Quelques catalogues de 3 à 5 produits fixent à la main les bornes
+ * sur NULL et le curseur posé sur la dernière ligne.
+ */
+class ProductColumnStoreTest {
+
+    private static final int PRODUCTS = 2000;
+    private static final int CATEGORIES = 8;
+
+    private final Random random = new Random(42);
+    private final Map<Long, Product> reference = new LinkedHashMap<>();
+    private ProductColumnStore store;
+
+    @BeforeEach
+    void setUp() {
+        store = new ProductColumnStore(null);
+        for (long id = 1; id <= PRODUCTS; id++) {
+            save(randomProduct(id));
+        }
+        // mises à jour et suppressions : les slots libérés sont réutilisés
+        for (int i = 0; i < PRODUCTS / 4; i++) {
+            long id = 1 + random.nextInt(PRODUCTS);
+            if (random.nextInt(3) == 0) {
+                delete(id);
+            } else {
+                save(randomProduct(id));
+            }
+        }
+        for (long id = PRODUCTS + 1; id <= PRODUCTS + 200; id++) {
+            save(randomProduct(id));
+        }
+    }
+
+    @Test
+    void allIdsMatchesNaiveFilterAndSort() {
+        for (int i = 0; i < 300; i++) {
+            ProduitFilter filter = randomFilter();
+            Keyset keyset = randomKeyset();
+            assertEquals(naive(filter, null, keyset), store.allIds(filter, null, keyset),
+                    "filtre " + filter + " tri " + keyset.getField() + (keyset.isDesc() ? " desc" : " asc"));
+        }
+    }
+
+    @Test
+    void pagesConcatenateToTheFullList() {
+        for (int i = 0; i < 100; i++) {
+            ProduitFilter filter = randomFilter();
+            Keyset keyset = randomKeyset();
+            int size = 1 + random.nextInt(60);
+
+            List<Long> paged = new ArrayList<>();
+            String cursor = null;
+            do {
+                ProductColumnStore.IdPage page = store.page(filter, null, keyset, cursor, size);
+                paged.addAll(page.getIds());
+                cursor = page.getNext();
+            } while (cursor != null);
+
+            assertEquals(naive(filter, null, keyset), paged);
+        }
+    }
+
+    @Test
+    void topSlotsFromAnyCursorMatchNaiveSlice() {
+        List<Product> products = new ArrayList<>(reference.values());
+        for (int i = 0; i < 500; i++) {
+            ProduitFilter filter = randomFilter();
+            Keyset keyset = randomKeyset();
+            List<Long> all = naive(filter, null, keyset);
+
+            // curseur posé sur n'importe quel produit, même hors filtre, ou absent
+            Product anchor = random.nextInt(5) == 0 ? null : products.get(random.nextInt(products.size()));
+            List<Long> remaining = anchor == null ? all : all.stream()
+                    .filter(id -> order(keyset).compare(reference.get(id), anchor) > 0)
+                    .toList();
+            // k = 1, k pile au nombre restant, k au-delà, k quelconque
+            int size = switch (random.nextInt(4)) {
+                case 0 -> 1;
+                case 1 -> Math.max(1, remaining.size());
+                case 2 -> remaining.size() + 1 + random.nextInt(10);
+                default -> 1 + random.nextInt(100);
+            };
+            String cursor = anchor == null ? null : keyset.encode(cursorValue(keyset, anchor), anchor.getId());
+
+            ProductColumnStore.IdPage page = store.page(filter, null, keyset, cursor, size);
+            assertEquals(remaining.subList(0, Math.min(size, remaining.size())), page.getIds());
+            assertEquals(remaining.size() > size, page.getNext() != null);
+        }
+    }
+
+    @Test
+    void textCandidatesRestrictTheMatch() {
+        for (int i = 0; i < 100; i++) {
+            Set<Long> candidates = new HashSet<>();
+            int n = random.nextInt(300);
+            for (int j = 0; j < n; j++) {
+                candidates.add(1L + random.nextInt(PRODUCTS + 300)); // quelques ids inconnus
+            }
+            ProduitFilter filter = randomFilter();
+            Keyset keyset = randomKeyset();
+            assertEquals(naive(filter, candidates, keyset), store.allIds(filter, candidates, keyset));
+        }
+    }
+
+    @Test
+    void retainMatchingKeepsTheGivenOrder() {
+        List<Long> ranked = new ArrayList<>(reference.keySet());
+        java.util.Collections.shuffle(ranked, random);
+        ranked.add(PRODUCTS + 999L); // inconnu : ignoré
+        for (int i = 0; i < 100; i++) {
+            ProduitFilter filter = randomFilter();
+            List<Long> expected = ranked.stream()
+                    .filter(id -> reference.containsKey(id) && matches(filter, reference.get(id)))
+                    .toList();
+            assertEquals(expected, store.retainMatching(filter, ranked));
+        }
+    }
+
+    @Test
+    void unknownCategoryMatchesNothing() {
+        ProduitFilter filter = ProduitFilter.builder().categorieId(CATEGORIES + 1L).build();
+        assertEquals(List.of(), store.allIds(filter, null, Keyset.ID_ASC));
+        assertNull(store.page(filter, null, Keyset.ID_ASC, null, 10).getNext());
+    }
+
+    @Test
+    void nullPriceIsExcludedByAnyBoundAndSortsFirstAscending() {
+        ProductColumnStore small = new ProductColumnStore(null);
+        small.onProductChanged(ProductChangedEvent.created(Product.builder().id(1L).price(10.0).rating(4.0).build()));
+        small.onProductChanged(ProductChangedEvent.created(Product.builder().id(2L).price(null).rating(null).build()));
+        small.onProductChanged(ProductChangedEvent.created(Product.builder().id(3L).price(0.0).rating(0.0).build()));
+
+        Keyset priceAsc = new Keyset(SortField.PRICE, false);
+        Keyset priceDesc = new Keyset(SortField.PRICE, true);
+        // sans borne, le NULL reste : en tête en ASC, en queue en DESC (comme MySQL)
+        assertEquals(List.of(2L, 3L, 1L), small.allIds(ProduitFilter.builder().build(), null, priceAsc));
+        assertEquals(List.of(1L, 3L, 2L), small.allIds(ProduitFilter.builder().build(), null, priceDesc));
+
+        // une borne à 0 ou très large suffit à écarter le NULL
+        assertEquals(List.of(3L, 1L),
+                small.allIds(ProduitFilter.builder().prixMin(BigDecimal.ZERO).build(), null, priceAsc));
+        assertEquals(List.of(3L, 1L),
+                small.allIds(ProduitFilter.builder().prixMax(BigDecimal.valueOf(1_000_000)).build(), null, priceAsc));
+        assertEquals(List.of(3L),
+                small.allIds(ProduitFilter.builder().noteMax(BigDecimal.ZERO).build(), null, priceAsc));
+        // bornes incluses, min = max
+        assertEquals(List.of(1L),
+                small.allIds(ProduitFilter.builder().prixMin(BigDecimal.TEN).prixMax(BigDecimal.TEN).build(),
+                        null, priceAsc));
+    }
+
+    @Test
+    void cursorOnTheLastRowGivesAnEmptyFinalPage() {
+        ProductColumnStore small = new ProductColumnStore(null);
+        for (long id = 1; id <= 4; id++) {
+            small.onProductChanged(ProductChangedEvent.created(Product.builder().id(id).price(id * 10.0).build()));
+        }
+        Keyset priceAsc = new Keyset(SortField.PRICE, false);
+        ProduitFilter all = ProduitFilter.builder().build();
+
+        // page qui se termine pile sur la dernière ligne : pas de page suivante
+        ProductColumnStore.IdPage exact = small.page(all, null, priceAsc, priceAsc.encode(20.0, 2L), 2);
+        assertEquals(List.of(3L, 4L), exact.getIds());
+        assertNull(exact.getNext());
+
+        // curseur posé sur la dernière ligne (lien gardé par un client) : page vide, sans suivant
+        ProductColumnStore.IdPage after = small.page(all, null, priceAsc, priceAsc.encode(40.0, 4L), 2);
+        assertEquals(List.of(), after.getIds());
+        assertNull(after.getNext());
+
+        // la dernière ligne en DESC a un prix NULL : le curseur porte la valeur NULL
+        small.onProductChanged(ProductChangedEvent.created(Product.builder().id(5L).price(null).build()));
+        Keyset priceDesc = new Keyset(SortField.PRICE, true);
+        ProductColumnStore.IdPage last = small.page(all, null, priceDesc, priceDesc.encode(10.0, 1L), 10);
+        assertEquals(List.of(5L), last.getIds());
+        assertNull(last.getNext());
+        assertEquals(List.of(), small.page(all, null, priceDesc, priceDesc.encode(null, 5L), 10).getIds());
+    }
+
+    @Test
+    void sortedColumnRangeMatchesLinearScan() {
+        ProductColumnStore.SortedColumn column = new ProductColumnStore.SortedColumn();
+        double[] values = new double[5000];
+        for (int slot = 0; slot < values.length; slot++) {
+            values[slot] = random.nextInt(10) == 0 ? Double.NaN : random.nextInt(500) / 10.0;
+            column.add(values[slot], slot, slot % 2 == 0);
+        }
+        column.sort();
+        for (int i = 0; i < 1000; i++) {
+            int slot = random.nextInt(values.length);
+            column.remove(values[slot], slot);
+            values[slot] = random.nextInt(500) / 10.0;
+            column.add(values[slot], slot, false);
+        }
+        for (int i = 0; i < 200; i++) {
+            Double min = random.nextBoolean() ? null : random.nextInt(500) / 10.0;
+            Double max = random.nextBoolean() ? null : random.nextInt(500) / 10.0;
+            BitSet expected = new BitSet();
+            for (int slot = 0; slot < values.length; slot++) {
+                double v = values[slot];
+                if (!Double.isNaN(v) && (min == null || v >= min) && (max == null || v <= max)) {
+                    expected.set(slot);
+                }
+            }
+            assertEquals(expected, column.range(min, max));
+        }
+    }
+
+    // ========== RÉFÉRENCE NAÏVE ==========
+
+    private List<Long> naive(ProduitFilter filter, Set<Long> candidates, Keyset keyset) {
+        return reference.values().stream()
+                .filter(p -> candidates == null || candidates.contains(p.getId()))
+                .filter(p -> matches(filter, p))
+                .sorted(order(keyset))
+                .map(Product::getId)
+                .toList();
+    }
+
+    private static Comparator<Product> order(Keyset keyset) {
+        Comparator<Product> order = Comparator
+                .comparing(key(keyset), Comparator.nullsFirst(Comparator.<Double>naturalOrder()))
+                .thenComparing(Product::getId);
+        return keyset.isDesc() ? order.reversed() : order;
+    }
+
+    private static Function<Product, Double> key(Keyset keyset) {
+        return switch (keyset.getField()) {
+            case PRICE -> Product::getPrice;
+            case RATING -> Product::getRating;
+            case RATING_COUNT -> p -> p.getRatingCount() == null ? null : p.getRatingCount().doubleValue();
+            case ID -> p -> p.getId().doubleValue();
+        };
+    }
+
+    // valeur du curseur au format des pages (entiers pour nb avis et id)
+    private static Object cursorValue(Keyset keyset, Product p) {
+        return switch (keyset.getField()) {
+            case PRICE -> p.getPrice();
+            case RATING -> p.getRating();
+            case RATING_COUNT -> p.getRatingCount();
+            case ID -> p.getId();
+        };
+    }
+
+    private static boolean matches(ProduitFilter f, Product p) {
+        if (f.getCategorieId() != null
+                && (p.getCategorie() == null || !f.getCategorieId().equals(p.getCategorie().getId()))) {
+            return false;
+        }
+        return between(p.getPrice(), f.getPrixMin(), f.getPrixMax())
+                && between(p.getRating(), f.getNoteMin(), f.getNoteMax())
+                && between(p.getRatingCount() == null ? null : p.getRatingCount().doubleValue(),
+                        f.getReviewsMin() == null ? null : BigDecimal.valueOf(f.getReviewsMin()),
+                        f.getReviewsMax() == null ? null : BigDecimal.valueOf(f.getReviewsMax()));
+    }
+
+    private static boolean between(Double v, BigDecimal min, BigDecimal max) {
+        if (min == null && max == null) return true;
+        if (v == null) return false;
+        return (min == null || v >= min.doubleValue()) && (max == null || v <= max.doubleValue());
+    }
+
+    // ========== DONNÉES ==========
+
+    private void save(Product p) {
+        boolean known = reference.containsKey(p.getId());
+        reference.put(p.getId(), p);
+        store.onProductChanged(known ? ProductChangedEvent.updated(p) : ProductChangedEvent.created(p));
+    }
+
+    private void delete(long id) {
+        reference.remove(id);
+        store.onProductChanged(ProductChangedEvent.deleted(id));
+    }
+
+    private Product randomProduct(long id) {
+        // petites plages de valeurs : beaucoup d'égalités, départagées par l'id
+        return Product.builder()
+                .id(id)
+                .price(random.nextInt(10) == 0 ? null : random.nextInt(200) / 2.0)
+                .rating(random.nextInt(10) == 0 ? null : random.nextInt(11) / 2.0)
+                .ratingCount(random.nextInt(10) == 0 ? null : (long) random.nextInt(50))
+                .categorie(random.nextInt(10) == 0 ? null
+                        : Categorie.builder().id(1L + random.nextInt(CATEGORIES)).build())
+                .build();
+    }
+
+    private ProduitFilter randomFilter() {
+        ProduitFilter.ProduitFilterBuilder f = ProduitFilter.builder();
+        if (random.nextInt(3) == 0) f.categorieId(1L + random.nextInt(CATEGORIES));
+        if (random.nextInt(3) == 0) f.prixMin(BigDecimal.valueOf(random.nextInt(100)));
+        if (random.nextInt(3) == 0) f.prixMax(BigDecimal.valueOf(random.nextInt(100)));
+        if (random.nextInt(3) == 0) f.noteMin(BigDecimal.valueOf(random.nextInt(11) / 2.0));
+        if (random.nextInt(3) == 0) f.noteMax(BigDecimal.valueOf(random.nextInt(11) / 2.0));
+        if (random.nextInt(3) == 0) f.reviewsMin(random.nextInt(50));
+        if (random.nextInt(3) == 0) f.reviewsMax(random.nextInt(50));
+        return f.build();
+    }
+
+    private Keyset randomKeyset() {
+        SortField[] fields = SortField.values();
+        return new Keyset(fields[random.nextInt(fields.length)], random.nextBoolean());
+    }
+}
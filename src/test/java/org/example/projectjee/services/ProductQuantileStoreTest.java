@@ -0,0 +1,166 @@
+package org.example.projectjee.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.Function;
+
+import org.example.projectjee.events.ProductChangedEvent;
+import org.example.projectjee.model.Categorie;
+import org.example.projectjee.model.Product;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * {@link ProductQuantileStore} sous modifications et suppressions, comparé aux
+ * valeurs vivantes : nombre, min et max exacts, quantiles à l'erreur de rang
+ * du sketch près (plus la part de valeurs périmées tolérée). Cas ciblés :
+ * retrait de l'extrême courant, valeur extrême partagée, changement de catégorie.
+ */
+class ProductQuantileStoreTest {
+
+    private static final int PRODUCTS = 20_000;
+    private static final int CATEGORIES = 5;
+    private static final double MAX_RANK_ERROR = 0.03;
+    private static final double[] FRACTIONS = {0.1, 0.5, 0.9, 0.99};
+
+    private final Random random = new Random(31);
+    private final Map<Long, Product> reference = new LinkedHashMap<>();
+    private ProductQuantileStore store;
+
+    @BeforeEach
+    void setUp() {
+        store = new ProductQuantileStore(null);
+        for (long id = 1; id <= PRODUCTS; id++) {
+            save(randomProduct(id));
+        }
+    }
+
+    @Test
+    void countMinMaxIgnoreStaleValues() {
+        // les prix extrêmes sont retirés : le sketch les garde jusqu'à reconstruction
+        for (Product p : List.copyOf(reference.values())) {
+            if (p.getPrice() != null && (p.getPrice() < 5 || p.getPrice() > 200)) {
+                delete(p.getId());
+            }
+        }
+        for (int i = 0; i < 3_000; i++) {
+            long id = 1 + random.nextInt(PRODUCTS);
+            if (random.nextInt(4) == 0) {
+                delete(id);
+            } else if (reference.containsKey(id)) {
+                save(randomProduct(id));
+            }
+        }
+        assertSnapshotMatches(null);
+        for (long c = 1; c <= CATEGORIES; c++) {
+            assertSnapshotMatches(List.of(c));
+        }
+        assertSnapshotMatches(List.of(1L, 3L, CATEGORIES + 1L));
+    }
+
+    @Test
+    void emptiedCategoryReportsNothing() {
+        for (Product p : List.copyOf(reference.values())) {
+            if (p.getCategorie() != null && p.getCategorie().getId() == 2L) delete(p.getId());
+        }
+        ProductQuantileStore.Snapshot s = store.snapshot(List.of(2L));
+        assertEquals(0, s.getPrices().getCount());
+        assertNull(s.getPrices().getMin());
+        assertNull(s.getRatings().getMax());
+    }
+
+    @Test
+    void removingTheCurrentExtremeRecomputesItAndDuplicatesKeepIt() {
+        store = new ProductQuantileStore(null);
+        reference.clear();
+        save(product(1, 1.0, 6L));
+        save(product(2, 1.0, 6L));
+        save(product(3, 50.0, 6L));
+        save(product(4, 80.0, 6L));
+
+        delete(1);   // un autre produit a encore le prix minimal
+        assertEquals(1.0, store.snapshot(List.of(6L)).getPrices().getMin().doubleValue());
+        delete(2);
+        assertEquals(50.0, store.snapshot(List.of(6L)).getPrices().getMin().doubleValue());
+
+        // le maximum change de catégorie : retiré de l'une, ajouté à l'autre
+        save(product(4, 80.0, 7L));
+        assertEquals(50.0, store.snapshot(List.of(6L)).getPrices().getMax().doubleValue());
+        assertEquals(1, store.snapshot(List.of(6L)).getPrices().getCount());
+        assertEquals(80.0, store.snapshot(List.of(7L)).getPrices().getMax().doubleValue());
+        assertEquals(80.0, store.snapshot(null).getPrices().getMax().doubleValue());
+        assertEquals(2, store.snapshot(null).getPrices().getCount());
+    }
+
+    // ========== RÉFÉRENCE NAÏVE ==========
+
+    private void assertSnapshotMatches(List<Long> categories) {
+        ProductQuantileStore.Snapshot s = store.snapshot(categories);
+        assertColumn(s.getPrices(), live(categories, Product::getPrice));
+        assertColumn(s.getRatings(), live(categories, Product::getRating));
+    }
+
+    private static void assertColumn(ProductQuantileStore.ColumnSnapshot column, double[] sorted) {
+        assertEquals(sorted.length, column.getCount());
+        assertEquals(sorted[0], column.getMin().doubleValue());
+        assertEquals(sorted[sorted.length - 1], column.getMax().doubleValue());
+        double[] values = column.getSketch().quantiles(FRACTIONS);
+        for (int i = 0; i < FRACTIONS.length; i++) {
+            double v = values[i];
+            double below = Arrays.stream(sorted).filter(x -> x < v).count() / (double) sorted.length;
+            double atOrBelow = Arrays.stream(sorted).filter(x -> x <= v).count() / (double) sorted.length;
+            double error = FRACTIONS[i] < below ? below - FRACTIONS[i]
+                    : FRACTIONS[i] > atOrBelow ? FRACTIONS[i] - atOrBelow : 0;
+            assertTrue(error <= MAX_RANK_ERROR, "p" + FRACTIONS[i] + " : erreur de rang " + error);
+        }
+    }
+
+    private double[] live(List<Long> categories, Function<Product, Double> column) {
+        return reference.values().stream()
+                .filter(p -> categories == null
+                        || p.getCategorie() != null && categories.contains(p.getCategorie().getId()))
+                .map(column)
+                .filter(v -> v != null)
+                .mapToDouble(Double::doubleValue)
+                .sorted()
+                .toArray();
+    }
+
+    // ========== DONNÉES ==========
+
+    private void save(Product p) {
+        boolean known = reference.containsKey(p.getId());
+        reference.put(p.getId(), p);
+        store.onProductChanged(known ? ProductChangedEvent.updated(p) : ProductChangedEvent.created(p));
+    }
+
+    private void delete(long id) {
+        reference.remove(id);
+        store.onProductChanged(ProductChangedEvent.deleted(id));
+    }
+
+    private static Product product(long id, double price, long categorieId) {
+        return Product.builder()
+                .id(id)
+                .price(price)
+                .rating(4.0)
+                .categorie(Categorie.builder().id(categorieId).build())
+                .build();
+    }
+
+    private Product randomProduct(long id) {
+        return Product.builder()
+                .id(id)
+                .price(random.nextInt(20) == 0 ? null : Math.round(Math.exp(3 + random.nextGaussian()) * 100) / 100.0)
+                .rating(random.nextInt(20) == 0 ? null : random.nextInt(11) / 2.0)
+                .categorie(Categorie.builder().id(1L + random.nextInt(CATEGORIES)).build())
+                .build();
+    }
+}
@@ -0,0 +1,197 @@
+package org.example.projectjee.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.reflect.Proxy;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.example.projectjee.events.ProductChangedEvent;
+import org.example.projectjee.model.Categorie;
+import org.example.projectjee.model.Product;
+import org.example.projectjee.repository.ProduitRepository;
+import org.example.projectjee.util.HnswIndex;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+
+/**
+ * Mises à jour de {@link ProductVectorIndex} par événements : pas de nouvel
+ * embedding quand le texte ne change pas, compaction en tâche de fond ; au
+ * redémarrage, seuls les produits modifiés pendant l'arrêt sont recalculés.
+ */
+class ProductVectorIndexTest {
+
+    private static final int DIMENSION = 64;
+
+    private final AtomicInteger embedCalls = new AtomicInteger();
+    private final Map<Long, Product> database = new TreeMap<>();
+    private Path dir;
+    private ProductVectorIndex index;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        dir = Files.createTempDirectory("vector-index");
+        index = new ProductVectorIndex(null, countingProvider(), dir.resolve("produits.hnsw").toString());
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        index.shutdown();
+        try (var files = Files.list(dir)) {
+            for (Path f : files.toList()) Files.deleteIfExists(f);
+        }
+        Files.deleteIfExists(dir);
+    }
+
+    @Test
+    void priceOrStockUpdateDoesNotReEmbed() {
+        Product p = product(1, "Coque iphone 15 cuir", "Protection antichoc");
+        index.onProductChanged(ProductChangedEvent.created(p));
+        assertEquals(1, embedCalls.get());
+
+        p.setPrice(9.99);
+        p.setQuantityAvailable(3);
+        p.setRating(4.5);
+        index.onProductChanged(ProductChangedEvent.updated(p));
+        assertEquals(1, embedCalls.get());
+
+        p.setTitle("Coque iphone 15 silicone");
+        index.onProductChanged(ProductChangedEvent.updated(p));
+        assertEquals(2, embedCalls.get());
+
+        p.getCategorie().setNom("Téléphonie");
+        index.onProductChanged(ProductChangedEvent.updated(p));
+        assertEquals(3, embedCalls.get());
+        assertEquals(1L, index.search("coque silicone", 1).get(0).getKey());
+    }
+
+    @Test
+    void deletionsTriggerBackgroundCompaction() throws Exception {
+        for (long id = 1; id <= 400; id++) {
+            index.onProductChanged(ProductChangedEvent.created(product(id, "produit " + id + " lampe", null)));
+        }
+        Set<Long> live = new HashSet<>();
+        for (long id = 1; id <= 400; id++) {
+            if (id % 2 == 0) {
+                index.onProductChanged(ProductChangedEvent.deleted(id));
+            } else {
+                live.add(id);
+            }
+        }
+
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (index.deletedRatio() > 0.3 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue(index.deletedRatio() <= 0.3, "compaction non terminée");
+
+        List<HnswIndex.Hit> hits = index.search("lampe", ProductVectorIndex.MAX_K);
+        for (HnswIndex.Hit hit : hits) {
+            assertTrue(live.contains(hit.getKey()), "produit supprimé renvoyé : " + hit.getKey());
+        }
+        assertEquals(1L, index.search("produit 1 lampe", 1).get(0).getKey());
+    }
+
+    @Test
+    void textChangedWhileStoppedIsReEmbeddedOnRestart() {
+        for (long id = 1; id <= 50; id++) {
+            database.put(id, product(id, "produit " + id + " lampe", null));
+        }
+        ProductVectorIndex first = restarted();
+        assertEquals(50, embedCalls.get());
+        first.onProductChanged(ProductChangedEvent.created(product(51, "produit 51 lampe", null)));
+        database.put(51L, product(51, "produit 51 lampe", null));
+        first.shutdown();
+
+        // base modifiée application arrêtée : aucun événement
+        database.get(7L).setTitle("veilleuse licorne arc-en-ciel");
+        database.get(8L).setPrice(12.5);   // hors texte embeddé
+        database.remove(9L);
+        embedCalls.set(0);
+
+        ProductVectorIndex second = restarted();
+        assertEquals(1, embedCalls.get());
+        assertEquals(7L, second.search("veilleuse licorne arc-en-ciel", 1).get(0).getKey());
+        for (HnswIndex.Hit hit : second.search("produit 9 lampe", ProductVectorIndex.MAX_K)) {
+            assertTrue(hit.getKey() != 9L, "produit supprimé renvoyé");
+        }
+        second.shutdown();
+    }
+
+    @Test
+    void missingFingerprintFileReEmbedsEveryStoredVector() throws Exception {
+        for (long id = 1; id <= 20; id++) {
+            database.put(id, product(id, "produit " + id + " lampe", null));
+        }
+        restarted().shutdown();
+        // première sauvegarde : index et empreintes ensemble
+        assertTrue(Files.exists(dir.resolve("produits.hnsw.fp")));
+
+        // index seul (arrêt brutal pendant une sauvegarde) : empreintes inconnues
+        Files.delete(dir.resolve("produits.hnsw.fp"));
+        embedCalls.set(0);
+        ProductVectorIndex reloaded = restarted();
+        assertEquals(20, embedCalls.get());
+        reloaded.shutdown();
+
+        // empreintes réécrites : plus rien à recalculer
+        embedCalls.set(0);
+        restarted().shutdown();
+        assertEquals(0, embedCalls.get());
+    }
+
+    // ========== DONNÉES ==========
+
+    private EmbeddingProvider countingProvider() {
+        return new HashingEmbeddingProvider(DIMENSION) {
+            @Override
+            public float[] embed(String text) {
+                embedCalls.incrementAndGet();
+                return super.embed(text);
+            }
+        };
+    }
+
+    // nouvelle instance sur le même fichier, chargée depuis la "base" (une map id -> produit)
+    private ProductVectorIndex restarted() {
+        ProduitRepository repository = (ProduitRepository) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[] {ProduitRepository.class}, (proxy, method, args) -> {
+                    if (!method.getName().equals("findEmbeddingRowsAfter")) {
+                        throw new UnsupportedOperationException(method.getName());
+                    }
+                    long afterId = (Long) args[0];
+                    int size = ((Pageable) args[1]).getPageSize();
+                    List<Object[]> rows = new ArrayList<>();
+                    for (Product p : database.values()) {
+                        if (p.getId() <= afterId) continue;
+                        if (rows.size() == size) break;
+                        rows.add(new Object[] {p.getId(), p.getTitle(), p.getDescription(),
+                                p.getCategorie() != null ? p.getCategorie().getNom() : null});
+                    }
+                    return rows;
+                });
+        ProductVectorIndex restarted = new ProductVectorIndex(repository, countingProvider(),
+                dir.resolve("produits.hnsw").toString());
+        restarted.load();
+        return restarted;
+    }
+
+    private static Product product(long id, String title, String description) {
+        return Product.builder()
+                .id(id)
+                .title(title)
+                .description(description)
+                .categorie(Categorie.builder().id(1L).nom("Accessoires").build())
+                .build();
+    }
+}
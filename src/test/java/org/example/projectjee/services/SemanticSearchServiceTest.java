@@ -0,0 +1,231 @@
+package org.example.projectjee.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Protections de {@link SemanticSearchService} contre un faux service Python
+ * ({@link HttpServer} local) : délai de lecture, disjoncteur, limite d'appels
+ * simultanés, cache des résultats, et appel groupé {@code /search/batch}.
+ */
+class SemanticSearchServiceTest {
+
+    private static final int READ_TIMEOUT_MS = 2_000;
+    private static final int BREAKER_FAILURES = 3;
+
+    private final AtomicInteger requests = new AtomicInteger();
+    private volatile List<String> lastBatch = List.of();
+    private volatile int status = 200;
+    private volatile long delayMs = 0;
+    private volatile CountDownLatch entered;
+    private volatile CountDownLatch release;
+
+    private ExecutorService serverThreads;
+    private HttpServer server;
+    private String baseUrl;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/search", this::handle);
+        serverThreads = Executors.newCachedThreadPool();
+        server.setExecutor(serverThreads);
+        server.start();
+        baseUrl = "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+        serverThreads.shutdownNow();
+    }
+
+    @Test
+    void normalizedQueriesAreServedFromTheCache() {
+        SemanticSearchService service = service(8);
+
+        assertEquals(List.of(3L, 1L, 2L), service.searchProductIds("Coque iPhone", 10));
+        assertEquals(List.of(3L, 1L, 2L), service.searchProductIds("  coque IPHONE ", 10));
+        assertEquals(1, requests.get());
+        assertEquals(1L, service.stats().get("cacheHits"));
+
+        // autre nombre de résultats : autre clé
+        service.searchProductIds("coque iphone", 5);
+        assertEquals(2, requests.get());
+    }
+
+    @Test
+    void slowBackendTimesOutWithEmptyResult() {
+        SemanticSearchService service = service(8);
+        delayMs = 10_000;
+
+        long start = System.nanoTime();
+        assertEquals(List.of(), service.searchProductIds("lampe", 10));
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        assertTrue(elapsedMs < 6_000, "délai de lecture non respecté : " + elapsedMs + " ms");
+
+        // l'échec n'est pas mis en cache
+        delayMs = 0;
+        assertEquals(List.of(3L, 1L, 2L), service.searchProductIds("lampe", 10));
+    }
+
+    @Test
+    void breakerOpensAfterFailuresAndClosesAfterASuccessfulTrial() throws Exception {
+        SemanticSearchService service = service(8);
+        status = 500;
+        for (int i = 0; i < BREAKER_FAILURES; i++) {
+            assertEquals(List.of(), service.searchProductIds("requête " + i, 10));
+        }
+        assertEquals(BREAKER_FAILURES, requests.get());
+        assertEquals("OPEN", service.stats().get("circuit"));
+
+        // disjoncteur ouvert : plus aucun appel ne part
+        status = 200;
+        assertEquals(List.of(), service.searchProductIds("autre", 10));
+        assertEquals(BREAKER_FAILURES, requests.get());
+
+        Thread.sleep(1_100);
+        assertEquals("HALF_OPEN", service.stats().get("circuit"));
+        assertEquals(List.of(3L, 1L, 2L), service.searchProductIds("autre", 10));
+        assertEquals(BREAKER_FAILURES + 1, requests.get());
+        assertEquals("CLOSED", service.stats().get("circuit"));
+    }
+
+    @Test
+    void bulkheadRejectsCallsBeyondTheLimit() throws Exception {
+        SemanticSearchService service = service(1);
+        entered = new CountDownLatch(1);
+        release = new CountDownLatch(1);
+
+        CompletableFuture<List<Long>> first = CompletableFuture.supplyAsync(() -> service.searchProductIds("lent", 10));
+        assertTrue(entered.await(5, TimeUnit.SECONDS));
+
+        // le seul appel autorisé est en cours : refus immédiat, sans requête
+        assertEquals(List.of(), service.searchProductIds("refusé", 10));
+        assertEquals(1, requests.get());
+        assertEquals(1L, service.stats().get("rejectedCalls"));
+
+        release.countDown();
+        assertEquals(List.of(3L, 1L, 2L), first.get(5, TimeUnit.SECONDS));
+        assertEquals("CLOSED", service.stats().get("circuit"));
+    }
+
+    @Test
+    void batchServesCachedQueriesLocallyAndSendsTheRestInOneCall() {
+        SemanticSearchService service = service(8);
+        service.searchProductIds("coque", 10);
+        assertEquals(1, requests.get());
+
+        Map<String, List<Long>> results = service.searchProductIdsBatch(
+                List.of("Coque", "lampe", " LAMPE ", "", "casque usb"), 10);
+        assertEquals(2, requests.get());
+        // déjà en cache, vide, ou doublon une fois normalisé : pas envoyé
+        assertEquals(List.of("lampe", "casque usb"), lastBatch);
+        assertEquals(List.of("Coque", "lampe", " LAMPE ", "", "casque usb"), List.copyOf(results.keySet()));
+        assertEquals(List.of(3L, 1L, 2L), results.get("Coque"));
+        assertEquals(List.of(5L, 1L), results.get("lampe"));
+        assertEquals(List.of(5L, 1L), results.get(" LAMPE "));
+        assertEquals(List.of(), results.get(""));
+        assertEquals(List.of(10L, 1L), results.get("casque usb"));
+
+        // résultats du lot mis en cache, partagés avec l'appel unitaire
+        assertEquals(List.of(5L, 1L), service.searchProductIds("Lampe", 10));
+        assertEquals(List.of(10L, 1L), service.searchProductIdsBatch(List.of("casque usb"), 10).get("casque usb"));
+        assertEquals(2, requests.get());
+    }
+
+    @Test
+    void batchGoesThroughTheBreakerAndFailuresAreNotCached() {
+        SemanticSearchService service = service(8);
+        status = 500;
+        for (int i = 0; i < BREAKER_FAILURES; i++) {
+            Map<String, List<Long>> results = service.searchProductIdsBatch(List.of("a" + i, "b" + i), 10);
+            assertEquals(List.of(), results.get("a" + i));
+        }
+        assertEquals(BREAKER_FAILURES, requests.get());
+        assertEquals("OPEN", service.stats().get("circuit"));
+
+        status = 200;
+        assertEquals(List.of(), service.searchProductIdsBatch(List.of("a0"), 10).get("a0"));
+        assertEquals(BREAKER_FAILURES, requests.get());
+    }
+
+    // ========== FAUX SERVICE ==========
+
+    private SemanticSearchService service(int maxConcurrentCalls) {
+        return new SemanticSearchService(baseUrl, 500, READ_TIMEOUT_MS, maxConcurrentCalls,
+                BREAKER_FAILURES, 1, 300, 1000);
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        requests.incrementAndGet();
+        String request = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+        try {
+            CountDownLatch e = entered;
+            if (e != null) {
+                e.countDown();
+                release.await(15, TimeUnit.SECONDS);
+            }
+            if (delayMs > 0) Thread.sleep(delayMs);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        String json;
+        if (status != 200) {
+            json = "{\"detail\": \"erreur\"}";
+        } else if (exchange.getRequestURI().getPath().endsWith("/batch")) {
+            json = batchResponse(request);
+        } else {
+            json = "{\"product_ids\": [3, 1, 2]}";
+        }
+        byte[] body = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        } catch (IOException ignored) {
+            // client déjà parti (délai dépassé)
+        }
+    }
+
+    // {"queries": [...]} -> un résultat par requête, ids [longueur de la requête, 1]
+    private String batchResponse(String request) {
+        Matcher list = Pattern.compile("\"queries\"\\s*:\\s*\\[(.*?)]").matcher(request);
+        List<String> queries = new ArrayList<>();
+        if (list.find()) {
+            Matcher q = Pattern.compile("\"([^\"]*)\"").matcher(list.group(1));
+            while (q.find()) queries.add(q.group(1));
+        }
+        lastBatch = queries;
+        StringBuilder json = new StringBuilder("{\"results\": [");
+        for (int i = 0; i < queries.size(); i++) {
+            if (i > 0) json.append(", ");
+            json.append("{\"query\": \"").append(queries.get(i)).append("\", \"product_ids\": [")
+                    .append(queries.get(i).length()).append(", 1]}");
+        }
+        return json.append("]}").toString();
+    }
+}
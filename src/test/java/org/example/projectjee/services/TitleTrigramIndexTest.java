@@ -0,0 +1,228 @@
+package org.example.projectjee.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.example.projectjee.events.ProductChangedEvent;
+import org.example.projectjee.model.Product;
+import org.example.projectjee.util.TextNormalizer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Recherche tolérante de {@link TitleTrigramIndex}. Le parcours de tous les
+ * titres en distance d'édition complète sert d'oracle sur des requêtes
+ * fautives tirées au hasard (tolérance : 0 jusqu'à 2 lettres, 1 jusqu'à 5,
+ * 2 au-delà) ; les mots très courts et les accents ont leurs propres cas.
+ */
+class TitleTrigramIndexTest {
+
+    private static final int PRODUCTS = 1500;
+
+    private static final String[] WORDS = {
+            "echo", "dot", "fire", "tv", "stick", "kindle", "paperwhite", "alexa", "enceinte",
+            "coque", "iphone", "chargeur", "cable", "casque", "clavier", "souris", "ecran",
+            "batterie", "montre", "lampe", "led", "noir", "blanc", "mini", "max", "pro", "4k"
+    };
+
+    private final Random random = new Random(5);
+    private final Map<Long, String> reference = new LinkedHashMap<>();
+    private TitleTrigramIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new TitleTrigramIndex(null);
+        for (long id = 1; id <= PRODUCTS; id++) {
+            save(id, randomTitle());
+        }
+        // retitrages et suppressions : les mots disparus quittent le vocabulaire
+        for (int i = 0; i < PRODUCTS / 3; i++) {
+            long id = 1 + random.nextInt(PRODUCTS);
+            if (random.nextInt(3) == 0) {
+                reference.remove(id);
+                index.onProductChanged(ProductChangedEvent.deleted(id));
+            } else {
+                save(id, randomTitle());
+            }
+        }
+    }
+
+    @Test
+    void searchMatchesNaiveScan() {
+        for (int i = 0; i < 400; i++) {
+            String query = randomQuery();
+            assertEquals(naive(query), matches(index.search(query)), "requête \"" + query + "\"");
+        }
+    }
+
+    @Test
+    void typosFindTheIntendedTitles() {
+        save(PRODUCTS + 1L, "Echo Dot 5e génération");
+        save(PRODUCTS + 2L, "Fire TV Stick 4K");
+
+        List<TitleTrigramIndex.Match> echo = index.search("eco dott");
+        assertEquals(naive("eco dott"), matches(echo));
+        assertTrue(echo.stream().anyMatch(m -> m.getProductId() == PRODUCTS + 1L));
+
+        List<TitleTrigramIndex.Match> fire = index.search("fire tv stik");
+        assertEquals(naive("fire tv stik"), matches(fire));
+        assertTrue(fire.stream().anyMatch(m -> m.getProductId() == PRODUCTS + 2L));
+    }
+
+    @Test
+    void deletedProductsAreNotReturned() {
+        long id = PRODUCTS + 1L;
+        save(id, "paperwhite zephyr");
+        assertEquals(List.of(id + ":1"), matches(index.search("zephir")));
+
+        reference.remove(id);
+        index.onProductChanged(ProductChangedEvent.deleted(id));
+        assertEquals(List.of(), index.search("zephyr"));
+        assertEquals(naive("paperwhite"), matches(index.search("paperwhite")));
+    }
+
+    @Test
+    void oneAndTwoLetterWordsMustMatchExactly() {
+        long tv = PRODUCTS + 1L;
+        long usb = PRODUCTS + 2L;
+        save(tv, "Zorglub TV 4 K");
+        save(usb, "Zorglub USB C");
+
+        // jusqu'à 2 lettres, aucune faute tolérée : "tx" ne rattrape pas "tv"
+        assertEquals(List.of(tv + ":0"), matches(index.search("zorglub tv")));
+        assertEquals(List.of(), index.search("zorglub tx"));
+        assertEquals(List.of(tv + ":0"), matches(index.search("zorglub 4")));
+        assertEquals(List.of(usb + ":0"), matches(index.search("zorglub c")));
+        assertEquals(List.of(), index.search("zorglub x"));
+        // 3 lettres : une faute admise, et "us" (2 lettres) ne vaut pas "usb"
+        assertEquals(List.of(usb + ":1"), matches(index.search("zorglub usv")));
+        assertEquals(List.of(), index.search("zorglub us"));
+    }
+
+    @Test
+    void accentsAreFoldedOnBothSides() {
+        long id = PRODUCTS + 1L;
+        save(id, "Écouteurs sans fil légers — Édition NOËL");
+
+        assertEquals(List.of(id + ":0"), matches(index.search("ecouteurs legers")));
+        assertEquals(List.of(id + ":0"), matches(index.search("ÉCOUTEURS Noel")));
+        assertEquals(List.of(id + ":0"), matches(index.search("édition noël")));
+        // l'accent ne compte pas comme une faute : "legerz" reste à 1
+        assertEquals(List.of(id + ":1"), matches(index.search("légerz")));
+        // requête sans lettre ni chiffre : rien à chercher
+        assertEquals(List.of(), index.search(" — !? "));
+    }
+
+    // ========== RÉFÉRENCE NAÏVE ==========
+
+    private List<String> naive(String query) {
+        List<String> tokens = new ArrayList<>(new LinkedHashSet<>(TextNormalizer.tokenize(query)));
+        List<long[]> found = new ArrayList<>();
+        if (tokens.isEmpty()) return List.of();
+        for (Map.Entry<Long, String> p : reference.entrySet()) {
+            List<String> words = TextNormalizer.tokenize(p.getValue());
+            int total = 0;
+            boolean all = true;
+            for (String t : tokens) {
+                int best = Integer.MAX_VALUE;
+                for (String w : words) best = Math.min(best, distance(t, w));
+                if (best > maxEdits(t)) {
+                    all = false;
+                    break;
+                }
+                total += best;
+            }
+            if (all) found.add(new long[] {p.getKey(), total});
+        }
+        return found.stream()
+                .sorted(Comparator.<long[]>comparingLong(m -> m[1]).thenComparingLong(m -> m[0]))
+                .map(m -> m[0] + ":" + m[1])
+                .toList();
+    }
+
+    private static int maxEdits(String token) {
+        if (token.length() <= 2) return 0;
+        return token.length() <= 5 ? 1 : 2;
+    }
+
+    private static int distance(String a, String b) {
+        int[][] d = new int[a.length() + 1][b.length() + 1];
+        for (int i = 0; i <= a.length(); i++) d[i][0] = i;
+        for (int j = 0; j <= b.length(); j++) d[0][j] = j;
+        for (int i = 1; i <= a.length(); i++) {
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                d[i][j] = Math.min(Math.min(d[i - 1][j] + 1, d[i][j - 1] + 1), d[i - 1][j - 1] + cost);
+            }
+        }
+        return d[a.length()][b.length()];
+    }
+
+    private static List<String> matches(List<TitleTrigramIndex.Match> found) {
+        return found.stream().map(m -> m.getProductId() + ":" + m.getDistance()).toList();
+    }
+
+    // ========== DONNÉES ==========
+
+    private void save(long id, String title) {
+        boolean known = reference.containsKey(id);
+        reference.put(id, title);
+        Product p = Product.builder().id(id).title(title).build();
+        index.onProductChanged(known ? ProductChangedEvent.updated(p) : ProductChangedEvent.created(p));
+    }
+
+    private String randomTitle() {
+        int n = 2 + random.nextInt(4);
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < n; i++) {
+            if (i > 0) sb.append(' ');
+            String w = WORDS[random.nextInt(WORDS.length)];
+            // quelques mots mal orthographiés dans les titres eux-mêmes
+            sb.append(random.nextInt(8) == 0 ? typo(w) : w);
+        }
+        return random.nextBoolean() ? sb.toString().toUpperCase() : sb.toString();
+    }
+
+    private String randomQuery() {
+        int n = 1 + random.nextInt(3);
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < n; i++) {
+            if (i > 0) sb.append(' ');
+            String w = WORDS[random.nextInt(WORDS.length)];
+            int typos = random.nextInt(3);
+            for (int t = 0; t < typos; t++) w = typo(w);
+            sb.append(w);
+        }
+        return sb.toString();
+    }
+
+    private String typo(String word) {
+        StringBuilder sb = new StringBuilder(word);
+        char c = (char) ('a' + random.nextInt(26));
+        switch (random.nextInt(4)) {
+            case 0 -> sb.insert(random.nextInt(sb.length() + 1), c);
+            case 1 -> {
+                if (sb.length() > 1) sb.deleteCharAt(random.nextInt(sb.length()));
+            }
+            case 2 -> sb.setCharAt(random.nextInt(sb.length()), c);
+            default -> {
+                // inversion de deux lettres voisines
+                if (sb.length() > 1) {
+                    int i = random.nextInt(sb.length() - 1);
+                    char a = sb.charAt(i);
+                    sb.setCharAt(i, sb.charAt(i + 1));
+                    sb.setCharAt(i + 1, a);
+                }
+            }
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,121 @@
+package org.example.projectjee.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.lang.reflect.Proxy;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
+
+import org.example.projectjee.dto.RevenueBucketDTO;
+import org.example.projectjee.model.VenteHeureVendeur;
+import org.example.projectjee.model.VenteJourVendeur;
+import org.example.projectjee.repository.VenteJourRepository;
+import org.example.projectjee.services.VenteTimeSeriesService.Resolution;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+
+/**
+ * {@link VenteTimeSeriesService#latestWithSales} : les N dernières périodes
+ * avec ventes, comme l'ancien /dashboard/revenue-by-period, quel que soit
+ * l'écart entre deux ventes et même quand une période est coupée entre deux
+ * lots de lecture.
+ */
+class VenteTimeSeriesServiceTest {
+
+    private static final Long VENDEUR = 7L;
+    private static final LocalDateTime NOW = LocalDateTime.of(2026, 3, 14, 9, 30);
+
+    private final TreeMap<LocalDate, VenteJourVendeur> days = new TreeMap<>();
+    private final TreeMap<LocalDateTime, VenteHeureVendeur> hours = new TreeMap<>();
+    private VenteTimeSeriesService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new VenteTimeSeriesService(repository());
+    }
+
+    @Test
+    void gapsBetweenSalesDoNotCountAgainstTheLimit() {
+        // une vente tous les 10 ans : bien au-delà du plafond d'une série dense en jours
+        day(LocalDate.of(1996, 5, 2), 10.0, 1);
+        day(LocalDate.of(2006, 5, 2), 20.0, 2);
+        day(LocalDate.of(2016, 5, 2), 30.0, 3);
+        day(LocalDate.of(2026, 3, 14), 40.0, 4);
+
+        assertEquals(List.of("2026-03-14:40.0:4", "2016-05-02:30.0:3", "2006-05-02:20.0:2"),
+                labels(service.latestWithSales(VENDEUR, Resolution.DAY, 3, NOW)));
+        // limite au-delà de l'historique : tout, sans erreur ni plafond
+        assertEquals(4, service.latestWithSales(VENDEUR, Resolution.DAY, 1_000_000, NOW).size());
+    }
+
+    @Test
+    void yearsAreCompleteWhenTheirDaysSpanSeveralBatches() {
+        // 1500 jours de ventes jusqu'au 2026-03-13 : le premier lot de 1000 lignes s'arrête en juin 2023
+        LocalDate first = LocalDate.of(2022, 2, 3);
+        for (int i = 0; i < 1500; i++) day(first.plusDays(i), 1.0, 1);
+
+        assertEquals(List.of("2026:72.0:72", "2025:365.0:365", "2024:366.0:366", "2023:365.0:365"),
+                labels(service.latestWithSales(VENDEUR, Resolution.YEAR, 4, NOW)));
+    }
+
+    @Test
+    void emptyRowsAndSalesAfterNowAreIgnored() {
+        day(LocalDate.of(2026, 3, 1), 5.0, 1);
+        day(LocalDate.of(2026, 2, 20), 0.0, 0);  // commande annulée : ligne à zéro
+        day(LocalDate.of(2026, 1, 31), 7.5, 2);
+        day(LocalDate.of(2026, 4, 1), 99.0, 9);  // après "now"
+
+        assertEquals(List.of("2026-03:5.0:1", "2026-01:7.5:2"),
+                labels(service.latestWithSales(VENDEUR, Resolution.MONTH, 5, NOW)));
+    }
+
+    @Test
+    void hoursComeFromTheHourlyRollup() {
+        hour(NOW.withMinute(0), 3.0, 1);
+        hour(NOW.withMinute(0).minusHours(50), 2.0, 1);
+        hour(NOW.withMinute(0).plusHours(1), 9.0, 1);  // heure suivante : pas encore là
+
+        assertEquals(List.of("2026-03-14 09:00:3.0:1", "2026-03-12 07:00:2.0:1"),
+                labels(service.latestWithSales(VENDEUR, Resolution.HOUR, 10, NOW)));
+        assertEquals(List.of(), service.latestWithSales(VENDEUR, Resolution.HOUR, 0, NOW));
+    }
+
+    // ========== DONNÉES ==========
+
+    private void day(LocalDate jour, double revenue, long orders) {
+        days.put(jour, VenteJourVendeur.builder().vendeurId(VENDEUR).jour(jour)
+                .chiffreAffaires(revenue).nbCommandes(orders).nbLignes(orders).quantite(orders).build());
+    }
+
+    private void hour(LocalDateTime heure, double revenue, long orders) {
+        hours.put(heure, VenteHeureVendeur.builder().vendeurId(VENDEUR).heure(heure)
+                .chiffreAffaires(revenue).nbCommandes(orders).nbLignes(orders).quantite(orders).build());
+    }
+
+    private static List<String> labels(List<RevenueBucketDTO> buckets) {
+        return buckets.stream().map(b -> b.getPeriod() + ":" + b.getRevenue() + ":" + b.getOrders()).toList();
+    }
+
+    // rollups servis à rebours par lots, comme findJoursVendeurAvant / findHeuresVendeurAvant
+    private VenteJourRepository repository() {
+        return (VenteJourRepository) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[] {VenteJourRepository.class}, (proxy, method, args) -> {
+                    int size = ((Pageable) args[2]).getPageSize();
+                    List<Object> rows = new ArrayList<>();
+                    switch (method.getName()) {
+                        case "findJoursVendeurAvant" ->
+                                days.headMap((LocalDate) args[1], false).descendingMap().values().stream()
+                                        .limit(size).forEach(rows::add);
+                        case "findHeuresVendeurAvant" ->
+                                hours.headMap((LocalDateTime) args[1], false).descendingMap().values().stream()
+                                        .limit(size).forEach(rows::add);
+                        default -> throw new UnsupportedOperationException(method.getName());
+                    }
+                    return rows;
+                });
+    }
+}
@@ -0,0 +1,127 @@
+package org.example.projectjee.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Garanties de {@link BloomFilter} : aucun faux négatif, un taux de faux
+ * positifs tenu jusqu'à {@code expected} insertions, la saturation signalée
+ * dès l'insertion suivante, et un filtre reconstruit plus grand qui retrouve
+ * le taux visé.
+ */
+class BloomFilterTest {
+
+    private static final int EXPECTED = 20_000;
+    private static final double FPP = 0.01;
+
+    private final Random random = new Random(13);
+
+    @Test
+    void noFalseNegativesAndFalsePositiveRateNearTarget() {
+        BloomFilter bloom = new BloomFilter(EXPECTED, FPP);
+        Set<String> inserted = new HashSet<>();
+        while (inserted.size() < EXPECTED) {
+            String asin = randomAsin();
+            if (inserted.add(asin)) bloom.put(asin);
+        }
+        assertFalse(bloom.isSaturated());
+
+        for (String asin : inserted) {
+            assertTrue(bloom.mightContain(asin), "faux négatif : " + asin);
+        }
+        assertTrue(falsePositiveRate(bloom, inserted) < 2 * FPP);
+    }
+
+    @Test
+    void saturationIsReportedAndRateDrifts() {
+        BloomFilter bloom = new BloomFilter(1_000, FPP);
+        Set<String> inserted = new HashSet<>();
+        while (inserted.size() < 1_000) {
+            String asin = randomAsin();
+            if (inserted.add(asin)) bloom.put(asin);
+        }
+        assertFalse(bloom.isSaturated());
+
+        while (inserted.size() < 5_000) {
+            String asin = randomAsin();
+            if (inserted.add(asin)) bloom.put(asin);
+        }
+        assertTrue(bloom.isSaturated());
+        for (String asin : inserted) {
+            assertTrue(bloom.mightContain(asin), "faux négatif : " + asin);
+        }
+        assertTrue(falsePositiveRate(bloom, inserted) > 2 * FPP);
+    }
+
+    @Test
+    void tinyFilterStillWorks() {
+        BloomFilter bloom = new BloomFilter(0, FPP);
+        bloom.put("B000000001");
+        assertTrue(bloom.mightContain("B000000001"));
+        assertFalse(bloom.mightContain("B000000002"));
+        assertEquals(1, bloom.getInserted());
+    }
+
+    @Test
+    void saturatedOneInsertPastExpected() {
+        BloomFilter bloom = new BloomFilter(100, FPP);
+        for (int i = 0; i < 100; i++) bloom.put("B0" + String.format("%08d", i));
+        assertFalse(bloom.isSaturated());
+
+        // un doublon compte comme une insertion : le filtre ne sait pas le reconnaître
+        bloom.put("B000000000");
+        assertTrue(bloom.isSaturated());
+        assertEquals(101, bloom.getInserted());
+    }
+
+    @Test
+    void rebuildingASaturatedFilterRestoresTheRate() {
+        BloomFilter saturated = new BloomFilter(1_000, FPP);
+        Set<String> inserted = new HashSet<>();
+        while (inserted.size() < 4_000) {
+            String asin = randomAsin();
+            if (inserted.add(asin)) saturated.put(asin);
+        }
+        assertTrue(saturated.isSaturated());
+
+        // reconstruction comme dans AsinIndex : deux fois le contenu actuel
+        BloomFilter rebuilt = new BloomFilter(2L * inserted.size(), FPP);
+        for (String asin : inserted) rebuilt.put(asin);
+        assertFalse(rebuilt.isSaturated());
+        for (String asin : inserted) {
+            assertTrue(rebuilt.mightContain(asin), "faux négatif : " + asin);
+        }
+        assertTrue(falsePositiveRate(rebuilt, inserted) < FPP);
+        assertTrue(falsePositiveRate(saturated, inserted) > 2 * FPP);
+    }
+
+    // ========== RÉFÉRENCE ==========
+
+    private double falsePositiveRate(BloomFilter bloom, Set<String> inserted) {
+        int trials = 100_000;
+        int positives = 0;
+        int tested = 0;
+        while (tested < trials) {
+            String asin = randomAsin();
+            if (inserted.contains(asin)) continue;
+            tested++;
+            if (bloom.mightContain(asin)) positives++;
+        }
+        return (double) positives / trials;
+    }
+
+    // ASIN : "B0" + 8 caractères alphanumériques majuscules
+    private String randomAsin() {
+        String chars = "ABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789";
+        StringBuilder sb = new StringBuilder("B0");
+        for (int i = 0; i < 8; i++) sb.append(chars.charAt(random.nextInt(chars.length())));
+        return sb.toString();
+    }
+}
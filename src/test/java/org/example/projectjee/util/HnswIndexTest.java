@@ -0,0 +1,191 @@
+package org.example.projectjee.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.example.projectjee.services.HashingEmbeddingProvider;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Rappel de {@link HnswIndex} mesuré contre une recherche exhaustive (produit
+ * scalaire sur tous les vecteurs), avant et après retraits et compaction.
+ * Les vecteurs viennent de {@link HashingEmbeddingProvider} sur des titres aléatoires.
+ */
+class HnswIndexTest {
+
+    private static final int DIMENSION = 64;
+    private static final int PRODUCTS = 3000;
+    private static final int QUERIES = 200;
+    private static final int K = 10;
+    private static final int EF = 64;
+    private static final double MIN_RECALL = 0.9;
+
+    private static final String[] WORDS = {
+            "coque", "iphone", "samsung", "galaxy", "chargeur", "cable", "usb", "ecouteurs",
+            "bluetooth", "casque", "clavier", "souris", "ecran", "portable", "batterie", "montre",
+            "sport", "cuir", "noir", "blanc", "rouge", "bleu", "rapide", "sans", "fil", "pro",
+            "mini", "max", "support", "voiture", "lampe", "led", "enceinte", "tablette", "stylet"
+    };
+
+    private final Random random = new Random(3);
+    private final HashingEmbeddingProvider embeddings = new HashingEmbeddingProvider(DIMENSION);
+    private final List<float[]> vectors = new ArrayList<>();
+    private HnswIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new HnswIndex(DIMENSION, 16, 100);
+        for (int i = 0; i < PRODUCTS; i++) {
+            float[] v = embeddings.embed(randomTitle());
+            vectors.add(v);
+            index.add(i, v);
+        }
+    }
+
+    @Test
+    void recallAgainstBruteForce() {
+        assertTrue(recall(index, allKeys()) >= MIN_RECALL);
+    }
+
+    @Test
+    void removedKeysAreNeverReturned() {
+        Set<Long> live = allKeys();
+        for (long key = 0; key < PRODUCTS; key += 3) {
+            index.remove(key);
+            live.remove(key);
+        }
+        assertEquals(live.size(), index.size());
+        assertFalse(index.contains(0));
+        assertNull(index.vector(0));
+        assertTrue(index.deletedRatio() > 0.3);
+
+        for (int q = 0; q < QUERIES; q++) {
+            for (HnswIndex.Hit hit : index.search(embeddings.embed(randomTitle()), K, EF)) {
+                assertTrue(live.contains(hit.getKey()), "clé retirée renvoyée : " + hit.getKey());
+            }
+        }
+        assertTrue(recall(index, live) >= MIN_RECALL);
+    }
+
+    @Test
+    void replacingAKeyKeepsOnlyTheNewVector() {
+        float[] v = embeddings.embed("veilleuse licorne arc-en-ciel");
+        index.add(7, v);
+        assertEquals(PRODUCTS, index.size());
+        assertTrue(index.deletedRatio() > 0);
+        vectors.set(7, v);
+
+        List<HnswIndex.Hit> hits = index.search(v, 1, EF);
+        assertEquals(7L, hits.get(0).getKey());
+        assertEquals(1f, hits.get(0).getScore(), 1e-5);
+    }
+
+    @Test
+    void compactedIndexKeepsLiveKeysAndRecall() {
+        Set<Long> live = allKeys();
+        for (long key = 1; key < PRODUCTS; key += 2) {
+            index.remove(key);
+            live.remove(key);
+        }
+        HnswIndex compacted = index.compacted();
+
+        assertEquals(0.0, compacted.deletedRatio(), 0.0);
+        assertEquals(live.size(), compacted.size());
+        for (long key : live) {
+            assertTrue(compacted.contains(key));
+            assertNotNull(compacted.vector(key));
+        }
+        assertTrue(recall(compacted, live) >= MIN_RECALL);
+    }
+
+    @Test
+    void saveAndLoadRoundTrip() throws Exception {
+        for (long key = 0; key < PRODUCTS; key += 5) {
+            index.remove(key);
+        }
+        Path dir = Files.createTempDirectory("hnsw");
+        Path file = dir.resolve("index.hnsw");
+        try {
+            index.save(file, embeddings.id());
+            assertNull(HnswIndex.load(file, "autre-fournisseur", DIMENSION));
+
+            HnswIndex loaded = HnswIndex.load(file, embeddings.id(), DIMENSION);
+            assertNotNull(loaded);
+            assertEquals(index.size(), loaded.size());
+            assertEquals(index.deletedRatio(), loaded.deletedRatio(), 0.0);
+            for (int q = 0; q < 20; q++) {
+                float[] query = embeddings.embed(randomTitle());
+                assertEquals(keys(index.search(query, K, EF)), keys(loaded.search(query, K, EF)));
+            }
+        } finally {
+            Files.deleteIfExists(file);
+            Files.deleteIfExists(dir);
+        }
+    }
+
+    // ========== RÉFÉRENCE EXHAUSTIVE ==========
+
+    // titres courts : beaucoup de vecteurs à égalité, un résultat compte s'il est au moins aussi proche que le k-ième exact
+    private double recall(HnswIndex idx, Set<Long> live) {
+        int found = 0;
+        int expected = 0;
+        for (int q = 0; q < QUERIES; q++) {
+            float[] query = embeddings.embed(randomTitle());
+            List<Long> exact = bruteForce(query, live);
+            float kth = dot(query, vectors.get(exact.get(exact.size() - 1).intValue()));
+            expected += exact.size();
+            for (HnswIndex.Hit hit : idx.search(query, K, EF)) {
+                if (dot(query, vectors.get((int) hit.getKey())) >= kth - 1e-6f) found++;
+            }
+        }
+        return (double) found / expected;
+    }
+
+    private List<Long> bruteForce(float[] query, Set<Long> live) {
+        return live.stream()
+                .sorted((a, b) -> {
+                    int c = Float.compare(dot(query, vectors.get(b.intValue())), dot(query, vectors.get(a.intValue())));
+                    return c != 0 ? c : Long.compare(a, b);
+                })
+                .limit(K)
+                .toList();
+    }
+
+    private static float dot(float[] a, float[] b) {
+        float s = 0f;
+        for (int i = 0; i < a.length; i++) s += a[i] * b[i];
+        return s;
+    }
+
+    private Set<Long> allKeys() {
+        Set<Long> keys = new HashSet<>();
+        for (long key = 0; key < PRODUCTS; key++) keys.add(key);
+        return keys;
+    }
+
+    private static List<Long> keys(List<HnswIndex.Hit> hits) {
+        return hits.stream().map(HnswIndex.Hit::getKey).toList();
+    }
+
+    private String randomTitle() {
+        int n = 2 + random.nextInt(4);
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < n; i++) {
+            if (i > 0) sb.append(' ');
+            sb.append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,128 @@
+package org.example.projectjee.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Erreur de rang de {@link KllSketch} mesurée contre le tableau trié complet,
+ * sur un flux simple et après fusion de plusieurs sketches.
+ */
+class KllSketchTest {
+
+    private static final int N = 200_000;
+    private static final double MAX_RANK_ERROR = 0.02;   // ~1,7/k attendu avec k = 200
+    private static final double[] FRACTIONS = {0.01, 0.05, 0.1, 0.25, 0.5, 0.75, 0.9, 0.95, 0.99};
+
+    private final Random random = new Random(29);
+
+    @Test
+    void rankErrorOnRandomSortedAndReversedStreams() {
+        double[] data = randomData(N);
+        assertRankError(sketchOf(data), data);
+
+        double[] sorted = data.clone();
+        Arrays.sort(sorted);
+        assertRankError(sketchOf(sorted), data);
+
+        double[] reversed = new double[N];
+        for (int i = 0; i < N; i++) reversed[i] = sorted[N - 1 - i];
+        assertRankError(sketchOf(reversed), data);
+    }
+
+    @Test
+    void mergedSketchesKeepTheRankError() {
+        double[] data = randomData(N);
+        KllSketch merged = new KllSketch();
+        int parts = 10;
+        for (int p = 0; p < parts; p++) {
+            KllSketch part = sketchOf(Arrays.copyOfRange(data, p * N / parts, (p + 1) * N / parts));
+            long before = part.getCount();
+            merged.merge(part);
+            assertEquals(before, part.getCount());   // la source n'est pas modifiée
+        }
+        assertRankError(merged, data);
+
+        // fusion déséquilibrée : un gros sketch dans un petit
+        KllSketch small = sketchOf(Arrays.copyOf(data, 100));
+        small.merge(sketchOf(Arrays.copyOfRange(data, 100, N)));
+        assertRankError(small, data);
+    }
+
+    @Test
+    void smallAndEmptySketches() {
+        KllSketch empty = new KllSketch();
+        assertTrue(Double.isNaN(empty.quantiles(0.5)[0]));
+        empty.merge(new KllSketch());
+        assertEquals(0, empty.getCount());
+
+        // sous la capacité : rien n'est compacté, les quantiles sont exacts
+        double[] data = randomData(100);
+        KllSketch exact = sketchOf(data);
+        double[] sorted = data.clone();
+        Arrays.sort(sorted);
+        double[] q = exact.quantiles(0, 0.5, 1);
+        assertEquals(sorted[0], q[0]);
+        assertEquals(sorted[49], q[1]);
+        assertEquals(sorted[99], q[2]);
+    }
+
+    // ========== RÉFÉRENCE ==========
+
+    // le rang réel de la valeur renvoyée doit encadrer la fraction demandée, à l'erreur près
+    private static void assertRankError(KllSketch sketch, double[] data) {
+        double[] sorted = data.clone();
+        Arrays.sort(sorted);
+        assertEquals(sorted.length, sketch.getCount());
+        assertEquals(sorted[0], sketch.getMin());
+        assertEquals(sorted[sorted.length - 1], sketch.getMax());
+
+        double[] values = sketch.quantiles(FRACTIONS);
+        for (int i = 0; i < FRACTIONS.length; i++) {
+            double below = (double) lowerBound(sorted, values[i]) / sorted.length;
+            double atOrBelow = (double) upperBound(sorted, values[i]) / sorted.length;
+            double error = FRACTIONS[i] < below ? below - FRACTIONS[i]
+                    : FRACTIONS[i] > atOrBelow ? FRACTIONS[i] - atOrBelow : 0;
+            assertTrue(error <= MAX_RANK_ERROR, "p" + FRACTIONS[i] + " : erreur de rang " + error);
+        }
+    }
+
+    private static int lowerBound(double[] sorted, double v) {
+        int lo = 0, hi = sorted.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (sorted[mid] < v) lo = mid + 1; else hi = mid;
+        }
+        return lo;
+    }
+
+    private static int upperBound(double[] sorted, double v) {
+        int lo = 0, hi = sorted.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (sorted[mid] <= v) lo = mid + 1; else hi = mid;
+        }
+        return lo;
+    }
+
+    // ========== DONNÉES ==========
+
+    private static KllSketch sketchOf(double[] data) {
+        KllSketch sketch = new KllSketch();
+        for (double v : data) sketch.update(v);
+        return sketch;
+    }
+
+    // prix : log-normale arrondie au centime, beaucoup d'égalités
+    private double[] randomData(int n) {
+        double[] data = new double[n];
+        for (int i = 0; i < n; i++) {
+            data[i] = Math.round(Math.exp(3 + random.nextGaussian()) * 100) / 100.0;
+        }
+        return data;
+    }
+}
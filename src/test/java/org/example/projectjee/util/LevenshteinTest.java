@@ -0,0 +1,79 @@
+package org.example.projectjee.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Compare {@link Levenshtein#bounded} avec la matrice complète de
+ * programmation dynamique, bornée ensuite à {@code max + 1}.
+ */
+class LevenshteinTest {
+
+    private final Random random = new Random(11);
+
+    @Test
+    void boundedMatchesFullMatrix() {
+        for (int i = 0; i < 20_000; i++) {
+            String a = randomWord(random.nextInt(9));
+            String b = random.nextInt(3) == 0 ? mutate(a) : randomWord(random.nextInt(9));
+            int max = random.nextInt(4);
+            assertEquals(Math.min(naive(a, b), max + 1), Levenshtein.bounded(a, b, max),
+                    "\"" + a + "\" / \"" + b + "\" max " + max);
+        }
+    }
+
+    @Test
+    void knownDistances() {
+        assertEquals(0, Levenshtein.bounded("echo", "echo", 2));
+        assertEquals(1, Levenshtein.bounded("stik", "stick", 2));
+        assertEquals(1, Levenshtein.bounded("dott", "dot", 2));
+        assertEquals(3, Levenshtein.bounded("kitten", "sitting", 3));
+        assertEquals(3, Levenshtein.bounded("kitten", "sitting", 2));
+        assertEquals(2, Levenshtein.bounded("", "ab", 2));
+        assertEquals(1, Levenshtein.bounded("", "abc", 0));
+    }
+
+    // ========== RÉFÉRENCE NAÏVE ==========
+
+    private static int naive(String a, String b) {
+        int[][] d = new int[a.length() + 1][b.length() + 1];
+        for (int i = 0; i <= a.length(); i++) d[i][0] = i;
+        for (int j = 0; j <= b.length(); j++) d[0][j] = j;
+        for (int i = 1; i <= a.length(); i++) {
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                d[i][j] = Math.min(Math.min(d[i - 1][j] + 1, d[i][j - 1] + 1), d[i - 1][j - 1] + cost);
+            }
+        }
+        return d[a.length()][b.length()];
+    }
+
+    // ========== DONNÉES ==========
+
+    // petit alphabet : beaucoup de lettres communes, distances variées
+    private String randomWord(int length) {
+        StringBuilder sb = new StringBuilder(length);
+        for (int i = 0; i < length; i++) sb.append((char) ('a' + random.nextInt(3)));
+        return sb.toString();
+    }
+
+    private String mutate(String word) {
+        StringBuilder sb = new StringBuilder(word);
+        int edits = random.nextInt(4);
+        for (int e = 0; e < edits; e++) {
+            int op = random.nextInt(3);
+            char c = (char) ('a' + random.nextInt(3));
+            if (op == 0 || sb.length() == 0) {
+                sb.insert(random.nextInt(sb.length() + 1), c);
+            } else if (op == 1) {
+                sb.deleteCharAt(random.nextInt(sb.length()));
+            } else {
+                sb.setCharAt(random.nextInt(sb.length()), c);
+            }
+        }
+        return sb.toString();
+    }
+}
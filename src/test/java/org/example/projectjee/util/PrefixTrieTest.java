@@ -0,0 +1,213 @@
+package org.example.projectjee.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Compare les complétions de {@link PrefixTrie} avec un parcours naïf de toutes
+ * les entrées (une clé commence par le préfixe, poids décroissant, libellé, id),
+ * après des ajouts, des mises à jour de poids ou de clés et des retraits.
+ */
+class PrefixTrieTest {
+
+    private static final int TOP_K = 5;
+    private static final String ALPHABET = "abcd";
+
+    private final Random random = new Random(7);
+    private final Map<Long, PrefixTrie.Entry> reference = new HashMap<>();
+    private final Map<Long, List<String>> keys = new HashMap<>();
+
+    @Test
+    void completionsMatchNaiveScanUnderUpdates() {
+        PrefixTrie trie = new PrefixTrie(TOP_K);
+        for (long id = 1; id <= 300; id++) {
+            put(trie, randomEntry(id));
+        }
+        for (int round = 0; round < 3000; round++) {
+            long id = 1 + random.nextInt(400);
+            switch (random.nextInt(4)) {
+                case 0 -> {
+                    trie.remove(id);
+                    reference.remove(id);
+                }
+                case 1 -> {
+                    // seul le poids change : les clés restent les mêmes
+                    PrefixTrie.Entry old = reference.get(id);
+                    if (old != null) {
+                        put(trie, new PrefixTrie.Entry(id, old.getLabel(), random.nextInt(20), keysOf(old)));
+                    }
+                }
+                default -> put(trie, randomEntry(id));
+            }
+            if (round % 10 == 0) {
+                assertCompletions(trie);
+            }
+        }
+        assertEquals(reference.size(), trie.size());
+        assertCompletions(trie);
+    }
+
+    @Test
+    void weightDropLetsAnEntryOutsideTheCacheMoveUp() {
+        PrefixTrie trie = new PrefixTrie(2);
+        trie.put(new PrefixTrie.Entry(1, "a1", 30, List.of("ab")));
+        trie.put(new PrefixTrie.Entry(2, "a2", 20, List.of("ac")));
+        trie.put(new PrefixTrie.Entry(3, "a3", 10, List.of("ad")));
+        assertEquals(List.of(1L, 2L), ids(trie.complete("a", 2)));
+
+        trie.put(new PrefixTrie.Entry(1, "a1", 5, List.of("ab")));
+        assertEquals(List.of(2L, 3L), ids(trie.complete("a", 2)));
+
+        trie.put(new PrefixTrie.Entry(3, "a3", 50, List.of("ad")));
+        assertEquals(List.of(3L, 2L), ids(trie.complete("a", 2)));
+    }
+
+    @Test
+    void changedKeysAreDroppedFromTheOldPrefixes() {
+        PrefixTrie trie = new PrefixTrie(TOP_K);
+        trie.put(new PrefixTrie.Entry(1, "coque iphone", 10, List.of("coque iphone", "iphone")));
+        trie.put(new PrefixTrie.Entry(1, "coque galaxy", 10, List.of("coque galaxy", "galaxy")));
+
+        assertEquals(List.of(), trie.complete("iph", TOP_K));
+        assertEquals(List.of(1L), ids(trie.complete("gal", TOP_K)));
+        assertEquals(List.of(1L), ids(trie.complete("coque", TOP_K)));
+        assertEquals("coque galaxy", trie.complete("coque", TOP_K).get(0).getLabel());
+    }
+
+    @Test
+    void concurrentReadersUnderReadLock() throws Exception {
+        PrefixTrie trie = new PrefixTrie(TOP_K);
+        ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+        for (long id = 1; id <= 500; id++) {
+            put(trie, randomEntry(id));
+        }
+
+        AtomicBoolean stop = new AtomicBoolean();
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        List<Future<?>> readers = new ArrayList<>();
+        for (int t = 0; t < 3; t++) {
+            readers.add(pool.submit(() -> {
+                Random r = new Random();
+                while (!stop.get()) {
+                    String prefix = randomWord(r, 1 + r.nextInt(3));
+                    lock.readLock().lock();
+                    try {
+                        List<PrefixTrie.Entry> top = trie.complete(prefix, TOP_K);
+                        for (int i = 1; i < top.size(); i++) {
+                            assertTrue(top.get(i - 1).getWeight() >= top.get(i).getWeight());
+                        }
+                    } finally {
+                        lock.readLock().unlock();
+                    }
+                }
+                return null;
+            }));
+        }
+        for (int round = 0; round < 2000; round++) {
+            long id = 1 + random.nextInt(600);
+            lock.writeLock().lock();
+            try {
+                if (random.nextInt(3) == 0) {
+                    trie.remove(id);
+                    reference.remove(id);
+                } else {
+                    put(trie, randomEntry(id));
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+        stop.set(true);
+        for (Future<?> f : readers) {
+            f.get(10, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+        assertCompletions(trie);
+    }
+
+    // ========== RÉFÉRENCE NAÏVE ==========
+
+    private void assertCompletions(PrefixTrie trie) {
+        for (int len = 1; len <= 3; len++) {
+            for (String prefix : allWords(len)) {
+                int limit = 1 + random.nextInt(TOP_K);
+                assertEquals(naive(prefix, limit), ids(trie.complete(prefix, limit)), "préfixe " + prefix);
+            }
+        }
+    }
+
+    private List<Long> naive(String prefix, int limit) {
+        return reference.values().stream()
+                .filter(e -> keysOf(e).stream().anyMatch(k -> k.startsWith(prefix)))
+                .sorted(Comparator.comparingLong(PrefixTrie.Entry::getWeight).reversed()
+                        .thenComparing(PrefixTrie.Entry::getLabel)
+                        .thenComparingLong(PrefixTrie.Entry::getId))
+                .limit(limit)
+                .map(PrefixTrie.Entry::getId)
+                .toList();
+    }
+
+    // ========== DONNÉES ==========
+
+    private void put(PrefixTrie trie, PrefixTrie.Entry entry) {
+        trie.put(entry);
+        reference.put(entry.getId(), entry);
+    }
+
+    private List<String> keysOf(PrefixTrie.Entry e) {
+        return keys.get(e.getId());
+    }
+
+    // petits alphabet et poids : beaucoup de préfixes partagés et d'égalités
+    private PrefixTrie.Entry randomEntry(long id) {
+        Set<String> k = new LinkedHashSet<>();
+        int n = 1 + random.nextInt(3);
+        for (int i = 0; i < n; i++) {
+            k.add(randomWord(random, 1 + random.nextInt(5)));
+        }
+        List<String> list = new ArrayList<>(k);
+        keys.put(id, list);
+        return new PrefixTrie.Entry(id, "p" + random.nextInt(50), random.nextInt(20), list);
+    }
+
+    private static String randomWord(Random r, int length) {
+        StringBuilder sb = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            sb.append(ALPHABET.charAt(r.nextInt(ALPHABET.length())));
+        }
+        return sb.toString();
+    }
+
+    private static List<String> allWords(int length) {
+        List<String> out = new ArrayList<>(List.of(""));
+        for (int i = 0; i < length; i++) {
+            List<String> next = new ArrayList<>();
+            for (String w : out) {
+                for (char c : ALPHABET.toCharArray()) next.add(w + c);
+            }
+            out = next;
+        }
+        return out;
+    }
+
+    private static List<Long> ids(List<PrefixTrie.Entry> entries) {
+        return entries.stream().map(PrefixTrie.Entry::getId).toList();
+    }
+}
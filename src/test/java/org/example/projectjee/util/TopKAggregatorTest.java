@@ -0,0 +1,140 @@
+package org.example.projectjee.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Classements de {@link TopKAggregator} : cas nommés (égalités départagées
+ * par la clé, totaux négatifs ou nuls, agrandissement de la table) puis un
+ * tirage large recoupé avec une {@link HashMap} triée en entier.
+ */
+class TopKAggregatorTest {
+
+    private static final int ROUNDS = 200;
+
+    private final Random random = new Random(29);
+
+    @Test
+    void topMatchesFullSortOfAHashMap() {
+        for (int round = 0; round < ROUNDS; round++) {
+            int distinct = 1 + random.nextInt(round % 10 == 0 ? 5_000 : 300);
+            long[] pool = keyPool(distinct);
+            // capacité initiale parfois trop petite : plusieurs agrandissements
+            TopKAggregator aggregator = random.nextBoolean() ? new TopKAggregator() : new TopKAggregator(distinct);
+            Map<Long, double[]> reference = new HashMap<>();
+
+            int adds = 1 + random.nextInt(distinct * 4);
+            for (int i = 0; i < adds; i++) {
+                long key = pool[random.nextInt(pool.length)];
+                // demi-points : beaucoup d'égalités de score
+                double score = random.nextInt(10) * 0.5;
+                long count = 1 + random.nextInt(3);
+                if (random.nextBoolean()) {
+                    aggregator.add(key, score);
+                    count = 1;
+                } else {
+                    aggregator.add(key, score, count);
+                }
+                double[] cumul = reference.computeIfAbsent(key, k -> new double[2]);
+                cumul[0] += score;
+                cumul[1] += count;
+            }
+            assertEquals(reference.size(), aggregator.size());
+
+            List<TopKAggregator.Entry> sorted = naiveTop(reference);
+            for (int k : new int[] {1, 3, 10, reference.size(), reference.size() + 5, 1 + random.nextInt(50)}) {
+                assertEquals(sorted.subList(0, Math.min(k, sorted.size())), aggregator.top(k), "k = " + k);
+            }
+        }
+    }
+
+    @Test
+    void emptyOrNonPositiveK() {
+        TopKAggregator aggregator = new TopKAggregator();
+        assertTrue(aggregator.top(5).isEmpty());
+        aggregator.add(7, 1.0);
+        assertTrue(aggregator.top(0).isEmpty());
+        assertTrue(aggregator.top(-1).isEmpty());
+        assertEquals(List.of(new TopKAggregator.Entry(7, 1.0, 1)), aggregator.top(1));
+    }
+
+    @Test
+    void equalScoresAreOrderedByKeyIncludingNegativeKeys() {
+        TopKAggregator aggregator = new TopKAggregator();
+        aggregator.add(3, 2.0);
+        aggregator.add(-5, 2.0);
+        aggregator.add(Long.MIN_VALUE, 2.0);
+        aggregator.add(0, 1.0);
+        aggregator.add(0, 1.0); // cumul 2.0 : rejoint l'égalité
+
+        assertEquals(List.of(
+                new TopKAggregator.Entry(Long.MIN_VALUE, 2.0, 1),
+                new TopKAggregator.Entry(-5, 2.0, 1),
+                new TopKAggregator.Entry(0, 2.0, 2)), aggregator.top(3));
+    }
+
+    @Test
+    void negativeTotalsRankBelowZero() {
+        TopKAggregator aggregator = new TopKAggregator();
+        aggregator.add(1, 5.0);
+        aggregator.add(1, -5.0); // total nul, mais la clé reste comptée
+        aggregator.add(2, -0.5);
+        aggregator.add(3, 0.25);
+
+        assertEquals(3, aggregator.size());
+        assertEquals(List.of(
+                new TopKAggregator.Entry(3, 0.25, 1),
+                new TopKAggregator.Entry(1, 0.0, 2),
+                new TopKAggregator.Entry(2, -0.5, 1)), aggregator.top(10));
+    }
+
+    @Test
+    void totalsSurviveTheTableGrowing() {
+        // capacité par défaut 16 : la 9e clé distincte déclenche l'agrandissement
+        TopKAggregator aggregator = new TopKAggregator();
+        for (long key = 1; key <= 8; key++) aggregator.add(key, key, 10);
+        aggregator.add(9, 0.5, 1);
+        for (long key = 1; key <= 8; key++) aggregator.add(key, 100.0, 1);
+
+        List<TopKAggregator.Entry> top = aggregator.top(9);
+        assertEquals(new TopKAggregator.Entry(8, 108.0, 11), top.get(0));
+        assertEquals(new TopKAggregator.Entry(1, 101.0, 11), top.get(7));
+        assertEquals(new TopKAggregator.Entry(9, 0.5, 1), top.get(8));
+    }
+
+    // ========== RÉFÉRENCE NAÏVE ==========
+
+    private static List<TopKAggregator.Entry> naiveTop(Map<Long, double[]> reference) {
+        List<TopKAggregator.Entry> all = new ArrayList<>();
+        reference.forEach((key, cumul) -> all.add(new TopKAggregator.Entry(key, cumul[0], (long) cumul[1])));
+        all.sort(Comparator.comparingDouble(TopKAggregator.Entry::score).reversed()
+                .thenComparingLong(TopKAggregator.Entry::key));
+        return all;
+    }
+
+    // ========== DONNÉES ==========
+
+    // ids séquentiels (cas des produits), clés aléatoires et extrêmes
+    private long[] keyPool(int distinct) {
+        long[] pool = new long[distinct];
+        boolean sequential = random.nextBoolean();
+        for (int i = 0; i < distinct; i++) {
+            pool[i] = sequential ? i + 1 : random.nextLong();
+        }
+        if (distinct > 2 && !sequential) {
+            pool[0] = Long.MIN_VALUE;
+            pool[1] = Long.MAX_VALUE;
+            pool[2] = 0;
+        }
+        return pool;
+    }
+}